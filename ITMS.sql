@@ -1128,4 +1128,281 @@ FROM Notification
 WHERE is_draft = 1
   AND user_id IS NOT NULL
   AND sender_id IS NOT NULL
-  AND user_id = sender_id;
\ No newline at end of file
+  AND user_id = sender_id;
+
+-- =====================================================
+-- QuizSubmission: durable queue for exam-burst (asynchronous) quiz grading
+-- =====================================================
+IF NOT EXISTS (SELECT 1 FROM sys.tables WHERE name = 'QuizSubmission')
+BEGIN
+    CREATE TABLE QuizSubmission (
+        id                 INT           IDENTITY(1,1) PRIMARY KEY,
+        attempt_id         INT           NOT NULL,
+        answers_json       NVARCHAR(MAX) NOT NULL,
+        time_taken_minutes INT           NULL,
+        status             NVARCHAR(20)  NOT NULL DEFAULT 'QUEUED'
+                                         CHECK (status IN ('QUEUED','PROCESSING','GRADED','FAILED')),
+        error_message      NVARCHAR(500) NULL,
+        attempt_count      INT           NOT NULL DEFAULT 0,
+        queued_at          DATETIME      NOT NULL DEFAULT GETDATE(),
+        claimed_at         DATETIME      NULL,
+        processed_at       DATETIME      NULL,
+
+        CONSTRAINT FK_QuizSubmission_Attempt
+            FOREIGN KEY (attempt_id) REFERENCES QuizAttempt(id) ON DELETE CASCADE,
+        CONSTRAINT UQ_QuizSubmission_Attempt
+            UNIQUE (attempt_id)
+    );
+
+    CREATE NONCLUSTERED INDEX IX_QuizSubmission_Status
+        ON QuizSubmission(status, id);
+    PRINT 'QuizSubmission table created.';
+END
+ELSE
+    PRINT 'QuizSubmission table already exists.';
+GO
+
+-- =====================================================
+-- QuizAttempt.shuffle_seed: per-attempt question/option permutation seed (randomized quizzes)
+-- =====================================================
+IF COL_LENGTH('QuizAttempt', 'shuffle_seed') IS NULL
+BEGIN
+    ALTER TABLE QuizAttempt ADD shuffle_seed BIGINT NULL;
+    PRINT 'QuizAttempt.shuffle_seed column added.';
+END
+GO
+
+-- =====================================================
+-- QuizQuestionStats: running item-analysis aggregates per question
+-- =====================================================
+IF NOT EXISTS (SELECT 1 FROM sys.tables WHERE name = 'QuizQuestionStats')
+BEGIN
+    CREATE TABLE QuizQuestionStats (
+        question_id       INT      NOT NULL PRIMARY KEY,
+        quiz_id           INT      NOT NULL,
+        responses         BIGINT   NOT NULL DEFAULT 0,
+        correct_count     BIGINT   NOT NULL DEFAULT 0,
+        option_a_count    BIGINT   NOT NULL DEFAULT 0,
+        option_b_count    BIGINT   NOT NULL DEFAULT 0,
+        option_c_count    BIGINT   NOT NULL DEFAULT 0,
+        option_d_count    BIGINT   NOT NULL DEFAULT 0,
+        unanswered_count  BIGINT   NOT NULL DEFAULT 0,
+        sum_score         FLOAT    NOT NULL DEFAULT 0,
+        sum_score_sq      FLOAT    NOT NULL DEFAULT 0,
+        sum_correct_score FLOAT    NOT NULL DEFAULT 0,
+        timed_count       BIGINT   NOT NULL DEFAULT 0,
+        sum_time_seconds  BIGINT   NOT NULL DEFAULT 0,
+        updated_at        DATETIME NULL,
+
+        CONSTRAINT FK_QuizQuestionStats_Question
+            FOREIGN KEY (question_id) REFERENCES QuizQuestion(id) ON DELETE CASCADE
+    );
+
+    CREATE NONCLUSTERED INDEX IX_QuizQuestionStats_Quiz
+        ON QuizQuestionStats(quiz_id);
+    PRINT 'QuizQuestionStats table created.';
+END
+ELSE
+    PRINT 'QuizQuestionStats table already exists.';
+GO
+
+-- =====================================================
+-- QuizAttemptCounter: atomic per (quiz, user) attempt number allocation
+-- =====================================================
+IF NOT EXISTS (SELECT 1 FROM sys.tables WHERE name = 'QuizAttemptCounter')
+BEGIN
+    CREATE TABLE QuizAttemptCounter (
+        quiz_id             INT NOT NULL,
+        user_id             INT NOT NULL,
+        last_attempt_number INT NOT NULL,
+
+        CONSTRAINT PK_QuizAttemptCounter PRIMARY KEY (quiz_id, user_id),
+        CONSTRAINT FK_QuizAttemptCounter_Quiz
+            FOREIGN KEY (quiz_id) REFERENCES Quiz(id)   ON DELETE CASCADE,
+        CONSTRAINT FK_QuizAttemptCounter_User
+            FOREIGN KEY (user_id) REFERENCES [User](id) ON DELETE CASCADE
+    );
+    PRINT 'QuizAttemptCounter table created.';
+END
+ELSE
+    PRINT 'QuizAttemptCounter table already exists.';
+GO
+
+-- Backstop for attempt numbering; skipped (with a notice) while legacy duplicates remain
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'UQ_QuizAttempt_Number')
+BEGIN
+    IF EXISTS (SELECT 1 FROM QuizAttempt GROUP BY quiz_id, user_id, attempt_number HAVING COUNT(*) > 1)
+        PRINT 'UQ_QuizAttempt_Number not created: duplicate attempt numbers must be cleaned up first.';
+    ELSE
+    BEGIN
+        CREATE UNIQUE NONCLUSTERED INDEX UQ_QuizAttempt_Number
+            ON QuizAttempt(quiz_id, user_id, attempt_number);
+        PRINT 'UQ_QuizAttempt_Number created.';
+    END
+END
+GO
+
+-- =====================================================
+-- CourseCompletion: per course/class/student completion projection for HR
+-- =====================================================
+IF NOT EXISTS (SELECT 1 FROM sys.tables WHERE name = 'CourseCompletion')
+BEGIN
+    CREATE TABLE CourseCompletion (
+        course_id         INT          NOT NULL,
+        class_id          INT          NOT NULL,
+        user_id           INT          NOT NULL,
+        attended_sessions INT          NOT NULL DEFAULT 0,
+        total_sessions    INT          NOT NULL DEFAULT 0,
+        attendance_rate   DECIMAL(5,2) NOT NULL DEFAULT 0,
+        eligible          BIT          NOT NULL DEFAULT 0,
+        has_certificate   BIT          NOT NULL DEFAULT 0,
+        updated_at        DATETIME     NULL,
+
+        CONSTRAINT PK_CourseCompletion PRIMARY KEY (course_id, class_id, user_id),
+        CONSTRAINT FK_CourseCompletion_Course
+            FOREIGN KEY (course_id) REFERENCES Course(id)    ON DELETE NO ACTION,
+        CONSTRAINT FK_CourseCompletion_Class
+            FOREIGN KEY (class_id)  REFERENCES ClassRoom(id) ON DELETE CASCADE,
+        CONSTRAINT FK_CourseCompletion_User
+            FOREIGN KEY (user_id)   REFERENCES [User](id)    ON DELETE CASCADE
+    );
+
+    CREATE NONCLUSTERED INDEX IX_CourseCompletion_Class
+        ON CourseCompletion(class_id);
+    CREATE NONCLUSTERED INDEX IX_CourseCompletion_User
+        ON CourseCompletion(user_id, course_id);
+    PRINT 'CourseCompletion table created.';
+END
+ELSE
+    PRINT 'CourseCompletion table already exists.';
+GO
+
+-- =====================================================
+-- UserLearningStreak: incrementally maintained learning-streak state
+-- =====================================================
+IF NOT EXISTS (SELECT 1 FROM sys.tables WHERE name = 'UserLearningStreak')
+BEGIN
+    CREATE TABLE UserLearningStreak (
+        user_id          INT      NOT NULL PRIMARY KEY,
+        current_streak   INT      NOT NULL DEFAULT 0,
+        longest_streak   INT      NOT NULL DEFAULT 0,
+        last_active_date DATE     NULL,
+        updated_at       DATETIME NULL,
+
+        CONSTRAINT FK_UserLearningStreak_User
+            FOREIGN KEY (user_id) REFERENCES [User](id) ON DELETE CASCADE
+    );
+    PRINT 'UserLearningStreak table created.';
+END
+ELSE
+    PRINT 'UserLearningStreak table already exists.';
+GO
+
+-- =====================================================
+-- Session date range index: schedule conflict checks load a whole date range at once
+-- =====================================================
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_Session_Date' AND object_id = OBJECT_ID('Session'))
+BEGIN
+    CREATE NONCLUSTERED INDEX IX_Session_Date
+        ON Session(date)
+        INCLUDE (time_start, time_end, trainer_id, location);
+    PRINT 'IX_Session_Date created.';
+END
+ELSE
+    PRINT 'IX_Session_Date already exists.';
+GO
+
+-- =====================================================
+-- Broadcast notifications: stored once with their audience, inboxes merge them on read
+-- =====================================================
+IF NOT EXISTS (SELECT 1 FROM sys.columns WHERE name = 'audience' AND object_id = OBJECT_ID('Notification'))
+BEGIN
+    ALTER TABLE Notification ADD audience NVARCHAR(20) NULL
+        CONSTRAINT CK_Notification_audience
+        CHECK (audience IN ('ALL','EMPLOYEES','TRAINERS','HR','CLASS_MEMBERS') OR audience IS NULL);
+    PRINT 'Notification.audience added.';
+END
+ELSE
+    PRINT 'Notification.audience already exists.';
+GO
+
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_Notification_Broadcast' AND object_id = OBJECT_ID('Notification'))
+BEGIN
+    CREATE NONCLUSTERED INDEX IX_Notification_Broadcast
+        ON Notification(audience, sent_date DESC)
+        INCLUDE (sender_id, expires_at, is_draft)
+        WHERE audience IS NOT NULL;
+    PRINT 'IX_Notification_Broadcast created.';
+END
+ELSE
+    PRINT 'IX_Notification_Broadcast already exists.';
+GO
+
+-- =====================================================
+-- NotificationReadCursor: per-user read state of broadcasts
+-- Every broadcast that reached the user (sent, or audience joined, whichever is later) up to
+-- (read_through_at, read_through) is read; read_bits marks read ids after it (bit i = read_base + i),
+-- hidden_bits marks dismissed ids (bit i = hidden_base + i).
+-- =====================================================
+IF NOT EXISTS (SELECT 1 FROM sys.tables WHERE name = 'NotificationReadCursor')
+BEGIN
+    CREATE TABLE NotificationReadCursor (
+        user_id         INT            NOT NULL PRIMARY KEY,
+        read_through    INT            NOT NULL DEFAULT 0,
+        read_through_at DATETIME       NULL,
+        read_base       INT            NOT NULL DEFAULT 0,
+        read_bits       VARBINARY(MAX) NULL,
+        hidden_base     INT            NOT NULL DEFAULT 0,
+        hidden_bits     VARBINARY(MAX) NULL,
+        updated_at      DATETIME       NULL,
+
+        CONSTRAINT FK_NotificationReadCursor_User
+            FOREIGN KEY (user_id) REFERENCES [User](id) ON DELETE CASCADE
+    );
+    PRINT 'NotificationReadCursor table created.';
+END
+ELSE
+    PRINT 'NotificationReadCursor table already exists.';
+GO
+
+-- =====================================================
+-- NotificationUnreadCounter: maintained count of a user's unread direct notifications
+-- (sent, not drafts, not the sender's own copy); broadcasts are counted from NotificationReadCursor.
+-- Kept by the application on deliver/read/delete and corrected by a periodic reconciliation.
+-- =====================================================
+IF NOT EXISTS (SELECT 1 FROM sys.tables WHERE name = 'NotificationUnreadCounter')
+BEGIN
+    CREATE TABLE NotificationUnreadCounter (
+        user_id      INT      NOT NULL PRIMARY KEY,
+        unread_count INT      NOT NULL DEFAULT 0,
+        updated_at   DATETIME NULL,
+
+        CONSTRAINT FK_NotificationUnreadCounter_User
+            FOREIGN KEY (user_id) REFERENCES [User](id) ON DELETE CASCADE,
+        CONSTRAINT CK_NotificationUnreadCounter_count CHECK (unread_count >= 0)
+    );
+    PRINT 'NotificationUnreadCounter table created.';
+END
+ELSE
+    PRINT 'NotificationUnreadCounter table already exists.';
+GO
+
+-- =====================================================
+-- CalendarFeedKey: per-user version mixed into the calendar feed token;
+-- bumping it revokes the user's current subscription URL. No row = version 0.
+-- =====================================================
+IF NOT EXISTS (SELECT 1 FROM sys.tables WHERE name = 'CalendarFeedKey')
+BEGIN
+    CREATE TABLE CalendarFeedKey (
+        user_id    INT      NOT NULL PRIMARY KEY,
+        version    INT      NOT NULL DEFAULT 0,
+        updated_at DATETIME NULL,
+
+        CONSTRAINT FK_CalendarFeedKey_User
+            FOREIGN KEY (user_id) REFERENCES [User](id) ON DELETE CASCADE
+    );
+    PRINT 'CalendarFeedKey table created.';
+END
+ELSE
+    PRINT 'CalendarFeedKey table already exists.';
+GO
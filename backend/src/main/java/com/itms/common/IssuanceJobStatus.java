@@ -0,0 +1,8 @@
+package com.itms.common;
+
+public enum IssuanceJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,12 @@
+package com.itms.common;
+
+/**
+ * Recipient set a sent notification is fanned out to
+ */
+public enum NotificationAudience {
+    ALL,
+    EMPLOYEES,
+    TRAINERS,
+    HR,
+    CLASS_MEMBERS
+}
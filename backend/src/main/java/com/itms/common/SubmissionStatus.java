@@ -0,0 +1,8 @@
+package com.itms.common;
+
+public enum SubmissionStatus {
+    QUEUED,
+    PROCESSING,
+    GRADED,
+    FAILED
+}
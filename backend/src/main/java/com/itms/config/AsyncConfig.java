@@ -0,0 +1,134 @@
+package com.itms.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Background executors and scheduling for work moved off the request thread.
+ */
+@Configuration
+@EnableScheduling
+public class AsyncConfig {
+
+    @Value("${itms.quiz.grading.workers:4}")
+    private int gradingWorkers;
+
+    @Value("${itms.certificate.issuance.workers:2}")
+    private int issuanceWorkers;
+
+    @Value("${itms.certificate.render.workers:2}")
+    private int renderWorkers;
+
+    @Value("${itms.schedule.planner.workers:0}")
+    private int plannerWorkers;
+
+    @Value("${itms.notification.fan-out.workers:2}")
+    private int fanOutWorkers;
+
+    @Value("${itms.notification.push.workers:4}")
+    private int pushWorkers;
+
+    /**
+     * Bounded pool that grades queued quiz submissions.
+     * Drain signals beyond the queue capacity are dropped: submissions are durable in the
+     * QuizSubmission table and the scheduled poll picks them up.
+     */
+    @Bean(name = "quizGradingExecutor")
+    public ThreadPoolTaskExecutor quizGradingExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(gradingWorkers);
+        executor.setMaxPoolSize(gradingWorkers);
+        executor.setQueueCapacity(gradingWorkers * 2);
+        executor.setThreadNamePrefix("quiz-grading-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Pool running HR bulk certificate issuance jobs; rejected jobs are reported back as failed.
+     */
+    @Bean(name = "certificateJobExecutor")
+    public ThreadPoolTaskExecutor certificateJobExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(issuanceWorkers);
+        executor.setMaxPoolSize(issuanceWorkers);
+        executor.setQueueCapacity(20);
+        executor.setThreadNamePrefix("certificate-job-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Pool rendering certificate PDFs ahead of download.
+     * Overflow is dropped: certificates without a document are picked up by the render sweep.
+     */
+    @Bean(name = "certificateRenderExecutor")
+    public ThreadPoolTaskExecutor certificateRenderExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(renderWorkers);
+        executor.setMaxPoolSize(renderWorkers);
+        executor.setQueueCapacity(500);
+        executor.setThreadNamePrefix("certificate-render-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Pool running the schedule auto-planner's parallel search restarts (0 workers = one per core).
+     */
+    @Bean(name = "schedulePlannerExecutor")
+    public ThreadPoolTaskExecutor schedulePlannerExecutor() {
+        int workers = plannerWorkers > 0 ? plannerWorkers : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(workers * 4);
+        executor.setThreadNamePrefix("schedule-planner-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Pool delivering sent notifications to their recipients; rejected jobs are reported back as failed.
+     */
+    @Bean(name = "notificationFanOutExecutor")
+    public ThreadPoolTaskExecutor notificationFanOutExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(fanOutWorkers);
+        executor.setMaxPoolSize(fanOutWorkers);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("notification-fan-out-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Pool writing Server-Sent Events to connected clients.
+     * Rejected drains stay queued on their stream and are retried by the next event or heartbeat.
+     */
+    @Bean(name = "notificationPushExecutor")
+    public ThreadPoolTaskExecutor notificationPushExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(pushWorkers);
+        executor.setMaxPoolSize(pushWorkers);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("notification-push-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -17,6 +17,7 @@ import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 
 import java.util.List;
@@ -43,6 +44,8 @@ public class SecurityConfig {
                                 "/api/auth/**",
                                 "/api/test/**",
                                 "/api/health/**").permitAll() // allow login, register, test, and health endpoints
+                        .requestMatchers(HttpMethod.GET, "/api/certificates/verify/**").permitAll() // public certificate verification
+                        .requestMatchers(HttpMethod.GET, "/api/calendar/feed/**").permitAll() // ICS feeds, token in the URL
                         // swagger / openapi
                         .requestMatchers(
                                 "/v3/api-docs/**",
@@ -1,9 +1,12 @@
 package com.itms.controller;
 
+import com.itms.dto.CheckInResultDto;
 import com.itms.dto.SessionAttendanceDto;
 import com.itms.dto.common.ResponseDto;
 import com.itms.security.CustomUserDetails;
 import com.itms.service.AttendanceService;
+import com.itms.service.SelfCheckInService;
+import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -17,6 +20,7 @@ import java.util.List;
 public class AttendanceController {
 
     private final AttendanceService attendanceService;
+    private final SelfCheckInService selfCheckInService;
 
     /**
      * Get all sessions with attendance status for the current user in a course
@@ -49,4 +53,24 @@ public class AttendanceController {
                 ResponseDto.success(summary,"Lấy tổng điểm danh thành công")
         );
     }
+
+    /**
+     * Self check-in with the code shown by the trainer (or the scanned QR payload)
+     */
+    @PostMapping("/check-in")
+    public ResponseEntity<ResponseDto<CheckInResultDto>> checkIn(
+            @RequestBody CheckInRequest body,
+            @AuthenticationPrincipal CustomUserDetails userDetails) {
+
+        CheckInResultDto result = selfCheckInService.checkIn(userDetails.getId(), body.getSessionId(), body.getCode());
+        return ResponseEntity.ok(
+                ResponseDto.success(result, "Điểm danh thành công")
+        );
+    }
+
+    @Data
+    public static class CheckInRequest {
+        private Long sessionId;
+        private String code;
+    }
 }
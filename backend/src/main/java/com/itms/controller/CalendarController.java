@@ -0,0 +1,76 @@
+package com.itms.controller;
+
+import com.itms.dto.common.ResponseDto;
+import com.itms.security.CustomUserDetails;
+import com.itms.service.CalendarFeedService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/calendar")
+@RequiredArgsConstructor
+public class CalendarController {
+
+    private static final MediaType TEXT_CALENDAR = MediaType.parseMediaType("text/calendar;charset=UTF-8");
+
+    private final CalendarFeedService calendarFeedService;
+
+    /**
+     * Subscription URL of the logged-in user's schedule (employee classes and trainer sessions)
+     */
+    @GetMapping("/subscription")
+    public ResponseEntity<ResponseDto<Map<String, String>>> getSubscription(
+            @AuthenticationPrincipal CustomUserDetails userDetails) {
+        String path = calendarFeedService.feedPath(userDetails.getId());
+        return ResponseEntity.ok(ResponseDto.success(Map.of("path", path), "Calendar feed retrieved"));
+    }
+
+    /**
+     * Replace the subscription URL (the old one stops working, e.g. after it was shared by mistake)
+     */
+    @PostMapping("/subscription/reset")
+    public ResponseEntity<ResponseDto<Map<String, String>>> resetSubscription(
+            @AuthenticationPrincipal CustomUserDetails userDetails) {
+        String path = calendarFeedService.resetFeed(userDetails.getId());
+        return ResponseEntity.ok(ResponseDto.success(Map.of("path", path), "Calendar feed reset"));
+    }
+
+    /**
+     * iCalendar feed for calendar clients (public, authorized by the token in the URL)
+     */
+    @GetMapping("/feed/{userId}/{token}.ics")
+    public ResponseEntity<StreamingResponseBody> getFeed(
+            @PathVariable("userId") Integer userId,
+            @PathVariable("token") String token,
+            WebRequest request) {
+
+        if (!calendarFeedService.isValidToken(userId, token)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+
+        CalendarFeedService.FeedVersion version = calendarFeedService.version(userId);
+        if (request.checkNotModified(version.etag(), version.lastModified())) {
+            return null; // 304 with the validators already set
+        }
+
+        return ResponseEntity.ok()
+                .contentType(TEXT_CALENDAR)
+                .eTag(version.etag())
+                .lastModified(version.lastModified())
+                .cacheControl(CacheControl.noCache())
+                .body(out -> calendarFeedService.writeFeed(userId, out));
+    }
+}
@@ -1,16 +1,26 @@
 package com.itms.controller;
 
 import com.itms.dto.CertificateDto;
+import com.itms.dto.CertificateIssuanceJobDto;
+import com.itms.dto.CertificateVerificationDto;
 import com.itms.dto.CourseCompletionDto;
 import com.itms.dto.common.ResponseDto;
 import com.itms.security.CustomUserDetails;
+import com.itms.service.CertificateIssuanceService;
+import com.itms.service.CertificateRenderService;
 import com.itms.service.CertificateService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 
@@ -20,6 +30,8 @@ import java.util.Map;
 public class CertificateController {
 
     private final CertificateService certificateService;
+    private final CertificateIssuanceService certificateIssuanceService;
+    private final CertificateRenderService certificateRenderService;
 
     /** Employee: get own certificates */
     @GetMapping("/user/{userId}")
@@ -28,6 +40,39 @@ public class CertificateController {
         return ResponseEntity.ok(ResponseDto.success(certificates, "My certificates retrieved successfully"));
     }
 
+    /** Public: verify a certificate by its code (no authentication) */
+    @GetMapping("/verify/{certificateCode}")
+    public ResponseEntity<ResponseDto<CertificateVerificationDto>> verifyCertificate(@PathVariable String certificateCode) {
+        CertificateVerificationDto result = certificateService.verifyCertificate(certificateCode);
+        return ResponseEntity.ok(ResponseDto.success(result, "Certificate verification completed"));
+    }
+
+    /** HR: revoke a certificate */
+    @PostMapping("/hr/{certificateId}/revoke")
+    @PreAuthorize("hasRole('HR') or hasRole('ADMIN')")
+    public ResponseEntity<ResponseDto<CertificateDto>> revokeCertificate(
+            @PathVariable Integer certificateId,
+            @RequestBody(required = false) Map<String, String> request,
+            @AuthenticationPrincipal CustomUserDetails userDetails) {
+        String reason = request != null ? request.get("reason") : null;
+        CertificateDto certificate = certificateService.revokeCertificate(certificateId, reason, userDetails.getId());
+        return ResponseEntity.ok(ResponseDto.success(certificate, "Certificate revoked"));
+    }
+
+    /** Download the rendered certificate PDF (owner or HR; 410 once revoked) */
+    @GetMapping("/{certificateId}/document")
+    public ResponseEntity<Resource> downloadCertificate(
+            @PathVariable Integer certificateId,
+            @AuthenticationPrincipal CustomUserDetails userDetails) {
+        boolean staff = userDetails.getAuthorities().stream()
+                .anyMatch(a -> "ROLE_HR".equals(a.getAuthority()) || "ROLE_ADMIN".equals(a.getAuthority()));
+        Path document = certificateRenderService.getDocument(certificateId, userDetails.getId(), staff);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_PDF)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"certificate-" + certificateId + ".pdf\"")
+                .body(new FileSystemResource(document));
+    }
+
     /** HR: list all ended courses with student completion status */
     @GetMapping("/hr/completed-courses")
     @PreAuthorize("hasRole('HR') or hasRole('ADMIN')")
@@ -36,14 +81,22 @@ public class CertificateController {
         return ResponseEntity.ok(ResponseDto.success(result, "Completed courses retrieved"));
     }
 
-    /** HR: issue certificates to all eligible students of a course */
+    /** HR: start issuing certificates to all eligible students of a course (background job) */
     @PostMapping("/hr/issue/{courseId}")
     @PreAuthorize("hasRole('HR') or hasRole('ADMIN')")
-    public ResponseEntity<ResponseDto<Map<String, Integer>>> issueCertificates(
+    public ResponseEntity<ResponseDto<CertificateIssuanceJobDto>> issueCertificates(
             @PathVariable Integer courseId,
             @AuthenticationPrincipal CustomUserDetails userDetails) {
-        int issued = certificateService.issueCertificatesForCourse(courseId, userDetails.getId());
-        return ResponseEntity.ok(ResponseDto.success(Map.of("issued", issued),
-                "Đã cấp " + issued + " chứng chỉ thành công"));
+        CertificateIssuanceJobDto job = certificateIssuanceService.startJob(courseId, userDetails.getId());
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ResponseDto.success(job, "Đang cấp chứng chỉ"));
+    }
+
+    /** HR: progress and result of a certificate issuance job */
+    @GetMapping("/hr/issue/jobs/{jobId}")
+    @PreAuthorize("hasRole('HR') or hasRole('ADMIN')")
+    public ResponseEntity<ResponseDto<CertificateIssuanceJobDto>> getIssuanceJob(@PathVariable String jobId) {
+        CertificateIssuanceJobDto job = certificateIssuanceService.getJob(jobId);
+        return ResponseEntity.ok(ResponseDto.success(job, "Issuance job retrieved"));
     }
-}
\ No newline at end of file
+}
@@ -144,23 +144,49 @@ public class EmployeeController {
         }
     }
 
+    /**
+     * Start (or resume) an attempt and return its questions in the attempt's own order; randomized quizzes
+     * are shuffled per attempt, and the submitted option ids are indices in this view
+     */
+    @PostMapping("/courses/{courseId}/quizzes/{quizId}/attempts")
+    public ResponseEntity<?> startQuiz(@PathVariable Integer courseId, @PathVariable Integer quizId, @RequestParam Integer userId) {
+        try {
+            QuizAttemptDto attempt = quizService.resumeOrStartQuizAttempt(quizId, userId);
+            EmployeeDtos.QuizDto view = mapToEmployeeQuizDto(quizService.getAttemptQuestions(attempt.getId()));
+            view.setAttemptId(attempt.getId());
+            view.setLocked(false);
+            return ResponseEntity.ok(com.itms.dto.common.ResponseDto.success(view, "Quiz attempt started"));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(com.itms.dto.common.ResponseDto.fail("Không thể bắt đầu bài làm: " + e.getMessage()));
+        }
+    }
+
     @PostMapping("/courses/{courseId}/quizzes/{quizId}/submit")
     public ResponseEntity<?> submitQuiz(
             @PathVariable Integer courseId,
             @PathVariable Integer quizId,
             @RequestBody QuizSubmitRequest request) {
         try {
-            // 1. Start attempt
-            QuizAttemptDto attempt = quizService.startQuizAttempt(quizId, request.getUserId(), null);
+            // 1. The attempt started on the quiz page (its shuffled view is what the answers refer to)
+            Integer attemptId = request.getAttemptId();
+            if (attemptId == null) {
+                throw new IllegalArgumentException("Thiếu mã bài làm, vui lòng bắt đầu lại bài kiểm tra");
+            }
+            boolean own = quizService.getUserQuizAttempts(request.getUserId(), quizId).stream()
+                    .anyMatch(a -> attemptId.equals(a.getId()));
+            if (!own) {
+                throw new IllegalArgumentException("Bài làm không thuộc quiz này");
+            }
 
-            // 2. Get quiz questions
-            com.itms.dto.QuizDto quiz = quizService.getQuizWithQuestions(quizId);
+            // 2. Build answer list from the attempt's questions
+            List<QuizAttemptDto.QuizAnswerDto> answerList = buildAnswerList(request, quizService.getAttemptQuestions(attemptId));
 
-            // 3. Build answer list
-            List<QuizAttemptDto.QuizAnswerDto> answerList = buildAnswerList(attempt, request, quiz);
+            // 3. Submit attempt
+            QuizAttemptDto result = quizService.submitQuizAttempt(attemptId, answerList, null);
 
-            // 4. Submit attempt
-            QuizAttemptDto result = quizService.submitQuizAttempt(attempt.getId(), answerList, null);
+            // 4. Review in the order the learner saw, with the correct answer expressed in that view
+            com.itms.dto.QuizDto quiz = quizService.getAttemptReview(attemptId);
 
             // 5. Map to employee QuizResultDto
             int score = result.getScore() != null ? result.getScore().intValue() : 0;
@@ -210,15 +236,14 @@ public class EmployeeController {
     }
 
     private List<QuizAttemptDto.QuizAnswerDto> buildAnswerList(
-            QuizAttemptDto attempt,
             QuizSubmitRequest request,
             com.itms.dto.QuizDto quiz) {
         List<QuizAttemptDto.QuizAnswerDto> list = new java.util.ArrayList<>();
         if (quiz.getQuestions() == null || request.getAnswers() == null) return list;
         for (com.itms.dto.QuizQuestionDto q : quiz.getQuestions()) {
             Integer selectedOptionId = request.getAnswers().get(q.getId());
-            // selectedOptionId is the 0-based index sent by frontend
-            QuizAttemptDto.QuizAnswerDto ans = attempt.new QuizAnswerDto();
+            // selectedOptionId is the 0-based index in the attempt view sent by frontend
+            QuizAttemptDto.QuizAnswerDto ans = new QuizAttemptDto.QuizAnswerDto();
             ans.setQuestionId(q.getId());
             ans.setSelectedAnswerIndex(selectedOptionId);
             list.add(ans);
@@ -51,12 +51,12 @@ public class HrNotificationController {
     }
 
     @PostMapping("/{id}/send")
-    public ResponseEntity<ResponseDto<Void>> sendNotification(
+    public ResponseEntity<ResponseDto<TrainerNotificationDto>> sendNotification(
             @PathVariable("id") Integer id,
             @AuthenticationPrincipal CustomUserDetails userDetails) {
         Integer hrId = userDetails.getId();
-        hrNotificationService.sendNotification(id, hrId);
-        return ResponseEntity.ok(ResponseDto.success(null, "Notification sent successfully"));
+        TrainerNotificationDto notification = hrNotificationService.sendNotification(id, hrId);
+        return ResponseEntity.ok(ResponseDto.success(notification, "Notification sent successfully"));
     }
 
     @DeleteMapping("/{id}")
@@ -69,8 +69,10 @@ public class HrNotificationController {
     }
 
     @PutMapping("/{id}/read")
-    public ResponseEntity<ResponseDto<Void>> markAsRead(@PathVariable("id") Integer id) {
-        hrNotificationService.markAsRead(id);
+    public ResponseEntity<ResponseDto<Void>> markAsRead(
+            @PathVariable("id") Integer id,
+            @AuthenticationPrincipal CustomUserDetails userDetails) {
+        hrNotificationService.markAsRead(id, userDetails.getId());
         return ResponseEntity.ok(ResponseDto.success(null, "Notification marked as read"));
     }
 }
@@ -1,12 +1,22 @@
 package com.itms.controller;
 
+import com.itms.dto.AutoPlanRequest;
+import com.itms.dto.AutoPlanResultDto;
+import com.itms.dto.GenerateSessionsRequest;
 import com.itms.dto.HrScheduleDto;
+import com.itms.dto.ScheduleConflictDto;
+import com.itms.dto.SessionGenerationResultDto;
 import com.itms.dto.common.ResponseDto;
+import com.itms.security.CustomUserDetails;
 import com.itms.service.HrScheduleService;
+import com.itms.service.SchedulePlannerService;
+import com.itms.service.SessionGeneratorService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -25,6 +35,8 @@ import java.util.List;
 public class HrScheduleController {
 
     private final HrScheduleService hrScheduleService;
+    private final SessionGeneratorService sessionGeneratorService;
+    private final SchedulePlannerService schedulePlannerService;
 
     @GetMapping
     public ResponseEntity<ResponseDto<List<HrScheduleDto>>> getAll() {
@@ -45,6 +57,39 @@ public class HrScheduleController {
         return ResponseEntity.status(HttpStatus.CREATED).body(ResponseDto.success(created, "Schedule created"));
     }
 
+    /** Dry-run a batch of sessions: every invalid row and trainer / room conflict, nothing is saved */
+    @PostMapping("/validate")
+    public ResponseEntity<ResponseDto<List<ScheduleConflictDto>>> validate(@RequestBody List<HrScheduleDto> request) {
+        List<ScheduleConflictDto> conflicts = hrScheduleService.validateBatch(request);
+        return ResponseEntity.ok(ResponseDto.success(conflicts,
+                conflicts.isEmpty() ? "No conflicts" : conflicts.size() + " conflicts found"));
+    }
+
+    /** Create a batch of sessions at once; rejected as a whole (409 with the conflict list) on any problem */
+    @PostMapping("/import")
+    public ResponseEntity<ResponseDto<List<HrScheduleDto>>> importBatch(@RequestBody List<HrScheduleDto> request) {
+        List<HrScheduleDto> created = hrScheduleService.importBatch(request);
+        return ResponseEntity.status(HttpStatus.CREATED).body(ResponseDto.success(created, created.size() + " schedules created"));
+    }
+
+    /** Expand the class's weekly schedule into sessions over a date range (dryRun = preview only) */
+    @PostMapping("/generate")
+    public ResponseEntity<ResponseDto<SessionGenerationResultDto>> generate(
+            @Valid @RequestBody GenerateSessionsRequest request,
+            @AuthenticationPrincipal CustomUserDetails userDetails) {
+        SessionGenerationResultDto result = sessionGeneratorService.generate(request, userDetails.getId());
+        return ResponseEntity.ok(ResponseDto.success(result,
+                result.isSaved() ? result.getGeneratedCount() + " sessions created" : "Preview generated"));
+    }
+
+    /** Propose a conflict-free schedule for several classes; commit the result through /import */
+    @PostMapping("/plan")
+    public ResponseEntity<ResponseDto<AutoPlanResultDto>> plan(@Valid @RequestBody AutoPlanRequest request) {
+        AutoPlanResultDto result = schedulePlannerService.plan(request);
+        return ResponseEntity.ok(ResponseDto.success(result,
+                result.getPlannedCount() + "/" + result.getRequestedCount() + " sessions planned"));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<ResponseDto<HrScheduleDto>> update(@PathVariable("id") Long id, @RequestBody HrScheduleDto request) {
         HrScheduleDto updated = hrScheduleService.update(id, request);
@@ -1,13 +1,18 @@
 package com.itms.controller;
 
 import com.itms.dto.NotificationDto;
+import com.itms.dto.NotificationUnreadDto;
+import com.itms.dto.NotificationFanOutJobDto;
 import com.itms.dto.common.ResponseDto;
 import com.itms.security.CustomUserDetails;
+import com.itms.service.NotificationFanOutService;
 import com.itms.service.NotificationService;
 import lombok.AllArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -17,6 +22,8 @@ import java.util.List;
 public class NotificationController {
 
     private final NotificationService notificationService;
+    private final NotificationFanOutService notificationFanOutService;
+
     @GetMapping("/my")
     public ResponseEntity<ResponseDto<List<NotificationDto>>> getMyNotifications(
             @AuthenticationPrincipal CustomUserDetails userDetails) {
@@ -29,10 +36,27 @@ public class NotificationController {
         return ResponseEntity.ok(ResponseDto.success(notifications, "Retrive my notifications"));
     }
 
+    // Badge count, served from the maintained counter
+    @GetMapping("/unread-count")
+    public ResponseEntity<ResponseDto<NotificationUnreadDto>> getUnreadCount(
+            @AuthenticationPrincipal CustomUserDetails userDetails) {
+        int count = notificationService.getUnreadCount(userDetails.getId());
+        return ResponseEntity.ok(ResponseDto.success(
+                NotificationUnreadDto.builder().count(count).build(), "Retrieve unread notification count"));
+    }
+
+    // Live push of new notifications and unread-count changes (Server-Sent Events)
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@AuthenticationPrincipal CustomUserDetails userDetails) {
+        return notificationService.subscribe(userDetails.getId());
+    }
+
     @PutMapping("/{id}/read")
-    public ResponseEntity<ResponseDto<Void>> markAsRead(@PathVariable("id") Integer notificationId) {
+    public ResponseEntity<ResponseDto<Void>> markAsRead(
+            @PathVariable("id") Integer notificationId,
+            @AuthenticationPrincipal CustomUserDetails userDetails) {
 
-        notificationService.markAsRead(notificationId);
+        notificationService.markAsRead(notificationId, userDetails.getId());
 
         return ResponseEntity.ok(
                 ResponseDto.success(null, "Notification marked as read")
@@ -40,10 +64,10 @@ public class NotificationController {
     }
     @DeleteMapping("/{id}")
     public ResponseEntity<ResponseDto<Void>> deleteNotification(
-            @PathVariable("id") Integer id
-            ) {
+            @PathVariable("id") Integer id,
+            @AuthenticationPrincipal CustomUserDetails userDetails) {
 
-        notificationService.deleteNotification(id);
+        notificationService.deleteNotification(id, userDetails.getId());
 
         return ResponseEntity.ok(
                 ResponseDto.success(null, "Notification deleted successfully")
@@ -62,11 +86,25 @@ public class NotificationController {
         );
     }
 
+    // Delivery progress of a notification the current user sent
+    @GetMapping("/fan-out/{jobId}")
+    public ResponseEntity<ResponseDto<NotificationFanOutJobDto>> getFanOutJob(
+            @PathVariable("jobId") String jobId,
+            @AuthenticationPrincipal CustomUserDetails userDetails) {
+
+        NotificationFanOutJobDto job = notificationFanOutService.getJob(jobId, userDetails.getId());
+
+        return ResponseEntity.ok(
+                ResponseDto.success(job, "Fan-out job retrieved successfully")
+        );
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ResponseDto<NotificationDto>> getNotificationById(
-            @PathVariable("id") Integer id) {
+            @PathVariable("id") Integer id,
+            @AuthenticationPrincipal CustomUserDetails userDetails) {
 
-        NotificationDto notification = notificationService.getNotificationById(id);
+        NotificationDto notification = notificationService.getNotificationById(id, userDetails.getId());
 
         return ResponseEntity.ok(
                 ResponseDto.success(notification, "Notification retrieved successfully")
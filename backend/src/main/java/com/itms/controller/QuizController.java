@@ -3,12 +3,19 @@ package com.itms.controller;
 import com.itms.dto.QuizAttemptDto;
 import com.itms.dto.QuizDto;
 import com.itms.dto.QuizImportDto;
+import com.itms.dto.QuizItemAnalysisDto;
 import com.itms.dto.QuizQuestionImportDto;
+import com.itms.dto.QuizSubmissionStatusDto;
 import com.itms.dto.common.ResponseDto;
 import com.itms.service.ExcelImportService;
+import com.itms.service.QuizGradingWorker;
+import com.itms.service.QuizItemStatsService;
+import com.itms.service.QuizPayloadCache;
 import com.itms.service.QuizService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -27,6 +34,8 @@ public class QuizController {
 
     private final QuizService quizService;
     private final ExcelImportService excelImportService;
+    private final QuizGradingWorker quizGradingWorker;
+    private final QuizItemStatsService quizItemStatsService;
 
     /**
      * Get all quizzes for a course
@@ -50,6 +59,24 @@ public class QuizController {
         return ResponseEntity.ok(ResponseDto.success(quiz, "Quiz retrieved successfully"));
     }
 
+    /**
+     * Get the learner payload of a quiz (no answer key) as cached bytes; 304 when the client's ETag still matches
+     */
+    @GetMapping("/{quizId}/payload")
+    public ResponseEntity<byte[]> getQuizPayload(
+            @PathVariable("quizId") Integer quizId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        QuizPayloadCache.LearnerPayload payload = quizService.getLearnerPayload(quizId);
+        if (payload.etag().equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(payload.etag()).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(payload.etag())
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(payload.body());
+    }
+
     /**
      * Start a new quiz attempt
      */
@@ -71,14 +98,74 @@ public class QuizController {
     public ResponseEntity<ResponseDto<QuizAttemptDto>> submitQuizAttempt(
             @RequestBody Map<String, Object> request) {
         Integer attemptId = (Integer) request.get("attemptId");
-        @SuppressWarnings("unchecked")
-        List<QuizAttemptDto.QuizAnswerDto> answers = (List<QuizAttemptDto.QuizAnswerDto>) request.get("answers");
+        List<QuizAttemptDto.QuizAnswerDto> answers = toAnswerDtos(request.get("answers"));
         Integer timeTakenMinutes = (Integer) request.get("timeTakenMinutes");
 
         QuizAttemptDto result = quizService.submitQuizAttempt(attemptId, answers, timeTakenMinutes);
         return ResponseEntity.ok(ResponseDto.success(result, "Quiz submitted successfully"));
     }
 
+    /**
+     * Submit quiz attempt in exam-burst mode: answers are queued durably and graded in the background.
+     * Poll GET /submissions/{attemptId} for the result.
+     */
+    @PostMapping("/submit-async")
+    public ResponseEntity<ResponseDto<QuizSubmissionStatusDto>> submitQuizAttemptAsync(
+            @RequestBody Map<String, Object> request) {
+        Integer attemptId = (Integer) request.get("attemptId");
+        List<QuizAttemptDto.QuizAnswerDto> answers = toAnswerDtos(request.get("answers"));
+        Integer timeTakenMinutes = (Integer) request.get("timeTakenMinutes");
+
+        QuizSubmissionStatusDto status = quizGradingWorker.submit(attemptId, answers, timeTakenMinutes);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ResponseDto.success(status, "Quiz submission queued for grading"));
+    }
+
+    /**
+     * Get grading status (and result once graded) of a queued submission
+     */
+    @GetMapping("/submissions/{attemptId}")
+    public ResponseEntity<ResponseDto<QuizSubmissionStatusDto>> getSubmissionStatus(
+            @PathVariable("attemptId") Integer attemptId) {
+        QuizSubmissionStatusDto status = quizService.getSubmissionStatus(attemptId);
+        return ResponseEntity.ok(ResponseDto.success(status, "Submission status retrieved successfully"));
+    }
+
+    /**
+     * Autosave one answer while the attempt is in progress.
+     * Buffered and flushed to QuizAnswer in batches; the final answers are recorded on submit.
+     */
+    @PutMapping("/attempts/{attemptId}/answers")
+    public ResponseEntity<ResponseDto<Void>> autosaveAnswer(
+            @PathVariable("attemptId") Integer attemptId,
+            @RequestBody Map<String, Object> request) {
+        Integer questionId = (Integer) request.get("questionId");
+        Integer selectedAnswerIndex = (Integer) request.get("selectedAnswerIndex");
+
+        quizService.autosaveAnswer(attemptId, questionId, selectedAnswerIndex);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ResponseDto.success(null, "Answer saved"));
+    }
+
+    /**
+     * Get recorded per-question answers of an attempt (answer review)
+     */
+    @GetMapping("/attempts/{attemptId}/answers")
+    public ResponseEntity<ResponseDto<List<QuizAttemptDto.QuizAnswerDto>>> getAttemptAnswers(
+            @PathVariable("attemptId") Integer attemptId) {
+        List<QuizAttemptDto.QuizAnswerDto> answers = quizService.getAttemptAnswers(attemptId);
+        return ResponseEntity.ok(ResponseDto.success(answers, "Answers retrieved successfully"));
+    }
+
+    /**
+     * Get the questions of an attempt in the attempt's own (shuffled) order
+     */
+    @GetMapping("/attempts/{attemptId}/questions")
+    public ResponseEntity<ResponseDto<QuizDto>> getAttemptQuestions(@PathVariable("attemptId") Integer attemptId) {
+        QuizDto quiz = quizService.getAttemptQuestions(attemptId);
+        return ResponseEntity.ok(ResponseDto.success(quiz, "Attempt questions retrieved successfully"));
+    }
+
     /**
      * Get user quiz attempts for a specific quiz
      */
@@ -164,6 +251,7 @@ public class QuizController {
                 questions.add(question);
             }
             result.put("questions", questions);
+            result.put("errors", parsedData.getErrors());
             
             return ResponseEntity.ok(ResponseDto.success(result, "Excel file parsed successfully"));
             
@@ -236,6 +324,16 @@ public class QuizController {
         return ResponseEntity.ok(ResponseDto.success(quiz, "Quiz details retrieved successfully"));
     }
 
+    /**
+     * Question-quality report (difficulty, discrimination, distractor rates, time-to-answer)
+     */
+    @GetMapping("/{quizId}/item-analysis")
+    public ResponseEntity<ResponseDto<QuizItemAnalysisDto>> getItemAnalysis(
+            @PathVariable("quizId") Integer quizId) {
+        QuizItemAnalysisDto report = quizItemStatsService.getReport(quizId);
+        return ResponseEntity.ok(ResponseDto.success(report, "Item analysis retrieved successfully"));
+    }
+
     /**
      * Create new quiz manually
      */
@@ -282,6 +380,24 @@ public class QuizController {
         }
     }
 
+    /**
+     * Convert the raw JSON answer list ({questionId, selectedAnswerIndex}) into answer DTOs
+     */
+    private List<QuizAttemptDto.QuizAnswerDto> toAnswerDtos(Object raw) {
+        List<QuizAttemptDto.QuizAnswerDto> answers = new ArrayList<>();
+        if (!(raw instanceof List<?> items)) return answers;
+        for (Object item : items) {
+            if (item instanceof Map<?, ?> map) {
+                QuizAttemptDto.QuizAnswerDto answer = new QuizAttemptDto.QuizAnswerDto();
+                answer.setQuestionId(map.get("questionId") instanceof Number n ? n.intValue() : null);
+                answer.setSelectedAnswerIndex(map.get("selectedAnswerIndex") instanceof Number n ? n.intValue() : null);
+                answer.setTimeSpentSeconds(map.get("timeSpentSeconds") instanceof Number n ? n.intValue() : null);
+                answers.add(answer);
+            }
+        }
+        return answers;
+    }
+
     /**
      * Download Excel template for quiz import
      */
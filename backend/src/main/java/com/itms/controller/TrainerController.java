@@ -23,6 +23,7 @@ public class TrainerController {
     private final FeedbackService feedbackService;
     private final ClassRoomService classRoomService;
     private final TrainerAttendanceService trainerAttendanceService;
+    private final SelfCheckInService selfCheckInService;
 
     /**
      * Get trainer's courses
@@ -93,6 +94,50 @@ public class TrainerController {
         return ResponseEntity.ok(ResponseDto.success(result, "Lấy danh sách điểm danh thành công"));
     }
 
+    /**
+     * Get attendance heatmap (members x sessions) for a class
+     */
+    @GetMapping("/attendance/class/{classCode}/matrix")
+    public ResponseEntity<ResponseDto<ClassAttendanceMatrixDto>> getClassAttendanceMatrix(
+            @PathVariable("classCode") String classCode,
+            @AuthenticationPrincipal CustomUserDetails userDetails) {
+        ClassAttendanceMatrixDto result = trainerAttendanceService.getClassAttendanceMatrix(classCode);
+        return ResponseEntity.ok(ResponseDto.success(result, "Lấy bảng điểm danh thành công"));
+    }
+
+    /**
+     * Open (or extend) the self check-in window for today's session of a class (class, course or session trainer only)
+     */
+    @PostMapping("/attendance/class/{classCode}/check-in")
+    public ResponseEntity<ResponseDto<CheckInWindowDto>> openCheckIn(
+            @PathVariable("classCode") String classCode,
+            @RequestParam(value = "minutes", required = false) Integer minutes,
+            @AuthenticationPrincipal CustomUserDetails userDetails) {
+        CheckInWindowDto window = selfCheckInService.openWindow(classCode, userDetails.getId(), minutes);
+        return ResponseEntity.ok(ResponseDto.success(window, "Mở điểm danh thành công"));
+    }
+
+    /**
+     * Current rotating code of an open check-in window
+     */
+    @GetMapping("/attendance/check-in/{sessionId}")
+    public ResponseEntity<ResponseDto<CheckInWindowDto>> getCheckIn(
+            @PathVariable("sessionId") Long sessionId,
+            @AuthenticationPrincipal CustomUserDetails userDetails) {
+        return ResponseEntity.ok(ResponseDto.success(selfCheckInService.getWindow(sessionId, userDetails.getId()), "OK"));
+    }
+
+    /**
+     * Close a check-in window early
+     */
+    @DeleteMapping("/attendance/check-in/{sessionId}")
+    public ResponseEntity<ResponseDto<String>> closeCheckIn(
+            @PathVariable("sessionId") Long sessionId,
+            @AuthenticationPrincipal CustomUserDetails userDetails) {
+        selfCheckInService.closeWindow(sessionId, userDetails.getId());
+        return ResponseEntity.ok(ResponseDto.success("", "Đã đóng điểm danh"));
+    }
+
     /**
      * Save attendance for a class on a specific date
      */
@@ -69,15 +69,15 @@ public class TrainerNotificationController {
 
     // Send notification (convert draft to sent)
     @PostMapping("/{id}/send")
-    public ResponseEntity<ResponseDto<Void>> sendNotification(
+    public ResponseEntity<ResponseDto<TrainerNotificationDto>> sendNotification(
             @PathVariable("id") Integer id,
             @AuthenticationPrincipal CustomUserDetails userDetails) {
 
         Integer trainerId = userDetails.getId();
-        trainerNotificationService.sendNotification(id, trainerId);
+        TrainerNotificationDto notification = trainerNotificationService.sendNotification(id, trainerId);
 
         return ResponseEntity.ok(
-                ResponseDto.success(null, "Notification sent successfully")
+                ResponseDto.success(notification, "Notification sent successfully")
         );
     }
 
@@ -97,9 +97,11 @@ public class TrainerNotificationController {
 
     // Mark inbox notification as read
     @PutMapping("/{id}/read")
-    public ResponseEntity<ResponseDto<Void>> markAsRead(@PathVariable("id") Integer id) {
+    public ResponseEntity<ResponseDto<Void>> markAsRead(
+            @PathVariable("id") Integer id,
+            @AuthenticationPrincipal CustomUserDetails userDetails) {
 
-        trainerNotificationService.markAsRead(id);
+        trainerNotificationService.markAsRead(id, userDetails.getId());
 
         return ResponseEntity.ok(
                 ResponseDto.success(null, "Notification marked as read")
@@ -23,4 +23,5 @@ public class AdminNotificationDto {
     private String status;
     private String senderName;
     private Integer senderId;
+    private String fanOutJobId; // background delivery job, set when the notification is sent
 }
@@ -0,0 +1,83 @@
+package com.itms.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Input of the schedule auto-planner: which classes need how many sessions, in which rooms and timeslots
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AutoPlanRequest {
+
+    @NotNull(message = "From date is required")
+    private LocalDate fromDate;
+
+    @NotNull(message = "To date is required")
+    private LocalDate toDate;
+
+    @NotEmpty(message = "At least one class is required")
+    @Valid
+    private List<ClassDemand> classes;
+
+    @NotEmpty(message = "At least one room is required")
+    private List<String> rooms;
+
+    // Start times of the daily timeslots, e.g. 08:00 and 13:30
+    @NotEmpty(message = "At least one timeslot is required")
+    private List<LocalTime> slotStarts;
+
+    @Positive(message = "Duration must be positive")
+    private Integer durationMinutes;
+
+    // MON..SUN; defaults to MON-FRI
+    private List<String> days;
+
+    private List<LocalDate> skipDates;
+
+    @Valid
+    private List<TrainerAvailability> trainerAvailability;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ClassDemand {
+        @NotBlank(message = "Class code is required")
+        private String classCode;
+
+        @NotNull(message = "Session count is required")
+        @Positive(message = "Session count must be positive")
+        @Max(value = 1000, message = "Session count must be at most 1000")
+        private Integer sessions;
+
+        // Defaults to the class's (or course's) trainer
+        private String trainerUsername;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TrainerAvailability {
+        @NotBlank(message = "Trainer username is required")
+        private String trainerUsername;
+
+        // Days the trainer can teach (MON..SUN); empty = every planned day
+        private List<String> days;
+
+        private List<LocalDate> unavailableDates;
+    }
+}
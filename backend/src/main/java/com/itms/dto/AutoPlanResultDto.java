@@ -0,0 +1,25 @@
+package com.itms.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Proposed schedule; sessions are conflict-free and can be committed as-is via the schedule import
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AutoPlanResultDto {
+    private List<HrScheduleDto> sessions;
+    private int requestedCount;
+    private int plannedCount;
+    private List<String> unplaced;      // per class: sessions that could not be placed without a conflict
+    private int restarts;
+    private long iterations;
+    private long elapsedMs;
+}
@@ -0,0 +1,26 @@
+package com.itms.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CertificateIssuanceJobDto {
+    private String jobId;
+    private Integer courseId;
+    private String status; // QUEUED, RUNNING, COMPLETED, FAILED
+    private int totalMembers;
+    private int eligible;
+    private int processed;
+    private int issued;
+    private int skipped; // eligible but certified meanwhile
+    private String errorMessage;
+    private LocalDateTime createdAt;
+    private LocalDateTime finishedAt;
+}
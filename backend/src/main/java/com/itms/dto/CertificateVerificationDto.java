@@ -0,0 +1,26 @@
+package com.itms.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Public verification result for a certificate code.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CertificateVerificationDto {
+    private String certificateCode;
+    private String status; // VALID, REVOKED, EXPIRED, NOT_FOUND
+    private boolean valid;
+    private String studentName;
+    private String courseName;
+    private String grade;
+    private LocalDate issueDate;
+    private LocalDate expiryDate;
+}
@@ -0,0 +1,19 @@
+package com.itms.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CheckInResultDto {
+
+    private Long sessionId;
+    private String classCode;
+    private String className;
+    private String status;              // ACCEPTED | ALREADY_CHECKED_IN
+    private LocalDateTime checkedInAt;
+}
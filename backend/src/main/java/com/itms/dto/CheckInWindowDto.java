@@ -0,0 +1,25 @@
+package com.itms.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Open self check-in window as shown to the trainer
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CheckInWindowDto {
+
+    private Long sessionId;
+    private String classCode;
+    private String className;
+    private String code;                // rotating 6-digit code
+    private String qrPayload;           // same code for scanning: ITMS-CHECKIN:<sessionId>:<code>
+    private LocalDateTime codeExpiresAt;
+    private LocalDateTime closesAt;
+    private int checkedInCount;
+}
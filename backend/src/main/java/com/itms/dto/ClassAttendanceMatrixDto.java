@@ -0,0 +1,48 @@
+package com.itms.dto;
+
+import lombok.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Attendance heatmap of a class: sessions as columns, members as rows
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ClassAttendanceMatrixDto {
+
+    private String classCode;
+    private String className;
+    private double passingRate;           // attendance % required for eligibility
+    private List<SessionColumn> sessions; // in session order
+    private List<MemberRow> members;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class SessionColumn {
+        private Long sessionId;
+        private LocalDate date;
+        private int presentCount;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class MemberRow {
+        private Integer userId;
+        private String fullName;
+        private int attendedSessions;
+        private double attendanceRate;
+        private boolean eligible;
+        private List<Boolean> marks;     // per session: true/false, null = not marked
+    }
+}
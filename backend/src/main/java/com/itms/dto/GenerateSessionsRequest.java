@@ -0,0 +1,41 @@
+package com.itms.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Expand a class's weekly CourseSchedule into concrete sessions
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GenerateSessionsRequest {
+
+    @NotBlank(message = "Class code is required")
+    private String classCode;
+
+    @NotNull(message = "From date is required")
+    private LocalDate fromDate;
+
+    // Optional when maxSessions is given
+    private LocalDate toDate;
+
+    // Stop after this many sessions (e.g. a 40-session course)
+    @Positive(message = "Max sessions must be positive")
+    private Integer maxSessions;
+
+    // Extra dates to leave out on top of the configured holidays
+    private List<LocalDate> skipDates;
+
+    // Only compute the expansion and its conflicts, save nothing
+    private boolean dryRun;
+}
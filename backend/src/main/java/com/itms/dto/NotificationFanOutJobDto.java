@@ -0,0 +1,24 @@
+package com.itms.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NotificationFanOutJobDto {
+    private String jobId;
+    private Integer notificationId;
+    private String audience;
+    private String status; // QUEUED, RUNNING, COMPLETED, FAILED
+    private int recipients;
+    private int delivered;
+    private String errorMessage;
+    private LocalDateTime createdAt;
+    private LocalDateTime finishedAt;
+}
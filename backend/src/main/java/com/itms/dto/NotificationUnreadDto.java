@@ -0,0 +1,15 @@
+package com.itms.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NotificationUnreadDto {
+    private Integer count; // absolute unread count, when known
+    private Integer delta; // change to apply to the current count otherwise
+}
@@ -35,11 +35,12 @@ public class QuizAttemptDto {
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
-    public class QuizAnswerDto {
+    public static class QuizAnswerDto {
         private Integer questionId;
         private Integer selectedAnswerIndex;
         private Boolean isCorrect;
         private BigDecimal marksObtained;
+        private Integer timeSpentSeconds; // optional, reported by the client for item analysis
     }
 }
 
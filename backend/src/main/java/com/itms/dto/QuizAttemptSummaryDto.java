@@ -0,0 +1,48 @@
+package com.itms.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Per-quiz attempt summary for one user, built by a single aggregate query over a whole course.
+ */
+@Getter
+@Setter
+public class QuizAttemptSummaryDto {
+
+    private Integer quizId;
+    private int attemptsCount;
+    private BigDecimal bestScore;
+    private boolean passed;
+    private Integer lastAttemptNumber;
+    private LocalDateTime lastAttemptAt;
+
+    // Constructor for JPQL query projection
+    public QuizAttemptSummaryDto(
+            Integer quizId,
+            Long attemptsCount,
+            BigDecimal bestScore,
+            Integer passedFlag,
+            Integer lastAttemptNumber,
+            LocalDateTime lastAttemptAt
+    ) {
+        this.quizId = quizId;
+        this.attemptsCount = attemptsCount != null ? attemptsCount.intValue() : 0;
+        this.bestScore = bestScore;
+        this.passed = passedFlag != null && passedFlag > 0;
+        this.lastAttemptNumber = lastAttemptNumber;
+        this.lastAttemptAt = lastAttemptAt;
+    }
+
+    public QuizAttemptSummaryDto() {}
+
+    /**
+     * Passed flag, or best score reaching the given threshold (course-level pass rule)
+     */
+    public boolean hasPassed(BigDecimal passingScore) {
+        return passed || (bestScore != null && passingScore != null && bestScore.compareTo(passingScore) >= 0);
+    }
+}
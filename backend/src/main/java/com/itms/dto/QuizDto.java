@@ -12,7 +12,7 @@ import java.util.List;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class QuizDto {
     private Integer id;
     private Integer courseId;
@@ -40,4 +40,5 @@ public class QuizDto {
     private List<String> requiredModuleTitles;
     private Integer passedRegularCount;
     private Integer totalRegularCount;
+    private List<String> importErrors; // rows skipped during Excel import
 }
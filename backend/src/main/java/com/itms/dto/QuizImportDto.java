@@ -15,4 +15,5 @@ public class QuizImportDto {
     private Boolean randomizeQuestions;
     private Boolean showCorrectAnswers;
     private List<QuizQuestionImportDto> questions;
+    private List<String> errors; // per-row validation errors ("Row 9: ...")
 }
\ No newline at end of file
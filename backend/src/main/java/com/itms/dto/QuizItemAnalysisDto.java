@@ -0,0 +1,42 @@
+package com.itms.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Question-quality report for a quiz, derived from running item statistics.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class QuizItemAnalysisDto {
+    private Integer quizId;
+    private String quizTitle;
+    private Long gradedAttempts;
+    private List<ItemStats> items;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class ItemStats {
+        private Integer questionId;
+        private Integer displayOrder;
+        private String questionText;
+        private String correctAnswer;
+        private Long responses;
+        private Double difficulty;        // share of correct responses (p-value)
+        private Double discrimination;    // point-biserial correlation with the attempt score
+        private Double optionARate;
+        private Double optionBRate;
+        private Double optionCRate;
+        private Double optionDRate;
+        private Double unansweredRate;
+        private Double averageTimeSeconds;
+    }
+}
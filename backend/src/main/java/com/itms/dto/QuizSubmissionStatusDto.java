@@ -0,0 +1,21 @@
+package com.itms.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class QuizSubmissionStatusDto {
+    private Integer attemptId;
+    private String status; // QUEUED, PROCESSING, GRADED, FAILED
+    private LocalDateTime queuedAt;
+    private LocalDateTime processedAt;
+    private String errorMessage;
+    private QuizAttemptDto result; // set once the attempt is graded
+}
@@ -0,0 +1,26 @@
+package com.itms.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One problem found while validating a batch of proposed sessions.
+ * index is the row in the submitted batch; the other side is either an existing session
+ * (conflictingSessionId) or an earlier row of the same batch (conflictingIndex).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduleConflictDto {
+    private Integer index;
+    private String type;                // TRAINER | ROOM | INVALID
+    private String date;
+    private String startTime;
+    private String endTime;
+    private Long conflictingSessionId;
+    private Integer conflictingIndex;
+    private String message;
+}
@@ -0,0 +1,22 @@
+package com.itms.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionGenerationResultDto {
+    private String classCode;
+    private boolean saved;
+    private int generatedCount;
+    private List<HrScheduleDto> sessions;        // expansion in date order (ids not returned)
+    private List<String> skippedDates;           // holidays and skip dates that matched a weekly slot
+    private List<String> existingDates;          // slots the class already has a session for
+    private List<ScheduleConflictDto> conflicts; // index = position in sessions
+}
@@ -25,4 +25,5 @@ public class TrainerNotificationDto {
     private List<String> recipients; // For sent
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private String fanOutJobId; // background delivery job, set when the notification is sent
 }
@@ -268,12 +268,14 @@ public class EmployeeDtos {
         private Boolean exhausted;       // true when failed all attempts
         private Integer passedRegularCount;
         private Integer totalRegularCount;
+        private Integer attemptId;       // set on the attempt view: questions and options in the attempt's order
     }
 
     @Data @NoArgsConstructor @AllArgsConstructor
     public static class QuizSubmitRequest {
         private Integer userId;
-        private Map<Integer, Integer> answers; // questionId -> selectedOptionId
+        private Integer attemptId;
+        private Map<Integer, Integer> answers; // questionId -> selectedOptionId (index in the attempt view)
     }
 
     @Data @Builder @NoArgsConstructor @AllArgsConstructor
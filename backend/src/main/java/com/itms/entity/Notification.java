@@ -1,5 +1,6 @@
 package com.itms.entity;
 
+import com.itms.common.NotificationAudience;
 import com.itms.common.NotificationPriority;
 import com.itms.common.ReferenceType;
 import jakarta.persistence.*;
@@ -53,6 +54,11 @@ public class Notification {
     @Column(name = "class_codes", columnDefinition = "NVARCHAR(MAX)")
     private String classCodes;
 
+    // Set on broadcasts: stored once under the sender and merged into the audience's inboxes on read
+    @Enumerated(EnumType.STRING)
+    @Column(name = "audience", length = 20)
+    private NotificationAudience audience;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false, length = 20)
     private NotificationPriority priority = NotificationPriority.NORMAL;
@@ -0,0 +1,47 @@
+package com.itms.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read state of broadcast notifications for one user, maintained by NotificationBroadcastService.
+ * Broadcasts that reached the user up to (read_through_at, read_through) in arrival order are read;
+ * read_bits and hidden_bits are BitSet byte arrays of read ids after that point and of dismissed ids
+ * (bit i = read_base + i, respectively hidden_base + i).
+ */
+@Entity
+@Table(name = "NotificationReadCursor")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NotificationReadCursor {
+
+    @Id
+    @Column(name = "user_id")
+    private Integer userId;
+
+    @Column(name = "read_through", nullable = false)
+    private Integer readThrough;
+
+    @Column(name = "read_through_at")
+    private LocalDateTime readThroughAt;
+
+    @Column(name = "read_base", nullable = false)
+    private Integer readBase;
+
+    @Column(name = "read_bits")
+    private byte[] readBits;
+
+    @Column(name = "hidden_base", nullable = false)
+    private Integer hiddenBase;
+
+    @Column(name = "hidden_bits")
+    private byte[] hiddenBits;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
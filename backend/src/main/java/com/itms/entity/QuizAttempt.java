@@ -8,7 +8,11 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "QuizAttempt")
+@Table(
+        name = "QuizAttempt",
+        uniqueConstraints = @UniqueConstraint(
+                name = "UQ_QuizAttempt_Number", columnNames = {"quiz_id", "user_id", "attempt_number"})
+)
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
@@ -64,6 +68,10 @@ public class QuizAttempt {
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
+    // Seed of the question/option permutation for randomized quizzes (null = natural order)
+    @Column(name = "shuffle_seed")
+    private Long shuffleSeed;
+
     @OneToMany(mappedBy = "quizAttempt", cascade = CascadeType.ALL)
     private List<QuizAnswer> answers;
 }
@@ -0,0 +1,71 @@
+package com.itms.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Running item-analysis aggregates for one quiz question.
+ * Only sums and counts are stored; difficulty, discrimination and rates are derived from them in O(1).
+ * Rows are written by QuizItemStatsService as additive deltas, never recomputed from attempt history.
+ */
+@Entity
+@Table(name = "QuizQuestionStats")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class QuizQuestionStats {
+
+    @Id
+    @Column(name = "question_id")
+    private Integer questionId;
+
+    @Column(name = "quiz_id", nullable = false)
+    private Integer quizId;
+
+    // Graded attempts that contained this question
+    @Column(nullable = false)
+    private Long responses;
+
+    @Column(name = "correct_count", nullable = false)
+    private Long correctCount;
+
+    // Selections per original option (distractor analysis)
+    @Column(name = "option_a_count", nullable = false)
+    private Long optionACount;
+
+    @Column(name = "option_b_count", nullable = false)
+    private Long optionBCount;
+
+    @Column(name = "option_c_count", nullable = false)
+    private Long optionCCount;
+
+    @Column(name = "option_d_count", nullable = false)
+    private Long optionDCount;
+
+    @Column(name = "unanswered_count", nullable = false)
+    private Long unansweredCount;
+
+    // Sums over the attempt score (0-100) for the point-biserial discrimination index
+    @Column(name = "sum_score", nullable = false)
+    private Double sumScore;
+
+    @Column(name = "sum_score_sq", nullable = false)
+    private Double sumScoreSq;
+
+    @Column(name = "sum_correct_score", nullable = false)
+    private Double sumCorrectScore;
+
+    // Time-to-answer, from answers that reported it
+    @Column(name = "timed_count", nullable = false)
+    private Long timedCount;
+
+    @Column(name = "sum_time_seconds", nullable = false)
+    private Long sumTimeSeconds;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
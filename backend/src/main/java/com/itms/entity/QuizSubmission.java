@@ -0,0 +1,57 @@
+package com.itms.entity;
+
+import com.itms.common.SubmissionStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Durable queue entry for an exam-burst quiz submission, graded asynchronously by the grading workers.
+ */
+@Entity
+@Table(name = "QuizSubmission")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class QuizSubmission {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    // One queued submission per attempt
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "attempt_id", nullable = false, unique = true)
+    private QuizAttempt attempt;
+
+    // Submitted answers as JSON: [{"questionId":1,"selectedAnswerIndex":0}, ...]
+    @Column(name = "answers_json", nullable = false, columnDefinition = "NVARCHAR(MAX)")
+    private String answersJson;
+
+    @Column(name = "time_taken_minutes")
+    private Integer timeTakenMinutes;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private SubmissionStatus status;
+
+    @Column(name = "error_message", length = 500)
+    private String errorMessage;
+
+    // Failed grading runs so far; the submission is given up on after itms.quiz.grading.max-attempts
+    @Column(name = "attempt_count", nullable = false)
+    @Builder.Default
+    private Integer attemptCount = 0;
+
+    @Column(name = "queued_at", nullable = false)
+    private LocalDateTime queuedAt;
+
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+}
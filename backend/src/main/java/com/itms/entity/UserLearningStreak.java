@@ -0,0 +1,39 @@
+package com.itms.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Learning-streak state of one user, advanced by LearningStreakService whenever the user attends a session
+ * or submits a quiz. current_streak is the streak ending at last_active_date; whether it is still alive
+ * today is decided on read.
+ */
+@Entity
+@Table(name = "UserLearningStreak")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserLearningStreak {
+
+    @Id
+    @Column(name = "user_id")
+    private Integer userId;
+
+    @Column(name = "current_streak", nullable = false)
+    private Integer currentStreak;
+
+    @Column(name = "longest_streak", nullable = false)
+    private Integer longestStreak;
+
+    // Null while the user has no learning activity
+    @Column(name = "last_active_date")
+    private LocalDate lastActiveDate;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
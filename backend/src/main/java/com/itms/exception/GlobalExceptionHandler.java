@@ -119,6 +119,21 @@ public class GlobalExceptionHandler {
                 ));
     }
 
+    @ExceptionHandler(ScheduleConflictException.class)
+    public ResponseEntity<?> handleScheduleConflict(ScheduleConflictException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of(
+                        "error", "SCHEDULE_CONFLICT",
+                        "message", ex.getMessage(),
+                        "conflicts", ex.getConflicts()
+                ));
+    }
+
+    @ExceptionHandler(ApiException.class)
+    public ResponseEntity<?> handleApi(ApiException ex) {
+        return error(ex.getStatus(), ex.getStatus().name(), ex.getMessage());
+    }
+
     // 400 - runtime business errors
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<?> handleRuntime(RuntimeException ex) {
@@ -0,0 +1,19 @@
+package com.itms.exception;
+
+import com.itms.dto.ScheduleConflictDto;
+
+import java.util.List;
+
+public class ScheduleConflictException extends RuntimeException {
+
+    private final List<ScheduleConflictDto> conflicts;
+
+    public ScheduleConflictException(String message, List<ScheduleConflictDto> conflicts) {
+        super(message);
+        this.conflicts = conflicts;
+    }
+
+    public List<ScheduleConflictDto> getConflicts() {
+        return conflicts;
+    }
+}
@@ -121,6 +121,19 @@ public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
         @Param("notes") String notes
     );
 
+    /**
+     * Notes written for a session's attendance marks.
+     * Row: user_id, notes
+     */
+    @Query(value = """
+        SELECT e.user_id, a.notes
+        FROM Attendance a
+        JOIN Enrollment e ON a.enrollment_id = e.id
+        WHERE e.session_id = :sessionId
+        AND a.notes IS NOT NULL
+    """, nativeQuery = true)
+    List<Object[]> findNotesBySessionId(@Param("sessionId") Long sessionId);
+
     /**
      * Find attendance by enrollment id
      */
@@ -138,7 +151,62 @@ public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
         AND a.attended = 1
     """, nativeQuery = true)
     Integer countByUserIdAndSessionIds(@Param("userId") Integer userId, @Param("sessionIds") List<Long> sessionIds);
+
+    /**
+     * Attended sessions of a class room per user, for several users at once.
+     * Row: user_id, attended_sessions (users without any attendance are omitted)
+     */
+    @Query(value = """
+        SELECT e.user_id, COUNT(DISTINCT a.id)
+        FROM Attendance a
+        JOIN Enrollment e ON a.enrollment_id = e.id
+        JOIN Session s ON e.session_id = s.id
+        WHERE s.class_id = :classRoomId
+        AND e.user_id IN (:userIds)
+        AND a.attended = 1
+        GROUP BY e.user_id
+    """, nativeQuery = true)
+    List<Object[]> countAttendedByClassRoomIdAndUserIds(@Param("classRoomId") Integer classRoomId,
+                                                        @Param("userIds") List<Integer> userIds);
     
+    /**
+     * Attendance of every member of every class of a course in one grouped query.
+     * Row: class_id, user_id, total_sessions (of the class), attended_sessions, has_certificate (0/1)
+     */
+    @Query(value = """
+        WITH class_sessions AS (
+            SELECT s.class_id, COUNT(*) AS total_sessions
+            FROM Session s
+            JOIN ClassRoom cr ON s.class_id = cr.id
+            WHERE cr.course_id = :courseId
+            GROUP BY s.class_id
+        ),
+        attended AS (
+            SELECT s.class_id, e.user_id, COUNT(DISTINCT a.id) AS attended_sessions
+            FROM Attendance a
+            JOIN Enrollment e ON a.enrollment_id = e.id
+            JOIN Session s ON e.session_id = s.id
+            JOIN ClassRoom cr ON s.class_id = cr.id
+            WHERE cr.course_id = :courseId
+            AND a.attended = 1
+            GROUP BY s.class_id, e.user_id
+        )
+        SELECT cm.class_id,
+               cm.user_id,
+               ISNULL(cs.total_sessions, 0),
+               ISNULL(att.attended_sessions, 0),
+               CASE WHEN EXISTS (
+                   SELECT 1 FROM Certificate c WHERE c.user_id = cm.user_id AND c.course_id = :courseId
+               ) THEN 1 ELSE 0 END
+        FROM ClassMember cm
+        JOIN ClassRoom cr ON cm.class_id = cr.id
+        LEFT JOIN class_sessions cs ON cs.class_id = cm.class_id
+        LEFT JOIN attended att ON att.class_id = cm.class_id AND att.user_id = cm.user_id
+        WHERE cr.course_id = :courseId
+        ORDER BY cm.class_id, cm.user_id
+    """, nativeQuery = true)
+    List<Object[]> summarizeCourseAttendance(@Param("courseId") Integer courseId);
+
     /**
      * Count attendance records between dates
      */
@@ -4,11 +4,14 @@ package com.itms.repository;
 import com.itms.entity.Certificate;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface CertificateRepository extends JpaRepository<Certificate, Integer> {
@@ -32,6 +35,59 @@ public interface CertificateRepository extends JpaRepository<Certificate, Intege
     """, nativeQuery = true)
     List<Object[]> findRecentCertificateActivities(@Param("userId") Integer userId);
 
+    /**
+     * Certificate with owner and course, for rendering.
+     */
+    @Query("SELECT cert FROM Certificate cert JOIN FETCH cert.user JOIN FETCH cert.course WHERE cert.id = :id")
+    Optional<Certificate> findWithDetailsById(@Param("id") Integer id);
+
+    @Query("SELECT cert FROM Certificate cert JOIN FETCH cert.user JOIN FETCH cert.course WHERE cert.certificateCode = :code")
+    Optional<Certificate> findWithDetailsByCertificateCode(@Param("code") String code);
+
+    /**
+     * Valid certificates that have no rendered document yet, in id order after the given id (keyset page)
+     */
+    @Query(value = """
+        SELECT TOP (:limit) id FROM Certificate
+        WHERE certificate_url IS NULL AND is_valid = 1 AND id > :afterId
+        ORDER BY id
+    """, nativeQuery = true)
+    List<Integer> findIdsWithoutDocumentAfter(@Param("afterId") int afterId, @Param("limit") int limit);
+
+    @Query(value = """
+        SELECT id FROM Certificate
+        WHERE course_id = :courseId AND certificate_url IS NULL AND is_valid = 1
+    """, nativeQuery = true)
+    List<Integer> findIdsWithoutDocumentByCourseId(@Param("courseId") Integer courseId);
+
+    /**
+     * Id and code of the certificates of some users in a course (to index a bulk-issued chunk).
+     */
+    @Query(value = """
+        SELECT id, certificate_code FROM Certificate
+        WHERE course_id = :courseId AND user_id IN (:userIds)
+    """, nativeQuery = true)
+    List<Object[]> findIdAndCodeByCourseIdAndUserIds(@Param("courseId") Integer courseId,
+                                                     @Param("userIds") List<Integer> userIds);
+
+    /**
+     * Users among the given ones that already hold a certificate for the course.
+     */
+    @Query(value = """
+        SELECT user_id FROM Certificate
+        WHERE course_id = :courseId AND user_id IN (:userIds)
+    """, nativeQuery = true)
+    List<Integer> findUserIdsByCourseIdAndUserIds(@Param("courseId") Integer courseId,
+                                                  @Param("userIds") List<Integer> userIds);
+
+    /**
+     * Point a certificate at its rendered document.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE Certificate SET certificate_url = :url WHERE id = :id", nativeQuery = true)
+    int updateCertificateUrl(@Param("id") Integer id, @Param("url") String url);
+
     /**
      * Count certificates for a user.
      */
@@ -36,6 +36,13 @@ public interface ClassRoomRepository extends JpaRepository<ClassRoom, Integer> {
            "WHERE c.trainer.id = :trainerId OR co.trainer.id = :trainerId")
     List<ClassRoom> findByTrainerIdWithCourse(@Param("trainerId") Integer trainerId);
     
+    /**
+     * Find classrooms by class codes with course and both trainers eagerly loaded
+     */
+    @Query("SELECT c FROM ClassRoom c LEFT JOIN FETCH c.course co LEFT JOIN FETCH co.trainer LEFT JOIN FETCH c.trainer " +
+           "WHERE c.classCode IN :classCodes")
+    List<ClassRoom> findByClassCodesWithCourseAndTrainer(@Param("classCodes") List<String> classCodes);
+
     /**
      * Find all classrooms for a course (with trainer eagerly loaded)
      */
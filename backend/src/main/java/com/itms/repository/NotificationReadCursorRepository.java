@@ -0,0 +1,20 @@
+package com.itms.repository;
+
+import com.itms.entity.NotificationReadCursor;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface NotificationReadCursorRepository extends JpaRepository<NotificationReadCursor, Integer> {
+
+    /** Cursor row locked for a read-modify-write of its bitmaps. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM NotificationReadCursor c WHERE c.userId = :userId")
+    Optional<NotificationReadCursor> findForUpdate(@Param("userId") Integer userId);
+}
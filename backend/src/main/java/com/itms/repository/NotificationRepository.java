@@ -1,11 +1,15 @@
 package com.itms.repository;
 
 import com.itms.entity.Notification;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -13,11 +17,26 @@ public interface NotificationRepository extends JpaRepository<Notification, Inte
 
     List<Notification> findByUserIdOrderBySentDateDesc(Integer userId);
 
+    List<Notification> findByUserIdOrderBySentDateDesc(Integer userId, Pageable pageable);
+
     // Get notifications for a user - only individual notifications, not broadcast (user IS NULL)
     // Exclude notifications where sender equals user (self-notifications) and exclude drafts
     @Query("SELECT DISTINCT n FROM Notification n WHERE n.user.id = :userId AND n.isDraft = false AND (n.sender IS NULL OR n.sender.id <> n.user.id) ORDER BY n.sentDate DESC")
     List<Notification> findNotificationsForUser(@Param("userId") Integer userId);
 
+    // Broadcasts by id with their sender (inbox rows of visible broadcasts)
+    @Query("SELECT n FROM Notification n LEFT JOIN FETCH n.sender WHERE n.id IN :ids")
+    List<Notification> findWithSenderByIdIn(@Param("ids") Collection<Integer> ids);
+
+    // Flags one row read; 0 when it already was, so concurrent reads are counted once
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true, n.readAt = :now WHERE n.id = :id AND n.isRead = false")
+    int markReadIfUnread(@Param("id") Integer id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true, n.readAt = :now WHERE n.user.id = :userId AND n.isRead = false")
+    int markAllReadForUser(@Param("userId") Integer userId, @Param("now") LocalDateTime now);
+
     @Query("SELECT n FROM Notification n WHERE n.user.id = :userId AND n.isDraft = :isDraft ORDER BY n.sentDate DESC")
     List<Notification> findByUserIdAndIsDraftOrderBySentDateDesc(
             @Param("userId") Integer userId,
@@ -0,0 +1,13 @@
+package com.itms.repository;
+
+import com.itms.entity.QuizAnswer;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface QuizAnswerRepository extends JpaRepository<QuizAnswer, Integer> {
+
+    List<QuizAnswer> findByQuizAttemptIdOrderByQuestionIdAsc(Integer attemptId);
+}
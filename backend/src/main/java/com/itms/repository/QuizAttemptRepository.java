@@ -1,8 +1,12 @@
 package com.itms.repository;
 
+import com.itms.dto.QuizAttemptSummaryDto;
 import com.itms.entity.QuizAttempt;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -16,7 +20,67 @@ public interface QuizAttemptRepository extends JpaRepository<QuizAttempt, Intege
     
     // Find attempt by ID
     Optional<QuizAttempt> findById(Integer attemptId);
-    
+
+    /**
+     * Claim an in-progress attempt for grading (sync submit or queued submit alike);
+     * 0 when it was already claimed, so an attempt is graded once
+     */
+    @Modifying
+    @Query(value = "UPDATE QuizAttempt SET status = 'SUBMITTED' WHERE id = :id AND status = 'IN_PROGRESS'", nativeQuery = true)
+    int claimForSubmission(@Param("id") Integer id);
+
+    /**
+     * Hand an attempt whose queued submission could not be graded back to the learner, so it can be submitted again
+     */
+    @Modifying
+    @Query(value = """
+        UPDATE QuizAttempt SET status = 'IN_PROGRESS'
+        WHERE status = 'SUBMITTED'
+        AND id = (SELECT attempt_id FROM QuizSubmission WHERE id = :submissionId AND status = 'FAILED')
+    """, nativeQuery = true)
+    int reopenForFailedSubmission(@Param("submissionId") Integer submissionId);
+
+    /**
+     * Attempt summary per quiz for a user across a whole course - single aggregate query
+     */
+    @Query("""
+        SELECT new com.itms.dto.QuizAttemptSummaryDto(
+            q.id,
+            COUNT(qa.id),
+            MAX(qa.score),
+            MAX(CASE WHEN qa.passed = true THEN 1 ELSE 0 END),
+            MAX(qa.attemptNumber),
+            MAX(qa.startedAt)
+        )
+        FROM QuizAttempt qa
+        JOIN qa.quiz q
+        WHERE q.course.id = :courseId
+        AND qa.user.id = :userId
+        GROUP BY q.id
+    """)
+    List<QuizAttemptSummaryDto> summarizeByCourseIdAndUserId(@Param("courseId") Integer courseId,
+                                                             @Param("userId") Integer userId);
+
+    /**
+     * Attempt summary of one quiz for a user (quizzes without a course fall outside the per-course query)
+     */
+    @Query("""
+        SELECT new com.itms.dto.QuizAttemptSummaryDto(
+            qa.quiz.id,
+            COUNT(qa.id),
+            MAX(qa.score),
+            MAX(CASE WHEN qa.passed = true THEN 1 ELSE 0 END),
+            MAX(qa.attemptNumber),
+            MAX(qa.startedAt)
+        )
+        FROM QuizAttempt qa
+        WHERE qa.quiz.id = :quizId
+        AND qa.user.id = :userId
+        GROUP BY qa.quiz.id
+    """)
+    List<QuizAttemptSummaryDto> summarizeByQuizIdAndUserId(@Param("quizId") Integer quizId,
+                                                           @Param("userId") Integer userId);
+
     // ==================== Audit Log Methods ====================
     
     /**
@@ -0,0 +1,13 @@
+package com.itms.repository;
+
+import com.itms.entity.QuizQuestionStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface QuizQuestionStatsRepository extends JpaRepository<QuizQuestionStats, Integer> {
+
+    List<QuizQuestionStats> findByQuizId(Integer quizId);
+}
@@ -0,0 +1,62 @@
+package com.itms.repository;
+
+import com.itms.entity.QuizSubmission;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface QuizSubmissionRepository extends JpaRepository<QuizSubmission, Integer> {
+
+    Optional<QuizSubmission> findByAttemptId(Integer attemptId);
+
+    /**
+     * Load claimed submissions with their attempt, quiz and user in one query
+     */
+    @Query("""
+        SELECT s FROM QuizSubmission s
+        JOIN FETCH s.attempt a
+        JOIN FETCH a.quiz q
+        JOIN FETCH q.course
+        JOIN FETCH a.user
+        WHERE s.id IN :ids
+        ORDER BY s.id ASC
+    """)
+    List<QuizSubmission> findWithAttemptByIdIn(@Param("ids") List<Integer> ids);
+
+    /**
+     * Record a failed grading run: re-queue the submission until it has failed maxAttempts times, then mark it FAILED.
+     * claimed_at is kept, so the claim query backs the retry off from the failed run.
+     */
+    @Modifying
+    @Query(value = """
+        UPDATE QuizSubmission
+        SET attempt_count = attempt_count + 1,
+            error_message = :error,
+            status = CASE WHEN attempt_count + 1 >= :maxAttempts THEN 'FAILED' ELSE 'QUEUED' END,
+            processed_at = CASE WHEN attempt_count + 1 >= :maxAttempts THEN GETDATE() ELSE NULL END
+        WHERE id = :id
+        AND status = 'PROCESSING'
+    """, nativeQuery = true)
+    int recordFailure(@Param("id") Integer id, @Param("error") String error, @Param("maxAttempts") int maxAttempts);
+
+    /**
+     * Put back submissions claimed by a worker that never finished (crash / shutdown)
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        UPDATE QuizSubmission
+        SET status = 'QUEUED', claimed_at = NULL
+        WHERE status = 'PROCESSING'
+        AND claimed_at < :staleBefore
+    """, nativeQuery = true)
+    int requeueStale(@Param("staleBefore") LocalDateTime staleBefore);
+}
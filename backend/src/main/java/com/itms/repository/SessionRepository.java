@@ -173,26 +173,6 @@ public interface SessionRepository extends JpaRepository<Session, Long> {
      */
 
 
-    /**
-     * Check if there is a time conflict in a specific room on a specific date
-     */
-    @Query(value = """
-        SELECT CASE WHEN COUNT_BIG(s.id) > 0 THEN CAST(1 AS BIT) ELSE CAST(0 AS BIT) END
-        FROM Session s
-        WHERE CAST(s.date AS DATE) = CAST(:date AS DATE)
-          AND LOWER(COALESCE(s.location, '')) = LOWER(COALESCE(:location, ''))
-          AND CAST(s.time_start AS TIME) < CAST(:endTime AS TIME)
-          AND CAST(s.time_end AS TIME) > CAST(:startTime AS TIME)
-          AND (:excludeId IS NULL OR s.id <> :excludeId)
-    """, nativeQuery = true)
-    boolean existsRoomTimeConflict(
-            @Param("date") LocalDate date,
-            @Param("location") String location,
-            @Param("startTime") LocalTime startTime,
-            @Param("endTime") LocalTime endTime,
-            @Param("excludeId") Long excludeId
-    );
-
     /**
      * Find session by class room id and date
      */
@@ -207,31 +187,23 @@ public interface SessionRepository extends JpaRepository<Session, Long> {
     List<Session> findByClassRoomIdOrderByDateAsc(@Param("classRoomId") Integer classRoomId);
 
     /**
-     * Find all sessions ordered by date and start time (for HR schedule)
+     * Count sessions of a class room other than the given one that are not completed yet
      */
-    @Query("SELECT s FROM Session s ORDER BY s.date ASC, s.timeStart ASC")
-    List<Session> findAllByOrderByDateAscTimeStartAsc();
+    @Query("SELECT COUNT(s) FROM Session s WHERE s.classRoom.id = :classRoomId AND s.id <> :sessionId " +
+           "AND (s.status IS NULL OR s.status <> com.itms.common.SessionStatus.COMPLETED)")
+    long countOpenSessionsExcept(@Param("classRoomId") Integer classRoomId, @Param("sessionId") Long sessionId);
 
     /**
-     * Check if there is a time conflict for a trainer on a specific date
+     * Count all sessions of a class room
      */
-    @Query(value = """
-        SELECT CASE WHEN COUNT_BIG(s.id) > 0 THEN CAST(1 AS BIT) ELSE CAST(0 AS BIT) END
-        FROM Session s
-        JOIN [User] u ON u.id = s.trainer_id
-        WHERE u.username = :trainerUsername
-          AND CAST(s.date AS DATE) = CAST(:date AS DATE)
-          AND CAST(s.time_start AS TIME) < CAST(:endTime AS TIME)
-          AND CAST(s.time_end AS TIME) > CAST(:startTime AS TIME)
-          AND (:excludeId IS NULL OR s.id <> :excludeId)
-    """, nativeQuery = true)
-    boolean existsTrainerTimeConflict(
-            @Param("trainerUsername") String trainerUsername,
-            @Param("date") LocalDate date,
-            @Param("startTime") LocalTime startTime,
-            @Param("endTime") LocalTime endTime,
-            @Param("excludeId") Long excludeId
-    );
+    @Query("SELECT COUNT(s) FROM Session s WHERE s.classRoom.id = :classRoomId")
+    long countByClassRoomId(@Param("classRoomId") Integer classRoomId);
+
+    /**
+     * Find all sessions ordered by date and start time (for HR schedule)
+     */
+    @Query("SELECT s FROM Session s ORDER BY s.date ASC, s.timeStart ASC")
+    List<Session> findAllByOrderByDateAscTimeStartAsc();
 
     /**
      * Get session by ID with trainer info
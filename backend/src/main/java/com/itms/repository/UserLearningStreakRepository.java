@@ -0,0 +1,9 @@
+package com.itms.repository;
+
+import com.itms.entity.UserLearningStreak;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UserLearningStreakRepository extends JpaRepository<UserLearningStreak, Integer> {
+}
@@ -1,6 +1,7 @@
 package com.itms.service;
 
 import com.itms.common.CourseStatus;
+import com.itms.common.NotificationAudience;
 import com.itms.common.NotificationPriority;
 import com.itms.dto.AdminAnalyticsDto;
 import com.itms.dto.AdminClassDto;
@@ -28,6 +29,7 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -53,6 +55,8 @@ public class AdminService {
     private final QuizAttemptRepository quizAttemptRepository;
     private final SessionRepository sessionRepository;
     private final AttendanceRepository attendanceRepository;
+    private final NotificationBroadcastService notificationBroadcastService;
+    private final NotificationUnreadCounterService notificationUnreadCounterService;
 
     public AdminDashboardDto getDashboardStats() {
         LocalDateTime now = LocalDateTime.now();
@@ -636,13 +640,16 @@ public class AdminService {
                 .build();
         
         notification = notificationRepository.save(notification);
+        String fanOutJobId = null;
         
         // If not draft, fan out to recipients
         if (notification.getIsDraft() != null && !notification.getIsDraft()) {
-            sendNotificationToRecipients(notification);
+            fanOutJobId = sendNotificationToRecipients(notification);
         }
         
-        return mapToAdminNotificationDto(notification);
+        AdminNotificationDto result = mapToAdminNotificationDto(notification);
+        result.setFanOutJobId(fanOutJobId);
+        return result;
     }
 
     public AdminNotificationDto updateNotification(Integer id, AdminNotificationDto dto) {
@@ -665,8 +672,12 @@ public class AdminService {
         return mapToAdminNotificationDto(notification);
     }
 
+    @Transactional
     public void deleteNotification(Integer id) {
-        notificationRepository.deleteById(id);
+        notificationRepository.findById(id).ifPresent(notification -> {
+            notificationRepository.delete(notification);
+            notificationUnreadCounterService.deleted(notification);
+        });
     }
 
     public AdminNotificationDto sendNotification(Integer id) {
@@ -679,9 +690,9 @@ public class AdminService {
         notification = notificationRepository.save(notification);
         
         // Fan out to recipients
-        sendNotificationToRecipients(notification);
-        
-        return mapToAdminNotificationDto(notification);
+        AdminNotificationDto result = mapToAdminNotificationDto(notification);
+        result.setFanOutJobId(sendNotificationToRecipients(notification));
+        return result;
     }
 
     private AdminNotificationDto mapToAdminNotificationDto(Notification n) {
@@ -701,47 +712,25 @@ public class AdminService {
                 .build();
     }
 
-    private void sendNotificationToRecipients(Notification source) {
+    /**
+     * Deliver to the target role (as a broadcast, or fanned out in the background); returns the fan-out job id
+     */
+    private String sendNotificationToRecipients(Notification source) {
         String target = source.getRecipientType();
         log.info("Fanning out admin notification to target: {}", target);
-        
-        List<User> recipients = new ArrayList<>();
-        
+
+        NotificationAudience audience = null;
         if (target == null || target.equalsIgnoreCase("ALL")) {
-            recipients = userRepository.findAll().stream()
-                    .filter(u -> Boolean.TRUE.equals(u.getIsActive()))
-                    .collect(Collectors.toList());
+            audience = NotificationAudience.ALL;
         } else if (target.equalsIgnoreCase("EMPLOYEE")) {
-            recipients = userRepository.findAllActiveEmployees();
+            audience = NotificationAudience.EMPLOYEES;
         } else if (target.equalsIgnoreCase("TRAINER")) {
-            recipients = userRepository.findAllActiveTrainers();
+            audience = NotificationAudience.TRAINERS;
         } else if (target.equalsIgnoreCase("HR")) {
-            recipients = userRepository.findByRoleName("Human Resources");
+            audience = NotificationAudience.HR;
         }
 
-        log.info("Found {} recipients for notification", recipients.size());
-        // ✅ REMOVE DUPLICATES HERE
-
-        for (User recipient : recipients) {
-            // Don't send to the sender again if they are in the list
-            if (source.getSender() != null && recipient.getId().equals(source.getSender().getId())) {
-                continue;
-            }
-            
-            Notification notif = Notification.builder()
-                    .user(recipient)
-                    .sender(source.getSender())
-                    .type(source.getType())
-                    .title(source.getTitle())
-                    .message(source.getMessage())
-                    .priority(source.getPriority())
-                    .recipientType(source.getRecipientType())
-                    .isRead(false)
-                    .isDraft(false)
-                    .sentDate(LocalDateTime.now())
-                    .build();
-            notificationRepository.save(notif);
-        }
+        return notificationBroadcastService.deliver(source, audience, null);
     }
 
     // ========== SYSTEM FEEDBACK METHODS ==========
@@ -0,0 +1,41 @@
+package com.itms.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Runs side effects (caches, projections, pushes, background queues) once the current transaction commits,
+ * or immediately when there is none. The data is already committed when they run, so a failure cannot be
+ * reported to the caller meaningfully: it is logged and left to the owner's reconciliation or next refresh.
+ */
+@Slf4j
+public final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    /**
+     * @param task   what the action does, for the failure log ("refresh course completion projection")
+     * @param action side effect to run after commit
+     */
+    public static void run(String task, Runnable action) {
+        Runnable safe = () -> {
+            try {
+                action.run();
+            } catch (Exception e) {
+                log.error("Failed to {}: {}", task, e.getMessage());
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    safe.run();
+                }
+            });
+        } else {
+            safe.run();
+        }
+    }
+}
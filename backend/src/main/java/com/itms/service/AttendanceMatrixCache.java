@@ -0,0 +1,277 @@
+package com.itms.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory "members x sessions" attendance matrix per class room.
+ * Each member is a pair of bitset rows (marked / attended) indexed by session ordinal, so attended counts,
+ * rates and per-session heatmaps are popcounts instead of database round trips.
+ * A matrix is loaded with one query on first use, patched in place when attendance is saved, and dropped when
+ * the class's sessions or members change. Least recently used classes are evicted beyond the configured size.
+ */
+@Service
+@Slf4j
+public class AttendanceMatrixCache {
+
+    // Kind, then session rows ordered by date (they define the ordinals), then members, then marks
+    private static final String LOAD_SQL = """
+        SELECT 0 AS kind, s.id AS session_id, s.date, s.time_start, NULL AS user_id, NULL AS attended
+        FROM Session s
+        WHERE s.class_id = ?
+        UNION ALL
+        SELECT 1, NULL, NULL, NULL, cm.user_id, NULL
+        FROM ClassMember cm
+        WHERE cm.class_id = ?
+        UNION ALL
+        SELECT 2, s.id, NULL, NULL, e.user_id, a.attended
+        FROM Attendance a
+        JOIN Enrollment e ON a.enrollment_id = e.id
+        JOIN Session s ON e.session_id = s.id
+        WHERE s.class_id = ?
+        ORDER BY kind, date, time_start, session_id
+    """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Integer, AttendanceMatrix> matrices;
+    // Bumped by every patch/invalidation; a load that overlapped one is served but not cached
+    private final AtomicLong writes = new AtomicLong();
+
+    public AttendanceMatrixCache(JdbcTemplate jdbcTemplate,
+                                 @Value("${itms.attendance.matrix.max-classes:500}") int maxClasses) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.matrices = Collections.synchronizedMap(new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, AttendanceMatrix> eldest) {
+                return size() > maxClasses;
+            }
+        });
+    }
+
+    /**
+     * Matrix of a class, loaded on first use
+     */
+    public AttendanceMatrix get(Integer classId) {
+        AttendanceMatrix matrix = matrices.get(classId);
+        if (matrix != null) return matrix;
+
+        // Loaded outside the map lock; a concurrent load of the same class just wins the put
+        long before = writes.get();
+        AttendanceMatrix loaded = load(classId);
+        if (writes.get() != before) return loaded;
+        AttendanceMatrix raced = matrices.putIfAbsent(classId, loaded);
+        return raced != null ? raced : loaded;
+    }
+
+    /**
+     * Apply saved marks of one session once the current transaction commits.
+     * Unknown sessions or members mean the class shape changed: the matrix is dropped and reloaded on next use.
+     */
+    public void markAfterCommit(Integer classId, Long sessionId, Map<Integer, Boolean> attendedByUser) {
+        if (classId == null || sessionId == null || attendedByUser.isEmpty()) return;
+        AfterCommit.run("update attendance matrix", () -> {
+            writes.incrementAndGet();
+            AttendanceMatrix matrix = matrices.get(classId);
+            if (matrix != null && !matrix.mark(sessionId, attendedByUser)) {
+                matrices.remove(classId);
+            }
+        });
+    }
+
+    /**
+     * Drop a class's matrix once the current transaction commits (sessions or members changed)
+     */
+    public void invalidateAfterCommit(Integer classId) {
+        if (classId == null) return;
+        writes.incrementAndGet();
+        matrices.remove(classId);
+        AfterCommit.run("update attendance matrix", () -> {
+            writes.incrementAndGet();
+            matrices.remove(classId);
+        });
+    }
+
+    private AttendanceMatrix load(Integer classId) {
+        List<Long> sessionIds = new ArrayList<>();
+        List<LocalDate> sessionDates = new ArrayList<>();
+        List<Integer> userIds = new ArrayList<>();
+        List<Object[]> marks = new ArrayList<>();
+
+        jdbcTemplate.query(LOAD_SQL, rs -> {
+            switch (rs.getInt(1)) {
+                case 0 -> {
+                    sessionIds.add(rs.getLong(2));
+                    java.sql.Date date = rs.getDate(3);
+                    sessionDates.add(date != null ? date.toLocalDate() : null);
+                }
+                case 1 -> userIds.add(rs.getInt(5));
+                default -> marks.add(new Object[]{rs.getLong(2), rs.getInt(5), rs.getBoolean(6)});
+            }
+        }, classId, classId, classId);
+
+        AttendanceMatrix matrix = new AttendanceMatrix(classId, sessionIds, sessionDates, userIds);
+        for (Object[] mark : marks) {
+            matrix.set((Long) mark[0], (Integer) mark[1], (Boolean) mark[2]);
+        }
+        log.debug("Attendance matrix loaded for class {} ({} members x {} sessions)",
+                classId, userIds.size(), sessionIds.size());
+        return matrix;
+    }
+
+    /**
+     * Attendance of one class: member rows of 64-bit words, bit i = session ordinal i.
+     * Reads and patches synchronize on the matrix; the shape (sessions, members) never changes after load.
+     */
+    public static final class AttendanceMatrix {
+        private final Integer classId;
+        private final long[] sessionIds;
+        private final LocalDate[] sessionDates;
+        private final int[] userIds;
+        private final Map<Long, Integer> sessionOrdinals = new HashMap<>();
+        private final Map<Integer, Integer> memberRows = new HashMap<>();
+        private final long[][] marked;
+        private final long[][] attended;
+
+        AttendanceMatrix(Integer classId, List<Long> sessionIds, List<LocalDate> sessionDates, List<Integer> userIds) {
+            this.classId = classId;
+            this.sessionIds = sessionIds.stream().mapToLong(Long::longValue).toArray();
+            this.sessionDates = sessionDates.toArray(new LocalDate[0]);
+            this.userIds = userIds.stream().mapToInt(Integer::intValue).toArray();
+            for (int i = 0; i < this.sessionIds.length; i++) sessionOrdinals.put(this.sessionIds[i], i);
+            for (int i = 0; i < this.userIds.length; i++) memberRows.putIfAbsent(this.userIds[i], i);
+
+            int words = (this.sessionIds.length + 63) >>> 6;
+            this.marked = new long[this.userIds.length][words];
+            this.attended = new long[this.userIds.length][words];
+        }
+
+        public Integer getClassId() {
+            return classId;
+        }
+
+        public int sessionCount() {
+            return sessionIds.length;
+        }
+
+        public int memberCount() {
+            return userIds.length;
+        }
+
+        public long sessionIdAt(int ordinal) {
+            return sessionIds[ordinal];
+        }
+
+        public LocalDate sessionDateAt(int ordinal) {
+            return sessionDates[ordinal];
+        }
+
+        public int userIdAt(int row) {
+            return userIds[row];
+        }
+
+        public boolean isMember(Integer userId) {
+            return memberRows.containsKey(userId);
+        }
+
+        /**
+         * Sessions the user attended (0 for non-members)
+         */
+        public synchronized int attendedCount(Integer userId) {
+            Integer row = memberRows.get(userId);
+            if (row == null) return 0;
+            int count = 0;
+            for (long word : attended[row]) count += Long.bitCount(word);
+            return count;
+        }
+
+        /**
+         * Attended sessions / all sessions of the class in percent (0 without sessions)
+         */
+        public double attendanceRate(Integer userId) {
+            return sessionIds.length > 0 ? attendedCount(userId) * 100.0 / sessionIds.length : 0;
+        }
+
+        /**
+         * true / false once marked, null when the session has no mark for the user (or is unknown)
+         */
+        public synchronized Boolean attendance(Integer userId, Long sessionId) {
+            Integer row = memberRows.get(userId);
+            Integer ordinal = sessionOrdinals.get(sessionId);
+            if (row == null || ordinal == null) return null;
+            if (!test(marked[row], ordinal)) return null;
+            return test(attended[row], ordinal);
+        }
+
+        /**
+         * Members present per session ordinal (heatmap column totals)
+         */
+        public synchronized int[] presentPerSession() {
+            int[] present = new int[sessionIds.length];
+            for (long[] row : attended) {
+                for (int w = 0; w < row.length; w++) {
+                    long word = row[w];
+                    while (word != 0) {
+                        present[(w << 6) + Long.numberOfTrailingZeros(word)]++;
+                        word &= word - 1;
+                    }
+                }
+            }
+            return present;
+        }
+
+        /**
+         * One member's row as marks per session ordinal (null = not marked)
+         */
+        public synchronized List<Boolean> row(Integer userId) {
+            Integer row = memberRows.get(userId);
+            Boolean[] marks = new Boolean[sessionIds.length];
+            if (row != null) {
+                for (int i = 0; i < marks.length; i++) {
+                    marks[i] = test(marked[row], i) ? test(attended[row], i) : null;
+                }
+            }
+            return Arrays.asList(marks);
+        }
+
+        // false when a session or member is not part of this matrix
+        synchronized boolean mark(Long sessionId, Map<Integer, Boolean> attendedByUser) {
+            Integer ordinal = sessionOrdinals.get(sessionId);
+            if (ordinal == null) return false;
+            for (Integer userId : attendedByUser.keySet()) {
+                if (!memberRows.containsKey(userId)) return false;
+            }
+            attendedByUser.forEach((userId, present) -> apply(memberRows.get(userId), ordinal, present));
+            return true;
+        }
+
+        private void set(Long sessionId, Integer userId, Boolean present) {
+            Integer row = memberRows.get(userId);
+            Integer ordinal = sessionOrdinals.get(sessionId);
+            if (row != null && ordinal != null) apply(row, ordinal, present);
+        }
+
+        private void apply(int row, int ordinal, Boolean present) {
+            long bit = 1L << (ordinal & 63);
+            int word = ordinal >>> 6;
+            marked[row][word] |= bit;
+            if (Boolean.TRUE.equals(present)) attended[row][word] |= bit;
+            else attended[row][word] &= ~bit;
+        }
+
+        private static boolean test(long[] row, int ordinal) {
+            return (row[ordinal >>> 6] & (1L << (ordinal & 63))) != 0;
+        }
+    }
+}
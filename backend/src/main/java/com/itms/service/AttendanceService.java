@@ -7,6 +7,7 @@ import com.itms.repository.SessionRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Service
@@ -15,6 +16,9 @@ public class AttendanceService {
 
     private final SessionRepository sessionRepository;
     private final AttendanceRepository attendanceRepository;
+    private final LearningStreakService learningStreakService;
+    private final AttendanceMatrixCache attendanceMatrixCache;
+    private final CourseCompletionService courseCompletionService;
 
     /**
      * Get all sessions with attendance status for a user in a course
@@ -74,6 +78,8 @@ public class AttendanceService {
      * Update attendance for students in a session (for trainers)
      */
     public void updateAttendance(Long sessionId, List<TrainerController.AttendanceUpdateRequest> attendanceUpdates) {
+        List<Integer> present = new ArrayList<>();
+        List<Integer> absent = new ArrayList<>();
         for (TrainerController.AttendanceUpdateRequest update : attendanceUpdates) {
             attendanceRepository.updateAttendanceForUserAndSession(
                 update.getStudentId(), 
@@ -81,6 +87,18 @@ public class AttendanceService {
                 update.getAttended(),
                 update.getNotes()
             );
+            (Boolean.TRUE.equals(update.getAttended()) ? present : absent).add(update.getStudentId());
         }
+
+        // Keep learning streaks, the class's attendance matrix and completion rows in step with the session
+        sessionRepository.findById(sessionId).ifPresent(session -> {
+            learningStreakService.recordActivityAfterCommit(present, session.getDate());
+            learningStreakService.recordWithdrawalAfterCommit(absent, session.getDate());
+            if (session.getClassRoom() != null) {
+                // Only existing marks are updated here, so the matrix is reloaded rather than patched
+                attendanceMatrixCache.invalidateAfterCommit(session.getClassRoom().getId());
+                courseCompletionService.refreshClassAfterCommit(session.getClassRoom().getId());
+            }
+        });
     }
 }
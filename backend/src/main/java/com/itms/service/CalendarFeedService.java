@@ -0,0 +1,244 @@
+package com.itms.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Per-user iCalendar subscription feeds (sessions the user trains or attends as an active class member).
+ * Feeds are written straight from a date-bounded JDBC cursor to the response, and a one-row validator query
+ * (session count, latest change, checksum of the printed session set) backs ETag / Last-Modified so polling
+ * calendar clients mostly get 304.
+ * Calendar apps cannot send the login cookie, so the feed URL carries an HMAC token of the user id and the
+ * user's feed version (CalendarFeedKey), under a key derived from the JWT secret; resetting bumps the version.
+ */
+@Service
+@Slf4j
+public class CalendarFeedService {
+
+    private static final String USER_FILTER = """
+        WHERE s.date BETWEEN ? AND ?
+          AND (s.trainer_id = ?
+               OR EXISTS (SELECT 1 FROM ClassMember cm
+                          WHERE cm.class_id = s.class_id AND cm.user_id = ? AND cm.status = 'ACTIVE'))
+    """;
+
+    // Count catches deleted sessions, the max timestamp session edits, the checksum swapped memberships
+    // (same count, other sessions) and renamed courses or classes, which do not touch Session
+    private static final String VERSION_SQL = """
+        SELECT COUNT_BIG(s.id), MAX(COALESCE(s.updated_at, s.created_at)),
+               CHECKSUM_AGG(CHECKSUM(s.id, c.name, cr.class_code))
+        FROM Session s
+        JOIN Course c ON c.id = s.course_id
+        LEFT JOIN ClassRoom cr ON cr.id = s.class_id
+    """ + USER_FILTER;
+
+    private static final String FEED_KEY_SQL = "SELECT version FROM CalendarFeedKey WHERE user_id = ?";
+
+    private static final String RESET_FEED_KEY_SQL = """
+        MERGE CalendarFeedKey WITH (HOLDLOCK) AS t
+        USING (SELECT ? AS user_id) AS s
+        ON t.user_id = s.user_id
+        WHEN MATCHED THEN
+            UPDATE SET version = t.version + 1, updated_at = GETDATE()
+        WHEN NOT MATCHED THEN
+            INSERT (user_id, version, updated_at) VALUES (s.user_id, 1, GETDATE());
+    """;
+
+    private static final String FEED_SQL = """
+        SELECT s.id, s.date, s.time_start, s.time_end, s.location, s.location_type, s.meeting_link, s.status,
+               COALESCE(s.updated_at, s.created_at) AS changed_at, c.name AS course_name, cr.class_code
+        FROM Session s
+        JOIN Course c ON c.id = s.course_id
+        LEFT JOIN ClassRoom cr ON cr.id = s.class_id
+    """ + USER_FILTER + " ORDER BY s.date, s.time_start";
+
+    private static final DateTimeFormatter UTC_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final byte[] tokenKey;
+
+    @Value("${itms.calendar.past-days:30}")
+    private int pastDays;
+
+    @Value("${itms.calendar.future-days:180}")
+    private int futureDays;
+
+    public CalendarFeedService(JdbcTemplate jdbcTemplate, @Value("${jwt.secret}") String secret) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Own key, so feed tokens never share a key with login JWTs
+        this.tokenKey = hmac(secret.getBytes(StandardCharsets.UTF_8), "itms-calendar-feed");
+    }
+
+    /**
+     * Validators of a user's feed; the window start is part of the ETag because the window moves daily
+     */
+    public record FeedVersion(String etag, long lastModified) {}
+
+    /**
+     * Path of the user's subscription feed (relative to the API root)
+     */
+    public String feedPath(Integer userId) {
+        return "/api/calendar/feed/" + userId + "/" + token(userId, feedKeyVersion(userId)) + ".ics";
+    }
+
+    /**
+     * Invalidate the user's current subscription URL and return the new one
+     */
+    public String resetFeed(Integer userId) {
+        jdbcTemplate.update(RESET_FEED_KEY_SQL, userId);
+        log.info("Calendar feed reset for user={}", userId);
+        return feedPath(userId);
+    }
+
+    public boolean isValidToken(Integer userId, String token) {
+        return token != null && MessageDigest.isEqual(token(userId, feedKeyVersion(userId))
+                .getBytes(StandardCharsets.US_ASCII), token.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public FeedVersion version(Integer userId) {
+        LocalDate from = windowStart();
+        return jdbcTemplate.queryForObject(VERSION_SQL, (rs, i) -> {
+            long count = rs.getLong(1);
+            Timestamp changed = rs.getTimestamp(2);
+            int checksum = rs.getInt(3);
+            // Last-Modified has second precision
+            long lastModified = changed != null ? changed.getTime() / 1000 * 1000 : 0L;
+            String etag = "\"" + userId + "-" + from + "-" + count + "-" + lastModified + "-"
+                    + Integer.toHexString(checksum) + "\"";
+            return new FeedVersion(etag, lastModified);
+        }, Date.valueOf(from), Date.valueOf(windowEnd()), userId, userId);
+    }
+
+    /**
+     * Write the feed as it is read; nothing is buffered beyond the writer
+     */
+    public void writeFeed(Integer userId, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        line(writer, "BEGIN:VCALENDAR");
+        line(writer, "VERSION:2.0");
+        line(writer, "PRODID:-//ITMS//Training Schedule//VI");
+        line(writer, "CALSCALE:GREGORIAN");
+        line(writer, "METHOD:PUBLISH");
+        line(writer, "X-WR-CALNAME:ITMS - Lịch học");
+        try {
+            jdbcTemplate.query(FEED_SQL, rs -> {
+                try {
+                    writeEvent(writer, rs);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, Date.valueOf(windowStart()), Date.valueOf(windowEnd()), userId, userId);
+        } catch (UncheckedIOException e) {
+            throw e.getCause(); // client went away
+        }
+        line(writer, "END:VCALENDAR");
+        writer.flush();
+    }
+
+    private void writeEvent(Writer writer, ResultSet rs) throws SQLException, IOException {
+        LocalDate date = rs.getDate("date").toLocalDate();
+        LocalDateTime start = date.atTime(rs.getTime("time_start").toLocalTime());
+        LocalDateTime end = date.atTime(rs.getTime("time_end").toLocalTime());
+        Timestamp changed = rs.getTimestamp("changed_at");
+        String classCode = rs.getString("class_code");
+        String location = rs.getString("location");
+        String meetingLink = rs.getString("meeting_link");
+        boolean online = !"OFFLINE".equalsIgnoreCase(rs.getString("location_type"));
+
+        line(writer, "BEGIN:VEVENT");
+        line(writer, "UID:session-" + rs.getLong("id") + "@itms");
+        line(writer, "DTSTAMP:" + utc(changed != null ? changed.toLocalDateTime() : start));
+        line(writer, "DTSTART:" + utc(start));
+        line(writer, "DTEND:" + utc(end));
+        line(writer, "SUMMARY:" + escape(rs.getString("course_name") + (classCode != null ? " (" + classCode + ")" : "")));
+        if (online && meetingLink != null && !meetingLink.isBlank()) {
+            line(writer, "LOCATION:" + escape(meetingLink));
+            line(writer, "URL:" + meetingLink.trim());
+        } else if (location != null && !location.isBlank()) {
+            line(writer, "LOCATION:" + escape(location));
+        }
+        line(writer, "STATUS:" + ("CANCELLED".equalsIgnoreCase(rs.getString("status")) ? "CANCELLED" : "CONFIRMED"));
+        line(writer, "END:VEVENT");
+    }
+
+    private LocalDate windowStart() {
+        return LocalDate.now().minusDays(pastDays);
+    }
+
+    private LocalDate windowEnd() {
+        return LocalDate.now().plusDays(futureDays);
+    }
+
+    private int feedKeyVersion(Integer userId) {
+        List<Integer> version = jdbcTemplate.queryForList(FEED_KEY_SQL, Integer.class, userId);
+        return version.isEmpty() ? 0 : version.get(0);
+    }
+
+    private String token(Integer userId, int version) {
+        byte[] digest = hmac(tokenKey, "calendar:" + userId + ":" + version);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(digest).substring(0, 32);
+    }
+
+    private static byte[] hmac(byte[] key, String message) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(message.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String utc(LocalDateTime local) {
+        Instant instant = local.atZone(ZoneId.systemDefault()).toInstant();
+        return UTC_STAMP.format(instant.atOffset(ZoneOffset.UTC));
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace(";", "\\;").replace(",", "\\,")
+                .replace("\r\n", "\\n").replace("\n", "\\n");
+    }
+
+    // RFC 5545: CRLF line ends, lines folded at 75 octets (continuation lines start with a space)
+    private static void line(Writer writer, String content) throws IOException {
+        int octets = 0;
+        for (int i = 0; i < content.length(); ) {
+            int cp = content.codePointAt(i);
+            int size = cp < 0x80 ? 1 : cp < 0x800 ? 2 : cp < 0x10000 ? 3 : 4;
+            if (octets + size > 75) {
+                writer.write("\r\n ");
+                octets = 1;
+            }
+            writer.write(Character.toChars(cp));
+            octets += size;
+            i += Character.charCount(cp);
+        }
+        writer.write("\r\n");
+    }
+}
@@ -0,0 +1,284 @@
+package com.itms.service;
+
+import com.itms.common.Grade;
+import com.itms.common.IssuanceJobStatus;
+import com.itms.dto.CertificateIssuanceJobDto;
+import com.itms.entity.Course;
+import com.itms.repository.AttendanceRepository;
+import com.itms.repository.CertificateRepository;
+import com.itms.repository.CourseRepository;
+import com.itms.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * HR bulk certificate issuance as a background job.
+ * Eligibility for the whole course comes from one grouped attendance query; certificates are inserted
+ * in JDBC batches, one transaction per chunk, and progress is kept in memory for the HR status endpoint.
+ * Documents for the new certificates are queued for rendering when the job finishes.
+ */
+@Service
+@Slf4j
+public class CertificateIssuanceService {
+
+    // Skips users certified meanwhile (e.g. by a final exam) instead of failing on UQ_Certificate_UserCourse
+    private static final String INSERT_CERTIFICATE_SQL = """
+        INSERT INTO Certificate (user_id, course_id, certificate_code, issue_date, expiry_date,
+                                 score, grade, issued_by, is_valid, created_at)
+        SELECT ?, ?, ?, ?, ?, ?, ?, ?, 1, GETDATE()
+        WHERE NOT EXISTS (
+            SELECT 1 FROM Certificate WITH (UPDLOCK, HOLDLOCK) WHERE user_id = ? AND course_id = ?
+        )
+    """;
+
+    // Finished jobs are kept this long for polling
+    private static final long FINISHED_JOB_RETENTION_MINUTES = 60;
+
+    private final CourseRepository courseRepository;
+    private final UserRepository userRepository;
+    private final AttendanceRepository attendanceRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor executor;
+    private final CertificateRenderService certificateRenderService;
+    private final CertificateVerificationIndex certificateVerificationIndex;
+    private final CertificateRepository certificateRepository;
+    private final CourseCompletionService courseCompletionService;
+
+    @Value("${itms.certificate.issuance.chunk-size:200}")
+    private int chunkSize;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    // courseId -> jobId of the job still queued or running for it
+    private final Map<Integer, String> activeJobs = new ConcurrentHashMap<>();
+
+    public CertificateIssuanceService(CourseRepository courseRepository,
+                                      UserRepository userRepository,
+                                      AttendanceRepository attendanceRepository,
+                                      JdbcTemplate jdbcTemplate,
+                                      PlatformTransactionManager transactionManager,
+                                      @Qualifier("certificateJobExecutor") ThreadPoolTaskExecutor executor,
+                                      CertificateRenderService certificateRenderService,
+                                      CertificateVerificationIndex certificateVerificationIndex,
+                                      CertificateRepository certificateRepository,
+                                      CourseCompletionService courseCompletionService) {
+        this.courseRepository = courseRepository;
+        this.userRepository = userRepository;
+        this.attendanceRepository = attendanceRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.executor = executor;
+        this.certificateRenderService = certificateRenderService;
+        this.certificateVerificationIndex = certificateVerificationIndex;
+        this.certificateRepository = certificateRepository;
+        this.courseCompletionService = courseCompletionService;
+    }
+
+    /**
+     * Start issuing certificates to all eligible students of a course.
+     * Returns the already running job if one exists for the course.
+     */
+    public CertificateIssuanceJobDto startJob(Integer courseId, Integer issuedById) {
+        Course course = courseRepository.findById(courseId)
+                .orElseThrow(() -> new RuntimeException("Course not found: " + courseId));
+        if (!userRepository.existsById(issuedById)) {
+            throw new RuntimeException("User not found: " + issuedById);
+        }
+        pruneFinishedJobs();
+
+        Job job = new Job(UUID.randomUUID().toString(), courseId);
+        jobs.put(job.id, job);
+        String activeJobId = activeJobs.putIfAbsent(courseId, job.id);
+        if (activeJobId != null) {
+            jobs.remove(job.id);
+            return jobs.get(activeJobId).toDto();
+        }
+
+        double passingThreshold = course.getPassingScore() != null ? course.getPassingScore() : 70.0;
+        try {
+            executor.execute(() -> run(job, passingThreshold, issuedById));
+        } catch (TaskRejectedException e) {
+            job.fail("Too many issuance jobs running, please retry later");
+            activeJobs.remove(courseId, job.id);
+        }
+        return job.toDto();
+    }
+
+    public CertificateIssuanceJobDto getJob(String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            throw new IllegalArgumentException("Issuance job not found: " + jobId);
+        }
+        return job.toDto();
+    }
+
+    private void run(Job job, double passingThreshold, Integer issuedById) {
+        job.status = IssuanceJobStatus.RUNNING;
+        try {
+            List<Candidate> candidates = findEligible(job, passingThreshold);
+            job.eligible = candidates.size();
+
+            LocalDate issueDate = LocalDate.now();
+            for (int from = 0; from < candidates.size(); from += chunkSize) {
+                List<Candidate> chunk = candidates.subList(from, Math.min(from + chunkSize, candidates.size()));
+                int[][] counts = transactionTemplate.execute(status -> insertChunk(job.courseId, issuedById, issueDate, chunk));
+
+                int issued = 0;
+                for (int[] batch : counts) {
+                    for (int count : batch) {
+                        if (count > 0) issued++;
+                    }
+                }
+                indexChunk(job.courseId, chunk);
+                job.issued += issued;
+                job.skipped += chunk.size() - issued;
+                job.processed += chunk.size();
+            }
+            if (job.issued > 0) {
+                certificateRenderService.renderCourse(job.courseId);
+            }
+            job.finish();
+            log.info("Certificate issuance job {} for course {} done: {} issued, {} skipped",
+                    job.id, job.courseId, job.issued, job.skipped);
+        } catch (Exception e) {
+            log.error("Certificate issuance job {} for course {} failed: {}", job.id, job.courseId, e.getMessage());
+            job.fail(e.getMessage());
+        } finally {
+            activeJobs.remove(job.courseId, job.id);
+        }
+    }
+
+    /**
+     * Eligible = attended >= passing rate of the sessions of one of their classes, no certificate yet.
+     * A student in several classes of the course is certified once, from the first class that qualifies.
+     */
+    private List<Candidate> findEligible(Job job, double passingThreshold) {
+        Map<Integer, Candidate> eligible = new LinkedHashMap<>();
+        Set<Integer> members = new HashSet<>();
+        for (Object[] row : attendanceRepository.summarizeCourseAttendance(job.courseId)) {
+            Integer userId = ((Number) row[1]).intValue();
+            int totalSessions = ((Number) row[2]).intValue();
+            int attended = ((Number) row[3]).intValue();
+            boolean hasCertificate = ((Number) row[4]).intValue() == 1;
+            members.add(userId);
+
+            if (hasCertificate || totalSessions == 0 || eligible.containsKey(userId)) continue;
+            double rate = (attended * 100.0) / totalSessions;
+            if (rate >= passingThreshold) {
+                eligible.put(userId, new Candidate(userId, rate));
+            }
+        }
+        job.totalMembers = members.size();
+        return new ArrayList<>(eligible.values());
+    }
+
+    private int[][] insertChunk(Integer courseId, Integer issuedById, LocalDate issueDate, List<Candidate> chunk) {
+        Date issued = Date.valueOf(issueDate);
+        Date expiry = Date.valueOf(issueDate.plusYears(2));
+        Set<String> codes = new HashSet<>();
+        return jdbcTemplate.batchUpdate(INSERT_CERTIFICATE_SQL, chunk, chunk.size(), (ps, c) -> {
+            String code;
+            do {
+                code = "CERT-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+            } while (!codes.add(code));
+
+            Grade grade = c.rate >= 90 ? Grade.DISTINCTION : c.rate >= 75 ? Grade.MERIT : Grade.PASS;
+            ps.setInt(1, c.userId);
+            ps.setInt(2, courseId);
+            ps.setString(3, code);
+            ps.setDate(4, issued);
+            ps.setDate(5, expiry);
+            ps.setBigDecimal(6, BigDecimal.valueOf(c.rate).setScale(2, RoundingMode.HALF_UP));
+            ps.setString(7, grade.name());
+            ps.setInt(8, issuedById);
+            ps.setInt(9, c.userId);
+            ps.setInt(10, courseId);
+        });
+    }
+
+    // Make the chunk's codes verifiable and its students certified in the completion projection right away
+    private void indexChunk(Integer courseId, List<Candidate> chunk) {
+        List<Integer> userIds = chunk.stream().map(Candidate::userId).toList();
+        for (Object[] row : certificateRepository.findIdAndCodeByCourseIdAndUserIds(courseId, userIds)) {
+            certificateVerificationIndex.add((String) row[1], ((Number) row[0]).intValue());
+        }
+        courseCompletionService.markCertifiedAfterCommit(courseId, userIds);
+    }
+
+    private void pruneFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(FINISHED_JOB_RETENTION_MINUTES);
+        jobs.values().removeIf(j -> j.finishedAt != null && j.finishedAt.isBefore(cutoff));
+    }
+
+    private record Candidate(Integer userId, double rate) {}
+
+    /**
+     * Progress of one job; written by its worker thread only, read by status requests
+     */
+    private static final class Job {
+        final String id;
+        final Integer courseId;
+        final LocalDateTime createdAt = LocalDateTime.now();
+        volatile IssuanceJobStatus status = IssuanceJobStatus.QUEUED;
+        volatile int totalMembers;
+        volatile int eligible;
+        volatile int processed;
+        volatile int issued;
+        volatile int skipped;
+        volatile String errorMessage;
+        volatile LocalDateTime finishedAt;
+
+        Job(String id, Integer courseId) {
+            this.id = id;
+            this.courseId = courseId;
+        }
+
+        void finish() {
+            finishedAt = LocalDateTime.now();
+            status = IssuanceJobStatus.COMPLETED;
+        }
+
+        void fail(String message) {
+            errorMessage = message;
+            finishedAt = LocalDateTime.now();
+            status = IssuanceJobStatus.FAILED;
+        }
+
+        CertificateIssuanceJobDto toDto() {
+            return CertificateIssuanceJobDto.builder()
+                    .jobId(id)
+                    .courseId(courseId)
+                    .status(status.name())
+                    .totalMembers(totalMembers)
+                    .eligible(eligible)
+                    .processed(processed)
+                    .issued(issued)
+                    .skipped(skipped)
+                    .errorMessage(errorMessage)
+                    .createdAt(createdAt)
+                    .finishedAt(finishedAt)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package com.itms.service;
+
+import com.itms.entity.Certificate;
+import com.itms.exception.ApiException;
+import com.itms.repository.CertificateRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Renders certificate PDFs ahead of time into a content-addressed store outside the public upload directory.
+ * The file name is a hash of the printed certificate fields and the template version, so identical content
+ * is rendered once and a changed template or certificate yields a new file. Rendering runs in a background
+ * pool after the issuing transaction commits; a periodic sweep catches anything missed (restarts, full queue).
+ * The sweep walks the missing documents with a keyset cursor and backs off certificates whose rendering keeps
+ * failing, so they are neither retried every minute nor able to crowd newer certificates out of a batch.
+ * Downloads go through the certificate controller only (owner or HR), and a revoked certificate's document is deleted.
+ */
+@Service
+@Slf4j
+public class CertificateRenderService {
+
+    // Bump when the layout changes: every certificate then renders to a new file
+    private static final String TEMPLATE_VERSION = "certificate-v1";
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final int SWEEP_BATCH = 100;
+    private static final Duration RETRY_BASE = Duration.ofMinutes(1);
+    private static final Duration RETRY_MAX = Duration.ofHours(24);
+
+    private final CertificateRepository certificateRepository;
+    private final ThreadPoolTaskExecutor executor;
+
+    @Value("${itms.certificate.render.store-dir:data/certificates}")
+    private String storeDir;
+
+    // Optional TrueType font with Vietnamese glyphs; without it names are printed without diacritics
+    @Value("${itms.certificate.render.font-path:}")
+    private String fontPath;
+
+    // Certificates queued or rendering right now
+    private final Set<Integer> inFlight = ConcurrentHashMap.newKeySet();
+
+    // Certificates whose last rendering failed, skipped by the sweep until their retry time
+    private final Map<Integer, RenderFailure> failures = new ConcurrentHashMap<>();
+
+    // Last id handed out by the sweep; back to 0 once it reaches the end of the missing documents
+    private volatile int sweepAfterId;
+
+    public CertificateRenderService(CertificateRepository certificateRepository,
+                                    @Qualifier("certificateRenderExecutor") ThreadPoolTaskExecutor executor) {
+        this.certificateRepository = certificateRepository;
+        this.executor = executor;
+    }
+
+    /**
+     * Queue rendering once the current transaction commits (immediately when there is none)
+     */
+    public void renderAfterCommit(Integer certificateId) {
+        if (certificateId == null) return;
+        AfterCommit.run("queue certificate rendering", () -> submit(certificateId));
+    }
+
+    /**
+     * Queue rendering for the next batch of valid certificates that have no document yet
+     */
+    @Scheduled(fixedDelayString = "${itms.certificate.render.sweep-interval-ms:60000}")
+    public void renderMissing() {
+        List<Integer> ids = certificateRepository.findIdsWithoutDocumentAfter(sweepAfterId, SWEEP_BATCH);
+        sweepAfterId = ids.size() < SWEEP_BATCH ? 0 : ids.get(ids.size() - 1);
+
+        Instant now = Instant.now();
+        ids.stream()
+                .filter(id -> {
+                    RenderFailure failure = failures.get(id);
+                    return failure == null || !now.isBefore(failure.retryAt());
+                })
+                .forEach(this::submit);
+    }
+
+    /**
+     * Queue rendering for the certificates of a course that have no document yet (after bulk issuance)
+     */
+    public void renderCourse(Integer courseId) {
+        certificateRepository.findIdsWithoutDocumentByCourseId(courseId).forEach(this::submit);
+    }
+
+    /**
+     * Rendered document of a certificate for its owner or HR, rendering it now if the background pool has not yet
+     */
+    public Path getDocument(Integer certificateId, Integer requesterId, boolean staff) {
+        Certificate certificate = certificateRepository.findWithDetailsById(certificateId)
+                .orElseThrow(() -> new RuntimeException("Certificate not found"));
+        if (!staff && !certificate.getUser().getId().equals(requesterId)) {
+            throw new AccessDeniedException("Not the owner of certificate " + certificateId);
+        }
+        if (!Boolean.TRUE.equals(certificate.getIsValid())) {
+            throw new ApiException(HttpStatus.GONE, "Chứng chỉ đã bị thu hồi");
+        }
+        try {
+            return render(certificate);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to render certificate: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Delete the rendered document once the revoking transaction commits
+     */
+    public void deleteDocumentAfterCommit(Certificate certificate) {
+        String file = contentHash(certificate) + ".pdf";
+        failures.remove(certificate.getId());
+        Runnable delete = () -> {
+            try {
+                Files.deleteIfExists(storePath().resolve(file));
+            } catch (IOException e) {
+                log.error("Failed to delete document of revoked certificate {}: {}", certificate.getId(), e.getMessage());
+            }
+        };
+        AfterCommit.run("delete revoked certificate document", delete);
+    }
+
+    private void submit(Integer certificateId) {
+        if (!inFlight.add(certificateId)) return;
+        try {
+            executor.execute(() -> {
+                try {
+                    certificateRepository.findWithDetailsById(certificateId)
+                            .filter(c -> Boolean.TRUE.equals(c.getIsValid()))
+                            .ifPresent(this::renderQuietly);
+                } finally {
+                    inFlight.remove(certificateId);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            // Picked up again by the next sweep
+            inFlight.remove(certificateId);
+        }
+    }
+
+    private void renderQuietly(Certificate certificate) {
+        try {
+            render(certificate);
+        } catch (Exception e) {
+            RenderFailure failure = failures.merge(certificate.getId(), RenderFailure.first(),
+                    (previous, ignored) -> previous.next());
+            log.error("Failed to render certificate {} ({} time(s), next try after {}): {}",
+                    certificate.getId(), failure.count(), failure.retryAt(), e.getMessage());
+        }
+    }
+
+    /**
+     * Render into the content-addressed store (skipped when the file already exists) and record its URL
+     */
+    private Path render(Certificate certificate) throws IOException {
+        String hash = contentHash(certificate);
+        Path dir = storePath();
+        Path target = dir.resolve(hash + ".pdf");
+
+        if (!Files.exists(target)) {
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, hash, ".tmp");
+            try {
+                writePdf(certificate, tmp);
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                log.debug("Rendered certificate {} to {}", certificate.getId(), target.getFileName());
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        }
+
+        String url = "/api/certificates/" + certificate.getId() + "/document";
+        if (!url.equals(certificate.getCertificateUrl())) {
+            certificateRepository.updateCertificateUrl(certificate.getId(), url);
+        }
+        failures.remove(certificate.getId());
+        return target;
+    }
+
+    private Path storePath() {
+        return Paths.get(storeDir).toAbsolutePath();
+    }
+
+    private String contentHash(Certificate c) {
+        String content = String.join("|",
+                TEMPLATE_VERSION,
+                c.getCertificateCode(),
+                c.getUser().getFullName(),
+                c.getCourse().getName(),
+                String.valueOf(c.getIssueDate()),
+                String.valueOf(c.getExpiryDate()),
+                String.valueOf(c.getGrade()),
+                c.getScore() != null ? c.getScore().toPlainString() : "");
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void writePdf(Certificate c, Path file) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDRectangle a4 = PDRectangle.A4;
+            PDPage page = new PDPage(new PDRectangle(a4.getHeight(), a4.getWidth())); // landscape
+            document.addPage(page);
+
+            boolean unicode = fontPath != null && !fontPath.isBlank() && Files.exists(Paths.get(fontPath));
+            PDFont regular = unicode
+                    ? PDType0Font.load(document, Paths.get(fontPath).toFile())
+                    : new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+            PDFont bold = unicode ? regular : new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD);
+
+            float width = page.getMediaBox().getWidth();
+            float height = page.getMediaBox().getHeight();
+            try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                content.setLineWidth(3f);
+                content.addRect(30, 30, width - 60, height - 60);
+                content.stroke();
+
+                float y = height - 130;
+                centered(content, bold, 32, "CERTIFICATE OF COMPLETION", width, y, unicode);
+                centered(content, regular, 14, "This certifies that", width, y -= 60, unicode);
+                centered(content, bold, 26, c.getUser().getFullName(), width, y -= 45, unicode);
+                centered(content, regular, 14, "has successfully completed the course", width, y -= 45, unicode);
+                centered(content, bold, 20, c.getCourse().getName(), width, y -= 35, unicode);
+
+                String result = "Grade: " + (c.getGrade() != null ? c.getGrade().name() : "-")
+                        + (c.getScore() != null ? "    Score: " + c.getScore().toPlainString() : "");
+                centered(content, regular, 13, result, width, y -= 50, unicode);
+
+                String dates = "Issued: " + c.getIssueDate().format(DATE_FORMAT)
+                        + (c.getExpiryDate() != null ? "    Valid until: " + c.getExpiryDate().format(DATE_FORMAT) : "");
+                centered(content, regular, 12, dates, width, y -= 25, unicode);
+                centered(content, regular, 11, "Certificate code: " + c.getCertificateCode(), width, 60, unicode);
+            }
+            document.save(file.toFile());
+        }
+    }
+
+    private void centered(PDPageContentStream content, PDFont font, float size, String text,
+                          float pageWidth, float y, boolean unicode) throws IOException {
+        String printable = unicode ? text : foldDiacritics(text);
+        float textWidth = font.getStringWidth(printable) / 1000 * size;
+        content.beginText();
+        content.setFont(font, size);
+        content.newLineAtOffset((pageWidth - textWidth) / 2, y);
+        content.showText(printable);
+        content.endText();
+    }
+
+    // Standard PDF fonts only cover Latin-1: "Nguyễn Văn Đức" -> "Nguyen Van Duc"
+    private static String foldDiacritics(String text) {
+        if (text == null) return "";
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .replace('đ', 'd')
+                .replace('Đ', 'D');
+        return folded.replaceAll("[^\\x20-\\x7E]", "?");
+    }
+
+    /**
+     * Consecutive rendering failures of a certificate; the retry delay doubles per failure up to a day
+     */
+    private record RenderFailure(int count, Instant retryAt) {
+
+        static RenderFailure first() {
+            return new RenderFailure(1, Instant.now().plus(RETRY_BASE));
+        }
+
+        RenderFailure next() {
+            Duration delay = RETRY_BASE.multipliedBy(1L << Math.min(count, 20));
+            return new RenderFailure(count + 1, Instant.now().plus(delay.compareTo(RETRY_MAX) > 0 ? RETRY_MAX : delay));
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.itms.service;
 
 import com.itms.common.Grade;
 import com.itms.dto.CertificateDto;
+import com.itms.dto.CertificateVerificationDto;
 import com.itms.dto.CourseCompletionDto;
 import com.itms.entity.*;
 import com.itms.repository.*;
@@ -13,8 +14,15 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -25,10 +33,10 @@ public class CertificateService {
     private final CertificateRepository certificateRepository;
     private final SessionRepository sessionRepository;
     private final AttendanceRepository attendanceRepository;
-    private final ClassRoomRepository classRoomRepository;
-    private final ClassMemberRepository classMemberRepository;
-    private final CourseRepository courseRepository;
+    private final CertificateRenderService certificateRenderService;
+    private final CertificateVerificationIndex certificateVerificationIndex;
     private final UserRepository userRepository;
+    private final CourseCompletionService courseCompletionService;
 
     public List<CertificateDto> getCertificatesByUser(Integer userId) {
         List<Certificate> certificates = certificateRepository.findByUserId(userId);
@@ -38,207 +46,154 @@ public class CertificateService {
     }
 
     /**
-     * Auto-issue certificate when a student completes all sessions of a course.
-     * Called after trainer saves attendance.
+     * Auto-issue certificates when students complete all sessions of a class.
+     * Called after trainer saves attendance for the last session.
      *
      * Criteria:
      *  - Student attended >= passingAttendanceRate (default 70%) of all sessions in the class
      *  - No existing certificate for this user+course
      *
      * Score is calculated as: (attendedSessions / totalSessions) * 100
+     * Existing certificates and attendance counts are loaded for all students in two grouped queries.
      */
     @Transactional
-    public void tryIssueCertificateOnCourseCompletion(User student, Course course,
-                                                       Integer classRoomId, User issuedBy) {
-        // Skip if certificate already exists
-        boolean alreadyExists = certificateRepository.findByUserId(student.getId())
-                .stream().anyMatch(c -> c.getCourse().getId().equals(course.getId()));
-        if (alreadyExists) {
-            log.debug("Certificate already exists for user={} course={}", student.getId(), course.getId());
-            return;
-        }
-
-        // Get all sessions for this class
-        List<com.itms.entity.Session> allSessions =
-                sessionRepository.findByClassRoomIdOrderByDateAsc(classRoomId);
-        int totalSessions = allSessions.size();
+    public void tryIssueCertificatesOnClassCompletion(Course course, Integer classRoomId,
+                                                      List<Integer> userIds, User issuedBy) {
+        if (userIds.isEmpty()) return;
+        long totalSessions = sessionRepository.countByClassRoomId(classRoomId);
         if (totalSessions == 0) return;
 
-        // Count sessions this student attended
-        List<Long> sessionIds = allSessions.stream()
-                .map(com.itms.entity.Session::getId)
-                .collect(Collectors.toList());
-        int attendedSessions = attendanceRepository
-                .countByUserIdAndSessionIds(student.getId(), sessionIds);
-
-        // Attendance rate as score (0-100)
-        double attendanceRate = (attendedSessions * 100.0) / totalSessions;
+        Set<Integer> certified = new HashSet<>(certificateRepository.findUserIdsByCourseIdAndUserIds(course.getId(), userIds));
+        Map<Integer, Integer> attendedByUser = new HashMap<>();
+        for (Object[] row : attendanceRepository.countAttendedByClassRoomIdAndUserIds(classRoomId, userIds)) {
+            attendedByUser.put(((Number) row[0]).intValue(), ((Number) row[1]).intValue());
+        }
 
         // Passing threshold: use course passingScore if set, else default 70%
         double passingThreshold = course.getPassingScore() != null ? course.getPassingScore() : 70.0;
+        List<Integer> issuedTo = new ArrayList<>();
 
-        if (attendanceRate < passingThreshold) {
-            log.info("User {} did not meet passing threshold for course {} (rate={}%, required={}%)",
-                    student.getId(), course.getId(), attendanceRate, passingThreshold);
-            return;
-        }
-
-        BigDecimal score = BigDecimal.valueOf(attendanceRate).setScale(2, RoundingMode.HALF_UP);
-        Grade grade;
-        if (attendanceRate >= 90) grade = Grade.DISTINCTION;
-        else if (attendanceRate >= 75) grade = Grade.MERIT;
-        else grade = Grade.PASS;
+        for (Integer userId : new LinkedHashSet<>(userIds)) {
+            if (certified.contains(userId)) {
+                log.debug("Certificate already exists for user={} course={}", userId, course.getId());
+                continue;
+            }
 
-        Certificate cert = Certificate.builder()
-                .user(student)
-                .course(course)
-                .certificateCode("CERT-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase())
-                .issueDate(LocalDate.now())
-                .expiryDate(LocalDate.now().plusYears(2))
-                .score(score)
-                .grade(grade)
-                .issuedBy(issuedBy)
-                .isValid(true)
-                .build();
+            // Attendance rate as score (0-100)
+            double attendanceRate = (attendedByUser.getOrDefault(userId, 0) * 100.0) / totalSessions;
+            if (attendanceRate < passingThreshold) {
+                log.info("User {} did not meet passing threshold for course {} (rate={}%, required={}%)",
+                        userId, course.getId(), attendanceRate, passingThreshold);
+                continue;
+            }
 
-        certificateRepository.save(cert);
-        log.info("Certificate issued for user={} course={} grade={} score={}",
-                student.getId(), course.getId(), grade, score);
+            BigDecimal score = BigDecimal.valueOf(attendanceRate).setScale(2, RoundingMode.HALF_UP);
+            Grade grade;
+            if (attendanceRate >= 90) grade = Grade.DISTINCTION;
+            else if (attendanceRate >= 75) grade = Grade.MERIT;
+            else grade = Grade.PASS;
+
+            Certificate cert = Certificate.builder()
+                    .user(userRepository.getReferenceById(userId))
+                    .course(course)
+                    .certificateCode("CERT-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase())
+                    .issueDate(LocalDate.now())
+                    .expiryDate(LocalDate.now().plusYears(2))
+                    .score(score)
+                    .grade(grade)
+                    .issuedBy(issuedBy)
+                    .isValid(true)
+                    .build();
+
+            certificateRepository.save(cert);
+            certificateRenderService.renderAfterCommit(cert.getId());
+            certificateVerificationIndex.addAfterCommit(cert.getCertificateCode(), cert.getId());
+            issuedTo.add(userId);
+            log.info("Certificate issued for user={} course={} grade={} score={}",
+                    userId, course.getId(), grade, score);
+        }
+        courseCompletionService.markCertifiedAfterCommit(course.getId(), issuedTo);
     }
 
     /**
      * HR: Get all completed/ended courses with student completion status.
      * A course is "ended" if endDate <= today OR status is INACTIVE/ARCHIVED.
+     * Read from the course-completion projection instead of walking classes, sessions and members.
      */
     public List<CourseCompletionDto> getCompletedCoursesForHr() {
-        List<Course> allCourses = courseRepository.findAll();
-        LocalDate today = LocalDate.now();
-
-        return allCourses.stream()
-                .filter(c -> isEnded(c, today))
-                .map(course -> buildCourseCompletionDto(course))
-                .collect(Collectors.toList());
+        return courseCompletionService.getCompletedCourses(LocalDate.now());
     }
 
     /**
-     * HR: Issue certificates to all eligible students of a course.
-     * Eligible = attended >= passingScore% of sessions, no existing certificate.
+     * Public: verify a certificate code. Unknown codes are rejected by the in-memory index without a
+     * database read; known codes cost one primary-key lookup.
      */
-    @Transactional
-    public int issueCertificatesForCourse(Integer courseId, Integer issuedById) {
-        Course course = courseRepository.findById(courseId)
-                .orElseThrow(() -> new RuntimeException("Course not found: " + courseId));
-        User issuedBy = userRepository.findById(issuedById)
-                .orElseThrow(() -> new RuntimeException("User not found: " + issuedById));
-
-        List<ClassRoom> classRooms = classRoomRepository.findByCourseId(courseId);
-        int issued = 0;
-
-        for (ClassRoom classRoom : classRooms) {
-            List<Session> allSessions = sessionRepository.findByClassRoomIdOrderByDateAsc(classRoom.getId());
-            if (allSessions.isEmpty()) continue;
-
-            List<Long> sessionIds = allSessions.stream().map(Session::getId).collect(Collectors.toList());
-            int totalSessions = allSessions.size();
-            double passingThreshold = course.getPassingScore() != null ? course.getPassingScore() : 70.0;
-
-            List<ClassMember> members = classMemberRepository.findByClassRoomId(classRoom.getId());
-            for (ClassMember member : members) {
-                User student = member.getUser();
-
-                // Skip if already has certificate
-                boolean alreadyExists = certificateRepository.findByUserId(student.getId())
-                        .stream().anyMatch(c -> c.getCourse().getId().equals(courseId));
-                if (alreadyExists) continue;
-
-                int attended = attendanceRepository.countByUserIdAndSessionIds(student.getId(), sessionIds);
-                double rate = (attended * 100.0) / totalSessions;
-                if (rate < passingThreshold) continue;
-
-                BigDecimal score = BigDecimal.valueOf(rate).setScale(2, RoundingMode.HALF_UP);
-                Grade grade = rate >= 90 ? Grade.DISTINCTION : rate >= 75 ? Grade.MERIT : Grade.PASS;
-
-                Certificate cert = Certificate.builder()
-                        .user(student)
-                        .course(course)
-                        .certificateCode("CERT-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase())
-                        .issueDate(LocalDate.now())
-                        .expiryDate(LocalDate.now().plusYears(2))
-                        .score(score)
-                        .grade(grade)
-                        .issuedBy(issuedBy)
-                        .isValid(true)
-                        .build();
-
-                certificateRepository.save(cert);
-                issued++;
-                log.info("HR issued certificate for user={} course={} grade={}", student.getId(), courseId, grade);
-            }
+    public CertificateVerificationDto verifyCertificate(String certificateCode) {
+        String code = CertificateVerificationIndex.normalize(certificateCode);
+        CertificateVerificationIndex.Lookup lookup = certificateVerificationIndex.lookup(code);
+        if (!lookup.known()) {
+            return notFound(code);
         }
-        return issued;
-    }
-
-    // ── helpers ──────────────────────────────────────────────────────────────
 
-    private boolean isEnded(Course course, LocalDate today) {
-        if (course.getEndDate() != null && !course.getEndDate().isAfter(today)) return true;
-        if (course.getStatus() != null) {
-            String s = course.getStatus().name();
-            return s.equals("INACTIVE") || s.equals("ARCHIVED");
+        Optional<Certificate> found;
+        if (lookup.certificateId() != null) {
+            found = certificateRepository.findWithDetailsById(lookup.certificateId());
+        } else {
+            found = certificateRepository.findWithDetailsByCertificateCode(code);
+            found.ifPresent(c -> certificateVerificationIndex.add(c.getCertificateCode(), c.getId()));
+        }
+        if (found.isEmpty()) {
+            return notFound(code);
         }
-        return false;
-    }
-
-    private CourseCompletionDto buildCourseCompletionDto(Course course) {
-        List<ClassRoom> classRooms = classRoomRepository.findByCourseId(course.getId());
-        double passingThreshold = course.getPassingScore() != null ? course.getPassingScore() : 70.0;
-
-        List<CourseCompletionDto.StudentCompletionDto> studentDtos = new ArrayList<>();
-
-        for (ClassRoom classRoom : classRooms) {
-            List<Session> allSessions = sessionRepository.findByClassRoomIdOrderByDateAsc(classRoom.getId());
-            int totalSessions = allSessions.size();
-            List<Long> sessionIds = allSessions.stream().map(Session::getId).collect(Collectors.toList());
 
-            List<ClassMember> members = classMemberRepository.findByClassRoomId(classRoom.getId());
-            for (ClassMember member : members) {
-                User student = member.getUser();
-                int attended = totalSessions > 0
-                        ? attendanceRepository.countByUserIdAndSessionIds(student.getId(), sessionIds)
-                        : 0;
-                double rate = totalSessions > 0 ? (attended * 100.0) / totalSessions : 0;
-                boolean eligible = rate >= passingThreshold;
-                boolean hasCert = certificateRepository.findByUserId(student.getId())
-                        .stream().anyMatch(c -> c.getCourse().getId().equals(course.getId()));
+        Certificate cert = found.get();
+        String status;
+        if (!Boolean.TRUE.equals(cert.getIsValid())) status = "REVOKED";
+        else if (cert.getExpiryDate() != null && cert.getExpiryDate().isBefore(LocalDate.now())) status = "EXPIRED";
+        else status = "VALID";
+
+        return CertificateVerificationDto.builder()
+                .certificateCode(cert.getCertificateCode())
+                .status(status)
+                .valid("VALID".equals(status))
+                .studentName(cert.getUser().getFullName())
+                .courseName(cert.getCourse().getName())
+                .grade(cert.getGrade() != null ? cert.getGrade().name() : null)
+                .issueDate(cert.getIssueDate())
+                .expiryDate(cert.getExpiryDate())
+                .build();
+    }
 
-                studentDtos.add(CourseCompletionDto.StudentCompletionDto.builder()
-                        .userId(student.getId())
-                        .username(student.getUsername())
-                        .fullName(student.getFullName())
-                        .email(student.getEmail())
-                        .attendedSessions(attended)
-                        .totalSessions(totalSessions)
-                        .attendanceRate(Math.round(rate * 10.0) / 10.0)
-                        .eligible(eligible)
-                        .hasCertificate(hasCert)
-                        .build());
-            }
+    /**
+     * HR: revoke a certificate. Its code stays indexed so verification reports it as REVOKED.
+     */
+    @Transactional
+    public CertificateDto revokeCertificate(Integer certificateId, String reason, Integer revokedById) {
+        Certificate cert = certificateRepository.findWithDetailsById(certificateId)
+                .orElseThrow(() -> new RuntimeException("Certificate not found: " + certificateId));
+        if (!Boolean.TRUE.equals(cert.getIsValid())) {
+            throw new IllegalArgumentException("Certificate is already revoked");
         }
+        User revokedBy = userRepository.findById(revokedById)
+                .orElseThrow(() -> new RuntimeException("User not found: " + revokedById));
 
-        long eligible = studentDtos.stream().filter(CourseCompletionDto.StudentCompletionDto::isEligible).count();
-        long certified = studentDtos.stream().filter(CourseCompletionDto.StudentCompletionDto::isHasCertificate).count();
+        cert.setIsValid(false);
+        cert.setRevokedAt(LocalDateTime.now());
+        cert.setRevokedBy(revokedBy);
+        cert.setRevocationReason(reason);
+        certificateRepository.save(cert);
+        certificateRenderService.deleteDocumentAfterCommit(cert);
+        log.info("Certificate {} revoked by user={}", cert.getCertificateCode(), revokedById);
+        return mapToDto(cert);
+    }
+
+    // ── helpers ──────────────────────────────────────────────────────────────
 
-        return CourseCompletionDto.builder()
-                .courseId(course.getId())
-                .courseCode(course.getCode())
-                .courseName(course.getName())
-                .courseCategory(course.getCategory())
-                .endDate(course.getEndDate())
-                .status(course.getStatus() != null ? course.getStatus().name() : null)
-                .totalStudents(studentDtos.size())
-                .eligibleStudents((int) eligible)
-                .alreadyCertified((int) certified)
-                .students(studentDtos)
+    private CertificateVerificationDto notFound(String code) {
+        return CertificateVerificationDto.builder()
+                .certificateCode(code)
+                .status("NOT_FOUND")
+                .valid(false)
                 .build();
     }
 
@@ -0,0 +1,165 @@
+package com.itms.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory index for public certificate verification.
+ * A Bloom filter rejects unknown codes without touching the database; known codes resolve to the
+ * certificate id through a code -> id map, so a verification is at most one primary-key read.
+ * Warmed from the Certificate table at startup, updated when certificates are issued and rebuilt
+ * periodically to pick up rows written outside the application.
+ * Revoked certificates stay indexed: verifiers must be told the code exists but is no longer valid.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class CertificateVerificationIndex {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${itms.certificate.verify.expected-certificates:100000}")
+    private int expectedCertificates;
+
+    @Value("${itms.certificate.verify.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private final Map<String, Integer> idsByCode = new ConcurrentHashMap<>();
+    private volatile BloomFilter filter;
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    /**
+     * Reload every code (also grows the filter when the table outgrows it)
+     */
+    @Scheduled(initialDelayString = "${itms.certificate.verify.rebuild-interval-ms:21600000}",
+            fixedDelayString = "${itms.certificate.verify.rebuild-interval-ms:21600000}")
+    public void rebuild() {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM Certificate", Integer.class);
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedCertificates, (count != null ? count : 0) * 2),
+                falsePositiveRate);
+        Map<String, Integer> loaded = new ConcurrentHashMap<>();
+        jdbcTemplate.query("SELECT id, certificate_code FROM Certificate", rs -> {
+            String code = normalize(rs.getString(2));
+            rebuilt.add(code);
+            loaded.put(code, rs.getInt(1));
+        });
+
+        // Codes issued while loading are added to both the old and the new structures
+        filter = rebuilt;
+        idsByCode.putAll(loaded);
+        idsByCode.keySet().forEach(rebuilt::add);
+        ready = true;
+        log.info("Certificate verification index built with {} codes", loaded.size());
+    }
+
+    /**
+     * Index a newly issued certificate once the current transaction commits
+     */
+    public void addAfterCommit(String certificateCode, Integer certificateId) {
+        if (certificateCode == null || certificateId == null) return;
+        AfterCommit.run("index certificate " + certificateCode, () -> add(certificateCode, certificateId));
+    }
+
+    public void add(String certificateCode, Integer certificateId) {
+        String code = normalize(certificateCode);
+        BloomFilter current = filter;
+        if (current != null) current.add(code);
+        idsByCode.put(code, certificateId);
+    }
+
+    /**
+     * Lookup result: definitely unknown, known id, or "maybe" (filter hit without map entry, check the table)
+     */
+    public Lookup lookup(String certificateCode) {
+        if (!ready) return Lookup.UNCERTAIN;
+        String code = normalize(certificateCode);
+        Integer id = idsByCode.get(code);
+        if (id != null) return new Lookup(true, id);
+        return filter.mightContain(code) ? Lookup.UNCERTAIN : Lookup.UNKNOWN;
+    }
+
+    public static String normalize(String code) {
+        return code == null ? "" : code.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * known = false and certificateId = null means the code was never issued
+     */
+    public record Lookup(boolean known, Integer certificateId) {
+        static final Lookup UNKNOWN = new Lookup(false, null);
+        static final Lookup UNCERTAIN = new Lookup(true, null);
+    }
+
+    /**
+     * Lock-free Bloom filter (double hashing over two 64-bit hashes)
+     */
+    private static final class BloomFilter {
+        private final AtomicLongArray bits;
+        private final long bitCount;
+        private final int hashCount;
+
+        BloomFilter(int expectedItems, double fpp) {
+            long m = (long) Math.ceil(-expectedItems * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+            this.bitCount = Math.max(64, (m + 63) / 64 * 64);
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedItems * Math.log(2)));
+            this.bits = new AtomicLongArray((int) (bitCount / 64));
+        }
+
+        void add(String code) {
+            long h1 = fnv1a64(code);
+            long h2 = mix64(h1 ^ 0x9E3779B97F4A7C15L);
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << (bit & 63);
+                long current;
+                do {
+                    current = bits.get(word);
+                    if ((current & mask) != 0) break;
+                } while (!bits.compareAndSet(word, current, current | mask));
+            }
+        }
+
+        boolean mightContain(String code) {
+            long h1 = fnv1a64(code);
+            long h2 = mix64(h1 ^ 0x9E3779B97F4A7C15L);
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                if ((bits.get((int) (bit >>> 6)) & (1L << (bit & 63))) == 0) return false;
+            }
+            return true;
+        }
+
+        private static long fnv1a64(String value) {
+            long hash = 0xcbf29ce484222325L;
+            for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+                hash ^= b & 0xff;
+                hash *= 0x100000001b3L;
+            }
+            return hash;
+        }
+
+        private static long mix64(long z) {
+            z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+            z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+            return z ^ (z >>> 33);
+        }
+    }
+}
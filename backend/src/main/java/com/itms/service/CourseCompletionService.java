@@ -0,0 +1,207 @@
+package com.itms.service;
+
+import com.itms.dto.CourseCompletionDto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persisted course-completion projection (CourseCompletion table): one row per course, class and student with
+ * attended/total sessions, attendance rate, eligibility and whether a certificate was issued.
+ * Rows are refreshed set-based for a single class or course after the transaction that changed attendance,
+ * membership, sessions or certificates commits; a periodic reconciliation catches writes made elsewhere
+ * (e.g. a changed passing score). The HR completion screen is then one indexed read.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class CourseCompletionService {
+
+    // After-commit refreshes only log failures: the projection is derived data, the next reconciliation repairs it
+    private static final String REFRESH_TASK = "refresh course completion projection";
+
+    // %1$s filters the projection rows being rebuilt, %2$s the source classes (same scope, same parameter)
+    private static final String REFRESH_SQL = """
+        WITH target AS (
+            SELECT * FROM CourseCompletion WHERE %1$s
+        )
+        MERGE target WITH (HOLDLOCK) AS t
+        USING (
+            SELECT x.course_id, x.class_id, x.user_id, x.attended_sessions, x.total_sessions,
+                   CAST(x.rate AS DECIMAL(5,2)) AS attendance_rate,
+                   CASE WHEN x.rate >= x.passing_score THEN 1 ELSE 0 END AS eligible,
+                   x.has_certificate
+            FROM (
+                SELECT cr.course_id, cm.class_id, cm.user_id,
+                       ISNULL(cs.total_sessions, 0) AS total_sessions,
+                       ISNULL(att.attended_sessions, 0) AS attended_sessions,
+                       CASE WHEN ISNULL(cs.total_sessions, 0) > 0
+                            THEN ISNULL(att.attended_sessions, 0) * 100.0 / cs.total_sessions
+                            ELSE 0 END AS rate,
+                       ISNULL(c.passing_score, 70) AS passing_score,
+                       CASE WHEN EXISTS (
+                           SELECT 1 FROM Certificate ce WHERE ce.user_id = cm.user_id AND ce.course_id = cr.course_id
+                       ) THEN 1 ELSE 0 END AS has_certificate
+                FROM ClassMember cm
+                JOIN ClassRoom cr ON cm.class_id = cr.id
+                JOIN Course c ON cr.course_id = c.id
+                LEFT JOIN (
+                    SELECT s.class_id, COUNT(*) AS total_sessions
+                    FROM Session s
+                    GROUP BY s.class_id
+                ) cs ON cs.class_id = cm.class_id
+                LEFT JOIN (
+                    SELECT s.class_id, e.user_id, COUNT(DISTINCT a.id) AS attended_sessions
+                    FROM Attendance a
+                    JOIN Enrollment e ON a.enrollment_id = e.id
+                    JOIN Session s ON e.session_id = s.id
+                    WHERE a.attended = 1
+                    GROUP BY s.class_id, e.user_id
+                ) att ON att.class_id = cm.class_id AND att.user_id = cm.user_id
+                WHERE %2$s
+            ) x
+        ) AS s
+        ON t.course_id = s.course_id AND t.class_id = s.class_id AND t.user_id = s.user_id
+        WHEN MATCHED AND (t.attended_sessions <> s.attended_sessions OR t.total_sessions <> s.total_sessions
+                          OR t.attendance_rate <> s.attendance_rate OR t.eligible <> s.eligible
+                          OR t.has_certificate <> s.has_certificate) THEN
+            UPDATE SET attended_sessions = s.attended_sessions, total_sessions = s.total_sessions,
+                       attendance_rate = s.attendance_rate, eligible = s.eligible,
+                       has_certificate = s.has_certificate, updated_at = GETDATE()
+        WHEN NOT MATCHED BY TARGET THEN
+            INSERT (course_id, class_id, user_id, attended_sessions, total_sessions,
+                    attendance_rate, eligible, has_certificate, updated_at)
+            VALUES (s.course_id, s.class_id, s.user_id, s.attended_sessions, s.total_sessions,
+                    s.attendance_rate, s.eligible, s.has_certificate, GETDATE())
+        WHEN NOT MATCHED BY SOURCE THEN
+            DELETE;
+    """;
+
+    private static final String MARK_CERTIFIED_SQL = """
+        UPDATE CourseCompletion SET has_certificate = 1, updated_at = GETDATE()
+        WHERE course_id = ? AND user_id = ? AND has_certificate = 0
+    """;
+
+    // Ended = end date reached or course INACTIVE/ARCHIVED; courses without students still get one row
+    private static final String COMPLETED_COURSES_SQL = """
+        SELECT c.id, c.code, c.name, c.category, c.end_date, c.status,
+               cc.user_id, u.username, u.full_name, u.email,
+               cc.attended_sessions, cc.total_sessions, cc.attendance_rate, cc.eligible, cc.has_certificate
+        FROM Course c
+        LEFT JOIN CourseCompletion cc ON cc.course_id = c.id
+        LEFT JOIN [User] u ON u.id = cc.user_id
+        WHERE c.end_date <= ? OR c.status IN ('INACTIVE', 'ARCHIVED')
+        ORDER BY c.id, cc.class_id, cc.user_id
+    """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Refresh the rows of one class once the current transaction commits (immediately when there is none)
+     */
+    public void refreshClassAfterCommit(Integer classId) {
+        if (classId == null) return;
+        AfterCommit.run(REFRESH_TASK, () -> refreshClass(classId));
+    }
+
+    /**
+     * Refresh the rows of every class of a course once the current transaction commits
+     */
+    public void refreshCourseAfterCommit(Integer courseId) {
+        if (courseId == null) return;
+        AfterCommit.run(REFRESH_TASK, () -> refreshCourse(courseId));
+    }
+
+    /**
+     * Flag students' rows for a course as certified once the current transaction commits
+     */
+    public void markCertifiedAfterCommit(Integer courseId, List<Integer> userIds) {
+        if (courseId == null || userIds.isEmpty()) return;
+        AfterCommit.run(REFRESH_TASK, () -> markCertified(courseId, userIds));
+    }
+
+    public void refreshClass(Integer classId) {
+        jdbcTemplate.update(String.format(REFRESH_SQL, "class_id = ?", "cr.id = ?"), classId, classId);
+    }
+
+    public void refreshCourse(Integer courseId) {
+        jdbcTemplate.update(String.format(REFRESH_SQL, "course_id = ?", "cr.course_id = ?"), courseId, courseId);
+    }
+
+    public void markCertified(Integer courseId, List<Integer> userIds) {
+        jdbcTemplate.batchUpdate(MARK_CERTIFIED_SQL, userIds, userIds.size(), (ps, userId) -> {
+            ps.setInt(1, courseId);
+            ps.setInt(2, userId);
+        });
+    }
+
+    /**
+     * Rebuild the whole projection (initial fill and drift from writes that bypass the hooks)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${itms.course-completion.reconcile-interval-ms:3600000}",
+            fixedDelayString = "${itms.course-completion.reconcile-interval-ms:3600000}")
+    public void reconcile() {
+        try {
+            int changed = jdbcTemplate.update(String.format(REFRESH_SQL, "1 = 1", "1 = 1"));
+            log.info("Course completion projection reconciled ({} rows changed)", changed);
+        } catch (Exception e) {
+            log.error("Failed to reconcile course completion projection: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * HR: ended courses with per-student completion, read from the projection in one query
+     */
+    public List<CourseCompletionDto> getCompletedCourses(LocalDate today) {
+        Map<Integer, CourseCompletionDto> courses = new LinkedHashMap<>();
+        jdbcTemplate.query(COMPLETED_COURSES_SQL, rs -> {
+            Integer courseId = rs.getInt(1);
+            CourseCompletionDto course = courses.get(courseId);
+            if (course == null) {
+                Date endDate = rs.getDate(5);
+                course = CourseCompletionDto.builder()
+                        .courseId(courseId)
+                        .courseCode(rs.getString(2))
+                        .courseName(rs.getString(3))
+                        .courseCategory(rs.getString(4))
+                        .endDate(endDate != null ? endDate.toLocalDate() : null)
+                        .status(rs.getString(6))
+                        .students(new ArrayList<>())
+                        .build();
+                courses.put(courseId, course);
+            }
+
+            int userId = rs.getInt(7);
+            if (rs.wasNull()) return;
+            boolean eligible = rs.getBoolean(14);
+            boolean hasCertificate = rs.getBoolean(15);
+            course.getStudents().add(CourseCompletionDto.StudentCompletionDto.builder()
+                    .userId(userId)
+                    .username(rs.getString(8))
+                    .fullName(rs.getString(9))
+                    .email(rs.getString(10))
+                    .attendedSessions(rs.getInt(11))
+                    .totalSessions(rs.getInt(12))
+                    .attendanceRate(Math.round(rs.getDouble(13) * 10.0) / 10.0)
+                    .eligible(eligible)
+                    .hasCertificate(hasCertificate)
+                    .build());
+            course.setTotalStudents(course.getTotalStudents() + 1);
+            if (eligible) course.setEligibleStudents(course.getEligibleStudents() + 1);
+            if (hasCertificate) course.setAlreadyCertified(course.getAlreadyCertified() + 1);
+        }, Date.valueOf(today));
+        return new ArrayList<>(courses.values());
+    }
+}
@@ -35,6 +35,9 @@ public class EmployeeService {
     private final QuizRepository quizRepository;
     private final QuizAttemptRepository quizAttemptRepository;
     private final AttendanceRepository attendanceRepository;
+    private final AttendanceMatrixCache attendanceMatrixCache;
+    private final NotificationBroadcastService notificationBroadcastService;
+    private final NotificationUnreadCounterService notificationUnreadCounterService;
 
     // ─── Dashboard ────────────────────────────────────────────────────────────
 
@@ -49,13 +52,14 @@ public class EmployeeService {
         // Certificates
         long totalCertificates = certificateRepository.findByUserId(userId).size();
 
-        // Notifications
-        List<NotificationDto> notifications = notificationRepository
-                .findByUserIdOrderBySentDateDesc(userId).stream()
+        // Notifications: the latest few merged with broadcasts; the badge comes from the maintained counter
+        List<NotificationDto> notifications = notificationBroadcastService
+                .inbox(userId, notificationRepository.findByUserIdOrderBySentDateDesc(userId, PageRequest.of(0, 5)))
+                .stream()
                 .limit(5)
-                .map(this::mapNotification)
+                .map(e -> mapNotification(e.notification(), e.read()))
                 .collect(Collectors.toList());
-        long unread = notifications.stream().filter(n -> !Boolean.TRUE.equals(n.getReadStatus())).count();
+        long unread = notificationUnreadCounterService.unreadCount(userId);
 
         // Upcoming sessions (next 3)
         List<ScheduleDto> upcomingSessions = getSchedule(userId).stream()
@@ -264,12 +268,9 @@ public class EmployeeService {
         int attendedSessions = 0;
 
         for (ClassMember cm : memberships) {
-            List<Session> sessions = sessionRepository.findByClassRoomIdOrderByDateAsc(cm.getClassRoom().getId());
-            totalSessions += sessions.size();
-            if (!sessions.isEmpty()) {
-                List<Long> sessionIds = sessions.stream().map(Session::getId).toList();
-                attendedSessions += attendanceRepository.countByUserIdAndSessionIds(userId, sessionIds);
-            }
+            AttendanceMatrixCache.AttendanceMatrix matrix = attendanceMatrixCache.get(cm.getClassRoom().getId());
+            totalSessions += matrix.sessionCount();
+            attendedSessions += matrix.attendedCount(userId);
         }
 
         return totalSessions > 0 ? (int) Math.round(attendedSessions * 100.0 / totalSessions) : 0;
@@ -367,8 +368,9 @@ public class EmployeeService {
     // ─── Notifications ────────────────────────────────────────────────────────
 
     public List<NotificationDto> notifications(Integer userId) {
-        return notificationRepository.findByUserIdOrderBySentDateDesc(userId).stream()
-                .map(this::mapNotification)
+        return notificationBroadcastService.inbox(userId, notificationRepository.findByUserIdOrderBySentDateDesc(userId))
+                .stream()
+                .map(e -> mapNotification(e.notification(), e.read()))
                 .collect(Collectors.toList());
     }
 
@@ -376,15 +378,24 @@ public class EmployeeService {
     public NotificationDto markNotificationRead(Integer notificationId, Integer userId) {
         Notification n = notificationRepository.findById(notificationId)
                 .orElseThrow(() -> new RuntimeException("Notification not found"));
-        n.setIsRead(true);
-        n.setReadAt(LocalDateTime.now());
-        n = notificationRepository.save(n);
+        if (notificationBroadcastService.isBroadcastFor(n, userId)) {
+            notificationBroadcastService.markRead(userId, notificationId);
+            return mapNotification(n, true);
+        }
+        notificationUnreadCounterService.markRead(n);
         return mapNotification(n);
     }
 
     @Transactional
     public void deleteNotification(Integer notificationId, Integer userId) {
-        notificationRepository.deleteById(notificationId);
+        Notification n = notificationRepository.findById(notificationId).orElse(null);
+        if (n != null && notificationBroadcastService.isBroadcastFor(n, userId)) {
+            notificationBroadcastService.hide(userId, notificationId);
+            return;
+        }
+        if (n == null) return;
+        notificationRepository.delete(n);
+        notificationUnreadCounterService.deleted(n);
     }
 
     // ─── Schedule ─────────────────────────────────────────────────────────────
@@ -604,13 +615,17 @@ public class EmployeeService {
     }
 
     private NotificationDto mapNotification(Notification n) {
+        return mapNotification(n, n.getIsRead());
+    }
+
+    private NotificationDto mapNotification(Notification n, Boolean read) {
         return NotificationDto.builder()
                 .id(n.getId())
                 .userId(n.getUser() != null ? n.getUser().getId() : null)
                 .title(n.getTitle())
                 .message(n.getMessage())
                 .type(n.getType())
-                .readStatus(n.getIsRead())
+                .readStatus(read)
                 .createdAt(n.getCreatedAt())
                 .build();
     }
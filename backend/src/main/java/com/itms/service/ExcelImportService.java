@@ -4,13 +4,31 @@ import com.itms.dto.QuizImportDto;
 import com.itms.dto.QuizQuestionImportDto;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
 import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
 
+import javax.xml.parsers.ParserConfigurationException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 @Service
@@ -18,6 +36,24 @@ import java.util.List;
 @Slf4j
 public class ExcelImportService {
 
+    // Layout of the quiz template (0-indexed rows)
+    // Row 0: Quiz Title, Row 1: Desc, Row 2: Duration, Row 3: Passing Score
+    // Row 4: Instructions, Row 5: Column headers, Row 6+: Actual questions
+    private static final int QUESTION_START_ROW = 6;
+    private static final int QUESTION_COLUMNS = 8;
+    private static final int MAX_OPTION_LENGTH = 500;
+
+    /**
+     * Callback for the streaming quiz reader. Metadata is delivered once, before the first question.
+     */
+    public interface QuizRowHandler {
+        void onMetadata(QuizImportDto metadata);
+
+        void onQuestion(QuizQuestionImportDto question);
+
+        void onRowError(int excelRow, String message);
+    }
+
     /**
      * Parse Excel file and return quiz data without creating quiz
      */
@@ -25,145 +61,231 @@ public class ExcelImportService {
         return importQuizFromExcel(file);
     }
 
+    /**
+     * Read the whole quiz into a DTO (used for preview); rows are still parsed with the streaming reader
+     */
     public QuizImportDto importQuizFromExcel(MultipartFile file) throws IOException {
-        try (Workbook workbook = new XSSFWorkbook(file.getInputStream())) {
-            Sheet sheet = workbook.getSheetAt(0);
-            
-            QuizImportDto quizDto = new QuizImportDto();
-            List<QuizQuestionImportDto> questions = new ArrayList<>();
-            
-            // Read quiz metadata from first few rows
-            Row quizTitleRow = sheet.getRow(0);
-            if (quizTitleRow != null && quizTitleRow.getCell(1) != null) {
-                quizDto.setQuizTitle(getCellValueAsString(quizTitleRow.getCell(1)).trim());
+        QuizImportDto quizDto = new QuizImportDto();
+        List<QuizQuestionImportDto> questions = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+
+        streamQuizFromExcel(file, new QuizRowHandler() {
+            @Override
+            public void onMetadata(QuizImportDto metadata) {
+                quizDto.setQuizTitle(metadata.getQuizTitle());
+                quizDto.setDescription(metadata.getDescription());
+                quizDto.setDurationMinutes(metadata.getDurationMinutes());
+                quizDto.setPassingScore(metadata.getPassingScore());
+                quizDto.setQuizType(metadata.getQuizType());
+                quizDto.setMaxAttempts(metadata.getMaxAttempts());
+                quizDto.setRandomizeQuestions(metadata.getRandomizeQuestions());
+                quizDto.setShowCorrectAnswers(metadata.getShowCorrectAnswers());
             }
-            
-            Row descriptionRow = sheet.getRow(1);
-            if (descriptionRow != null && descriptionRow.getCell(1) != null) {
-                quizDto.setDescription(getCellValueAsString(descriptionRow.getCell(1)).trim());
+
+            @Override
+            public void onQuestion(QuizQuestionImportDto question) {
+                questions.add(question);
             }
-            
-            Row durationRow = sheet.getRow(2);
-            if (durationRow != null && durationRow.getCell(1) != null) {
-                try {
-                    Cell durationCell = durationRow.getCell(1);
-                    if (durationCell.getCellType() == CellType.NUMERIC) {
-                        quizDto.setDurationMinutes((int) durationCell.getNumericCellValue());
-                    } else {
-                        quizDto.setDurationMinutes(Integer.parseInt(getCellValueAsString(durationCell).trim()));
-                    }
-                } catch (Exception e) {
-                    log.warn("Failed to parse duration: {}", e.getMessage());
-                    quizDto.setDurationMinutes(60); // Default
-                }
+
+            @Override
+            public void onRowError(int excelRow, String message) {
+                errors.add("Row " + excelRow + ": " + message);
             }
-            
-            Row passingScoreRow = sheet.getRow(3);
-            if (passingScoreRow != null && passingScoreRow.getCell(1) != null) {
-                try {
-                    Cell passingCell = passingScoreRow.getCell(1);
-                    if (passingCell.getCellType() == CellType.NUMERIC) {
-                        quizDto.setPassingScore(passingCell.getNumericCellValue());
-                    } else {
-                        quizDto.setPassingScore(Double.parseDouble(getCellValueAsString(passingCell).trim()));
-                    }
-                } catch (Exception e) {
-                    log.warn("Failed to parse passing score: {}", e.getMessage());
-                    quizDto.setPassingScore(70.0); // Default
+        });
+
+        quizDto.setQuestions(questions);
+        quizDto.setErrors(errors);
+        log.info("Successfully parsed {} questions from Excel ({} invalid rows)", questions.size(), errors.size());
+        return quizDto;
+    }
+
+    /**
+     * Stream the first sheet of a quiz workbook row by row with the XSSF event (SAX) reader.
+     * Memory stays constant regardless of the number of questions: the upload is spooled to a temp file,
+     * and each row is validated and handed to the handler as soon as it has been read.
+     */
+    public void streamQuizFromExcel(MultipartFile file, QuizRowHandler handler) throws IOException {
+        Path tempFile = Files.createTempFile("quiz-import-", ".xlsx");
+        try {
+            file.transferTo(tempFile);
+            try (OPCPackage pkg = OPCPackage.open(tempFile.toFile(), PackageAccess.READ)) {
+                XSSFReader reader = new XSSFReader(pkg);
+                ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg, false);
+                StylesTable styles = reader.getStylesTable();
+
+                XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+                if (!sheets.hasNext()) {
+                    throw new IllegalArgumentException("The Excel file has no sheets");
                 }
+
+                QuizSheetHandler sheetHandler = new QuizSheetHandler(handler);
+                try (InputStream sheet = sheets.next()) {
+                    XMLReader parser = XMLHelper.newXMLReader();
+                    parser.setContentHandler(new XSSFSheetXMLHandler(
+                            styles, null, strings, sheetHandler, new DataFormatter(), false));
+                    parser.parse(new InputSource(sheet));
+                }
+                sheetHandler.finish();
+            } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+                throw new IOException("Invalid Excel file: " + e.getMessage(), e);
             }
-            
-            // Set defaults
-            quizDto.setQuizType("ASSESSMENT");
-            quizDto.setMaxAttempts(3);
-            quizDto.setRandomizeQuestions(false);
-            quizDto.setShowCorrectAnswers(true);
-            
-            // Read questions starting from row 7 in Excel (0-indexed row 6)
-            // Row 0: Quiz Title, Row 1: Desc, Row 2: Duration, Row 3: Passing Score
-            // Row 4: Instructions, Row 5: Column headers, Row 6+: Actual questions
-            int startRow = 6;
-            for (int i = startRow; i <= sheet.getLastRowNum(); i++) {
-                Row row = sheet.getRow(i);
-                if (row == null) continue;
-                
-                // Column mapping:
-                // A: Question Text, B: Option A, C: Option B, D: Option C, E: Option D
-                // F: Correct Answer, G: Marks, H: Explanation
-                
-                Cell questionCell = row.getCell(0);
-                String questionText = getCellValueAsString(questionCell).trim();
-                
-                if (questionText.isEmpty()) {
-                    log.info("Skipping empty question row: {}", i + 1);
-                    continue; // Skip empty rows
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Collects cell values of one row at a time and turns them into metadata / validated questions
+     */
+    private static class QuizSheetHandler implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final QuizRowHandler handler;
+        private final QuizImportDto metadata = new QuizImportDto();
+        private final String[] cells = new String[QUESTION_COLUMNS];
+        private boolean metadataSent = false;
+        private int displayOrder = 0;
+
+        private QuizSheetHandler(QuizRowHandler handler) {
+            this.handler = handler;
+            // Defaults
+            metadata.setDurationMinutes(60);
+            metadata.setPassingScore(70.0);
+            metadata.setQuizType("ASSESSMENT");
+            metadata.setMaxAttempts(3);
+            metadata.setRandomizeQuestions(false);
+            metadata.setShowCorrectAnswers(true);
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            Arrays.fill(cells, null);
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int col = new CellReference(cellReference).getCol();
+            if (col < QUESTION_COLUMNS) {
+                cells[col] = formattedValue;
+            }
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (rowNum < QUESTION_START_ROW) {
+                readMetadata(rowNum);
+                return;
+            }
+            sendMetadata();
+            readQuestion(rowNum + 1);
+        }
+
+        private void finish() {
+            sendMetadata();
+        }
+
+        private void sendMetadata() {
+            if (!metadataSent) {
+                metadataSent = true;
+                handler.onMetadata(metadata);
+            }
+        }
+
+        private void readMetadata(int rowNum) {
+            String value = text(1);
+            if (value.isEmpty()) return;
+            switch (rowNum) {
+                case 0 -> metadata.setQuizTitle(value);
+                case 1 -> metadata.setDescription(value);
+                case 2 -> {
+                    try {
+                        metadata.setDurationMinutes((int) Double.parseDouble(value));
+                    } catch (NumberFormatException e) {
+                        log.warn("Failed to parse duration: {}", e.getMessage());
+                    }
                 }
-                
-                QuizQuestionImportDto question = new QuizQuestionImportDto();
-                question.setQuestionText(questionText);
-                question.setOptionA(getCellValueAsString(row.getCell(1)).trim());
-                question.setOptionB(getCellValueAsString(row.getCell(2)).trim());
-                question.setOptionC(getCellValueAsString(row.getCell(3)).trim());
-                question.setOptionD(getCellValueAsString(row.getCell(4)).trim());
-                question.setCorrectAnswer(getCellValueAsString(row.getCell(5)).trim().toUpperCase());
-                
-                Cell marksCell = row.getCell(6);
-                if (marksCell != null) {
+                case 3 -> {
                     try {
-                        if (marksCell.getCellType() == CellType.NUMERIC) {
-                            question.setMarks((int) marksCell.getNumericCellValue());
-                        } else {
-                            question.setMarks(Integer.parseInt(getCellValueAsString(marksCell).trim()));
-                        }
-                    } catch (Exception e) {
-                        question.setMarks(1);
+                        metadata.setPassingScore(Double.parseDouble(value.replace("%", "")));
+                    } catch (NumberFormatException e) {
+                        log.warn("Failed to parse passing score: {}", e.getMessage());
                     }
-                } else {
-                    question.setMarks(1); // Default marks
                 }
-                
-                question.setExplanation(getCellValueAsString(row.getCell(7)).trim());
-                question.setQuestionType("MULTIPLE_CHOICE");
-                question.setDisplayOrder(questions.size() + 1);
-                
-                questions.add(question);
+                default -> { }
             }
-            
-            quizDto.setQuestions(questions);
-            log.info("Successfully parsed {} questions from Excel", questions.size());
-            return quizDto;
         }
-    }
-    
-    private String getCellValueAsString(Cell cell) {
-        if (cell == null) return "";
-        
-        switch (cell.getCellType()) {
-            case STRING:
-                return cell.getStringCellValue();
-            case NUMERIC:
-                if (DateUtil.isCellDateFormatted(cell)) {
-                    return cell.getDateCellValue().toString();
-                } else {
-                    double val = cell.getNumericCellValue();
-                    if (val == (long) val) {
-                        return String.valueOf((long) val);
-                    }
-                    return String.valueOf(val);
+
+        // Column mapping:
+        // A: Question Text, B: Option A, C: Option B, D: Option C, E: Option D
+        // F: Correct Answer, G: Marks, H: Explanation
+        private void readQuestion(int excelRow) {
+            String questionText = text(0);
+            if (questionText.isEmpty()) {
+                return; // Skip empty rows
+            }
+
+            String[] options = {text(1), text(2), text(3), text(4)};
+            if (options[0].isEmpty() || options[1].isEmpty()) {
+                handler.onRowError(excelRow, "Option A and Option B are required");
+                return;
+            }
+            for (String option : options) {
+                if (option.length() > MAX_OPTION_LENGTH) {
+                    handler.onRowError(excelRow, "Options must not exceed " + MAX_OPTION_LENGTH + " characters");
+                    return;
                 }
-            case BOOLEAN:
-                return String.valueOf(cell.getBooleanCellValue());
-            case FORMULA:
+            }
+
+            String correctAnswer = text(5).toUpperCase();
+            int correctIndex = switch (correctAnswer) {
+                case "A", "0" -> 0;
+                case "B", "1" -> 1;
+                case "C", "2" -> 2;
+                case "D", "3" -> 3;
+                default -> -1;
+            };
+            if (correctIndex < 0) {
+                handler.onRowError(excelRow, "Correct Answer must be 'A', 'B', 'C' or 'D' (was '" + correctAnswer + "')");
+                return;
+            }
+            if (options[correctIndex].isEmpty()) {
+                handler.onRowError(excelRow, "Correct Answer points to an empty option");
+                return;
+            }
+
+            int marks = 1; // Default marks
+            String marksText = text(6);
+            if (!marksText.isEmpty()) {
                 try {
-                    return cell.getStringCellValue();
-                } catch (Exception e) {
-                    return String.valueOf(cell.getNumericCellValue());
+                    double parsed = Double.parseDouble(marksText);
+                    if (parsed <= 0 || parsed != Math.floor(parsed)) {
+                        handler.onRowError(excelRow, "Marks must be a positive whole number");
+                        return;
+                    }
+                    marks = (int) parsed;
+                } catch (NumberFormatException e) {
+                    handler.onRowError(excelRow, "Marks must be a number (was '" + marksText + "')");
+                    return;
                 }
-            default:
-                return "";
+            }
+
+            QuizQuestionImportDto question = new QuizQuestionImportDto();
+            question.setQuestionText(questionText);
+            question.setOptionA(options[0]);
+            question.setOptionB(options[1]);
+            question.setOptionC(options[2]);
+            question.setOptionD(options[3]);
+            question.setCorrectAnswer(correctAnswer);
+            question.setMarks(marks);
+            question.setExplanation(text(7));
+            question.setQuestionType("MULTIPLE_CHOICE");
+            question.setDisplayOrder(++displayOrder);
+            handler.onQuestion(question);
+        }
+
+        private String text(int col) {
+            return cells[col] != null ? cells[col].trim() : "";
         }
     }
-    
+
     public byte[] generateExcelTemplate() throws IOException {
         try (Workbook workbook = new XSSFWorkbook()) {
             Sheet sheet = workbook.createSheet("Quiz Template");
@@ -28,6 +28,8 @@ public class HrClassMemberService {
     private final ClassMemberRepository classMemberRepository;
     private final ClassRoomRepository classRoomRepository;
     private final UserRepository userRepository;
+    private final CourseCompletionService courseCompletionService;
+    private final AttendanceMatrixCache attendanceMatrixCache;
 
     /** List all members of a class */
     public List<ClassMemberDto> getMembers(Integer classId) {
@@ -84,7 +86,10 @@ public class HrClassMemberService {
                 .addedBy(addedBy)
                 .build();
 
-        return toDto(classMemberRepository.save(member));
+        ClassMemberDto saved = toDto(classMemberRepository.save(member));
+        courseCompletionService.refreshClassAfterCommit(classId);
+        attendanceMatrixCache.invalidateAfterCommit(classId);
+        return saved;
     }
 
     /** Remove a member from a class */
@@ -96,6 +101,8 @@ public class HrClassMemberService {
             throw new IllegalArgumentException("Học viên không thuộc lớp này");
         }
         classMemberRepository.delete(member);
+        courseCompletionService.refreshClassAfterCommit(classId);
+        attendanceMatrixCache.invalidateAfterCommit(classId);
     }
 
     /** Import members from Excel file. Expected columns: username or email */
@@ -163,6 +170,10 @@ public class HrClassMemberService {
             }
         }
 
+        if (added > 0) {
+            courseCompletionService.refreshClassAfterCommit(classId);
+            attendanceMatrixCache.invalidateAfterCommit(classId);
+        }
         return new ImportResult(added, skipped, errors);
     }
 
@@ -1,11 +1,11 @@
 package com.itms.service;
 
+import com.itms.common.NotificationAudience;
 import com.itms.common.NotificationPriority;
 import com.itms.dto.TrainerNotificationDto;
 import com.itms.dto.TrainerNotificationRequest;
 import com.itms.entity.Notification;
 import com.itms.entity.User;
-import com.itms.repository.ClassMemberRepository;
 import com.itms.repository.NotificationRepository;
 import com.itms.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
@@ -23,7 +23,8 @@ public class HrNotificationService {
 
     private final NotificationRepository notificationRepository;
     private final UserRepository userRepository;
-    private final ClassMemberRepository classMemberRepository;
+    private final NotificationBroadcastService notificationBroadcastService;
+    private final NotificationUnreadCounterService notificationUnreadCounterService;
 
     public List<TrainerNotificationDto> getNotificationsByCategory(Integer hrId, String category) {
         List<Notification> notifications;
@@ -36,9 +37,11 @@ public class HrNotificationService {
                 break;
             case "inbox":
             default:
-                // Inbox: only non-draft notifications sent TO the HR user, excluding self-sent
-                notifications = notificationRepository.findNotificationsForUser(hrId);
-                break;
+                // Inbox: non-draft notifications sent TO the HR user (excluding self-sent) merged with broadcasts
+                return notificationBroadcastService.inbox(hrId, notificationRepository.findNotificationsForUser(hrId))
+                        .stream()
+                        .map(e -> convertToDto(e.notification(), category, e.read()))
+                        .collect(Collectors.toList());
         }
         return notifications.stream()
                 .map(n -> convertToDto(n, category))
@@ -65,12 +68,13 @@ public class HrNotificationService {
                 .build();
 
         Notification saved = notificationRepository.save(notification);
+        TrainerNotificationDto result = convertToDto(saved, Boolean.TRUE.equals(saved.getIsDraft()) ? "draft" : "sent");
 
         if (!saved.getIsDraft()) {
-            sendNotificationToRecipients(saved);
+            result.setFanOutJobId(sendNotificationToRecipients(saved));
         }
 
-        return convertToDto(saved, Boolean.TRUE.equals(saved.getIsDraft()) ? "draft" : "sent");
+        return result;
     }
 
     @Transactional
@@ -93,7 +97,7 @@ public class HrNotificationService {
     }
 
     @Transactional
-    public void sendNotification(Integer notificationId, Integer hrId) {
+    public TrainerNotificationDto sendNotification(Integer notificationId, Integer hrId) {
         Notification notification = notificationRepository.findById(notificationId)
                 .orElseThrow(() -> new RuntimeException("Notification not found"));
 
@@ -103,8 +107,10 @@ public class HrNotificationService {
 
         notification.setIsDraft(false);
         notification.setSentDate(LocalDateTime.now());
-        notificationRepository.save(notification);
-        sendNotificationToRecipients(notification);
+        Notification sent = notificationRepository.save(notification);
+        TrainerNotificationDto result = convertToDto(sent, "sent");
+        result.setFanOutJobId(sendNotificationToRecipients(sent));
+        return result;
     }
 
     @Transactional
@@ -112,6 +118,11 @@ public class HrNotificationService {
         Notification notification = notificationRepository.findById(notificationId)
                 .orElseThrow(() -> new RuntimeException("Notification not found"));
 
+        if (notificationBroadcastService.isBroadcastFor(notification, hrId)) {
+            notificationBroadcastService.hide(hrId, notificationId);
+            return;
+        }
+
         boolean isSender = notification.getSender() != null && notification.getSender().getId().equals(hrId);
         boolean isReceiver = notification.getUser() != null && notification.getUser().getId().equals(hrId);
 
@@ -120,72 +131,42 @@ public class HrNotificationService {
         }
 
         notificationRepository.delete(notification);
+        notificationUnreadCounterService.deleted(notification);
     }
 
     @Transactional
-    public void markAsRead(Integer notificationId) {
+    public void markAsRead(Integer notificationId, Integer userId) {
         Notification notification = notificationRepository.findById(notificationId)
                 .orElseThrow(() -> new RuntimeException("Notification not found"));
-        notification.setIsRead(true);
-        notification.setReadAt(LocalDateTime.now());
-        notificationRepository.save(notification);
+        if (notificationBroadcastService.isBroadcastFor(notification, userId)) {
+            notificationBroadcastService.markRead(userId, notificationId);
+            return;
+        }
+        notificationUnreadCounterService.markRead(notification);
     }
 
-    private void sendNotificationToRecipients(Notification sourceNotification) {
+    // Deliver to the chosen audience (broadcast or background fan-out); returns the fan-out job id
+    private String sendNotificationToRecipients(Notification sourceNotification) {
         String recipientType = sourceNotification.getRecipientType();
+        NotificationAudience audience = null;
+        List<String> classCodes = null;
         if ("STUDENTS".equals(recipientType) && sourceNotification.getClassCodes() != null) {
-            List<String> classCodes = Arrays.asList(sourceNotification.getClassCodes().split(","));
-            sendToStudentsByClassCodes(sourceNotification, classCodes);
+            audience = NotificationAudience.CLASS_MEMBERS;
+            classCodes = Arrays.asList(sourceNotification.getClassCodes().split(","));
         } else if ("TRAINERS".equals(recipientType)) {
-            sendToTrainers(sourceNotification);
+            audience = NotificationAudience.TRAINERS;
         } else if ("HR".equals(recipientType)) {
-            sendToHR(sourceNotification);
+            audience = NotificationAudience.HR;
         }
         // ALL / others: do nothing extra (already saved under sender)
+        return notificationBroadcastService.deliver(sourceNotification, audience, classCodes);
     }
 
-    private void sendToStudentsByClassCodes(Notification source, List<String> classCodes) {
-        for (String classCode : classCodes) {
-            List<com.itms.entity.ClassMember> members = classMemberRepository.findByClassRoomClassCode(classCode.trim());
-            members.forEach(member -> {
-                if (member.getUser() != null) {
-                    createNotificationForUser(member.getUser(), source);
-                }
-            });
-        }
-    }
-
-    private void sendToTrainers(Notification source) {
-        List<User> trainers = userRepository.findAllActiveTrainers();
-        for (User trainer : trainers) {
-            createNotificationForUser(trainer, source);
-        }
-    }
-
-    private void sendToHR(Notification source) {
-        List<User> hrUsers = userRepository.findByRoleName("Human Resources");
-        for (User hr : hrUsers) {
-            createNotificationForUser(hr, source);
-        }
-    }
-
-    private void createNotificationForUser(User recipient, Notification source) {
-        Notification notif = Notification.builder()
-                .user(recipient)
-                .sender(source.getSender())
-                .type(source.getType() != null && !source.getType().equals("GENERAL") ? source.getType() : "ANNOUNCEMENT")
-                .title(source.getTitle())
-                .message(source.getMessage())
-                .priority(source.getPriority())
-                .recipientType(source.getRecipientType())
-                .isRead(false)
-                .isDraft(false)
-                .sentDate(LocalDateTime.now())
-                .build();
-        notificationRepository.save(notif);
+    private TrainerNotificationDto convertToDto(Notification n, String category) {
+        return convertToDto(n, category, n.getIsRead());
     }
 
-    private TrainerNotificationDto convertToDto(Notification n, String category) {
+    private TrainerNotificationDto convertToDto(Notification n, String category, Boolean read) {
         List<String> recipients = null;
         String sender = null;
 
@@ -208,7 +189,7 @@ public class HrNotificationService {
                 .title(n.getTitle())
                 .message(n.getMessage())
                 .sentDate(n.getSentDate() != null ? n.getSentDate() : n.getCreatedAt())
-                .isRead(n.getIsRead())
+                .isRead(read)
                 .type(n.getType())
                 .priority(n.getPriority())
                 .category(category)
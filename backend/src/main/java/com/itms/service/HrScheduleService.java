@@ -3,10 +3,12 @@ package com.itms.service;
 import com.itms.common.LocationType;
 import com.itms.common.SessionStatus;
 import com.itms.dto.HrScheduleDto;
+import com.itms.dto.ScheduleConflictDto;
 import com.itms.entity.ClassRoom;
 import com.itms.entity.Course;
 import com.itms.entity.Session;
 import com.itms.entity.User;
+import com.itms.exception.ScheduleConflictException;
 import com.itms.repository.ClassRoomRepository;
 import com.itms.repository.CourseRepository;
 import com.itms.repository.SessionRepository;
@@ -18,8 +20,11 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
 
 @Service
 @RequiredArgsConstructor
@@ -29,6 +34,9 @@ public class HrScheduleService {
     private final CourseRepository courseRepository;
     private final UserRepository userRepository;
     private final ClassRoomRepository classRoomRepository;
+    private final CourseCompletionService courseCompletionService;
+    private final AttendanceMatrixCache attendanceMatrixCache;
+    private final ScheduleConflictEngine scheduleConflictEngine;
 
     public List<HrScheduleDto> getAll() {
         return sessionRepository.findAllByOrderByDateAscTimeStartAsc().stream()
@@ -52,27 +60,123 @@ public class HrScheduleService {
     @Transactional
     public HrScheduleDto create(HrScheduleDto dto) {
         Session session = new Session();
-        applyDto(session, dto, null);
-        return toDto(sessionRepository.save(session));
+        applyDto(session, dto);
+        checkConflicts(session, null);
+        Session saved = sessionRepository.save(session);
+        onClassSessionsChanged(classIdOf(saved));
+        return toDto(saved);
     }
 
     @Transactional
     public HrScheduleDto update(Long id, HrScheduleDto dto) {
         Session session = sessionRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy lịch học với id: " + id));
-        applyDto(session, dto, id);
-        return toDto(sessionRepository.save(session));
+        Integer previousClassId = classIdOf(session);
+        applyDto(session, dto);
+        checkConflicts(session, id);
+        Session saved = sessionRepository.save(session);
+        onClassSessionsChanged(previousClassId);
+        if (!Objects.equals(previousClassId, classIdOf(saved))) {
+            onClassSessionsChanged(classIdOf(saved));
+        }
+        return toDto(saved);
     }
 
     @Transactional
     public void delete(Long id) {
-        if (!sessionRepository.existsById(id)) {
-            throw new EntityNotFoundException("Không tìm thấy lịch học với id: " + id);
+        Session session = sessionRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy lịch học với id: " + id));
+        Integer classId = classIdOf(session);
+        sessionRepository.delete(session);
+        onClassSessionsChanged(classId);
+    }
+
+    /**
+     * Check a batch of sessions (e.g. a schedule import) without saving anything: every invalid row and every
+     * trainer / room overlap, with existing sessions or inside the batch. Empty when the batch can be imported.
+     */
+    @Transactional(readOnly = true)
+    public List<ScheduleConflictDto> validateBatch(List<HrScheduleDto> rows) {
+        List<ScheduleConflictDto> problems = new ArrayList<>();
+        prepareBatch(rows, problems);
+        return problems;
+    }
+
+    /**
+     * Create a batch of sessions in one transaction; nothing is saved when any row is invalid or conflicts
+     */
+    @Transactional
+    public List<HrScheduleDto> importBatch(List<HrScheduleDto> rows) {
+        List<ScheduleConflictDto> problems = new ArrayList<>();
+        List<Session> sessions = prepareBatch(rows, problems);
+        if (!problems.isEmpty()) {
+            throw new ScheduleConflictException(
+                    "Có " + problems.size() + " lỗi trong danh sách lịch học, chưa lưu lịch nào", problems);
         }
-        sessionRepository.deleteById(id);
+
+        List<Session> saved = sessionRepository.saveAll(sessions);
+        saved.stream().map(this::classIdOf).distinct().forEach(this::onClassSessionsChanged);
+        return saved.stream().map(this::toDto).toList();
     }
 
-    private void applyDto(Session session, HrScheduleDto dto, Long excludeId) {
+    // Rows applied to new sessions (null where the row is invalid) plus one conflict check for the whole batch
+    private List<Session> prepareBatch(List<HrScheduleDto> rows, List<ScheduleConflictDto> problems) {
+        if (rows == null || rows.isEmpty()) {
+            throw new IllegalArgumentException("Danh sách lịch học trống");
+        }
+
+        List<Session> sessions = new ArrayList<>(rows.size());
+        List<ScheduleConflictEngine.Slot> slots = new ArrayList<>();
+        List<Integer> slotRows = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            Session session = new Session();
+            try {
+                applyDto(session, rows.get(i));
+            } catch (IllegalArgumentException ex) {
+                problems.add(ScheduleConflictDto.builder().index(i).type("INVALID").message(ex.getMessage()).build());
+                sessions.add(null);
+                continue;
+            }
+            sessions.add(session);
+            slots.add(slotOf(session, null));
+            slotRows.add(i);
+        }
+
+        for (ScheduleConflictDto conflict : scheduleConflictEngine.findConflicts(slots)) {
+            conflict.setIndex(slotRows.get(conflict.getIndex()));
+            if (conflict.getConflictingIndex() != null) {
+                conflict.setConflictingIndex(slotRows.get(conflict.getConflictingIndex()));
+            }
+            problems.add(conflict);
+        }
+        problems.sort(Comparator.comparing(ScheduleConflictDto::getIndex));
+        return sessions;
+    }
+
+    private void checkConflicts(Session session, Long excludeId) {
+        List<ScheduleConflictDto> conflicts = scheduleConflictEngine.findConflicts(List.of(slotOf(session, excludeId)));
+        if (!conflicts.isEmpty()) {
+            throw new IllegalArgumentException(conflicts.get(0).getMessage());
+        }
+    }
+
+    private ScheduleConflictEngine.Slot slotOf(Session session, Long excludeId) {
+        return new ScheduleConflictEngine.Slot(excludeId,
+                session.getTrainer().getUsername(),
+                session.getLocationType() == LocationType.OFFLINE ? session.getLocation() : null,
+                session.getDate(), session.getTimeStart(), session.getTimeEnd());
+    }
+
+    private void onClassSessionsChanged(Integer classId) {
+        courseCompletionService.refreshClassAfterCommit(classId);
+        attendanceMatrixCache.invalidateAfterCommit(classId);
+    }
+
+    private Integer classIdOf(Session session) {
+        return session.getClassRoom() != null ? session.getClassRoom().getId() : null;
+    }
+
+    private void applyDto(Session session, HrScheduleDto dto) {
         String trainerUsername = require(dto.getTrainerUsername(), "Vui lòng chọn trainer");
         String courseCode = require(dto.getCourseCode(), "Vui lòng chọn khóa học");
         String classCode = require(dto.getClassCode(), "Vui lòng chọn lớp");
@@ -111,14 +215,6 @@ public class HrScheduleService {
             throw new IllegalArgumentException("Vui lòng nhập link học online");
         }
 
-        if (sessionRepository.existsTrainerTimeConflict(trainerUsername, date, startTime, endTime, excludeId)) {
-            throw new IllegalArgumentException("Trainer đã có lịch trùng giờ trong ngày này");
-        }
-        if (locationType == LocationType.OFFLINE
-                && sessionRepository.existsRoomTimeConflict(date, room, startTime, endTime, excludeId)) {
-            throw new IllegalArgumentException("Phòng học đã có lịch trùng giờ trong ngày này");
-        }
-
         ClassRoom classRoom = classRoomRepository.findByClassCode(classCode)
                 .orElseThrow(() -> new IllegalArgumentException("Không tìm thấy lớp học: " + classCode));
 
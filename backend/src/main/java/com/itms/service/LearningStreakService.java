@@ -1,44 +1,177 @@
 package com.itms.service;
 
+import com.itms.entity.UserLearningStreak;
 import com.itms.repository.AttendanceRepository;
+import com.itms.repository.UserLearningStreakRepository;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
+import java.sql.Date;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+/**
+ * Learning streaks kept as per-user state (UserLearningStreak) instead of being recomputed from the whole history.
+ * A day counts when the user attended a session or submitted a quiz; one missed day between two active days does
+ * not break the streak. Activity advances the state with one conditional UPDATE after the transaction commits;
+ * the streak expiring at midnight is applied on read, without writing. History is only scanned to initialize
+ * a user, for backdated activity, or when an attendance mark inside the current run is withdrawn.
+ */
 @Service
+@Slf4j
 public class LearningStreakService {
 
+    // Largest gap in days between two active days that keeps the streak going
+    private static final int MAX_GAP_DAYS = 2;
+
+    // Only moves forward; older or same-day activity leaves the row untouched (update count 0)
+    private static final String ADVANCE_SQL = """
+        UPDATE UserLearningStreak
+        SET current_streak = CASE WHEN DATEDIFF(DAY, last_active_date, ?) <= ? THEN current_streak + 1 ELSE 1 END,
+            longest_streak = CASE WHEN DATEDIFF(DAY, last_active_date, ?) <= ? AND current_streak + 1 > longest_streak
+                                  THEN current_streak + 1
+                                  WHEN longest_streak < 1 THEN 1
+                                  ELSE longest_streak END,
+            last_active_date = ?, updated_at = GETDATE()
+        WHERE user_id = ? AND (last_active_date IS NULL OR last_active_date < ?)
+    """;
+
+    private static final String UPSERT_SQL = """
+        MERGE UserLearningStreak WITH (HOLDLOCK) AS t
+        USING (SELECT ? AS user_id) AS s
+        ON t.user_id = s.user_id
+        WHEN MATCHED THEN
+            UPDATE SET current_streak = ?, longest_streak = ?, last_active_date = ?, updated_at = GETDATE()
+        WHEN NOT MATCHED THEN
+            INSERT (user_id, current_streak, longest_streak, last_active_date, updated_at)
+            VALUES (s.user_id, ?, ?, ?, GETDATE());
+    """;
+
     @Autowired
     private AttendanceRepository attendanceRepository;
 
-    public int getCurrentStreak(Integer userId) {
+    @Autowired
+    private UserLearningStreakRepository streakRepository;
 
-        List<LocalDate> dates = attendanceRepository.findLearningDates(userId);
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
 
-        if (dates.isEmpty()) {
+    /**
+     * Current streak with expiry applied; a user without state is computed from history but not stored
+     * (state is only written by the record and withdraw paths)
+     */
+    public int getCurrentStreak(Integer userId) {
+        UserLearningStreak streak = streakRepository.findById(userId)
+                .orElseGet(() -> compute(userId));
+        LocalDate last = streak.getLastActiveDate();
+        if (last == null || ChronoUnit.DAYS.between(last, LocalDate.now()) >= MAX_GAP_DAYS) {
             return 0;
         }
+        return streak.getCurrentStreak();
+    }
 
-        int streak = 0;
-        LocalDate expectedDate = LocalDate.now();
+    /**
+     * Count a learning day for some users once the current transaction commits
+     */
+    public void recordActivityAfterCommit(List<Integer> userIds, LocalDate date) {
+        if (userIds.isEmpty() || date == null) return;
+        AfterCommit.run("update learning streaks", () -> recordActivity(userIds, date));
+    }
 
-        for (LocalDate date : dates) {
+    /**
+     * Attendance marks withdrawn for a day: users whose current run may include that day are rebuilt from history
+     */
+    public void recordWithdrawalAfterCommit(List<Integer> userIds, LocalDate date) {
+        if (userIds.isEmpty() || date == null) return;
+        AfterCommit.run("update learning streaks", () -> streakRepository.findAllById(userIds).stream()
+                .filter(s -> inCurrentRun(s, date))
+                .forEach(s -> rebuild(s.getUserId())));
+    }
 
-            if (date.equals(expectedDate)) {
-                streak++;
-                expectedDate = expectedDate.minusDays(1);
-            }
-            else if (date.equals(expectedDate.minusDays(1))) {
-                streak++;
-                expectedDate = date.minusDays(1);
+    // The run of current_streak days ending at last_active_date spans at most (current_streak - 1) gaps
+    private static boolean inCurrentRun(UserLearningStreak streak, LocalDate date) {
+        LocalDate last = streak.getLastActiveDate();
+        if (last == null || date.isAfter(last)) return false;
+        int current = streak.getCurrentStreak() != null ? streak.getCurrentStreak() : 0;
+        long span = (long) Math.max(current - 1, 0) * MAX_GAP_DAYS;
+        return !date.isBefore(last.minusDays(span));
+    }
+
+    public void recordActivity(List<Integer> userIds, LocalDate date) {
+        Date day = Date.valueOf(date);
+        int[][] counts = jdbcTemplate.batchUpdate(ADVANCE_SQL, userIds, userIds.size(), (ps, userId) -> {
+            ps.setDate(1, day);
+            ps.setInt(2, MAX_GAP_DAYS);
+            ps.setDate(3, day);
+            ps.setInt(4, MAX_GAP_DAYS);
+            ps.setDate(5, day);
+            ps.setInt(6, userId);
+            ps.setDate(7, day);
+        });
+
+        List<Integer> notAdvanced = new ArrayList<>();
+        int i = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count == 0) notAdvanced.add(userIds.get(i));
+                i++;
             }
-            else {
-                break;
+        }
+        if (notAdvanced.isEmpty()) return;
+
+        // No state yet, or activity older than the last active day: rebuild; same day: already counted
+        Map<Integer, UserLearningStreak> existing = streakRepository.findAllById(notAdvanced).stream()
+                .collect(Collectors.toMap(UserLearningStreak::getUserId, Function.identity()));
+        for (Integer userId : notAdvanced) {
+            UserLearningStreak state = existing.get(userId);
+            if (state == null || state.getLastActiveDate() == null || state.getLastActiveDate().isAfter(date)) {
+                rebuild(userId);
             }
         }
+    }
 
+    /**
+     * Recompute a user's streak state from the full activity history and store it
+     */
+    public UserLearningStreak rebuild(Integer userId) {
+        UserLearningStreak streak = compute(userId);
+        Date lastDate = streak.getLastActiveDate() != null ? Date.valueOf(streak.getLastActiveDate()) : null;
+        jdbcTemplate.update(UPSERT_SQL, userId, streak.getCurrentStreak(), streak.getLongestStreak(), lastDate,
+                streak.getCurrentStreak(), streak.getLongestStreak(), lastDate);
+        log.debug("Learning streak rebuilt for user={} (current={}, longest={})",
+                userId, streak.getCurrentStreak(), streak.getLongestStreak());
         return streak;
     }
+
+    /**
+     * Streak state of a user from the full activity history, without storing it
+     */
+    private UserLearningStreak compute(Integer userId) {
+        List<LocalDate> dates = attendanceRepository.findLearningDates(userId); // newest first
+
+        int longest = 0;
+        int run = 0;
+        LocalDate previous = null;
+        for (int i = dates.size() - 1; i >= 0; i--) {
+            LocalDate date = dates.get(i);
+            run = previous != null && ChronoUnit.DAYS.between(previous, date) <= MAX_GAP_DAYS ? run + 1 : 1;
+            longest = Math.max(longest, run);
+            previous = date;
+        }
+        LocalDate last = dates.isEmpty() ? null : dates.get(0);
+
+        return UserLearningStreak.builder()
+                .userId(userId)
+                .currentStreak(run)
+                .longestStreak(longest)
+                .lastActiveDate(last)
+                .build();
+    }
 }
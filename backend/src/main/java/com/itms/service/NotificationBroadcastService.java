@@ -0,0 +1,459 @@
+package com.itms.service;
+
+import com.itms.common.NotificationAudience;
+import com.itms.entity.Notification;
+import com.itms.entity.NotificationReadCursor;
+import com.itms.repository.NotificationReadCursorRepository;
+import com.itms.repository.NotificationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Broadcast notifications (fan-out on read).
+ * A sent notification addressed to a role or to classes is stored once, under its sender, with its audience;
+ * inboxes merge the user's direct rows with the broadcasts whose audience the user belongs to.
+ * Per-user read state is a NotificationReadCursor: a "read through" position in the user's arrival order
+ * (sent, or audience joined, whichever is later) plus bitmaps of read broadcasts after it and of dismissed
+ * ones, so reading an announcement never touches the shared row.
+ * Visibility and arrival are resolved in SQL (ids and times only); entities are loaded for the inbox alone,
+ * and broadcasts without an expiry drop out after itms.notification.broadcast-retention-days.
+ * With itms.notification.delivery=fan-out, sends are materialized per recipient by NotificationFanOutService.
+ */
+@Service
+@Slf4j
+public class NotificationBroadcastService {
+
+    // Broadcasts visible to a user (params: user, user, user, now, retention start) with when each reached them.
+    // An audience row per active role and class membership (with when it started); a broadcast arrives when
+    // sent or, if later, at the earliest start among the memberships it is addressed to (null = unknown, early).
+    // Broadcasts without an expiry are kept for the retention window only.
+    private static final String ARRIVED_SQL = """
+        WITH membership AS (
+            SELECT 'ALL' AS audience, CAST(NULL AS NVARCHAR(50)) AS class_code, CAST(NULL AS DATETIME) AS since
+            UNION ALL
+            SELECT CASE WHEN LOWER(r.role_code) = 'employee' THEN 'EMPLOYEES'
+                        WHEN LOWER(r.role_code) = 'trainer' THEN 'TRAINERS'
+                        WHEN LOWER(r.role_code) = 'hr' OR r.role_name = 'Human Resources' THEN 'HR' END,
+                   NULL, ur.assigned_at
+            FROM UserRole ur
+            JOIN Role r ON r.id = ur.role_id
+            WHERE ur.user_id = ? AND ur.is_active = 1
+            UNION ALL
+            SELECT 'CLASS_MEMBERS', LOWER(cr.class_code), cm.joined_at
+            FROM ClassMember cm
+            JOIN ClassRoom cr ON cr.id = cm.class_id
+            WHERE cm.user_id = ? AND cm.status = 'ACTIVE'
+        ),
+        visible AS (
+            SELECT n.id, n.sent_date,
+                   CASE WHEN COUNT(*) > COUNT(m.since) THEN NULL ELSE MIN(m.since) END AS member_since
+            FROM Notification n
+            JOIN membership m ON m.audience = n.audience
+                AND (m.class_code IS NULL
+                     OR CHARINDEX(',' + m.class_code + ',', ',' + LOWER(n.class_codes) + ',') > 0)
+            WHERE n.audience IS NOT NULL AND n.is_draft = 0
+            AND (n.sender_id IS NULL OR n.sender_id <> ?)
+            AND (n.expires_at > ? OR (n.expires_at IS NULL AND n.sent_date > ?))
+            GROUP BY n.id, n.sent_date
+        ),
+        arrived AS (
+            SELECT id, sent_date, member_since,
+                   CASE WHEN member_since > sent_date THEN member_since ELSE sent_date END AS arrived_at
+            FROM visible
+        )
+    """;
+
+    // Arrivals after a cursor position (params: at, at, id), in arrival order
+    private static final String ARRIVALS_AFTER_SQL = ARRIVED_SQL + """
+        SELECT id, sent_date, member_since FROM arrived
+        WHERE arrived_at > ? OR (arrived_at = ? AND id > ?)
+        ORDER BY arrived_at, id
+    """;
+
+    // Unread broadcasts (params: at, at, id, comma-separated ids read or dismissed after the cursor)
+    private static final String UNREAD_COUNT_SQL = ARRIVED_SQL + """
+        SELECT COUNT(*) FROM arrived
+        WHERE (arrived_at > ? OR (arrived_at = ? AND id > ?))
+        AND id NOT IN (SELECT CAST(value AS INT) FROM STRING_SPLIT(?, ',') WHERE value <> '')
+    """;
+
+    // Cursor position before every arrival
+    private static final Arrival START = new Arrival(0, LocalDateTime.of(1900, 1, 1, 0, 0));
+
+    private static final String ENSURE_CURSOR_SQL = """
+        INSERT INTO NotificationReadCursor (user_id, read_through, hidden_base)
+        SELECT ?, 0, 0
+        WHERE NOT EXISTS (
+            SELECT 1 FROM NotificationReadCursor WITH (UPDLOCK, HOLDLOCK) WHERE user_id = ?
+        )
+    """;
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationReadCursorRepository cursorRepository;
+    private final NotificationFanOutService notificationFanOutService;
+    private final NotificationPushService notificationPushService;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${itms.notification.delivery:broadcast}")
+    private String delivery;
+
+    // Broadcasts without an expiry leave inboxes this many days after they were sent
+    @Value("${itms.notification.broadcast-retention-days:90}")
+    private int retentionDays;
+
+    public NotificationBroadcastService(NotificationRepository notificationRepository,
+                                        NotificationReadCursorRepository cursorRepository,
+                                        NotificationFanOutService notificationFanOutService,
+                                        NotificationPushService notificationPushService,
+                                        JdbcTemplate jdbcTemplate) {
+        this.notificationRepository = notificationRepository;
+        this.cursorRepository = cursorRepository;
+        this.notificationFanOutService = notificationFanOutService;
+        this.notificationPushService = notificationPushService;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Deliver a sent notification to its audience: marked as a broadcast, or fanned out per recipient.
+     * Returns the fan-out job id (null for broadcasts and when there is no audience).
+     */
+    public String deliver(Notification source, NotificationAudience audience, List<String> classCodes) {
+        if (audience == null) return null;
+        Integer senderId = source.getSender() != null ? source.getSender().getId() : null;
+        if ("fan-out".equalsIgnoreCase(delivery)) {
+            return notificationFanOutService.fanOutAfterCommit(source.getId(), senderId, audience, classCodes,
+                    NotificationPushService.toPayload(source));
+        }
+
+        if (audience == NotificationAudience.CLASS_MEMBERS) {
+            List<String> codes = classCodes == null ? List.of() : classCodes.stream()
+                    .map(String::trim)
+                    .filter(code -> !code.isEmpty())
+                    .distinct()
+                    .toList();
+            if (codes.isEmpty()) return null;
+            source.setClassCodes(String.join(",", codes));
+        }
+        source.setAudience(audience);
+        notificationRepository.save(source);
+        log.info("Notification {} stored as {} broadcast", source.getId(), audience);
+
+        List<String> codes = source.getClassCodes() != null ? Arrays.asList(source.getClassCodes().split(",")) : null;
+        notificationPushService.pushToAudienceAfterCommit(
+                () -> notificationFanOutService.resolveRecipients(audience, codes, senderId),
+                NotificationPushService.toPayload(source));
+        return null;
+    }
+
+    /**
+     * true when the notification reaches the user as a broadcast (its read state lives in the user's cursor)
+     */
+    public boolean isBroadcastFor(Notification n, Integer userId) {
+        return n.getAudience() != null && !Boolean.TRUE.equals(n.getIsDraft())
+                && (n.getSender() == null || !n.getSender().getId().equals(userId));
+    }
+
+    /**
+     * The user's inbox: their direct rows merged with visible broadcasts, newest first.
+     * Dismissed broadcasts are left out; direct rows keep their own is_read.
+     */
+    public List<InboxEntry> inbox(Integer userId, List<Notification> direct) {
+        ReadState state = ReadState.of(cursorRepository.findById(userId).orElse(null));
+        List<InboxEntry> entries = new ArrayList<>();
+        for (Notification n : direct) {
+            entries.add(new InboxEntry(n, Boolean.TRUE.equals(n.getIsRead())));
+        }
+        Map<Integer, Arrival> arrivals = arrivalsAfter(userId, START).stream()
+                .filter(a -> !state.isHidden(a.id()))
+                .collect(Collectors.toMap(Arrival::id, a -> a));
+        if (!arrivals.isEmpty()) {
+            for (Notification n : notificationRepository.findWithSenderByIdIn(arrivals.keySet())) {
+                entries.add(new InboxEntry(n, state.isRead(arrivals.get(n.getId()))));
+            }
+        }
+        entries.sort(Comparator.comparing((InboxEntry e) -> e.notification().getSentDate(),
+                Comparator.nullsLast(Comparator.reverseOrder())));
+        return entries;
+    }
+
+    /**
+     * Unread broadcasts visible to the user (dismissed ones count as read), counted in one query
+     */
+    public int unreadCount(Integer userId) {
+        ReadState state = ReadState.of(cursorRepository.findById(userId).orElse(null));
+        LocalDateTime now = LocalDateTime.now();
+        Arrival after = state.readThrough != null ? state.readThrough : START;
+        Timestamp at = Timestamp.valueOf(after.at());
+        Integer count = jdbcTemplate.queryForObject(UNREAD_COUNT_SQL, Integer.class,
+                userId, userId, userId, Timestamp.valueOf(now), Timestamp.valueOf(now.minusDays(retentionDays)),
+                at, at, after.id(), state.readOrHiddenIds());
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Not found after the cursor: covered by it, or (with no cursor yet) no longer visible
+     */
+    public boolean isRead(Integer userId, Integer notificationId) {
+        ReadState state = ReadState.of(cursorRepository.findById(userId).orElse(null));
+        return unreadArrivals(userId, state).stream()
+                .filter(a -> a.id() == notificationId)
+                .findFirst()
+                .map(state::isRead)
+                .orElseGet(() -> state.readThrough != null || state.isMarked(notificationId) || state.isHidden(notificationId));
+    }
+
+    @Transactional
+    public void markRead(Integer userId, Integer notificationId) {
+        NotificationReadCursor cursor = lockCursor(userId);
+        ReadState state = ReadState.of(cursor);
+        List<Arrival> arrivals = unreadArrivals(userId, state);
+        Arrival arrival = arrivals.stream().filter(a -> a.id() == notificationId).findFirst().orElse(null);
+        if (arrival == null || state.isRead(arrival)) return;
+        state.markRead(notificationId);
+        state.compact(arrivals);
+        save(cursor, state);
+        notificationPushService.unreadChangedAfterCommit(userId, -1);
+    }
+
+    @Transactional
+    public void markAllRead(Integer userId) {
+        NotificationReadCursor cursor = lockCursor(userId);
+        ReadState state = ReadState.of(cursor);
+        List<Arrival> arrivals = unreadArrivals(userId, state);
+        if (arrivals.isEmpty()) return;
+        state.readThrough(arrivals.get(arrivals.size() - 1));
+        state.compact(arrivals);
+        save(cursor, state);
+    }
+
+    /**
+     * Remove a broadcast from the user's inbox only; the shared row stays for everyone else
+     */
+    @Transactional
+    public void hide(Integer userId, Integer notificationId) {
+        NotificationReadCursor cursor = lockCursor(userId);
+        ReadState state = ReadState.of(cursor);
+        List<Arrival> arrivals = unreadArrivals(userId, state);
+        boolean wasUnread = arrivals.stream().anyMatch(a -> a.id() == notificationId && !state.isRead(a));
+        state.hide(notificationId);
+        // Dismissals are kept for every visible broadcast, including those the cursor already covers
+        state.retainHidden(arrivalsAfter(userId, START).stream().map(Arrival::id).collect(Collectors.toSet()));
+        state.compact(arrivals);
+        save(cursor, state);
+        if (wasUnread) notificationPushService.unreadChangedAfterCommit(userId, -1);
+    }
+
+    /**
+     * Visible broadcasts that reached the user after the given position, in arrival order (ids and times only)
+     */
+    private List<Arrival> arrivalsAfter(Integer userId, Arrival after) {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp at = Timestamp.valueOf(after.at());
+        return jdbcTemplate.query(ARRIVALS_AFTER_SQL, (rs, i) -> {
+                    Timestamp since = rs.getTimestamp(3);
+                    return new Arrival(rs.getInt(1), arrivedAt(rs.getTimestamp(2).toLocalDateTime(),
+                            since != null ? since.toLocalDateTime() : null));
+                },
+                userId, userId, userId, Timestamp.valueOf(now), Timestamp.valueOf(now.minusDays(retentionDays)),
+                at, at, after.id());
+    }
+
+    // Broadcasts the read-through position does not cover: the unread ones and those read out of order
+    private List<Arrival> unreadArrivals(Integer userId, ReadState state) {
+        return arrivalsAfter(userId, state.readThrough != null ? state.readThrough : START);
+    }
+
+    /**
+     * When a broadcast reached the user: sent, or later joined its audience (null = unknown, counts as early)
+     */
+    static LocalDateTime arrivedAt(LocalDateTime sentDate, LocalDateTime memberSince) {
+        LocalDateTime sent = sentDate != null ? sentDate : LocalDateTime.MIN;
+        return memberSince != null && memberSince.isAfter(sent) ? memberSince : sent;
+    }
+
+    private NotificationReadCursor lockCursor(Integer userId) {
+        jdbcTemplate.update(ENSURE_CURSOR_SQL, userId, userId);
+        return cursorRepository.findForUpdate(userId)
+                .orElseThrow(() -> new IllegalStateException("Read cursor missing for user " + userId));
+    }
+
+    private void save(NotificationReadCursor cursor, ReadState state) {
+        state.writeTo(cursor);
+        cursor.setUpdatedAt(LocalDateTime.now());
+        cursorRepository.save(cursor);
+    }
+
+    public record InboxEntry(Notification notification, boolean read) {}
+
+    /**
+     * Position of a broadcast in the user's arrival order: arrival time, then id
+     */
+    record Arrival(int id, LocalDateTime at) implements Comparable<Arrival> {
+        private static final Comparator<Arrival> ORDER =
+                Comparator.comparing(Arrival::at).thenComparingInt(Arrival::id);
+
+        @Override
+        public int compareTo(Arrival other) {
+            return ORDER.compare(this, other);
+        }
+    }
+
+    /**
+     * Decoded cursor; dismissed broadcasts count as read.
+     * Broadcasts up to the read-through arrival are read; read broadcasts after it are kept as explicit ids.
+     * Keyed on arrival rather than id, so a draft sent late or an audience joined late (both carrying ids
+     * below the cursor) still shows up unread.
+     */
+    static final class ReadState {
+        Arrival readThrough;
+        IdBits read;
+        IdBits hidden;
+
+        static ReadState of(NotificationReadCursor cursor) {
+            ReadState state = new ReadState();
+            if (cursor != null && cursor.getReadThroughAt() != null) {
+                state.readThrough = new Arrival(cursor.getReadThrough(), cursor.getReadThroughAt());
+            }
+            state.read = cursor != null
+                    ? new IdBits(cursor.getReadBase(), cursor.getReadBits())
+                    : new IdBits(null, null);
+            state.hidden = cursor != null
+                    ? new IdBits(cursor.getHiddenBase(), cursor.getHiddenBits())
+                    : new IdBits(null, null);
+            return state;
+        }
+
+        void writeTo(NotificationReadCursor cursor) {
+            cursor.setReadThrough(readThrough != null ? readThrough.id() : 0);
+            cursor.setReadThroughAt(readThrough != null ? readThrough.at() : null);
+            cursor.setReadBase(read.base);
+            cursor.setReadBits(read.toBytes());
+            cursor.setHiddenBase(hidden.base);
+            cursor.setHiddenBits(hidden.toBytes());
+        }
+
+        boolean isRead(Arrival arrival) {
+            return covers(arrival) || read.contains(arrival.id()) || hidden.contains(arrival.id());
+        }
+
+        boolean covers(Arrival arrival) {
+            return readThrough != null && arrival.compareTo(readThrough) <= 0;
+        }
+
+        boolean isMarked(int id) {
+            return read.contains(id);
+        }
+
+        boolean isHidden(int id) {
+            return hidden.contains(id);
+        }
+
+        // Ids read out of order or dismissed, comma-separated (excluded from the unread count)
+        String readOrHiddenIds() {
+            return IntStream.concat(read.ids(), hidden.ids())
+                    .distinct()
+                    .mapToObj(String::valueOf)
+                    .collect(Collectors.joining(","));
+        }
+
+        void markRead(int id) {
+            read.add(id);
+        }
+
+        void readThrough(Arrival arrival) {
+            if (!covers(arrival)) readThrough = arrival;
+        }
+
+        // Move the cursor over the leading visible broadcasts that are read, then keep explicit ids
+        // only for visible broadcasts still after it
+        void compact(List<Arrival> visibleInArrivalOrder) {
+            for (Arrival arrival : visibleInArrivalOrder) {
+                if (covers(arrival)) continue;
+                if (!isRead(arrival)) break;
+                readThrough = arrival;
+            }
+            read.retain(visibleInArrivalOrder.stream()
+                    .filter(a -> !covers(a))
+                    .map(Arrival::id)
+                    .collect(Collectors.toSet()));
+        }
+
+        void hide(int id) {
+            hidden.add(id);
+        }
+
+        // Forget dismissals of broadcasts no longer visible (expired or deleted)
+        void retainHidden(Set<Integer> visibleIds) {
+            hidden.retain(visibleIds);
+        }
+    }
+
+    /**
+     * Set of notification ids stored as a BitSet offset by its lowest id (bit i = base + i)
+     */
+    static final class IdBits {
+        int base;
+        BitSet bits;
+
+        IdBits(Integer base, byte[] bytes) {
+            this.base = base != null ? base : 0;
+            this.bits = bytes != null ? BitSet.valueOf(bytes) : new BitSet();
+        }
+
+        boolean contains(int id) {
+            return id >= base && bits.get(id - base);
+        }
+
+        IntStream ids() {
+            return bits.stream().map(i -> base + i);
+        }
+
+        void add(int id) {
+            if (bits.isEmpty()) {
+                base = id;
+            } else if (id < base) {
+                rebase(id);
+            }
+            bits.set(id - base);
+        }
+
+        // Drop ids outside the given set and rebase on the lowest one left
+        void retain(Set<Integer> ids) {
+            BitSet kept = new BitSet();
+            bits.stream().filter(i -> ids.contains(base + i)).forEach(kept::set);
+            bits = kept;
+            if (kept.isEmpty()) {
+                base = 0;
+            } else {
+                rebase(base + kept.nextSetBit(0));
+            }
+        }
+
+        byte[] toBytes() {
+            return bits.isEmpty() ? null : bits.toByteArray();
+        }
+
+        private void rebase(int newBase) {
+            BitSet shifted = new BitSet();
+            int offset = base - newBase;
+            bits.stream().forEach(i -> shifted.set(i + offset));
+            bits = shifted;
+            base = newBase;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.itms.service;
+
+import com.itms.common.IssuanceJobStatus;
+import com.itms.common.NotificationAudience;
+import com.itms.dto.NotificationDto;
+import com.itms.dto.NotificationFanOutJobDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Delivery of a sent notification to its audience as a background job.
+ * Recipients are resolved with one DISTINCT query; their rows are then copied from the source notification
+ * with one INSERT ... SELECT per chunk of recipient ids, one transaction per chunk, so a company-wide
+ * announcement costs a handful of statements instead of one INSERT per user. Progress is kept in memory
+ * for the sender's status endpoint; connected recipients get each committed chunk pushed.
+ */
+@Service
+@Slf4j
+public class NotificationFanOutService {
+
+    private static final String ACTIVE_ROLE_MEMBERS = """
+        SELECT DISTINCT u.id AS user_id
+        FROM [User] u
+        JOIN UserRole ur ON ur.user_id = u.id
+        JOIN Role r ON r.id = ur.role_id
+        WHERE u.is_active = 1 AND ur.is_active = 1 AND
+    """;
+
+    // One delivered row per recipient in the id range (GENERAL is stored as ANNOUNCEMENT like the services do),
+    // the recipients' unread counters in the same batch; returns the new (id, user_id) pairs
+    private static final String INSERT_SQL = """
+        SET NOCOUNT ON;
+        DECLARE @inserted TABLE (id INT, user_id INT);
+
+        INSERT INTO Notification (user_id, sender_id, type, title, message, priority, recipient_type,
+                                  is_read, is_draft, sent_date, created_at)
+        OUTPUT inserted.id, inserted.user_id INTO @inserted
+        SELECT r.user_id, src.sender_id,
+               CASE WHEN src.type IS NULL OR src.type = 'GENERAL' THEN 'ANNOUNCEMENT' ELSE src.type END,
+               src.title, src.message, src.priority, src.recipient_type,
+               0, 0, GETDATE(), GETDATE()
+        FROM Notification src
+        CROSS JOIN (%s) r
+        WHERE src.id = ? AND r.user_id BETWEEN ? AND ?;
+
+        %s
+        SELECT id, user_id FROM @inserted;
+    """;
+
+    // Finished jobs are kept this long for polling
+    private static final long FINISHED_JOB_RETENTION_MINUTES = 60;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor executor;
+    private final NotificationPushService notificationPushService;
+
+    @Value("${itms.notification.fan-out.chunk-size:1000}")
+    private int chunkSize;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    public NotificationFanOutService(JdbcTemplate jdbcTemplate,
+                                     PlatformTransactionManager transactionManager,
+                                     @Qualifier("notificationFanOutExecutor") ThreadPoolTaskExecutor executor,
+                                     NotificationPushService notificationPushService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.executor = executor;
+        this.notificationPushService = notificationPushService;
+    }
+
+    /**
+     * Queue delivery of a saved notification; the job starts once the current transaction commits
+     * (so the source row is visible) and is dropped if it rolls back.
+     * The sender is never a recipient; payload (optional) is pushed to connected recipients.
+     * Returns the job id, null when there is no audience.
+     */
+    public String fanOutAfterCommit(Integer notificationId, Integer senderId, NotificationAudience audience,
+                                    List<String> classCodes, NotificationDto payload) {
+        if (notificationId == null || audience == null) return null;
+        List<String> codes = classCodes == null ? List.of() : classCodes.stream()
+                .map(String::trim)
+                .filter(code -> !code.isEmpty())
+                .distinct()
+                .toList();
+        if (audience == NotificationAudience.CLASS_MEMBERS && codes.isEmpty()) return null;
+        pruneFinishedJobs();
+
+        Job job = new Job(UUID.randomUUID().toString(), notificationId, senderId, audience, codes, payload);
+        jobs.put(job.id, job);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        submit(job);
+                    } else {
+                        jobs.remove(job.id);
+                    }
+                }
+            });
+        } else {
+            submit(job);
+        }
+        return job.id;
+    }
+
+    /**
+     * Progress of a job; only its sender may poll it
+     */
+    public NotificationFanOutJobDto getJob(String jobId, Integer userId) {
+        Job job = jobs.get(jobId);
+        if (job == null || (job.senderId != null && !job.senderId.equals(userId))) {
+            throw new IllegalArgumentException("Fan-out job not found: " + jobId);
+        }
+        return job.toDto();
+    }
+
+    /**
+     * Active user ids of an audience, sender excluded
+     */
+    public List<Integer> resolveRecipients(NotificationAudience audience, List<String> classCodes, Integer senderId) {
+        if (audience == NotificationAudience.CLASS_MEMBERS && (classCodes == null || classCodes.isEmpty())) {
+            return List.of();
+        }
+        List<Object> params = new ArrayList<>();
+        String sql = recipientSql(audience, classCodes, senderId, params);
+        return jdbcTemplate.queryForList(sql, Integer.class, params.toArray());
+    }
+
+    private void submit(Job job) {
+        try {
+            executor.execute(() -> run(job));
+        } catch (TaskRejectedException e) {
+            log.error("Fan-out of notification {} rejected: executor saturated", job.notificationId);
+            job.fail("Too many notifications being sent, please resend later");
+        }
+    }
+
+    private void run(Job job) {
+        job.status = IssuanceJobStatus.RUNNING;
+        try {
+            List<Object> params = new ArrayList<>();
+            String recipients = recipientSql(job.audience, job.classCodes, job.senderId, params);
+            List<Integer> userIds = jdbcTemplate.queryForList(
+                    recipients + " ORDER BY user_id", Integer.class, params.toArray());
+            job.recipients = userIds.size();
+
+            // Chunks are id ranges of the sorted recipients; each range is re-resolved inside the INSERT
+            String insertSql = INSERT_SQL.formatted(recipients, NotificationUnreadCounterService.COUNT_INSERTED_SQL);
+            for (int from = 0; from < userIds.size(); from += chunkSize) {
+                int to = Math.min(from + chunkSize, userIds.size()) - 1;
+                List<Object> args = new ArrayList<>(params);
+                Collections.addAll(args, job.notificationId, userIds.get(from), userIds.get(to));
+                List<int[]> inserted = transactionTemplate.execute(status -> jdbcTemplate.query(insertSql,
+                        (rs, i) -> new int[]{rs.getInt(1), rs.getInt(2)}, args.toArray()));
+                job.delivered += inserted.size();
+                push(job, inserted);
+            }
+            job.finish();
+            log.info("Notification {} fanned out to {} {} recipients", job.notificationId, job.delivered, job.audience);
+        } catch (Exception e) {
+            log.error("Fan-out of notification {} failed after {} rows: {}", job.notificationId, job.delivered, e.getMessage());
+            job.fail(e.getMessage());
+        }
+    }
+
+    // Each recipient's copy has its own id, which the client needs to mark it read
+    private void push(Job job, List<int[]> inserted) {
+        if (job.payload == null) return;
+        for (int[] row : inserted) {
+            if (notificationPushService.isConnected(row[1])) {
+                notificationPushService.pushNotification(row[1], job.payload.toBuilder().id(row[0]).build());
+            }
+        }
+    }
+
+    // Distinct user_id of the audience, sender excluded; bind values are appended to params
+    private static String recipientSql(NotificationAudience audience, List<String> classCodes,
+                                       Integer senderId, List<Object> params) {
+        String sql = switch (audience) {
+            case ALL -> "SELECT u.id AS user_id FROM [User] u WHERE u.is_active = 1";
+            case EMPLOYEES -> ACTIVE_ROLE_MEMBERS + " LOWER(r.role_code) = 'employee'";
+            case TRAINERS -> ACTIVE_ROLE_MEMBERS + " LOWER(r.role_code) = 'trainer'";
+            case HR -> ACTIVE_ROLE_MEMBERS + " (r.role_name = N'Human Resources' OR r.role_code = 'HR')";
+            case CLASS_MEMBERS -> {
+                params.addAll(classCodes);
+                yield """
+                    SELECT DISTINCT cm.user_id
+                    FROM ClassMember cm
+                    JOIN ClassRoom cr ON cr.id = cm.class_id
+                    WHERE cm.status = 'ACTIVE' AND cr.class_code IN (%s)
+                """.formatted(String.join(",", Collections.nCopies(classCodes.size(), "?")));
+            }
+        };
+        if (senderId == null) return sql;
+        params.add(senderId);
+        return "SELECT a.user_id FROM (" + sql + ") a WHERE a.user_id <> ?";
+    }
+
+    private void pruneFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(FINISHED_JOB_RETENTION_MINUTES);
+        jobs.values().removeIf(j -> j.finishedAt != null && j.finishedAt.isBefore(cutoff));
+    }
+
+    /**
+     * Progress of one job; written by its worker thread only, read by status requests
+     */
+    private static final class Job {
+        final String id;
+        final Integer notificationId;
+        final Integer senderId;
+        final NotificationAudience audience;
+        final List<String> classCodes;
+        final NotificationDto payload;
+        final LocalDateTime createdAt = LocalDateTime.now();
+        volatile IssuanceJobStatus status = IssuanceJobStatus.QUEUED;
+        volatile int recipients;
+        volatile int delivered;
+        volatile String errorMessage;
+        volatile LocalDateTime finishedAt;
+
+        Job(String id, Integer notificationId, Integer senderId, NotificationAudience audience,
+            List<String> classCodes, NotificationDto payload) {
+            this.id = id;
+            this.notificationId = notificationId;
+            this.senderId = senderId;
+            this.audience = audience;
+            this.classCodes = classCodes;
+            this.payload = payload;
+        }
+
+        void finish() {
+            finishedAt = LocalDateTime.now();
+            status = IssuanceJobStatus.COMPLETED;
+        }
+
+        void fail(String message) {
+            errorMessage = message;
+            finishedAt = LocalDateTime.now();
+            status = IssuanceJobStatus.FAILED;
+        }
+
+        NotificationFanOutJobDto toDto() {
+            return NotificationFanOutJobDto.builder()
+                    .jobId(id)
+                    .notificationId(notificationId)
+                    .audience(audience.name())
+                    .status(status.name())
+                    .recipients(recipients)
+                    .delivered(delivered)
+                    .errorMessage(errorMessage)
+                    .createdAt(createdAt)
+                    .finishedAt(finishedAt)
+                    .build();
+        }
+    }
+}
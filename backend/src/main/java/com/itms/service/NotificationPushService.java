@@ -0,0 +1,277 @@
+package com.itms.service;
+
+import com.itms.dto.NotificationDto;
+import com.itms.dto.NotificationUnreadDto;
+import com.itms.entity.Notification;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Server-Sent Events channel pushing new notifications and unread-count changes to connected users.
+ * Subscribers live in an in-process registry (userId -> open streams). Events are queued per stream and
+ * written by the push executor, never by the thread that produced them; a stream whose client does not keep
+ * up has its backlog collapsed into a single "resync" event, telling the client to refetch its inbox.
+ * Idle streams get a heartbeat comment so proxies keep them open and dead clients are detected.
+ *
+ * Events: "notification" (NotificationDto), "unread" (NotificationUnreadDto, absolute count or delta), "resync".
+ */
+@Service
+@Slf4j
+public class NotificationPushService {
+
+    private final ThreadPoolTaskExecutor executor;
+
+    @Value("${itms.notification.push.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${itms.notification.push.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${itms.notification.push.max-streams-per-user:5}")
+    private int maxStreamsPerUser;
+
+    private final Map<Integer, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    public NotificationPushService(@Qualifier("notificationPushExecutor") ThreadPoolTaskExecutor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Open a stream for the user; the oldest one is closed beyond the per-user limit
+     */
+    public SseEmitter subscribe(Integer userId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(userId, emitter);
+        List<Subscriber> streams = subscribers.compute(userId, (id, existing) -> {
+            List<Subscriber> list = existing != null ? existing : new CopyOnWriteArrayList<>();
+            list.add(subscriber);
+            return list;
+        });
+        while (streams.size() > maxStreamsPerUser) {
+            streams.get(0).close();
+        }
+
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+        return emitter;
+    }
+
+    public boolean isConnected(Integer userId) {
+        List<Subscriber> streams = subscribers.get(userId);
+        return streams != null && !streams.isEmpty();
+    }
+
+    /**
+     * A new notification reached the user's inbox: the item plus a +1 on the unread badge
+     */
+    public void pushNotification(Integer userId, NotificationDto notification) {
+        offer(userId, new Event("notification", notification));
+        offer(userId, new Event("unread", NotificationUnreadDto.builder().delta(1).build()));
+    }
+
+    public void pushUnreadCount(Integer userId, int count) {
+        offer(userId, new Event("unread", NotificationUnreadDto.builder().count(count).build()));
+    }
+
+    /**
+     * Absolute unread badge value once the current transaction commits (e.g. 0 after mark-all-read)
+     */
+    public void pushUnreadCountAfterCommit(Integer userId, int count) {
+        if (userId == null || !isConnected(userId)) return;
+        AfterCommit.run("push notification event", () -> pushUnreadCount(userId, count));
+    }
+
+    /**
+     * Unread badge change once the current transaction commits (e.g. -1 when an item is read)
+     */
+    public void unreadChangedAfterCommit(Integer userId, int delta) {
+        if (userId == null || delta == 0 || !isConnected(userId)) return;
+        AfterCommit.run("push notification event", () -> offer(userId, new Event("unread", NotificationUnreadDto.builder().delta(delta).build())));
+    }
+
+    /**
+     * Push a broadcast to its connected recipients once the current transaction commits.
+     * Recipients are resolved on the push executor, and only when someone is connected at all.
+     */
+    public void pushToAudienceAfterCommit(Supplier<Collection<Integer>> recipients, NotificationDto notification) {
+        AfterCommit.run("push notification event", () -> {
+            if (subscribers.isEmpty()) return;
+            try {
+                executor.execute(() -> {
+                    int pushed = 0;
+                    for (Integer userId : recipients.get()) {
+                        if (isConnected(userId)) {
+                            pushNotification(userId, notification);
+                            pushed++;
+                        }
+                    }
+                    log.debug("Notification {} pushed to {} connected recipients", notification.getId(), pushed);
+                });
+            } catch (TaskRejectedException e) {
+                log.warn("Push of notification {} skipped: executor saturated", notification.getId());
+            }
+        });
+    }
+
+    /**
+     * true when the row counts towards its recipient's unread badge (sent, unread, not the sender's own copy)
+     */
+    public static boolean countsAsUnread(Notification n) {
+        return n.getUser() != null && !Boolean.TRUE.equals(n.getIsRead()) && !Boolean.TRUE.equals(n.getIsDraft())
+                && (n.getSender() == null || !n.getSender().getId().equals(n.getUser().getId()));
+    }
+
+    /**
+     * Inbox item as pushed to a recipient (unread, category inbox)
+     */
+    public static NotificationDto toPayload(Notification n) {
+        return NotificationDto.builder()
+                .id(n.getId())
+                .title(n.getTitle())
+                .message(n.getMessage())
+                .date(n.getSentDate())
+                .sentDate(n.getSentDate())
+                .createdAt(n.getCreatedAt())
+                .read(false)
+                .isRead(false)
+                .isDraft(false)
+                .type(n.getType() != null ? n.getType() : "GENERAL")
+                .priority(n.getPriority() != null ? n.getPriority().name() : "NORMAL")
+                .referenceType(n.getReferenceType())
+                .referenceId(n.getReferenceId())
+                .detail_content(n.getDetailContent())
+                .category("inbox")
+                .sender(n.getSender() != null ? n.getSender().getFullName() : null)
+                .recipientType(n.getRecipientType())
+                .classCodes(n.getClassCodes())
+                .build();
+    }
+
+    @Scheduled(fixedDelayString = "${itms.notification.push.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        subscribers.values().forEach(streams -> streams.forEach(s -> s.offer(Event.HEARTBEAT)));
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        subscribers.values().forEach(streams -> streams.forEach(Subscriber::close));
+    }
+
+    private void offer(Integer userId, Event event) {
+        List<Subscriber> streams = subscribers.get(userId);
+        if (streams != null) {
+            streams.forEach(s -> s.offer(event));
+        }
+    }
+
+    // name null = heartbeat comment
+    private record Event(String name, Object data) {
+        static final Event HEARTBEAT = new Event(null, null);
+        static final Event RESYNC = new Event("resync", Map.of());
+    }
+
+    /**
+     * One open stream: a bounded event queue drained by at most one push task at a time
+     */
+    private final class Subscriber {
+        final Integer userId;
+        final SseEmitter emitter;
+        private final Deque<Event> queue = new ArrayDeque<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        Subscriber(Integer userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        void offer(Event event) {
+            if (closed) return;
+            synchronized (queue) {
+                if (queue.size() >= queueCapacity) {
+                    // The client is not keeping up: drop its backlog and let it refetch
+                    queue.clear();
+                    queue.add(Event.RESYNC);
+                } else {
+                    queue.add(event);
+                }
+            }
+            schedule();
+        }
+
+        // A rejected drain stays queued and is retried by the next event or heartbeat
+        private void schedule() {
+            if (closed || !draining.compareAndSet(false, true)) return;
+            try {
+                executor.execute(this::drain);
+            } catch (TaskRejectedException e) {
+                draining.set(false);
+            }
+        }
+
+        private void drain() {
+            try {
+                Event next;
+                while (!closed && (next = poll()) != null) {
+                    if (next.name() == null) {
+                        emitter.send(SseEmitter.event().comment("ping"));
+                    } else {
+                        emitter.send(SseEmitter.event().name(next.name()).data(next.data(), MediaType.APPLICATION_JSON));
+                    }
+                }
+            } catch (Exception e) {
+                log.debug("Notification stream of user {} dropped: {}", userId, e.getMessage());
+                close();
+            } finally {
+                draining.set(false);
+            }
+            // An event offered between the last poll and the reset would otherwise wait for the next one
+            if (!closed && hasQueued()) schedule();
+        }
+
+        private Event poll() {
+            synchronized (queue) {
+                return queue.poll();
+            }
+        }
+
+        private boolean hasQueued() {
+            synchronized (queue) {
+                return !queue.isEmpty();
+            }
+        }
+
+        void close() {
+            if (closed) return;
+            closed = true;
+            subscribers.computeIfPresent(userId, (id, streams) -> {
+                streams.remove(this);
+                return streams.isEmpty() ? null : streams;
+            });
+            try {
+                emitter.complete();
+            } catch (Exception ignored) {
+                // already completed by the container
+            }
+        }
+    }
+}
@@ -11,8 +11,9 @@ import com.itms.repository.NotificationRepository;
 import com.itms.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -23,10 +24,26 @@ public class NotificationService {
     private final NotificationRepository notificationRepository;
     private final UserRepository userRepository;
     private final ClassMemberRepository classMemberRepository;
+    private final NotificationBroadcastService notificationBroadcastService;
+    private final NotificationPushService notificationPushService;
+    private final NotificationUnreadCounterService notificationUnreadCounterService;
 
+    // Direct notifications merged with the broadcasts addressed to the user
     public List<NotificationDto> getUserNotifications(Integer userId) {
-        return notificationRepository.findNotificationsForUser(userId)
-                .stream().map(this::convertToDto).collect(Collectors.toList());
+        return notificationBroadcastService.inbox(userId, notificationRepository.findNotificationsForUser(userId))
+                .stream().map(e -> convertToDto(e.notification(), e.read(), true)).collect(Collectors.toList());
+    }
+
+    // Live stream of the user's inbox, opened with the current unread count
+    public SseEmitter subscribe(Integer userId) {
+        SseEmitter emitter = notificationPushService.subscribe(userId);
+        notificationPushService.pushUnreadCount(userId, getUnreadCount(userId));
+        return emitter;
+    }
+
+    // Badge count from the maintained counter, without loading the inbox
+    public int getUnreadCount(Integer userId) {
+        return notificationUnreadCounterService.unreadCount(userId);
     }
 
     public List<NotificationDto> getNotificationsForUser(Integer userId) {
@@ -43,40 +60,58 @@ public class NotificationService {
         return notifications.stream().map(this::convertToDto).collect(Collectors.toList());
     }
 
-    public void markAsRead(Integer notificationId) {
+    @Transactional
+    public void markAsRead(Integer notificationId, Integer userId) {
         Notification n = notificationRepository.findById(notificationId)
                 .orElseThrow(() -> new RuntimeException("Notification not found"));
-        n.setIsRead(true);
-        n.setReadAt(LocalDateTime.now());
-        notificationRepository.save(n);
+        if (notificationBroadcastService.isBroadcastFor(n, userId)) {
+            notificationBroadcastService.markRead(userId, notificationId);
+            return;
+        }
+        notificationUnreadCounterService.markRead(n);
     }
 
-    public void deleteNotification(Integer notificationId) {
-        notificationRepository.findById(notificationId)
+    @Transactional
+    public void deleteNotification(Integer notificationId, Integer userId) {
+        Notification n = notificationRepository.findById(notificationId)
                 .orElseThrow(() -> new RuntimeException("Notification not found"));
-        notificationRepository.deleteById(notificationId);
+        // A recipient "deleting" a broadcast only dismisses it from their own inbox
+        if (notificationBroadcastService.isBroadcastFor(n, userId)) {
+            notificationBroadcastService.hide(userId, notificationId);
+            return;
+        }
+        notificationRepository.delete(n);
+        notificationUnreadCounterService.deleted(n);
     }
 
+    @Transactional
     public void markAllAsRead(Integer userId) {
-        notificationRepository.findByUserIdOrderBySentDateDesc(userId).forEach(n -> {
-            if (!Boolean.TRUE.equals(n.getIsRead())) {
-                n.setIsRead(true);
-                n.setReadAt(LocalDateTime.now());
-                notificationRepository.save(n);
-            }
-        });
+        notificationUnreadCounterService.markAllRead(userId);
+        notificationBroadcastService.markAllRead(userId);
+        notificationPushService.pushUnreadCountAfterCommit(userId, 0);
     }
 
-    public NotificationDto getNotificationById(Integer notificationId) {
-        return convertToDto(notificationRepository.findById(notificationId)
-                .orElseThrow(() -> new RuntimeException("Notification not found")));
+    public NotificationDto getNotificationById(Integer notificationId, Integer userId) {
+        Notification n = notificationRepository.findById(notificationId)
+                .orElseThrow(() -> new RuntimeException("Notification not found"));
+        if (notificationBroadcastService.isBroadcastFor(n, userId)) {
+            return convertToDto(n, notificationBroadcastService.isRead(userId, notificationId), true);
+        }
+        return convertToDto(n);
     }
 
     private NotificationDto convertToDto(Notification n) {
+        return convertToDto(n, n.getIsRead(), false);
+    }
+
+    // read comes from the user's broadcast cursor for broadcasts; inbox forces the category of merged entries
+    private NotificationDto convertToDto(Notification n, Boolean read, boolean inbox) {
         String senderName = n.getSender() != null ? n.getSender().getFullName() : null;
 
         String category;
-        if (Boolean.TRUE.equals(n.getIsDraft())) {
+        if (inbox) {
+            category = "inbox";
+        } else if (Boolean.TRUE.equals(n.getIsDraft())) {
             category = "draft";
         } else if (n.getUser() != null && n.getSender() != null && n.getSender().getId().equals(n.getUser().getId())) {
             category = "sent";
@@ -91,8 +126,8 @@ public class NotificationService {
                 .date(n.getSentDate())
                 .sentDate(n.getSentDate())
                 .createdAt(n.getCreatedAt())
-                .read(n.getIsRead())
-                .isRead(n.getIsRead())
+                .read(read)
+                .isRead(read)
                 .isDraft(n.getIsDraft())
                 .type(n.getType() != null ? n.getType() : "GENERAL")
                 .priority(n.getPriority() != null ? n.getPriority().name() : "NORMAL")
@@ -0,0 +1,162 @@
+package com.itms.service;
+
+import com.itms.entity.Notification;
+import com.itms.repository.NotificationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Maintained unread counters (NotificationUnreadCounter table), so badges never scan an inbox.
+ * The counter holds the user's unread direct rows: fan-out inserts add to it set-based in the same statement
+ * batch, reads and deletes take from it in the transaction that changes the row, mark-all recounts it.
+ * Broadcasts are counted from the user's read cursor against the live broadcasts, which are few.
+ * A periodic reconciliation corrects drift from writes that bypass the hooks (seeding, admin cleanup, races).
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class NotificationUnreadCounterService {
+
+    // Rows that count as unread for their recipient (same rule as NotificationPushService.countsAsUnread)
+    private static final String UNREAD_ROW = """
+        n.is_read = 0 AND n.is_draft = 0 AND (n.sender_id IS NULL OR n.sender_id <> n.user_id)
+    """;
+
+    /**
+     * Counter upkeep for rows captured in the @inserted (id, user_id) table variable of a fan-out batch:
+     * existing counters are bumped, missing ones created with the exact count (which includes the new rows)
+     */
+    static final String COUNT_INSERTED_SQL = """
+        UPDATE c SET unread_count = c.unread_count + i.cnt, updated_at = GETDATE()
+        FROM NotificationUnreadCounter c
+        JOIN (SELECT user_id, COUNT(*) AS cnt FROM @inserted GROUP BY user_id) i ON i.user_id = c.user_id;
+
+        INSERT INTO NotificationUnreadCounter (user_id, unread_count, updated_at)
+        SELECT i.user_id, COUNT(n.id), GETDATE()
+        FROM (SELECT DISTINCT user_id FROM @inserted) i
+        JOIN Notification n ON n.user_id = i.user_id AND %s
+        WHERE NOT EXISTS (
+            SELECT 1 FROM NotificationUnreadCounter c WITH (UPDLOCK, HOLDLOCK) WHERE c.user_id = i.user_id
+        )
+        GROUP BY i.user_id;
+    """.formatted(UNREAD_ROW);
+
+    private static final String DECREMENT_SQL = """
+        UPDATE NotificationUnreadCounter
+        SET unread_count = unread_count - 1, updated_at = GETDATE()
+        WHERE user_id = ? AND unread_count > 0
+    """;
+
+    // Exact count of one user, created when missing
+    private static final String RECOUNT_SQL = """
+        MERGE NotificationUnreadCounter WITH (HOLDLOCK) AS t
+        USING (
+            SELECT ? AS user_id, (SELECT COUNT(*) FROM Notification n WHERE n.user_id = ? AND %s) AS unread
+        ) AS s
+        ON t.user_id = s.user_id
+        WHEN MATCHED THEN
+            UPDATE SET unread_count = s.unread, updated_at = GETDATE()
+        WHEN NOT MATCHED THEN
+            INSERT (user_id, unread_count, updated_at) VALUES (s.user_id, s.unread, GETDATE());
+    """.formatted(UNREAD_ROW);
+
+    private static final String SELECT_SQL = "SELECT unread_count FROM NotificationUnreadCounter WHERE user_id = ?";
+
+    // Every user's exact count; counters touched in the last minute are left alone (their writer may not have committed)
+    private static final String RECONCILE_SQL = """
+        MERGE NotificationUnreadCounter WITH (HOLDLOCK) AS t
+        USING (
+            SELECT u.id AS user_id, COUNT(n.id) AS unread
+            FROM [User] u
+            LEFT JOIN Notification n ON n.user_id = u.id AND %s
+            GROUP BY u.id
+        ) AS s
+        ON t.user_id = s.user_id
+        WHEN MATCHED AND t.unread_count <> s.unread
+                     AND (t.updated_at IS NULL OR t.updated_at < DATEADD(MINUTE, -1, GETDATE())) THEN
+            UPDATE SET unread_count = s.unread, updated_at = GETDATE()
+        WHEN NOT MATCHED THEN
+            INSERT (user_id, unread_count, updated_at) VALUES (s.user_id, s.unread, GETDATE());
+    """.formatted(UNREAD_ROW);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NotificationRepository notificationRepository;
+    private final NotificationBroadcastService notificationBroadcastService;
+    private final NotificationPushService notificationPushService;
+
+    /**
+     * Badge count: unread direct rows (maintained counter) plus unread visible broadcasts (one COUNT after the read cursor)
+     */
+    public int unreadCount(Integer userId) {
+        List<Integer> counter = jdbcTemplate.queryForList(SELECT_SQL, Integer.class, userId);
+        int direct;
+        if (counter.isEmpty()) {
+            jdbcTemplate.update(RECOUNT_SQL, userId, userId);
+            direct = jdbcTemplate.queryForObject(SELECT_SQL, Integer.class, userId);
+        } else {
+            direct = counter.get(0);
+        }
+        return direct + notificationBroadcastService.unreadCount(userId);
+    }
+
+    /**
+     * Flag a direct row read; concurrent reads of the same row decrement the counter once
+     */
+    @Transactional
+    public void markRead(Notification n) {
+        boolean counted = NotificationPushService.countsAsUnread(n);
+        LocalDateTime now = LocalDateTime.now();
+        if (notificationRepository.markReadIfUnread(n.getId(), now) == 1 && counted) {
+            decrement(n.getUser().getId());
+        }
+        n.setIsRead(true);
+        n.setReadAt(now);
+    }
+
+    /**
+     * A direct row was deleted in the current transaction
+     */
+    public void deleted(Notification n) {
+        if (NotificationPushService.countsAsUnread(n)) {
+            decrement(n.getUser().getId());
+        }
+    }
+
+    /**
+     * Flag every direct row of the user read and reset the counter
+     */
+    @Transactional
+    public void markAllRead(Integer userId) {
+        notificationRepository.markAllReadForUser(userId, LocalDateTime.now());
+        jdbcTemplate.update(RECOUNT_SQL, userId, userId);
+    }
+
+    /**
+     * Rebuild every counter (initial fill and drift from writes that bypass the hooks)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${itms.notification.unread.reconcile-interval-ms:3600000}",
+            fixedDelayString = "${itms.notification.unread.reconcile-interval-ms:3600000}")
+    public void reconcile() {
+        try {
+            int changed = jdbcTemplate.update(RECONCILE_SQL);
+            log.info("Unread notification counters reconciled ({} rows changed)", changed);
+        } catch (Exception e) {
+            log.error("Failed to reconcile unread notification counters: {}", e.getMessage());
+        }
+    }
+
+    private void decrement(Integer userId) {
+        jdbcTemplate.update(DECREMENT_SQL, userId);
+        notificationPushService.unreadChangedAfterCommit(userId, -1);
+    }
+}
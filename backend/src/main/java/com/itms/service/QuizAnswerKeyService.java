@@ -0,0 +1,169 @@
+package com.itms.service;
+
+import com.itms.entity.Quiz;
+import com.itms.entity.QuizQuestion;
+import com.itms.repository.QuizQuestionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled answer keys for quiz grading.
+ * Each quiz is compiled once into primitive arrays (question IDs, correct option index, marks in hundredths,
+ * present-option bitmask)
+ * and kept in a bounded LRU cache, so submissions are graded in memory without reloading questions.
+ * Keys are versioned by the quiz's last modification time and invalidated on edit, toggle, import and delete.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class QuizAnswerKeyService {
+
+    private static final int MAX_CACHED_KEYS = 256;
+
+    private final QuizQuestionRepository quizQuestionRepository;
+
+    // quizId -> compiled key (access-ordered, evicts least recently used)
+    private final Map<Integer, AnswerKey> keyCache = Collections.synchronizedMap(
+            new LinkedHashMap<>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, AnswerKey> eldest) {
+                    return size() > MAX_CACHED_KEYS;
+                }
+            });
+
+    /**
+     * Get the compiled answer key for a quiz, compiling it if missing or stale
+     */
+    public AnswerKey getAnswerKey(Quiz quiz) {
+        LocalDateTime version = versionOf(quiz);
+        AnswerKey key = keyCache.get(quiz.getId());
+        if (key != null && key.version.equals(version)) {
+            return key;
+        }
+
+        key = compile(quizQuestionRepository.findByQuizIdOrderByDisplayOrderAsc(quiz.getId()), version);
+        keyCache.put(quiz.getId(), key);
+        log.debug("Compiled answer key for quiz {} ({} questions)", quiz.getId(), key.size());
+        return key;
+    }
+
+    /**
+     * Drop the cached key of a quiz (call after the quiz or its questions change)
+     */
+    public void invalidate(Integer quizId) {
+        if (quizId != null) {
+            keyCache.remove(quizId);
+        }
+    }
+
+    private AnswerKey compile(List<QuizQuestion> questions, LocalDateTime version) {
+        QuizQuestion[] sorted = questions.toArray(new QuizQuestion[0]);
+        Arrays.sort(sorted, (a, b) -> Integer.compare(a.getId(), b.getId()));
+
+        int n = sorted.length;
+        int[] questionIds = new int[n];
+        int[] correctIndexes = new int[n];
+        int[] marksHundredths = new int[n];
+        int[] optionMasks = new int[n];
+        for (int i = 0; i < n; i++) {
+            QuizQuestion q = sorted[i];
+            questionIds[i] = q.getId();
+            correctIndexes[i] = convertAnswerToIndex(q.getCorrectAnswer());
+            BigDecimal marks = q.getMarks() != null ? q.getMarks() : BigDecimal.ONE;
+            marksHundredths[i] = marks.movePointRight(2).setScale(0, RoundingMode.HALF_UP).intValueExact();
+            optionMasks[i] = QuizShuffle.optionMask(q.getOptionA(), q.getOptionB(), q.getOptionC(), q.getOptionD());
+        }
+        return new AnswerKey(version, questionIds, correctIndexes, marksHundredths, optionMasks);
+    }
+
+    private LocalDateTime versionOf(Quiz quiz) {
+        if (quiz.getUpdatedAt() != null) return quiz.getUpdatedAt();
+        if (quiz.getCreatedAt() != null) return quiz.getCreatedAt();
+        return LocalDateTime.MIN;
+    }
+
+    static int convertAnswerToIndex(String answer) {
+        if (answer == null) return 0;
+        String upper = answer.toUpperCase().trim();
+        if (upper.equals("A") || upper.equals("0")) return 0;
+        if (upper.equals("B") || upper.equals("1")) return 1;
+        if (upper.equals("C") || upper.equals("2")) return 2;
+        if (upper.equals("D") || upper.equals("3")) return 3;
+        try {
+            return Integer.parseInt(upper);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Immutable compiled answer key, indexed by question ID (sorted, binary searched)
+     */
+    public static class AnswerKey {
+        private final LocalDateTime version;
+        private final int[] questionIds;
+        private final int[] correctIndexes;
+        private final int[] marksHundredths;
+        private final int[] optionMasks;
+
+        private AnswerKey(LocalDateTime version, int[] questionIds, int[] correctIndexes, int[] marksHundredths,
+                          int[] optionMasks) {
+            this.version = version;
+            this.questionIds = questionIds;
+            this.correctIndexes = correctIndexes;
+            this.marksHundredths = marksHundredths;
+            this.optionMasks = optionMasks;
+        }
+
+        public int size() {
+            return questionIds.length;
+        }
+
+        /**
+         * Position of a question in this key, or -1 if it does not belong to the quiz
+         */
+        public int indexOf(Integer questionId) {
+            if (questionId == null) return -1;
+            int idx = Arrays.binarySearch(questionIds, questionId);
+            return idx >= 0 ? idx : -1;
+        }
+
+        public int questionIdAt(int idx) {
+            return questionIds[idx];
+        }
+
+        public int correctIndexAt(int idx) {
+            return correctIndexes[idx];
+        }
+
+        public int marksHundredthsAt(int idx) {
+            return marksHundredths[idx];
+        }
+
+        public int optionMaskAt(int idx) {
+            return optionMasks[idx];
+        }
+
+        /**
+         * Original option index for an answer given in the view of an attempt (shuffled when seed is not null)
+         */
+        public int toOriginalOption(int idx, Long shuffleSeed, int selectedIndex) {
+            if (shuffleSeed == null) return selectedIndex;
+            return QuizShuffle.toOriginalOption(shuffleSeed, questionIds[idx], optionMasks[idx], selectedIndex);
+        }
+
+        public static BigDecimal toMarks(long hundredths) {
+            return BigDecimal.valueOf(hundredths, 2);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.itms.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind log for per-question quiz answers (QuizAnswer table).
+ * Autosaves during an attempt are appended to an in-memory log and flushed periodically:
+ * entries for the same attempt/question are coalesced (last write wins) and written with one batched MERGE.
+ * The log is bounded: autosaves are refused once it is full, and a failed flush puts its entries back (up to the bound).
+ * Graded answers at submit time are written immediately as a single JDBC batch in the caller's transaction.
+ * For randomized quizzes, autosaved rows hold the index as shown in the attempt's shuffled view (what resume needs);
+ * grading rewrites them with the original option index.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class QuizAnswerLogService {
+
+    // Autosave: only for questions of the attempt's quiz while the attempt is still in progress,
+    // and never over an answer that has already been graded
+    private static final String AUTOSAVE_MERGE_SQL = """
+        MERGE QuizAnswer WITH (HOLDLOCK) AS t
+        USING (
+            SELECT qa.id AS attempt_id, qq.id AS question_id
+            FROM QuizAttempt qa
+            JOIN QuizQuestion qq ON qq.quiz_id = qa.quiz_id
+            WHERE qa.id = ? AND qq.id = ? AND qa.status = 'IN_PROGRESS'
+        ) AS s
+        ON t.attempt_id = s.attempt_id AND t.question_id = s.question_id
+        WHEN MATCHED AND t.is_correct IS NULL THEN
+            UPDATE SET user_answer = ?, answered_at = ?
+        WHEN NOT MATCHED THEN
+            INSERT (attempt_id, question_id, user_answer, answered_at)
+            VALUES (s.attempt_id, s.question_id, ?, ?);
+    """;
+
+    private static final String GRADED_MERGE_SQL = """
+        MERGE QuizAnswer WITH (HOLDLOCK) AS t
+        USING (SELECT ? AS attempt_id, ? AS question_id) AS s
+        ON t.attempt_id = s.attempt_id AND t.question_id = s.question_id
+        WHEN MATCHED THEN
+            UPDATE SET user_answer = ?, is_correct = ?, marks_obtained = ?, answered_at = ?
+        WHEN NOT MATCHED THEN
+            INSERT (attempt_id, question_id, user_answer, is_correct, marks_obtained, answered_at)
+            VALUES (s.attempt_id, s.question_id, ?, ?, ?, ?);
+    """;
+
+    private static final String DELETE_FOR_QUIZ_SQL = """
+        DELETE qa FROM QuizAnswer qa
+        JOIN QuizQuestion qq ON qq.id = qa.question_id
+        WHERE qq.quiz_id = ?
+    """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${itms.quiz.answer-log.batch-size:500}")
+    private int batchSize;
+
+    @Value("${itms.quiz.answer-log.max-pending:50000}")
+    private int maxPending;
+
+    private final ConcurrentLinkedQueue<AnswerEntry> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    /**
+     * Append an autosaved answer; it reaches the database on the next flush
+     */
+    public void recordAutosave(Integer attemptId, Integer questionId, Integer selectedAnswerIndex) {
+        if (pendingCount.get() >= maxPending) {
+            throw new IllegalStateException("Hệ thống đang bận, chưa lưu được câu trả lời. Vui lòng thử lại");
+        }
+        pending.add(new AnswerEntry(attemptId, questionId, toUserAnswer(selectedAnswerIndex),
+                null, null, LocalDateTime.now()));
+        pendingCount.incrementAndGet();
+    }
+
+    /**
+     * Write graded answers now, as one JDBC batch (joins the caller's transaction)
+     */
+    public void writeGraded(List<AnswerEntry> graded) {
+        if (graded.isEmpty()) return;
+        jdbcTemplate.batchUpdate(GRADED_MERGE_SQL, graded, batchSize, (ps, e) -> {
+            Timestamp answeredAt = Timestamp.valueOf(e.answeredAt());
+            ps.setInt(1, e.attemptId());
+            ps.setInt(2, e.questionId());
+            ps.setString(3, e.userAnswer());
+            ps.setBoolean(4, Boolean.TRUE.equals(e.isCorrect()));
+            ps.setBigDecimal(5, e.marksObtained());
+            ps.setTimestamp(6, answeredAt);
+            ps.setString(7, e.userAnswer());
+            ps.setBoolean(8, Boolean.TRUE.equals(e.isCorrect()));
+            ps.setBigDecimal(9, e.marksObtained());
+            ps.setTimestamp(10, answeredAt);
+        });
+    }
+
+    /**
+     * Remove every answer row of a quiz's questions (before the questions themselves are deleted)
+     */
+    public int deleteForQuiz(Integer quizId) {
+        return jdbcTemplate.update(DELETE_FOR_QUIZ_SQL, quizId);
+    }
+
+    /**
+     * Drain the log, coalesce per attempt/question (latest answer wins) and write the survivors in batches.
+     * On failure the batch is put back for the next flush, as far as the bound allows.
+     */
+    @Scheduled(fixedDelayString = "${itms.quiz.answer-log.flush-interval-ms:3000}")
+    public void flush() {
+        if (pendingCount.get() == 0 || !flushLock.tryLock()) return;
+        List<AnswerEntry> batch = List.of();
+        try {
+            // Requeued entries come back behind newer ones, so keep the latest answer rather than the last polled
+            Map<Long, AnswerEntry> coalesced = new LinkedHashMap<>();
+            AnswerEntry entry;
+            while ((entry = pending.poll()) != null) {
+                pendingCount.decrementAndGet();
+                coalesced.merge(((long) entry.attemptId() << 32) | (entry.questionId() & 0xffffffffL), entry,
+                        (older, newer) -> newer.answeredAt().isBefore(older.answeredAt()) ? older : newer);
+            }
+            if (coalesced.isEmpty()) return;
+
+            batch = new ArrayList<>(coalesced.values());
+            jdbcTemplate.batchUpdate(AUTOSAVE_MERGE_SQL, batch, batchSize, (ps, e) -> {
+                Timestamp answeredAt = Timestamp.valueOf(e.answeredAt());
+                ps.setInt(1, e.attemptId());
+                ps.setInt(2, e.questionId());
+                ps.setString(3, e.userAnswer());
+                ps.setTimestamp(4, answeredAt);
+                ps.setString(5, e.userAnswer());
+                ps.setTimestamp(6, answeredAt);
+            });
+            log.debug("Flushed {} autosaved quiz answers", batch.size());
+        } catch (Exception e) {
+            int requeued = requeue(batch);
+            log.error("Failed to flush autosaved quiz answers ({} requeued, {} dropped): {}",
+                    requeued, batch.size() - requeued, e.getMessage());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private int requeue(List<AnswerEntry> entries) {
+        int requeued = 0;
+        for (AnswerEntry e : entries) {
+            if (pendingCount.get() >= maxPending) break;
+            pending.add(e);
+            pendingCount.incrementAndGet();
+            requeued++;
+        }
+        return requeued;
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    public static String toUserAnswer(Integer selectedAnswerIndex) {
+        return selectedAnswerIndex != null ? String.valueOf(selectedAnswerIndex) : null;
+    }
+
+    /**
+     * One answer row; isCorrect/marksObtained are null for ungraded autosaves
+     */
+    public record AnswerEntry(Integer attemptId, Integer questionId, String userAnswer,
+                              Boolean isCorrect, BigDecimal marksObtained, LocalDateTime answeredAt) {}
+}
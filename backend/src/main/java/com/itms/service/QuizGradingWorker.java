@@ -0,0 +1,142 @@
+package com.itms.service;
+
+import com.itms.dto.QuizAttemptDto;
+import com.itms.dto.QuizSubmissionStatusDto;
+import com.itms.repository.QuizSubmissionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Exam-burst grading pipeline.
+ * Submissions are acknowledged as soon as they are queued; a bounded worker pool claims
+ * queued rows in batches (READPAST, so workers and instances never block each other)
+ * and grades each batch in a single transaction.
+ * A submission that fails on its own is retried a bounded number of times (backed off from its last claim);
+ * after that it is FAILED and its attempt is reopened for the learner.
+ */
+@Service
+@Slf4j
+public class QuizGradingWorker {
+
+    private static final String CLAIM_SQL = """
+        WITH next AS (
+            SELECT TOP (?) id, status, claimed_at
+            FROM QuizSubmission WITH (ROWLOCK, UPDLOCK, READPAST)
+            WHERE status = 'QUEUED'
+            AND (claimed_at IS NULL OR claimed_at < DATEADD(SECOND, -?, GETDATE()))
+            ORDER BY id ASC
+        )
+        UPDATE next
+        SET status = 'PROCESSING', claimed_at = GETDATE()
+        OUTPUT inserted.id
+    """;
+
+    private final QuizService quizService;
+    private final QuizSubmissionRepository quizSubmissionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ThreadPoolTaskExecutor gradingExecutor;
+
+    @Value("${itms.quiz.grading.batch-size:25}")
+    private int batchSize;
+
+    @Value("${itms.quiz.grading.stale-minutes:5}")
+    private int staleMinutes;
+
+    @Value("${itms.quiz.grading.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${itms.quiz.grading.retry-delay-seconds:30}")
+    private int retryDelaySeconds;
+
+    public QuizGradingWorker(QuizService quizService,
+                             QuizSubmissionRepository quizSubmissionRepository,
+                             JdbcTemplate jdbcTemplate,
+                             @Qualifier("quizGradingExecutor") ThreadPoolTaskExecutor gradingExecutor) {
+        this.quizService = quizService;
+        this.quizSubmissionRepository = quizSubmissionRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.gradingExecutor = gradingExecutor;
+    }
+
+    /**
+     * Durably queue a submission and wake a worker; returns immediately with status QUEUED
+     */
+    public QuizSubmissionStatusDto submit(Integer attemptId, List<QuizAttemptDto.QuizAnswerDto> answers, Integer timeTakenMinutes) {
+        QuizSubmissionStatusDto status;
+        try {
+            status = quizService.queueSubmission(attemptId, answers, timeTakenMinutes);
+        } catch (DataIntegrityViolationException e) {
+            // Lost the race on UQ_QuizSubmission_Attempt to a concurrent submit of the same attempt
+            return quizService.getSubmissionStatus(attemptId);
+        }
+        signal();
+        return status;
+    }
+
+    /**
+     * Safety net: drain anything left in the queue (dropped signals, restarts) and
+     * re-queue batches whose worker died mid-way
+     */
+    @Scheduled(fixedDelayString = "${itms.quiz.grading.poll-interval-ms:2000}")
+    public void poll() {
+        try {
+            int requeued = quizSubmissionRepository.requeueStale(LocalDateTime.now().minusMinutes(staleMinutes));
+            if (requeued > 0) {
+                log.warn("Re-queued {} stale quiz submissions", requeued);
+            }
+            signal();
+        } catch (Exception e) {
+            log.error("Quiz grading poll failed: {}", e.getMessage());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        signal();
+    }
+
+    private void signal() {
+        gradingExecutor.execute(this::drain);
+    }
+
+    /**
+     * Claim and grade batches until the queue is empty
+     */
+    private void drain() {
+        while (true) {
+            List<Integer> ids = jdbcTemplate.queryForList(CLAIM_SQL, Integer.class, batchSize, retryDelaySeconds);
+            if (ids.isEmpty()) return;
+            gradeBatch(ids);
+        }
+    }
+
+    private void gradeBatch(List<Integer> ids) {
+        try {
+            quizService.gradeQueuedSubmissions(ids);
+            log.debug("Graded {} queued quiz submissions", ids.size());
+        } catch (Exception batchError) {
+            // Isolate the bad submission(s): retry one by one
+            log.warn("Batch grading failed ({}), retrying individually", batchError.getMessage());
+            for (Integer id : ids) {
+                try {
+                    quizService.gradeQueuedSubmissions(List.of(id));
+                } catch (Exception e) {
+                    log.error("Failed to grade quiz submission {}: {}", id, e.getMessage());
+                    String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+                    quizService.recordGradingFailure(id, message.length() > 500 ? message.substring(0, 500) : message, maxAttempts);
+                }
+            }
+        }
+    }
+}
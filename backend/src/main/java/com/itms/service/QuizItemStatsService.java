@@ -0,0 +1,302 @@
+package com.itms.service;
+
+import com.itms.dto.QuizItemAnalysisDto;
+import com.itms.entity.Quiz;
+import com.itms.entity.QuizQuestion;
+import com.itms.entity.QuizQuestionStats;
+import com.itms.repository.QuizQuestionRepository;
+import com.itms.repository.QuizQuestionStatsRepository;
+import com.itms.repository.QuizRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Incremental item analysis for quiz questions.
+ * Each graded attempt adds its per-question outcome to in-memory deltas (after the grading transaction commits);
+ * deltas are flushed periodically as additive MERGEs into QuizQuestionStats. The report reads one row per question,
+ * so its cost does not depend on the number of attempts.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class QuizItemStatsService {
+
+    // Only for questions that still exist; quiz_id is taken from the question itself
+    private static final String STATS_MERGE_SQL = """
+        MERGE QuizQuestionStats WITH (HOLDLOCK) AS t
+        USING (SELECT qq.id AS question_id, qq.quiz_id FROM QuizQuestion qq WHERE qq.id = ?) AS s
+        ON t.question_id = s.question_id
+        WHEN MATCHED THEN
+            UPDATE SET responses = t.responses + ?, correct_count = t.correct_count + ?,
+                       option_a_count = t.option_a_count + ?, option_b_count = t.option_b_count + ?,
+                       option_c_count = t.option_c_count + ?, option_d_count = t.option_d_count + ?,
+                       unanswered_count = t.unanswered_count + ?,
+                       sum_score = t.sum_score + ?, sum_score_sq = t.sum_score_sq + ?,
+                       sum_correct_score = t.sum_correct_score + ?,
+                       timed_count = t.timed_count + ?, sum_time_seconds = t.sum_time_seconds + ?,
+                       updated_at = GETDATE()
+        WHEN NOT MATCHED THEN
+            INSERT (question_id, quiz_id, responses, correct_count,
+                    option_a_count, option_b_count, option_c_count, option_d_count, unanswered_count,
+                    sum_score, sum_score_sq, sum_correct_score, timed_count, sum_time_seconds, updated_at)
+            VALUES (s.question_id, s.quiz_id, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, GETDATE());
+    """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final QuizRepository quizRepository;
+    private final QuizQuestionRepository quizQuestionRepository;
+    private final QuizQuestionStatsRepository quizQuestionStatsRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    // questionId -> not yet flushed delta (mutated only inside compute, removed atomically by flush)
+    private final Map<Integer, Delta> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    /**
+     * Record the outcome of one graded attempt.
+     * selectedOriginal[i] / timeSeconds[i] refer to question i of the answer key (-1 = unanswered / not reported).
+     * Applied after the current transaction commits, so rolled back gradings are never counted.
+     */
+    public void recordAttempt(QuizAnswerKeyService.AnswerKey answerKey, int[] selectedOriginal,
+                              int[] timeSeconds, BigDecimal score) {
+        double s = score != null ? score.doubleValue() : 0d;
+        List<Delta> deltas = new ArrayList<>(answerKey.size());
+        List<Integer> questionIds = new ArrayList<>(answerKey.size());
+        for (int i = 0; i < answerKey.size(); i++) {
+            Delta d = new Delta();
+            d.add(selectedOriginal[i], selectedOriginal[i] >= 0 && selectedOriginal[i] == answerKey.correctIndexAt(i),
+                    timeSeconds[i], s);
+            deltas.add(d);
+            questionIds.add(answerKey.questionIdAt(i));
+        }
+
+        Runnable apply = () -> {
+            for (int i = 0; i < deltas.size(); i++) {
+                merge(questionIds.get(i), deltas.get(i));
+            }
+        };
+        AfterCommit.run("apply item statistics", apply);
+    }
+
+    /**
+     * Question-quality report: stored aggregates plus deltas not flushed yet
+     */
+    public QuizItemAnalysisDto getReport(Integer quizId) {
+        Quiz quiz = quizRepository.findById(quizId)
+                .orElseThrow(() -> new RuntimeException("Quiz not found"));
+        Map<Integer, QuizQuestionStats> stored = quizQuestionStatsRepository.findByQuizId(quizId).stream()
+                .collect(Collectors.toMap(QuizQuestionStats::getQuestionId, Function.identity()));
+
+        long gradedAttempts = 0;
+        List<QuizItemAnalysisDto.ItemStats> items = new ArrayList<>();
+        for (QuizQuestion q : quizQuestionRepository.findByQuizIdOrderByDisplayOrderAsc(quizId)) {
+            Delta total = Delta.of(stored.get(q.getId()));
+            Delta unflushed = pending.get(q.getId());
+            if (unflushed != null) {
+                synchronized (unflushed) {
+                    total.plus(unflushed);
+                }
+            }
+            gradedAttempts = Math.max(gradedAttempts, total.responses);
+            items.add(total.toItemStats(q));
+        }
+
+        return QuizItemAnalysisDto.builder()
+                .quizId(quiz.getId())
+                .quizTitle(quiz.getTitle())
+                .gradedAttempts(gradedAttempts)
+                .items(items)
+                .build();
+    }
+
+    /**
+     * Write accumulated deltas as one batch of additive MERGEs
+     */
+    @Scheduled(fixedDelayString = "${itms.quiz.item-stats.flush-interval-ms:5000}")
+    public void flush() {
+        if (pending.isEmpty() || !flushLock.tryLock()) return;
+        List<Integer> questionIds = new ArrayList<>();
+        List<Delta> deltas = new ArrayList<>();
+        try {
+            for (Integer questionId : new ArrayList<>(pending.keySet())) {
+                Delta d = pending.remove(questionId);
+                if (d != null) {
+                    questionIds.add(questionId);
+                    deltas.add(d);
+                }
+            }
+            if (deltas.isEmpty()) return;
+
+            BatchPreparedStatementSetter setter = new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    Delta d = deltas.get(i);
+                    ps.setInt(1, questionIds.get(i));
+                    d.bind(ps, 2);
+                    d.bind(ps, 14);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return deltas.size();
+                }
+            };
+            // One transaction: the MERGEs are additive, so a partly applied batch must not survive a requeue
+            new TransactionTemplate(transactionManager)
+                    .executeWithoutResult(status -> jdbcTemplate.batchUpdate(STATS_MERGE_SQL, setter));
+            log.debug("Flushed item statistics for {} questions", deltas.size());
+        } catch (Exception e) {
+            // Nothing was applied (rolled back): keep the deltas for the next flush rather than losing them
+            for (int i = 0; i < deltas.size(); i++) {
+                merge(questionIds.get(i), deltas.get(i));
+            }
+            log.error("Failed to flush quiz item statistics: {}", e.getMessage());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private void merge(Integer questionId, Delta delta) {
+        pending.compute(questionId, (id, current) -> {
+            if (current == null) return delta;
+            synchronized (current) {
+                current.plus(delta);
+            }
+            return current;
+        });
+    }
+
+    /**
+     * Additive per-question aggregates (same shape as a QuizQuestionStats row)
+     */
+    private static final class Delta {
+        long responses;
+        long correct;
+        final long[] options = new long[4];
+        long unanswered;
+        double sumScore;
+        double sumScoreSq;
+        double sumCorrectScore;
+        long timed;
+        long sumTimeSeconds;
+
+        static Delta of(QuizQuestionStats row) {
+            Delta d = new Delta();
+            if (row == null) return d;
+            d.responses = row.getResponses();
+            d.correct = row.getCorrectCount();
+            d.options[0] = row.getOptionACount();
+            d.options[1] = row.getOptionBCount();
+            d.options[2] = row.getOptionCCount();
+            d.options[3] = row.getOptionDCount();
+            d.unanswered = row.getUnansweredCount();
+            d.sumScore = row.getSumScore();
+            d.sumScoreSq = row.getSumScoreSq();
+            d.sumCorrectScore = row.getSumCorrectScore();
+            d.timed = row.getTimedCount();
+            d.sumTimeSeconds = row.getSumTimeSeconds();
+            return d;
+        }
+
+        void add(int selected, boolean isCorrect, int seconds, double score) {
+            responses++;
+            if (selected >= 0 && selected < options.length) options[selected]++;
+            else unanswered++;
+            sumScore += score;
+            sumScoreSq += score * score;
+            if (isCorrect) {
+                correct++;
+                sumCorrectScore += score;
+            }
+            if (seconds >= 0) {
+                timed++;
+                sumTimeSeconds += seconds;
+            }
+        }
+
+        void plus(Delta o) {
+            responses += o.responses;
+            correct += o.correct;
+            for (int i = 0; i < options.length; i++) options[i] += o.options[i];
+            unanswered += o.unanswered;
+            sumScore += o.sumScore;
+            sumScoreSq += o.sumScoreSq;
+            sumCorrectScore += o.sumCorrectScore;
+            timed += o.timed;
+            sumTimeSeconds += o.sumTimeSeconds;
+        }
+
+        void bind(PreparedStatement ps, int from) throws SQLException {
+            ps.setLong(from, responses);
+            ps.setLong(from + 1, correct);
+            ps.setLong(from + 2, options[0]);
+            ps.setLong(from + 3, options[1]);
+            ps.setLong(from + 4, options[2]);
+            ps.setLong(from + 5, options[3]);
+            ps.setLong(from + 6, unanswered);
+            ps.setDouble(from + 7, sumScore);
+            ps.setDouble(from + 8, sumScoreSq);
+            ps.setDouble(from + 9, sumCorrectScore);
+            ps.setLong(from + 10, timed);
+            ps.setLong(from + 11, sumTimeSeconds);
+        }
+
+        QuizItemAnalysisDto.ItemStats toItemStats(QuizQuestion q) {
+            return QuizItemAnalysisDto.ItemStats.builder()
+                    .questionId(q.getId())
+                    .displayOrder(q.getDisplayOrder())
+                    .questionText(q.getQuestionText())
+                    .correctAnswer(q.getCorrectAnswer())
+                    .responses(responses)
+                    .difficulty(rate(correct))
+                    .discrimination(pointBiserial())
+                    .optionARate(rate(options[0]))
+                    .optionBRate(rate(options[1]))
+                    .optionCRate(rate(options[2]))
+                    .optionDRate(rate(options[3]))
+                    .unansweredRate(rate(unanswered))
+                    .averageTimeSeconds(timed > 0 ? round((double) sumTimeSeconds / timed) : null)
+                    .build();
+        }
+
+        private Double rate(long count) {
+            return responses > 0 ? round((double) count / responses) : null;
+        }
+
+        // Correlation between answering correctly (0/1) and the attempt score, from running sums only
+        private Double pointBiserial() {
+            double n = responses;
+            double varX = n * correct - (double) correct * correct;
+            double varS = n * sumScoreSq - sumScore * sumScore;
+            if (responses < 2 || varX <= 0 || varS <= 0) return null;
+            return round((n * sumCorrectScore - correct * sumScore) / Math.sqrt(varX * varS));
+        }
+
+        private static double round(double value) {
+            return Math.round(value * 10000d) / 10000d;
+        }
+    }
+}
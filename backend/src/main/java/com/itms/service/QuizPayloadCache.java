@@ -0,0 +1,101 @@
+package com.itms.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itms.dto.QuizDto;
+import com.itms.dto.common.ResponseDto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Learner-facing quiz payloads (no correct answers or explanations), built once per quiz version.
+ * The DTO and its pre-serialized ResponseDto bytes are cached together with an ETag, so an exam start storm
+ * serves the same bytes instead of reloading and remapping the quiz for every learner.
+ * The cache is a bounded LRU of per-quiz entries. The first miss on a quiz installs the entry and builds it
+ * outside the map's lock; concurrent misses on the same quiz wait for that build. Invalidation removes the
+ * entry itself, so a build in flight for the old version is never served to readers that arrive afterwards.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class QuizPayloadCache {
+
+    private static final int MAX_CACHED_PAYLOADS = 256;
+
+    private final ObjectMapper objectMapper;
+
+    // quizId -> payload of the current quiz version, possibly still being built
+    // (access-ordered, evicts least recently used)
+    private final Map<Integer, CompletableFuture<LearnerPayload>> payloads = Collections.synchronizedMap(
+            new LinkedHashMap<>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, CompletableFuture<LearnerPayload>> eldest) {
+                    return size() > MAX_CACHED_PAYLOADS;
+                }
+            });
+
+    /**
+     * Get the cached payload, building it with the loader on a miss (one build per quiz at a time)
+     */
+    public LearnerPayload get(Integer quizId, Supplier<QuizDto> loader) {
+        CompletableFuture<LearnerPayload> entry;
+        boolean owner = false;
+        synchronized (payloads) {
+            entry = payloads.get(quizId);
+            if (entry == null) {
+                entry = new CompletableFuture<>();
+                payloads.put(quizId, entry);
+                owner = true;
+            }
+        }
+
+        if (owner) {
+            try {
+                entry.complete(serialize(loader.get()));
+            } catch (RuntimeException e) {
+                payloads.remove(quizId, entry);
+                entry.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return entry.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    /**
+     * Drop the payload of a quiz (callers invalidate once their change has committed)
+     */
+    public void invalidate(Integer quizId) {
+        if (quizId != null) {
+            payloads.remove(quizId);
+        }
+    }
+
+    private LearnerPayload serialize(QuizDto quiz) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(ResponseDto.success(quiz, "Quiz retrieved successfully"));
+            String etag = "\"" + quiz.getId() + "-" + DigestUtils.md5DigestAsHex(body) + "\"";
+            log.debug("Cached learner payload for quiz {} ({} bytes)", quiz.getId(), body.length);
+            return new LearnerPayload(quiz, body, etag);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize quiz payload", e);
+        }
+    }
+
+    /**
+     * Shared, read-only payload: copy the DTO (toBuilder) before adding per-user fields
+     */
+    public record LearnerPayload(QuizDto quiz, byte[] body, String etag) {}
+}
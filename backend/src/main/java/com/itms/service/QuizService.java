@@ -1,35 +1,64 @@
 package com.itms.service;
 
 import com.itms.dto.QuizAttemptDto;
+import com.itms.dto.QuizAttemptSummaryDto;
 import com.itms.dto.QuizDto;
 import com.itms.dto.QuizImportDto;
 import com.itms.dto.QuizQuestionDto;
 import com.itms.dto.QuizQuestionImportDto;
+import com.itms.dto.QuizSubmissionStatusDto;
 import com.itms.dto.SessionAttendanceDto;
 import com.itms.entity.*;
 import com.itms.common.Grade;
+import com.itms.common.SubmissionStatus;
 import com.itms.repository.*;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.sql.Types;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Service
 @RequiredArgsConstructor
 public class QuizService {
 
+    private static final int IMPORT_BATCH_SIZE = 500;
+
+    // Atomically take the next attempt number for (quiz, user) if the limit allows it (null limit = unlimited).
+    // The counter row is seeded from existing attempts on first use; no row is output when the limit is reached.
+    private static final String ALLOCATE_ATTEMPT_SQL = """
+        MERGE QuizAttemptCounter WITH (HOLDLOCK) AS t
+        USING (
+            SELECT ? AS quiz_id, ? AS user_id,
+                   (SELECT ISNULL(MAX(attempt_number), 0) FROM QuizAttempt WHERE quiz_id = ? AND user_id = ?) AS existing
+        ) AS s
+        ON t.quiz_id = s.quiz_id AND t.user_id = s.user_id
+        WHEN MATCHED AND (? IS NULL OR t.last_attempt_number < ?) THEN
+            UPDATE SET last_attempt_number = t.last_attempt_number + 1
+        WHEN NOT MATCHED AND (? IS NULL OR s.existing < ?) THEN
+            INSERT (quiz_id, user_id, last_attempt_number) VALUES (s.quiz_id, s.user_id, s.existing + 1)
+        OUTPUT inserted.last_attempt_number;
+    """;
+
     private final QuizRepository quizRepository;
     private final QuizAttemptRepository quizAttemptRepository;
     private final UserModuleProgressRepository moduleProgressRepository;
@@ -40,6 +69,18 @@ public class QuizService {
     private final QuizQuestionRepository quizQuestionRepository;
     private final SessionRepository sessionRepository;
     private final CertificateRepository certificateRepository;
+    private final QuizAnswerKeyService quizAnswerKeyService;
+    private final QuizItemStatsService quizItemStatsService;
+    private final QuizPayloadCache quizPayloadCache;
+    private final CertificateRenderService certificateRenderService;
+    private final CertificateVerificationIndex certificateVerificationIndex;
+    private final CourseCompletionService courseCompletionService;
+    private final LearningStreakService learningStreakService;
+    private final QuizSubmissionRepository quizSubmissionRepository;
+    private final ObjectMapper objectMapper;
+    private final QuizAnswerLogService quizAnswerLogService;
+    private final QuizAnswerRepository quizAnswerRepository;
+    private final JdbcTemplate jdbcTemplate;
 
     /**
      * Get all quizzes for a course.
@@ -56,14 +97,11 @@ public class QuizService {
                 .toList();
         int totalRegular = regularQuizzes.size();
 
+        // One aggregate query for the whole course instead of one per quiz
+        Map<Integer, QuizAttemptSummaryDto> summaries = loadAttemptSummaries(courseId, userId);
+
         // Count how many regular quizzes the user has passed
-        int passedRegular = 0;
-        for (Quiz rq : regularQuizzes) {
-            List<QuizAttempt> attempts = quizAttemptRepository.findByQuizIdAndUserId(rq.getId(), userId);
-            if (attempts.stream().anyMatch(a -> Boolean.TRUE.equals(a.getPassed()))) {
-                passedRegular++;
-            }
-        }
+        int passedRegular = countPassed(regularQuizzes, summaries);
         boolean allRegularPassed = totalRegular > 0 && passedRegular >= totalRegular;
 
         for (Quiz quiz : quizzes) {
@@ -79,9 +117,7 @@ public class QuizService {
             }
 
             // Get attempt count and pass status
-            List<QuizAttempt> attempts = quizAttemptRepository.findByQuizIdAndUserId(quiz.getId(), userId);
-            dto.setAttemptsCount(attempts.size());
-            dto.setHasPassed(attempts.stream().anyMatch(a -> Boolean.TRUE.equals(a.getPassed())));
+            applyAttemptSummary(dto, summaries.get(quiz.getId()));
 
             // Attach regular quiz progress info (used by frontend for final exam lock message)
             dto.setPassedRegularCount(passedRegular);
@@ -94,49 +130,62 @@ public class QuizService {
     }
 
     /**
-     * Get quiz by ID with questions
+     * Get quiz by ID with questions (learner view: answer key stripped, shared part served from the payload cache)
      */
     public QuizDto getQuizById(Integer quizId, Integer userId) {
-        Quiz quiz = quizRepository.findById(quizId)
-                .orElseThrow(() -> new RuntimeException("Quiz not found"));
-
-        // Eagerly load questions
-        List<QuizQuestion> questions = quizQuestionRepository.findByQuizIdOrderByDisplayOrderAsc(quizId);
-        quiz.setQuestions(questions);
-
-        QuizDto dto = mapToDto(quiz);
+        QuizDto dto = getLearnerPayload(quizId).quiz().toBuilder().build();
 
         // Get course ID for session completion check
-        Integer courseId = quiz.getCourse() != null ? quiz.getCourse().getId() : null;
+        Integer courseId = dto.getCourseId();
+        Map<Integer, QuizAttemptSummaryDto> summaries = loadAttemptSummaries(courseId, userId);
         
         // Check unlock status - regular quizzes always unlocked for enrolled students
         // Final exam requires all regular quizzes passed
-        boolean isFinal = Boolean.TRUE.equals(quiz.getIsFinalExam());
+        boolean isFinal = Boolean.TRUE.equals(dto.getIsFinalExam());
         if (isFinal) {
             // Final exam: check if all regular quizzes passed
             List<Quiz> regularQuizzes = quizRepository.findByCourseIdAndQuizTypeIn(courseId != null ? courseId : -1)
                     .stream().filter(q -> !Boolean.TRUE.equals(q.getIsFinalExam())).toList();
-            int passedRegular = 0;
-            for (Quiz rq : regularQuizzes) {
-                List<QuizAttempt> rAttempts = quizAttemptRepository.findByQuizIdAndUserId(rq.getId(), userId);
-                if (rAttempts.stream().anyMatch(a -> Boolean.TRUE.equals(a.getPassed()))) passedRegular++;
-            }
+            int passedRegular = countPassed(regularQuizzes, summaries);
             dto.setIsUnlocked(regularQuizzes.isEmpty() || passedRegular >= regularQuizzes.size());
         } else {
             // Regular quizzes: always unlocked for enrolled students
             dto.setIsUnlocked(true);
         }
 
-        // Get attempt count
-        List<QuizAttempt> attempts = quizAttemptRepository.findByQuizIdAndUserId(quizId, userId);
-        dto.setAttemptsCount(attempts.size());
-        dto.setHasPassed(attempts.stream().anyMatch(QuizAttempt::getPassed));
+        // Get attempt count (a quiz without a course is summarized on its own)
+        QuizAttemptSummaryDto summary = summaries.get(quizId);
+        if (summary == null && courseId == null && userId != null) {
+            summary = quizAttemptRepository.summarizeByQuizIdAndUserId(quizId, userId).stream()
+                    .findFirst().orElse(null);
+        }
+        applyAttemptSummary(dto, summary);
 
         return dto;
     }
 
     /**
-     * Start a new quiz attempt
+     * Learner payload of a quiz (no answer key), built once per quiz version and cached with its bytes and ETag
+     */
+    public QuizPayloadCache.LearnerPayload getLearnerPayload(Integer quizId) {
+        return quizPayloadCache.get(quizId, () -> {
+            Quiz quiz = quizRepository.findById(quizId)
+                    .orElseThrow(() -> new RuntimeException("Quiz not found"));
+            quiz.setQuestions(quizQuestionRepository.findByQuizIdOrderByDisplayOrderAsc(quizId));
+            return stripAnswerKey(mapToDto(quiz));
+        });
+    }
+
+    private QuizDto stripAnswerKey(QuizDto dto) {
+        for (QuizQuestionDto qdto : dto.getQuestions()) {
+            qdto.setCorrectAnswer(null);
+            qdto.setExplanation(null);
+        }
+        return dto;
+    }
+
+    /**
+     * Start a new quiz attempt; randomized quizzes get a shuffled view (GET /attempts/{id}/questions)
      */
     @Transactional
     public QuizAttemptDto startQuizAttempt(Integer quizId, Integer userId, Integer enrollmentId) {
@@ -151,12 +200,9 @@ public class QuizService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        // Count existing attempts
-        List<QuizAttempt> existingAttempts = quizAttemptRepository.findByQuizIdAndUserId(quizId, userId);
-        int attemptNumber = existingAttempts.size() + 1;
-
-        // Check max attempts
-        if (quiz.getMaxAttempts() != null && attemptNumber > quiz.getMaxAttempts()) {
+        // Allocate the attempt number and enforce max attempts in one atomic statement
+        Integer attemptNumber = allocateAttemptNumber(quizId, userId, quiz.getMaxAttempts());
+        if (attemptNumber == null) {
             throw new RuntimeException("Maximum attempts reached");
         }
 
@@ -179,6 +225,8 @@ public class QuizService {
                 .startedAt(LocalDateTime.now())
                 .status("IN_PROGRESS")
                 .createdAt(LocalDateTime.now())
+                .shuffleSeed(Boolean.TRUE.equals(quiz.getRandomizeQuestions())
+                        ? ThreadLocalRandom.current().nextLong() : null)
                 .build();
 
         attempt = quizAttemptRepository.save(attempt);
@@ -186,40 +234,248 @@ public class QuizService {
         return mapAttemptToDto(attempt);
     }
 
+    /**
+     * The user's open attempt on the quiz (reloaded page, or reopened after a failed grading), else a new one
+     */
+    @Transactional
+    public QuizAttemptDto resumeOrStartQuizAttempt(Integer quizId, Integer userId) {
+        return quizAttemptRepository.findByQuizIdAndUserId(quizId, userId).stream()
+                .filter(a -> "IN_PROGRESS".equals(a.getStatus()))
+                .max(Comparator.comparing(QuizAttempt::getId))
+                .map(this::mapAttemptToDto)
+                .orElseGet(() -> startQuizAttempt(quizId, userId, null));
+    }
+
+    /**
+     * Next attempt number for the user on the quiz, or null when maxAttempts is reached.
+     * The counter row stays locked until the surrounding transaction ends, so concurrent starts are serialized
+     * and a rolled back start gives its number back; UQ_QuizAttempt_Number guards the result.
+     */
+    private Integer allocateAttemptNumber(Integer quizId, Integer userId, Integer maxAttempts) {
+        return jdbcTemplate.query(ALLOCATE_ATTEMPT_SQL, ps -> {
+            ps.setInt(1, quizId);
+            ps.setInt(2, userId);
+            ps.setInt(3, quizId);
+            ps.setInt(4, userId);
+            ps.setObject(5, maxAttempts, Types.INTEGER);
+            ps.setObject(6, maxAttempts, Types.INTEGER);
+            ps.setObject(7, maxAttempts, Types.INTEGER);
+            ps.setObject(8, maxAttempts, Types.INTEGER);
+        }, rs -> rs.next() ? rs.getInt(1) : null);
+    }
+
     /**
      * Submit quiz attempt
      */
     @Transactional
     public QuizAttemptDto submitQuizAttempt(Integer attemptId, List<QuizAttemptDto.QuizAnswerDto> answers, Integer timeTakenMinutes) {
+        if (quizAttemptRepository.claimForSubmission(attemptId) == 0) {
+            throw new IllegalArgumentException("Attempt has already been submitted");
+        }
         QuizAttempt attempt = quizAttemptRepository.findById(attemptId)
                 .orElseThrow(() -> new RuntimeException("Attempt not found"));
 
         Quiz quiz = attempt.getQuiz();
-        List<QuizQuestion> questions = quizQuestionRepository.findByQuizIdOrderByDisplayOrderAsc(quiz.getId());
-        Map<Integer, QuizQuestion> questionMap = new HashMap<>();
-        for (QuizQuestion q : questions) {
-            questionMap.put(q.getId(), q);
+        List<QuizAnswerLogService.AnswerEntry> graded = new ArrayList<>();
+        boolean passed = gradeAttempt(attempt, answers, timeTakenMinutes, LocalDateTime.now(), graded);
+
+        attempt = quizAttemptRepository.save(attempt);
+        quizAnswerLogService.writeGraded(graded);
+
+        // Auto-issue certificate if this is a final exam and user passed
+        if (passed && Boolean.TRUE.equals(quiz.getIsFinalExam()) && quiz.getCourse() != null && attempt.getUser() != null) {
+            issueCertificateIfNotExists(attempt.getUser(), quiz.getCourse(), attempt.getScore());
         }
 
-        // Calculate score
-        BigDecimal totalMarksObtained = BigDecimal.ZERO;
+        QuizAttemptDto result = mapAttemptToDto(attempt);
+        result.setAnswers(answers);
+
+        // Calculate and attach updated course progress
+        Integer courseId = quiz.getCourse() != null ? quiz.getCourse().getId() : null;
+        Integer userId = attempt.getUser() != null ? attempt.getUser().getId() : null;
+        if (courseId != null && userId != null) {
+            result.setCourseProgress(calculateCourseProgress(courseId, userId));
+        }
 
-        for (QuizAttemptDto.QuizAnswerDto answerDto : answers) {
-            QuizQuestion question = questionMap.get(answerDto.getQuestionId());
-            if (question == null) continue;
+        return result;
+    }
 
-            int correctIndex = convertAnswerToIndex(question.getCorrectAnswer());
-            boolean isCorrect = answerDto.getSelectedAnswerIndex() != null && answerDto.getSelectedAnswerIndex() == correctIndex;
+    /**
+     * Queue a submission for asynchronous grading (exam-burst mode).
+     * Only persists the raw answers; grading happens in QuizGradingWorker.
+     * The attempt is claimed like a sync submit, so it is queued once and never also graded synchronously;
+     * re-submitting a queued attempt returns the existing queue entry, while an attempt reopened after its
+     * submission FAILED re-queues that entry with the new answers.
+     */
+    @Transactional
+    public QuizSubmissionStatusDto queueSubmission(Integer attemptId, List<QuizAttemptDto.QuizAnswerDto> answers, Integer timeTakenMinutes) {
+        if (quizAttemptRepository.claimForSubmission(attemptId) == 0) {
+            return quizSubmissionRepository.findByAttemptId(attemptId)
+                    .map(existing -> mapSubmissionToDto(existing, null))
+                    .orElseThrow(() -> new IllegalArgumentException("Attempt has already been submitted"));
+        }
+
+        QuizAttempt attempt = quizAttemptRepository.findById(attemptId)
+                .orElseThrow(() -> new RuntimeException("Attempt not found"));
+
+        QuizSubmission submission = quizSubmissionRepository.findByAttemptId(attemptId)
+                .orElseGet(() -> QuizSubmission.builder().attempt(attempt).build());
+        submission.setAnswersJson(writeAnswers(answers));
+        submission.setTimeTakenMinutes(timeTakenMinutes);
+        submission.setStatus(SubmissionStatus.QUEUED);
+        submission.setQueuedAt(LocalDateTime.now());
+        submission.setAttemptCount(0);
+        submission.setErrorMessage(null);
+        submission.setClaimedAt(null);
+        submission.setProcessedAt(null);
+        submission = quizSubmissionRepository.save(submission);
+
+        return mapSubmissionToDto(submission, null);
+    }
+
+    /**
+     * Grade a batch of claimed submissions in one transaction.
+     * Attempts are written with batched updates; submittedAt is the time the answers were queued,
+     * so grading delay never counts against the learner.
+     */
+    @Transactional
+    public void gradeQueuedSubmissions(List<Integer> submissionIds) {
+        List<QuizSubmission> submissions = quizSubmissionRepository.findWithAttemptByIdIn(submissionIds);
+        List<QuizAttempt> attempts = new ArrayList<>();
+        List<QuizAnswerLogService.AnswerEntry> graded = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+
+        for (QuizSubmission submission : submissions) {
+            QuizAttempt attempt = submission.getAttempt();
+            boolean passed = gradeAttempt(attempt, readAnswers(submission.getAnswersJson()),
+                    submission.getTimeTakenMinutes(), submission.getQueuedAt(), graded);
+            attempts.add(attempt);
+
+            Quiz quiz = attempt.getQuiz();
+            if (passed && Boolean.TRUE.equals(quiz.getIsFinalExam()) && quiz.getCourse() != null) {
+                issueCertificateIfNotExists(attempt.getUser(), quiz.getCourse(), attempt.getScore());
+            }
+
+            submission.setStatus(SubmissionStatus.GRADED);
+            submission.setProcessedAt(now);
+        }
+
+        quizAttemptRepository.saveAll(attempts);
+        quizSubmissionRepository.saveAll(submissions);
+        quizAnswerLogService.writeGraded(graded);
+    }
+
+    /**
+     * Record a failed grading run of a queued submission (own transaction, so it survives a rolled back batch).
+     * Once the retries are used up the submission is FAILED and its attempt goes back to IN_PROGRESS,
+     * so the learner sees the error on the status endpoint and can submit again.
+     */
+    @Transactional
+    public void recordGradingFailure(Integer submissionId, String error, int maxAttempts) {
+        quizSubmissionRepository.recordFailure(submissionId, error, maxAttempts);
+        quizAttemptRepository.reopenForFailedSubmission(submissionId);
+    }
+
+    /**
+     * Poll the grading status of a queued submission; includes the graded result once available
+     */
+    public QuizSubmissionStatusDto getSubmissionStatus(Integer attemptId) {
+        QuizSubmission submission = quizSubmissionRepository.findByAttemptId(attemptId)
+                .orElseThrow(() -> new RuntimeException("Submission not found"));
+
+        QuizAttemptDto result = null;
+        if (submission.getStatus() == SubmissionStatus.GRADED) {
+            QuizAttempt attempt = submission.getAttempt();
+            result = mapAttemptToDto(attempt);
+            result.setAnswers(readAnswers(submission.getAnswersJson()));
+            Quiz quiz = attempt.getQuiz();
+            if (quiz.getCourse() != null) {
+                result.setCourseProgress(calculateCourseProgress(quiz.getCourse().getId(), attempt.getUser().getId()));
+            }
+        }
+        return mapSubmissionToDto(submission, result);
+    }
+
+    /**
+     * Autosave one answer of an in-progress attempt (write-behind, coalesced before reaching the DB)
+     */
+    public void autosaveAnswer(Integer attemptId, Integer questionId, Integer selectedAnswerIndex) {
+        if (attemptId == null || questionId == null) {
+            throw new IllegalArgumentException("attemptId and questionId are required");
+        }
+        quizAnswerLogService.recordAutosave(attemptId, questionId, selectedAnswerIndex);
+    }
+
+    /**
+     * Get the recorded per-question answers of an attempt (answer review)
+     */
+    public List<QuizAttemptDto.QuizAnswerDto> getAttemptAnswers(Integer attemptId) {
+        return quizAnswerRepository.findByQuizAttemptIdOrderByQuestionIdAsc(attemptId).stream()
+                .map(a -> new QuizAttemptDto.QuizAnswerDto(
+                        a.getQuestion().getId(),
+                        parseUserAnswer(a.getUserAnswer()),
+                        a.getIsCorrect(),
+                        a.getMarksObtained(),
+                        null))
+                .toList();
+    }
+
+    private Integer parseUserAnswer(String userAnswer) {
+        try {
+            return userAnswer != null ? Integer.valueOf(userAnswer) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Grade answers against the compiled answer key and apply the result to the attempt (not saved).
+     * Graded rows for the QuizAnswer table are appended to gradedOut.
+     * Returns whether the attempt passed.
+     */
+    private boolean gradeAttempt(QuizAttempt attempt, List<QuizAttemptDto.QuizAnswerDto> answers,
+                                 Integer timeTakenMinutes, LocalDateTime submittedAt,
+                                 List<QuizAnswerLogService.AnswerEntry> gradedOut) {
+        Quiz quiz = attempt.getQuiz();
+
+        // Grade in memory against the cached, compiled answer key
+        QuizAnswerKeyService.AnswerKey answerKey = quizAnswerKeyService.getAnswerKey(quiz);
+        long obtainedHundredths = 0;
+
+        // Per-question outcome in answer key order, for item analysis (-1 = unanswered / time not reported)
+        int[] selectedOriginal = new int[answerKey.size()];
+        int[] timeSeconds = new int[answerKey.size()];
+        Arrays.fill(selectedOriginal, -1);
+        Arrays.fill(timeSeconds, -1);
+
+        for (QuizAttemptDto.QuizAnswerDto answerDto : answers) {
+            int idx = answerKey.indexOf(answerDto.getQuestionId());
+            if (idx < 0) continue;
+
+            // Map the index picked in the attempt's (possibly shuffled) view back to the original option
+            Integer selected = answerDto.getSelectedAnswerIndex();
+            if (selected != null) {
+                int original = answerKey.toOriginalOption(idx, attempt.getShuffleSeed(), selected);
+                selected = original >= 0 ? original : null;
+            }
+            boolean isCorrect = selected != null && selected == answerKey.correctIndexAt(idx);
+            selectedOriginal[idx] = selected != null ? selected : -1;
+            if (answerDto.getTimeSpentSeconds() != null && answerDto.getTimeSpentSeconds() >= 0) {
+                timeSeconds[idx] = answerDto.getTimeSpentSeconds();
+            }
 
             answerDto.setIsCorrect(isCorrect);
             if (isCorrect) {
-                BigDecimal marks = question.getMarks() != null ? question.getMarks() : BigDecimal.ONE;
-                totalMarksObtained = totalMarksObtained.add(marks);
-                answerDto.setMarksObtained(marks);
+                int marks = answerKey.marksHundredthsAt(idx);
+                obtainedHundredths += marks;
+                answerDto.setMarksObtained(QuizAnswerKeyService.AnswerKey.toMarks(marks));
             } else {
                 answerDto.setMarksObtained(BigDecimal.ZERO);
             }
+            gradedOut.add(new QuizAnswerLogService.AnswerEntry(attempt.getId(), answerDto.getQuestionId(),
+                    QuizAnswerLogService.toUserAnswer(selected), isCorrect, answerDto.getMarksObtained(), submittedAt));
         }
+        BigDecimal totalMarksObtained = QuizAnswerKeyService.AnswerKey.toMarks(obtainedHundredths);
 
         // Calculate percentage (score)
         BigDecimal score = BigDecimal.ZERO;
@@ -235,28 +491,41 @@ public class QuizService {
         attempt.setTotalMarks(quiz.getTotalMarks());
         attempt.setObtainedMarks(totalMarksObtained);
         attempt.setPassed(passed);
-        attempt.setSubmittedAt(LocalDateTime.now());
+        attempt.setSubmittedAt(submittedAt);
         attempt.setTimeTakenMinutes(timeTakenMinutes);
         attempt.setStatus("SUBMITTED"); // DB constraint: IN_PROGRESS, SUBMITTED, GRADED, ABANDONED
 
-        attempt = quizAttemptRepository.save(attempt);
+        quizItemStatsService.recordAttempt(answerKey, selectedOriginal, timeSeconds, score);
+        LocalDateTime activityAt = attempt.getStartedAt() != null ? attempt.getStartedAt() : submittedAt;
+        learningStreakService.recordActivityAfterCommit(List.of(attempt.getUser().getId()), activityAt.toLocalDate());
+        return passed;
+    }
 
-        // Auto-issue certificate if this is a final exam and user passed
-        if (passed && Boolean.TRUE.equals(quiz.getIsFinalExam()) && quiz.getCourse() != null && attempt.getUser() != null) {
-            issueCertificateIfNotExists(attempt.getUser(), quiz.getCourse(), score);
+    private String writeAnswers(List<QuizAttemptDto.QuizAnswerDto> answers) {
+        try {
+            return objectMapper.writeValueAsString(answers != null ? answers : List.of());
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid answers payload", e);
         }
+    }
 
-        QuizAttemptDto result = mapAttemptToDto(attempt);
-        result.setAnswers(answers);
-
-        // Calculate and attach updated course progress
-        Integer courseId = quiz.getCourse() != null ? quiz.getCourse().getId() : null;
-        Integer userId = attempt.getUser() != null ? attempt.getUser().getId() : null;
-        if (courseId != null && userId != null) {
-            result.setCourseProgress(calculateCourseProgress(courseId, userId));
+    private List<QuizAttemptDto.QuizAnswerDto> readAnswers(String json) {
+        try {
+            return objectMapper.readValue(json, new TypeReference<List<QuizAttemptDto.QuizAnswerDto>>() {});
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Corrupted queued answers", e);
         }
+    }
 
-        return result;
+    private QuizSubmissionStatusDto mapSubmissionToDto(QuizSubmission submission, QuizAttemptDto result) {
+        return QuizSubmissionStatusDto.builder()
+                .attemptId(submission.getAttempt().getId())
+                .status(submission.getStatus().name())
+                .queuedAt(submission.getQueuedAt())
+                .processedAt(submission.getProcessedAt())
+                .errorMessage(submission.getErrorMessage())
+                .result(result)
+                .build();
     }
 
     /**
@@ -286,20 +555,15 @@ public class QuizService {
         return allAttempts;
     }
 
+    /**
+     * Import quiz from Excel using the streaming reader.
+     * The quiz row is created as soon as the metadata rows are read; questions are validated row by row
+     * and inserted in JDBC batches, so large question banks never sit in memory. Invalid rows are skipped
+     * and reported in importErrors.
+     */
     @Transactional
     public QuizDto importQuizFromExcel(MultipartFile file, Integer courseId, Integer moduleId, Integer createdBy) {
         try {
-            QuizImportDto importDto = excelImportService.importQuizFromExcel(file);
-            
-            // Validate import data
-            if (importDto.getQuizTitle() == null || importDto.getQuizTitle().trim().isEmpty()) {
-                throw new IllegalArgumentException("Quiz title is missing in the Excel file");
-            }
-            
-            if (importDto.getQuestions() == null || importDto.getQuestions().isEmpty()) {
-                throw new IllegalArgumentException("No valid questions found in the Excel file. Please ensure questions start from row 7 (column A must not be empty).");
-            }
-
             // Get course and module
             Course course = new Course();
             course.setId(courseId);
@@ -312,18 +576,68 @@ public class QuizService {
             
             User creator = userRepository.findById(createdBy)
                 .orElseThrow(() -> new RuntimeException("User not found"));
+
+            QuestionImportWriter writer = new QuestionImportWriter(course, module, creator);
+            excelImportService.streamQuizFromExcel(file, writer);
+            writer.flush();
+
+            if (writer.imported == 0) {
+                String detail = writer.errors.isEmpty() ? "" : " " + String.join("; ", writer.errors.subList(0, Math.min(5, writer.errors.size())));
+                throw new IllegalArgumentException("No valid questions found in the Excel file. Please ensure questions start from row 7 (column A must not be empty)." + detail);
+            }
+
+            // Totals are only known once every row has been read
+            Quiz quiz = writer.quiz;
+            quiz.setTotalQuestions(writer.imported);
+            quiz.setTotalMarks(BigDecimal.valueOf(writer.totalMarks));
+            quiz.setUpdatedAt(LocalDateTime.now());
+            quiz = quizRepository.save(quiz);
+            invalidateCachesAfterCommit(quiz.getId());
+
+            QuizDto dto = mapToDto(quiz);
+            dto.setImportErrors(writer.errors);
+            return dto;
             
-            // Create Quiz entity
-            Quiz quiz = Quiz.builder()
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to import quiz from Excel: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Receives streamed rows: creates the quiz on metadata, buffers questions and inserts them in batches
+     */
+    private class QuestionImportWriter implements ExcelImportService.QuizRowHandler {
+        private final Course course;
+        private final CourseModule module;
+        private final User creator;
+        private final List<QuizQuestionImportDto> buffer = new ArrayList<>(IMPORT_BATCH_SIZE);
+        private final List<String> errors = new ArrayList<>();
+        private Quiz quiz;
+        private int imported = 0;
+        private long totalMarks = 0;
+
+        private QuestionImportWriter(Course course, CourseModule module, User creator) {
+            this.course = course;
+            this.module = module;
+            this.creator = creator;
+        }
+
+        @Override
+        public void onMetadata(QuizImportDto importDto) {
+            // Validate import data
+            if (importDto.getQuizTitle() == null || importDto.getQuizTitle().trim().isEmpty()) {
+                throw new IllegalArgumentException("Quiz title is missing in the Excel file");
+            }
+
+            // Create Quiz entity (question totals are placeholders until the whole sheet is read)
+            quiz = Quiz.builder()
                 .course(course)
                 .module(module)
                 .title(importDto.getQuizTitle())
                 .description(importDto.getDescription())
                 .quizType(importDto.getQuizType())
-                .totalQuestions(importDto.getQuestions().size())
-                .totalMarks(BigDecimal.valueOf(importDto.getQuestions().stream()
-                    .mapToInt(q -> q.getMarks() != null ? q.getMarks() : 1)
-                    .sum()))
+                .totalQuestions(1)
+                .totalMarks(BigDecimal.ONE)
                 .passingScore(BigDecimal.valueOf(importDto.getPassingScore() != null ? importDto.getPassingScore() : 70.0))
                 .durationMinutes(importDto.getDurationMinutes() != null ? importDto.getDurationMinutes() : 60)
                 .maxAttempts(importDto.getMaxAttempts() != null ? importDto.getMaxAttempts() : 3)
@@ -334,40 +648,60 @@ public class QuizService {
                 .createdBy(creator)
                 .createdAt(LocalDateTime.now())
                 .build();
-            
-            quiz = quizRepository.save(quiz);
-            
-            // Create QuizQuestion entities
-            List<QuizQuestion> questions = new ArrayList<>();
-            for (QuizQuestionImportDto questionDto : importDto.getQuestions()) {
-                QuizQuestion question = QuizQuestion.builder()
-                    .quiz(quiz)
-                    .questionText(questionDto.getQuestionText())
-                    .questionType(questionDto.getQuestionType() != null ? questionDto.getQuestionType() : "MULTIPLE_CHOICE")
-                    .optionA(questionDto.getOptionA())
-                    .optionB(questionDto.getOptionB())
-                    .optionC(questionDto.getOptionC())
-                    .optionD(questionDto.getOptionD())
-                    .correctAnswer(questionDto.getCorrectAnswer())
-                    .marks(questionDto.getMarks() != null ? BigDecimal.valueOf(questionDto.getMarks()) : BigDecimal.ONE)
-                    .explanation(questionDto.getExplanation())
-                    .displayOrder(questionDto.getDisplayOrder())
-                    .createdAt(LocalDateTime.now())
-                    .build();
-                
-                questions.add(question);
+            quiz = quizRepository.saveAndFlush(quiz);
+        }
+
+        @Override
+        public void onQuestion(QuizQuestionImportDto question) {
+            buffer.add(question);
+            imported++;
+            totalMarks += question.getMarks() != null ? question.getMarks() : 1;
+            if (buffer.size() >= IMPORT_BATCH_SIZE) {
+                flush();
             }
-            
-            quizQuestionRepository.saveAll(questions);
-            quiz.setQuestions(questions);
-            
-            return mapToDto(quiz);
-            
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to import quiz from Excel: " + e.getMessage(), e);
+        }
+
+        @Override
+        public void onRowError(int excelRow, String message) {
+            errors.add("Row " + excelRow + ": " + message);
+        }
+
+        private void flush() {
+            if (buffer.isEmpty()) return;
+            insertQuestionBatch(quiz.getId(), buffer);
+            buffer.clear();
         }
     }
 
+    /**
+     * Insert imported questions as one JDBC batch (IDENTITY keys prevent Hibernate from batching inserts)
+     */
+    private void insertQuestionBatch(Integer quizId, List<QuizQuestionImportDto> questions) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate("""
+            INSERT INTO QuizQuestion (quiz_id, question_text, question_type, option_a, option_b, option_c, option_d,
+                                      correct_answer, marks, explanation, display_order, created_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """, questions, questions.size(), (ps, q) -> {
+            ps.setInt(1, quizId);
+            ps.setString(2, q.getQuestionText());
+            ps.setString(3, q.getQuestionType() != null ? q.getQuestionType() : "MULTIPLE_CHOICE");
+            ps.setString(4, q.getOptionA());
+            ps.setString(5, emptyToNull(q.getOptionB()));
+            ps.setString(6, emptyToNull(q.getOptionC()));
+            ps.setString(7, emptyToNull(q.getOptionD()));
+            ps.setString(8, q.getCorrectAnswer());
+            ps.setBigDecimal(9, BigDecimal.valueOf(q.getMarks() != null ? q.getMarks() : 1));
+            ps.setString(10, emptyToNull(q.getExplanation()));
+            ps.setInt(11, q.getDisplayOrder());
+            ps.setTimestamp(12, now);
+        });
+    }
+
+    private String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
     /**
      * Get quizzes by module ID
      */
@@ -388,6 +722,76 @@ public class QuizService {
                 .toList();
     }
 
+    /**
+     * Get the questions of an attempt as the learner sees them: shuffled by the attempt's seed when the quiz
+     * is randomized, without correct answers or explanations. Selected indices refer to this view.
+     */
+    public QuizDto getAttemptQuestions(Integer attemptId) {
+        QuizAttempt attempt = quizAttemptRepository.findById(attemptId)
+                .orElseThrow(() -> new RuntimeException("Quiz attempt not found"));
+        return stripAnswerKey(attemptView(attempt));
+    }
+
+    /**
+     * Answer review of a submitted attempt: its questions as the learner saw them, with the correct answer
+     * and explanation expressed in that same view
+     */
+    public QuizDto getAttemptReview(Integer attemptId) {
+        QuizAttempt attempt = quizAttemptRepository.findById(attemptId)
+                .orElseThrow(() -> new RuntimeException("Quiz attempt not found"));
+        if ("IN_PROGRESS".equals(attempt.getStatus())) {
+            throw new IllegalArgumentException("Attempt has not been submitted yet");
+        }
+        return attemptView(attempt);
+    }
+
+    private QuizDto attemptView(QuizAttempt attempt) {
+        Quiz quiz = attempt.getQuiz();
+        List<QuizQuestion> questions = quizQuestionRepository.findByQuizIdOrderByDisplayOrderAsc(quiz.getId());
+
+        Long seed = attempt.getShuffleSeed();
+        if (seed != null) {
+            int[] order = QuizShuffle.questionOrder(seed, questions.size());
+            List<QuizQuestion> shuffled = new ArrayList<>(questions.size());
+            for (int position : order) {
+                shuffled.add(questions.get(position));
+            }
+            questions = shuffled;
+        }
+        quiz.setQuestions(questions);
+
+        QuizDto dto = mapToDto(quiz);
+        if (seed != null) {
+            for (QuizQuestionDto qdto : dto.getQuestions()) {
+                shuffleOptions(qdto, seed);
+            }
+        }
+        return dto;
+    }
+
+    private void shuffleOptions(QuizQuestionDto qdto, long seed) {
+        String[] original = {qdto.getOptionA(), qdto.getOptionB(), qdto.getOptionC(), qdto.getOptionD()};
+        int[] order = QuizShuffle.optionOrder(seed, qdto.getId(), QuizShuffle.optionMask(original));
+        String[] shown = new String[original.length];
+        for (int i = 0; i < order.length; i++) {
+            shown[i] = original[order[i]];
+        }
+        qdto.setOptionA(shown[0]);
+        qdto.setOptionB(shown[1]);
+        qdto.setOptionC(shown[2]);
+        qdto.setOptionD(shown[3]);
+
+        // Letter of the position the correct option is shown at
+        if (qdto.getCorrectAnswer() != null) {
+            int correct = QuizAnswerKeyService.convertAnswerToIndex(qdto.getCorrectAnswer());
+            for (int i = 0; i < order.length; i++) {
+                if (order[i] == correct) {
+                    qdto.setCorrectAnswer(String.valueOf("ABCD".charAt(i)));
+                }
+            }
+        }
+    }
+
     /**
      * Get quiz with questions
      */
@@ -457,6 +861,7 @@ public class QuizService {
                 .isFinalExam(false)
                 .createdBy(creator)
                 .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
                 .build();
 
             quiz = quizRepository.save(quiz);
@@ -486,6 +891,7 @@ public class QuizService {
 
             quizQuestionRepository.saveAll(questions);
             quiz.setQuestions(questions);
+            invalidateCachesAfterCommit(quiz.getId());
 
             return mapToDto(quiz);
 
@@ -505,6 +911,7 @@ public class QuizService {
         quiz.setIsActive(!quiz.getIsActive());
         quiz.setUpdatedAt(LocalDateTime.now());
         quiz = quizRepository.save(quiz);
+        invalidateCachesAfterCommit(quizId);
         
         return mapToDto(quiz);
     }
@@ -517,11 +924,24 @@ public class QuizService {
         Quiz quiz = quizRepository.findById(quizId)
                 .orElseThrow(() -> new RuntimeException("Quiz not found"));
         
-        // Delete questions first
+        // Delete answers of its questions, then the questions (QuizAnswer -> QuizQuestion is NO ACTION)
+        quizAnswerLogService.deleteForQuiz(quizId);
         quizQuestionRepository.deleteByQuizId(quizId);
         
         // Delete quiz
         quizRepository.delete(quiz);
+        invalidateCachesAfterCommit(quizId);
+    }
+
+    /**
+     * Drop the answer key and learner payload once the change is committed, so a concurrent reader
+     * cannot re-cache the old version between the invalidation and the commit
+     */
+    private void invalidateCachesAfterCommit(Integer quizId) {
+        AfterCommit.run("invalidate quiz caches", () -> {
+            quizAnswerKeyService.invalidate(quizId);
+            quizPayloadCache.invalidate(quizId);
+        });
     }
 
     private boolean isModuleCompleted(Integer userId, Integer moduleId) {
@@ -578,6 +998,9 @@ public class QuizService {
         long completedSessions = sessionAttendances.stream().filter(s -> s.getMarkedComplete() != null && s.getMarkedComplete()).count();
         boolean allSessionsCompleted = totalSessions > 0 && completedSessions >= totalSessions;
         
+        // One aggregate query for the whole course instead of one per quiz
+        Map<Integer, QuizAttemptSummaryDto> summaries = loadAttemptSummaries(courseId, userId);
+
         // Calculate which quizzes are unlocked based on required modules or session completion
         List<QuizDto> quizDtos = new ArrayList<>();
         int unlockedQuizCount = 0;
@@ -595,9 +1018,7 @@ public class QuizService {
             }
             
             // Get attempt count and pass status
-            List<QuizAttempt> attempts = quizAttemptRepository.findByQuizIdAndUserId(quiz.getId(), userId);
-            dto.setAttemptsCount(attempts.size());
-            dto.setHasPassed(attempts.stream().anyMatch(QuizAttempt::getPassed));
+            applyAttemptSummary(dto, summaries.get(quiz.getId()));
             
             quizDtos.add(dto);
             
@@ -644,12 +1065,8 @@ public class QuizService {
         // Calculate passed tests
         int passedTests = 0;
         for (Quiz quiz : quizzes) {
-            List<QuizAttempt> attempts = quizAttemptRepository.findByQuizIdAndUserId(quiz.getId(), userId);
-            boolean hasPassed = attempts.stream().anyMatch(a -> 
-                a.getPassed() != null && a.getPassed() || 
-                (a.getScore() != null && a.getScore().compareTo(testPassingScore) >= 0)
-            );
-            if (hasPassed) {
+            QuizAttemptSummaryDto summary = summaries.get(quiz.getId());
+            if (summary != null && summary.hasPassed(testPassingScore)) {
                 passedTests++;
             }
         }
@@ -681,9 +1098,9 @@ public class QuizService {
             }
             
             // Get final exam attempt info
-            List<QuizAttempt> finalExamAttempts = quizAttemptRepository.findByQuizIdAndUserId(finalExam.getId(), userId);
-            status.put("finalExamAttemptsCount", finalExamAttempts.size());
-            status.put("finalExamHasPassed", finalExamAttempts.stream().anyMatch(QuizAttempt::getPassed));
+            QuizAttemptSummaryDto finalSummary = summaries.get(finalExam.getId());
+            status.put("finalExamAttemptsCount", finalSummary != null ? finalSummary.getAttemptsCount() : 0);
+            status.put("finalExamHasPassed", finalSummary != null && finalSummary.isPassed());
         }
         
         status.put("finalExamUnlocked", finalExamUnlocked);
@@ -692,20 +1109,32 @@ public class QuizService {
         return status;
     }
 
-    private int convertAnswerToIndex(String answer) {
-        if (answer == null) return 0;
-        String upper = answer.toUpperCase().trim();
-        if (upper.equals("A") || upper.equals("0")) return 0;
-        if (upper.equals("B") || upper.equals("1")) return 1;
-        if (upper.equals("C") || upper.equals("2")) return 2;
-        if (upper.equals("D") || upper.equals("3")) return 3;
-        try {
-            return Integer.parseInt(upper);
-        } catch (NumberFormatException e) {
-            return 0;
+    /**
+     * Load per-quiz attempt summaries for a user in a course, keyed by quiz ID
+     */
+    private Map<Integer, QuizAttemptSummaryDto> loadAttemptSummaries(Integer courseId, Integer userId) {
+        Map<Integer, QuizAttemptSummaryDto> summaries = new HashMap<>();
+        if (courseId == null || userId == null) return summaries;
+        for (QuizAttemptSummaryDto summary : quizAttemptRepository.summarizeByCourseIdAndUserId(courseId, userId)) {
+            summaries.put(summary.getQuizId(), summary);
         }
+        return summaries;
     }
-    
+
+    private int countPassed(List<Quiz> quizzes, Map<Integer, QuizAttemptSummaryDto> summaries) {
+        int passed = 0;
+        for (Quiz quiz : quizzes) {
+            QuizAttemptSummaryDto summary = summaries.get(quiz.getId());
+            if (summary != null && summary.isPassed()) passed++;
+        }
+        return passed;
+    }
+
+    private void applyAttemptSummary(QuizDto dto, QuizAttemptSummaryDto summary) {
+        dto.setAttemptsCount(summary != null ? summary.getAttemptsCount() : 0);
+        dto.setHasPassed(summary != null && summary.isPassed());
+    }
+
     private QuizDto mapToDto(Quiz quiz) {
         // Map quiz questions to DTO
         List<QuizQuestionDto> questionDtos = new ArrayList<>();
@@ -794,6 +1223,9 @@ public class QuizService {
                 .build();
 
         certificateRepository.save(cert);
+        certificateRenderService.renderAfterCommit(cert.getId());
+        certificateVerificationIndex.addAfterCommit(cert.getCertificateCode(), cert.getId());
+        courseCompletionService.markCertifiedAfterCommit(course.getId(), List.of(user.getId()));
     }
 
     private int calculateCourseProgress(Integer courseId, Integer userId) {
@@ -810,10 +1242,7 @@ public class QuizService {
             return prog.isPresent() && Boolean.TRUE.equals(prog.get().getIsCompleted());
         }).count();
 
-        long passedQuizzes = quizzes.stream().filter(q ->
-                quizAttemptRepository.findByQuizIdAndUserId(q.getId(), userId)
-                        .stream().anyMatch(a -> Boolean.TRUE.equals(a.getPassed()))
-        ).count();
+        long passedQuizzes = countPassed(quizzes, loadAttemptSummaries(courseId, userId));
 
         return (int) ((completedModules + passedQuizzes) * 100 / totalItems);
     }
@@ -0,0 +1,68 @@
+package com.itms.service;
+
+import java.util.SplittableRandom;
+
+/**
+ * Seeded question/option permutations for randomized quizzes.
+ * Only the per-attempt seed is stored (QuizAttempt.shuffleSeed); every permutation is re-derived
+ * from it on demand, so the same attempt always sees - and is graded against - the same order.
+ */
+final class QuizShuffle {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private QuizShuffle() {
+    }
+
+    /**
+     * Display order of the questions: order[displayPosition] = position in the quiz's natural order
+     */
+    static int[] questionOrder(long seed, int questionCount) {
+        int[] order = new int[questionCount];
+        for (int i = 0; i < questionCount; i++) order[i] = i;
+        shuffle(order, new SplittableRandom(seed));
+        return order;
+    }
+
+    /**
+     * Display order of the options of one question: order[displayedIndex] = original option index (0 = A).
+     * Only options present in the mask take part, so blank options never show up.
+     */
+    static int[] optionOrder(long seed, int questionId, int optionMask) {
+        int[] order = new int[Integer.bitCount(optionMask)];
+        int n = 0;
+        for (int bit = 0; bit < 32 && n < order.length; bit++) {
+            if ((optionMask & (1 << bit)) != 0) order[n++] = bit;
+        }
+        shuffle(order, new SplittableRandom(seed ^ (questionId * GOLDEN_GAMMA)));
+        return order;
+    }
+
+    /**
+     * Map an index selected in the shuffled view back to the original option index, or -1 if out of range
+     */
+    static int toOriginalOption(long seed, int questionId, int optionMask, int displayedIndex) {
+        int[] order = optionOrder(seed, questionId, optionMask);
+        return displayedIndex >= 0 && displayedIndex < order.length ? order[displayedIndex] : -1;
+    }
+
+    /**
+     * Bit i is set when option i (A, B, C, D) has text
+     */
+    static int optionMask(String... options) {
+        int mask = 0;
+        for (int i = 0; i < options.length; i++) {
+            if (options[i] != null && !options[i].isBlank()) mask |= 1 << i;
+        }
+        return mask;
+    }
+
+    private static void shuffle(int[] values, SplittableRandom random) {
+        for (int i = values.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = values[i];
+            values[i] = values[j];
+            values[j] = tmp;
+        }
+    }
+}
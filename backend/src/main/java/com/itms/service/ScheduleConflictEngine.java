@@ -0,0 +1,212 @@
+package com.itms.service;
+
+import com.itms.dto.ScheduleConflictDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Trainer / room double-booking detection for proposed sessions.
+ * Existing sessions of the affected date range are read with one range query (sargable on Session.date) and
+ * grouped into one interval tree per trainer-day and room-day, together with the proposed slots themselves,
+ * so a whole batch is checked against the database and against itself in O((n + k) log n).
+ */
+@Service
+@RequiredArgsConstructor
+public class ScheduleConflictEngine {
+
+    private static final String LOAD_SQL = """
+        SELECT s.id, s.date, s.time_start, s.time_end, u.username, s.location
+        FROM Session s
+        LEFT JOIN [User] u ON u.id = s.trainer_id
+        WHERE s.date BETWEEN ? AND ?
+    """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * A session to validate. excludeId is the session being replaced (update), room is null for online sessions.
+     */
+    public record Slot(Long excludeId, String trainerUsername, String room,
+                       LocalDate date, LocalTime start, LocalTime end) {}
+
+    /**
+     * Every trainer / room overlap of the given slots, with existing sessions and with earlier slots of the batch.
+     * Conflicts carry the slot's position in the list as index.
+     */
+    public List<ScheduleConflictDto> findConflicts(List<Slot> slots) {
+        if (slots.isEmpty()) return List.of();
+
+        LocalDate from = slots.stream().map(Slot::date).min(Comparator.naturalOrder()).orElseThrow();
+        LocalDate to = slots.stream().map(Slot::date).max(Comparator.naturalOrder()).orElseThrow();
+        Set<Long> replaced = new HashSet<>();
+        for (Slot slot : slots) {
+            if (slot.excludeId() != null) replaced.add(slot.excludeId());
+        }
+
+        Map<String, List<Interval>> byKey = load(from, to, replaced);
+        for (int i = 0; i < slots.size(); i++) {
+            Slot slot = slots.get(i);
+            Interval interval = new Interval(slot.start().toSecondOfDay(), slot.end().toSecondOfDay(), null, i);
+            add(byKey, trainerKey(slot.trainerUsername(), slot.date()), interval);
+            add(byKey, roomKey(slot.room(), slot.date()), interval);
+        }
+        Map<String, IntervalTree> trees = trees(byKey);
+
+        List<ScheduleConflictDto> conflicts = new ArrayList<>();
+        for (int i = 0; i < slots.size(); i++) {
+            Slot slot = slots.get(i);
+            collect(conflicts, trees.get(trainerKey(slot.trainerUsername(), slot.date())), slot, i, "TRAINER");
+            collect(conflicts, trees.get(roomKey(slot.room(), slot.date())), slot, i, "ROOM");
+        }
+        return conflicts;
+    }
+
+    /**
+     * Existing sessions of a date range, for callers placing many sessions at once (auto-planner)
+     */
+    public Occupancy loadOccupancy(LocalDate from, LocalDate to) {
+        return new Occupancy(trees(load(from, to, Set.of())));
+    }
+
+    /**
+     * Read-only view of booked trainer / room time on each day
+     */
+    public static final class Occupancy {
+        private final Map<String, IntervalTree> trees;
+
+        private Occupancy(Map<String, IntervalTree> trees) {
+            this.trees = trees;
+        }
+
+        public boolean trainerBusy(String username, LocalDate date, LocalTime start, LocalTime end) {
+            return busy(trainerKey(username, date), start, end);
+        }
+
+        public boolean roomBusy(String room, LocalDate date, LocalTime start, LocalTime end) {
+            return busy(roomKey(room, date), start, end);
+        }
+
+        private boolean busy(String key, LocalTime start, LocalTime end) {
+            IntervalTree tree = key != null ? trees.get(key) : null;
+            if (tree == null) return false;
+            List<Interval> hits = new ArrayList<>();
+            tree.overlapping(start.toSecondOfDay(), end.toSecondOfDay(), hits);
+            return !hits.isEmpty();
+        }
+    }
+
+    private Map<String, List<Interval>> load(LocalDate from, LocalDate to, Set<Long> replaced) {
+        Map<String, List<Interval>> byKey = new HashMap<>();
+        jdbcTemplate.query(LOAD_SQL, rs -> {
+            long id = rs.getLong(1);
+            if (replaced.contains(id)) return;
+            LocalDate date = rs.getDate(2).toLocalDate();
+            Interval interval = new Interval(rs.getTime(3).toLocalTime().toSecondOfDay(),
+                    rs.getTime(4).toLocalTime().toSecondOfDay(), id, -1);
+            add(byKey, trainerKey(rs.getString(5), date), interval);
+            add(byKey, roomKey(rs.getString(6), date), interval);
+        }, Date.valueOf(from), Date.valueOf(to));
+        return byKey;
+    }
+
+    private static Map<String, IntervalTree> trees(Map<String, List<Interval>> byKey) {
+        Map<String, IntervalTree> trees = new HashMap<>();
+        byKey.forEach((key, intervals) -> trees.put(key, new IntervalTree(intervals)));
+        return trees;
+    }
+
+    // Pairs inside the batch are reported once, on the later row
+    private void collect(List<ScheduleConflictDto> conflicts, IntervalTree tree, Slot slot, int index, String type) {
+        if (tree == null) return;
+        List<Interval> hits = new ArrayList<>();
+        tree.overlapping(slot.start().toSecondOfDay(), slot.end().toSecondOfDay(), hits);
+        for (Interval hit : hits) {
+            if (hit.index >= index) continue;
+            boolean existing = hit.index < 0;
+            String subject = "TRAINER".equals(type) ? "Trainer" : "Phòng học";
+            conflicts.add(ScheduleConflictDto.builder()
+                    .index(index)
+                    .type(type)
+                    .date(slot.date().toString())
+                    .startTime(slot.start().toString())
+                    .endTime(slot.end().toString())
+                    .conflictingSessionId(hit.sessionId)
+                    .conflictingIndex(existing ? null : hit.index)
+                    .message(existing
+                            ? subject + " đã có lịch trùng giờ trong ngày này"
+                            : subject + " trùng giờ với dòng " + (hit.index + 1) + " trong danh sách")
+                    .build());
+        }
+    }
+
+    private static void add(Map<String, List<Interval>> byKey, String key, Interval interval) {
+        if (key != null) byKey.computeIfAbsent(key, k -> new ArrayList<>()).add(interval);
+    }
+
+    private static String trainerKey(String username, LocalDate date) {
+        return username == null || username.isBlank() ? null
+                : "T|" + username.trim().toLowerCase(Locale.ROOT) + "|" + date;
+    }
+
+    private static String roomKey(String room, LocalDate date) {
+        return room == null || room.isBlank() ? null
+                : "R|" + room.trim().toLowerCase(Locale.ROOT) + "|" + date;
+    }
+
+    /**
+     * Half-open [start, end) in seconds of the day; sessionId for existing sessions, index >= 0 for batch slots
+     */
+    private record Interval(int start, int end, Long sessionId, int index) {}
+
+    /**
+     * Static interval tree: intervals sorted by start form an implicit balanced BST (node = middle of its range),
+     * each node holding the largest end of its subtree so whole subtrees ending before the query are skipped.
+     */
+    private static final class IntervalTree {
+        private final Interval[] nodes;
+        private final int[] maxEnd;
+
+        IntervalTree(List<Interval> intervals) {
+            this.nodes = intervals.toArray(new Interval[0]);
+            Arrays.sort(nodes, Comparator.comparingInt(Interval::start));
+            this.maxEnd = new int[nodes.length];
+            build(0, nodes.length);
+        }
+
+        private int build(int lo, int hi) {
+            if (lo >= hi) return Integer.MIN_VALUE;
+            int mid = (lo + hi) >>> 1;
+            int max = Math.max(nodes[mid].end(), Math.max(build(lo, mid), build(mid + 1, hi)));
+            maxEnd[mid] = max;
+            return max;
+        }
+
+        void overlapping(int start, int end, List<Interval> out) {
+            search(0, nodes.length, start, end, out);
+        }
+
+        private void search(int lo, int hi, int start, int end, List<Interval> out) {
+            if (lo >= hi) return;
+            int mid = (lo + hi) >>> 1;
+            if (maxEnd[mid] <= start) return;
+            search(lo, mid, start, end, out);
+            if (nodes[mid].start() >= end) return; // right subtree starts even later
+            if (nodes[mid].end() > start) out.add(nodes[mid]);
+            search(mid + 1, hi, start, end, out);
+        }
+    }
+}
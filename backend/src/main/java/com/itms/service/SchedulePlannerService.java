@@ -0,0 +1,570 @@
+package com.itms.service;
+
+import com.itms.common.CourseStatus;
+import com.itms.common.LocationType;
+import com.itms.common.SessionStatus;
+import com.itms.dto.AutoPlanRequest;
+import com.itms.dto.AutoPlanResultDto;
+import com.itms.dto.HrScheduleDto;
+import com.itms.dto.ScheduleConflictDto;
+import com.itms.entity.ClassRoom;
+import com.itms.entity.User;
+import com.itms.repository.ClassRoomRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * Schedule auto-planner: places the requested number of sessions for a set of classes into
+ * (day, timeslot, room) cells without trainer, room or same-class-same-day clashes, respecting trainer
+ * availability and the sessions already booked in the range.
+ * The search is simulated annealing over a min-conflict cost (hard clashes weigh far more than the soft
+ * "spread the class evenly over the range" term). Independent restarts run in parallel on the planner pool and
+ * the best result wins; sessions still clashing at the end are reported as unplaced, never proposed.
+ * Nothing is saved: HR reviews the proposal and commits it through the schedule import.
+ */
+@Service
+@Slf4j
+public class SchedulePlannerService {
+
+    private static final int MAX_RANGE_DAYS = 366;
+    private static final int MAX_CELLS = 200_000;
+    // Initial placement prices every cell up to this size, a random sample beyond it
+    private static final int GREEDY_SCAN = 4096;
+    private static final int DEFAULT_DURATION_MINUTES = 120;
+    // One clash must always cost more than any amount of soft spreading
+    private static final long HARD_WEIGHT = 10_000;
+
+    private final ClassRoomRepository classRoomRepository;
+    private final ScheduleConflictEngine scheduleConflictEngine;
+    private final ThreadPoolTaskExecutor executor;
+    private final Set<LocalDate> holidays;
+
+    @Value("${itms.schedule.planner.iterations:200000}")
+    private int iterations;
+
+    @Value("${itms.schedule.planner.timeout-seconds:20}")
+    private int timeoutSeconds;
+
+    public SchedulePlannerService(ClassRoomRepository classRoomRepository,
+                                  ScheduleConflictEngine scheduleConflictEngine,
+                                  @Qualifier("schedulePlannerExecutor") ThreadPoolTaskExecutor executor,
+                                  @Value("${itms.schedule.holidays:}") String holidays) {
+        this.classRoomRepository = classRoomRepository;
+        this.scheduleConflictEngine = scheduleConflictEngine;
+        this.executor = executor;
+        this.holidays = Arrays.stream(holidays.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .map(LocalDate::parse)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    public AutoPlanResultDto plan(AutoPlanRequest request) {
+        long startedAt = System.currentTimeMillis();
+        Problem problem = buildProblem(request);
+
+        int restarts = executor.getMaxPoolSize();
+        long deadline = System.nanoTime() + timeoutSeconds * 1_000_000_000L;
+        List<Future<Solution>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < restarts; i++) {
+                futures.add(executor.submit(() -> new Search(problem, new SplittableRandom()).run(iterations, deadline)));
+            }
+        } catch (TaskRejectedException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw new RuntimeException("Hệ thống đang lập lịch cho yêu cầu khác, vui lòng thử lại sau");
+        }
+
+        Solution best = null;
+        long moves = 0;
+        for (Future<Solution> future : futures) {
+            try {
+                Solution solution = future.get();
+                moves += solution.iterations();
+                if (best == null || solution.cost() < best.cost()) best = solution;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Lập lịch bị gián đoạn");
+            } catch (ExecutionException e) {
+                log.error("Planner restart failed: {}", e.getCause().getMessage());
+            }
+        }
+        if (best == null) {
+            throw new RuntimeException("Không thể lập lịch, vui lòng thử lại");
+        }
+
+        AutoPlanResultDto result = toResult(problem, best);
+        result.setRestarts(futures.size());
+        result.setIterations(moves);
+        result.setElapsedMs(System.currentTimeMillis() - startedAt);
+        log.info("Auto-planned {}/{} sessions for {} classes ({} restarts, {} ms)", result.getPlannedCount(),
+                result.getRequestedCount(), problem.classes.length, futures.size(), result.getElapsedMs());
+        return result;
+    }
+
+    // ─── Problem setup ────────────────────────────────────────────────────────
+
+    private Problem buildProblem(AutoPlanRequest request) {
+        LocalDate from = request.getFromDate();
+        LocalDate to = request.getToDate();
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Ngày kết thúc phải sau ngày bắt đầu");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("Chỉ lập lịch tối đa " + MAX_RANGE_DAYS + " ngày mỗi lần");
+        }
+
+        Set<DayOfWeek> weekdays = request.getDays() == null || request.getDays().isEmpty()
+                ? EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY)
+                : parseDays(request.getDays());
+        Set<LocalDate> skip = new HashSet<>(holidays);
+        if (request.getSkipDates() != null) skip.addAll(request.getSkipDates());
+        List<LocalDate> days = new ArrayList<>();
+        for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+            if (weekdays.contains(d.getDayOfWeek()) && !skip.contains(d)) days.add(d);
+        }
+        if (days.isEmpty()) {
+            throw new IllegalArgumentException("Không có ngày học nào trong khoảng đã chọn");
+        }
+
+        int duration = request.getDurationMinutes() != null ? request.getDurationMinutes() : DEFAULT_DURATION_MINUTES;
+        LocalTime[] starts = request.getSlotStarts().stream().distinct().sorted().toArray(LocalTime[]::new);
+        for (int i = 0; i < starts.length; i++) {
+            LocalTime end = starts[i].plusMinutes(duration);
+            if (!end.isAfter(starts[i])) {
+                throw new IllegalArgumentException("Khung giờ " + starts[i] + " kết thúc sau nửa đêm");
+            }
+            if (i + 1 < starts.length && end.isAfter(starts[i + 1])) {
+                throw new IllegalArgumentException("Khung giờ " + starts[i] + " và " + starts[i + 1] + " bị chồng nhau");
+            }
+        }
+
+        Map<String, String> roomsByKey = new LinkedHashMap<>();
+        for (String room : request.getRooms()) {
+            if (room != null && !room.isBlank()) roomsByKey.putIfAbsent(room.trim().toLowerCase(Locale.ROOT), room.trim());
+        }
+        if (roomsByKey.isEmpty()) {
+            throw new IllegalArgumentException("Vui lòng nhập phòng học");
+        }
+        String[] rooms = roomsByKey.values().toArray(new String[0]);
+
+        long cells = (long) days.size() * starts.length * rooms.length;
+        if (cells > MAX_CELLS) {
+            throw new IllegalArgumentException("Khoảng lập lịch quá lớn, vui lòng chia nhỏ theo thời gian hoặc phòng");
+        }
+
+        Problem problem = new Problem(days, starts, duration, rooms);
+        loadClasses(problem, request.getClasses());
+        loadAvailability(problem, request.getTrainerAvailability(), from, to);
+        return problem;
+    }
+
+    private void loadClasses(Problem problem, List<AutoPlanRequest.ClassDemand> demands) {
+        Map<String, AutoPlanRequest.ClassDemand> byCode = new LinkedHashMap<>();
+        for (AutoPlanRequest.ClassDemand demand : demands) {
+            if (byCode.putIfAbsent(demand.getClassCode().trim(), demand) != null) {
+                throw new IllegalArgumentException("Lớp " + demand.getClassCode() + " bị lặp trong yêu cầu");
+            }
+        }
+        Map<String, ClassRoom> classRooms = classRoomRepository
+                .findByClassCodesWithCourseAndTrainer(new ArrayList<>(byCode.keySet())).stream()
+                .collect(Collectors.toMap(ClassRoom::getClassCode, c -> c));
+
+        Map<String, Integer> trainerIndex = new LinkedHashMap<>();
+        List<PlannedClass> classes = new ArrayList<>();
+        long totalSessions = 0;
+        for (AutoPlanRequest.ClassDemand demand : byCode.values()) {
+            String code = demand.getClassCode().trim();
+            ClassRoom classRoom = classRooms.get(code);
+            if (classRoom == null) {
+                throw new IllegalArgumentException("Không tìm thấy lớp học: " + code);
+            }
+            if (CourseStatus.INACTIVE.equals(classRoom.getCourse().getStatus())) {
+                throw new IllegalArgumentException("Khóa học của lớp " + code + " đang INACTIVE, không thể tạo lịch học");
+            }
+            String trainer = demand.getTrainerUsername() != null && !demand.getTrainerUsername().isBlank()
+                    ? demand.getTrainerUsername().trim()
+                    : usernameOf(classRoom.getTrainer() != null ? classRoom.getTrainer() : classRoom.getCourse().getTrainer());
+            if (trainer == null) {
+                throw new IllegalArgumentException("Lớp " + code + " chưa có trainer");
+            }
+            // A class has at most one session per day (hard classDay constraint), and every session needs its own cell
+            if (demand.getSessions() > problem.dayCount) {
+                throw new IllegalArgumentException("Lớp " + code + " cần " + demand.getSessions()
+                        + " buổi nhưng khoảng đã chọn chỉ có " + problem.dayCount + " ngày");
+            }
+            totalSessions += demand.getSessions();
+            if (totalSessions > problem.cellCount) {
+                throw new IllegalArgumentException("Tổng số buổi vượt quá số ô phòng/khung giờ ("
+                        + problem.cellCount + "), vui lòng mở rộng khoảng thời gian hoặc thêm phòng");
+            }
+            int t = trainerIndex.computeIfAbsent(trainer.toLowerCase(Locale.ROOT), k -> trainerIndex.size());
+            classes.add(new PlannedClass(classRoom, trainer, t, demand.getSessions()));
+        }
+        problem.setClasses(classes.toArray(new PlannedClass[0]), trainerIndex);
+    }
+
+    // Trainer days/dates they cannot teach plus everything already booked for trainers and rooms
+    private void loadAvailability(Problem problem, List<AutoPlanRequest.TrainerAvailability> availability,
+                                  LocalDate from, LocalDate to) {
+        Map<Integer, AutoPlanRequest.TrainerAvailability> byTrainer = new HashMap<>();
+        if (availability != null) {
+            for (AutoPlanRequest.TrainerAvailability a : availability) {
+                Integer t = problem.trainerIndex.get(a.getTrainerUsername().trim().toLowerCase(Locale.ROOT));
+                if (t != null) byTrainer.put(t, a);
+            }
+        }
+
+        ScheduleConflictEngine.Occupancy occupancy = scheduleConflictEngine.loadOccupancy(from, to);
+        for (int d = 0; d < problem.dayCount; d++) {
+            LocalDate date = problem.days.get(d);
+            for (int s = 0; s < problem.slotCount; s++) {
+                int ds = d * problem.slotCount + s;
+                LocalTime start = problem.starts[s];
+                LocalTime end = start.plusMinutes(problem.duration);
+                for (Map.Entry<String, Integer> trainer : problem.trainerIndex.entrySet()) {
+                    int t = trainer.getValue();
+                    AutoPlanRequest.TrainerAvailability a = byTrainer.get(t);
+                    boolean unavailable = a != null
+                            && ((a.getDays() != null && !a.getDays().isEmpty() && !parseDays(a.getDays()).contains(date.getDayOfWeek()))
+                                || (a.getUnavailableDates() != null && a.getUnavailableDates().contains(date)));
+                    problem.trainerBlocked[t * problem.daySlots + ds] =
+                            unavailable || occupancy.trainerBusy(trainer.getKey(), date, start, end);
+                }
+                for (int r = 0; r < problem.roomCount; r++) {
+                    problem.roomBlocked[ds * problem.roomCount + r] = occupancy.roomBusy(problem.rooms[r], date, start, end);
+                }
+            }
+        }
+    }
+
+    // ─── Result ───────────────────────────────────────────────────────────────
+
+    private AutoPlanResultDto toResult(Problem problem, Solution best) {
+        // Drop sessions that still clash; what remains is conflict-free by construction
+        Search state = new Search(problem, new SplittableRandom(0));
+        state.load(best.cells());
+        boolean[] kept = new boolean[problem.varCount];
+        for (int v = 0; v < problem.varCount; v++) {
+            int cell = state.cellOf[v];
+            state.remove(v);
+            if (state.hardAt(v, cell) == 0) {
+                state.place(v, cell);
+                kept[v] = true;
+            }
+        }
+
+        List<HrScheduleDto> sessions = new ArrayList<>();
+        List<ScheduleConflictEngine.Slot> slots = new ArrayList<>();
+        for (int v = 0; v < problem.varCount; v++) {
+            if (!kept[v]) continue;
+            int cell = state.cellOf[v];
+            PlannedClass planned = problem.classes[problem.varClass[v]];
+            LocalDate date = problem.days.get(problem.dayOf(cell));
+            LocalTime start = problem.starts[problem.slotOf(cell)];
+            String room = problem.rooms[problem.roomOf(cell)];
+            sessions.add(toDto(planned, date, start, start.plusMinutes(problem.duration), room));
+            slots.add(new ScheduleConflictEngine.Slot(null, planned.trainer(), room, date, start, start.plusMinutes(problem.duration)));
+        }
+
+        // Safety net against anything booked between loading and now
+        Set<Integer> clashing = scheduleConflictEngine.findConflicts(slots).stream()
+                .map(ScheduleConflictDto::getIndex)
+                .collect(Collectors.toSet());
+        List<HrScheduleDto> proposed = new ArrayList<>();
+        Map<String, Integer> placedPerClass = new HashMap<>();
+        for (int i = 0; i < sessions.size(); i++) {
+            if (clashing.contains(i)) continue;
+            proposed.add(sessions.get(i));
+            placedPerClass.merge(sessions.get(i).getClassCode(), 1, Integer::sum);
+        }
+        proposed.sort((a, b) -> (a.getDate() + a.getStartTime() + a.getClassCode())
+                .compareTo(b.getDate() + b.getStartTime() + b.getClassCode()));
+
+        List<String> unplaced = new ArrayList<>();
+        for (PlannedClass planned : problem.classes) {
+            int placed = placedPerClass.getOrDefault(planned.classRoom().getClassCode(), 0);
+            if (placed < planned.sessions()) {
+                unplaced.add(planned.classRoom().getClassCode() + ": " + (planned.sessions() - placed)
+                        + "/" + planned.sessions() + " buổi chưa xếp được");
+            }
+        }
+
+        return AutoPlanResultDto.builder()
+                .sessions(proposed)
+                .requestedCount(problem.varCount)
+                .plannedCount(proposed.size())
+                .unplaced(unplaced)
+                .build();
+    }
+
+    private HrScheduleDto toDto(PlannedClass planned, LocalDate date, LocalTime start, LocalTime end, String room) {
+        ClassRoom classRoom = planned.classRoom();
+        return HrScheduleDto.builder()
+                .trainerUsername(planned.trainer())
+                .courseCode(classRoom.getCourse().getCode())
+                .courseName(classRoom.getCourse().getName())
+                .classCode(classRoom.getClassCode())
+                .date(date.toString())
+                .startTime(start.toString())
+                .endTime(end.toString())
+                .room(room)
+                .locationType(LocationType.OFFLINE.name())
+                .maxCapacity(classRoom.getMaxStudents())
+                .status(SessionStatus.SCHEDULED.name())
+                .build();
+    }
+
+    private static String usernameOf(User user) {
+        return user != null ? user.getUsername() : null;
+    }
+
+    private static Set<DayOfWeek> parseDays(List<String> days) {
+        Set<DayOfWeek> parsed = EnumSet.noneOf(DayOfWeek.class);
+        for (String day : days) {
+            String code = day == null ? "" : day.trim().toUpperCase(Locale.ROOT);
+            DayOfWeek match = code.length() < 3 ? null : Arrays.stream(DayOfWeek.values())
+                    .filter(d -> d.name().startsWith(code))
+                    .findFirst()
+                    .orElse(null);
+            if (match == null) {
+                throw new IllegalArgumentException("Thứ không hợp lệ: " + day);
+            }
+            parsed.add(match);
+        }
+        return parsed;
+    }
+
+    // ─── Model ────────────────────────────────────────────────────────────────
+
+    private record PlannedClass(ClassRoom classRoom, String trainer, int trainerIndex, int sessions) {}
+
+    private record Solution(int[] cells, long cost, long iterations) {}
+
+    /**
+     * Immutable search input. Cell c = (day * slots + slot) * rooms + room.
+     */
+    private static final class Problem {
+        final List<LocalDate> days;
+        final LocalTime[] starts;
+        final int duration;
+        final String[] rooms;
+        final int dayCount;
+        final int slotCount;
+        final int roomCount;
+        final int daySlots;
+        final int cellCount;
+        final boolean[] roomBlocked;
+        boolean[] trainerBlocked;
+        Map<String, Integer> trainerIndex;
+        PlannedClass[] classes;
+        int varCount;
+        int[] varClass;
+        int[] varTarget;     // preferred day index, spreading each class evenly over the range
+
+        Problem(List<LocalDate> days, LocalTime[] starts, int duration, String[] rooms) {
+            this.days = days;
+            this.starts = starts;
+            this.duration = duration;
+            this.rooms = rooms;
+            this.dayCount = days.size();
+            this.slotCount = starts.length;
+            this.roomCount = rooms.length;
+            this.daySlots = dayCount * slotCount;
+            this.cellCount = daySlots * roomCount;
+            this.roomBlocked = new boolean[cellCount];
+        }
+
+        void setClasses(PlannedClass[] classes, Map<String, Integer> trainerIndex) {
+            this.classes = classes;
+            this.trainerIndex = trainerIndex;
+            this.trainerBlocked = new boolean[trainerIndex.size() * daySlots];
+            this.varCount = Arrays.stream(classes).mapToInt(PlannedClass::sessions).sum();
+            this.varClass = new int[varCount];
+            this.varTarget = new int[varCount];
+            int v = 0;
+            for (int k = 0; k < classes.length; k++) {
+                int n = classes[k].sessions();
+                for (int i = 0; i < n; i++, v++) {
+                    varClass[v] = k;
+                    varTarget[v] = (int) Math.min(dayCount - 1, Math.round((i + 0.5) * dayCount / n - 0.5));
+                }
+            }
+        }
+
+        int dayOf(int cell) {
+            return cell / roomCount / slotCount;
+        }
+
+        int slotOf(int cell) {
+            return (cell / roomCount) % slotCount;
+        }
+
+        int roomOf(int cell) {
+            return cell % roomCount;
+        }
+    }
+
+    /**
+     * One annealing run with its own occupancy counters; hardAt / softAt price a variable in a cell given
+     * everything else currently placed, so a move is re-priced in O(1).
+     */
+    private static final class Search {
+        private final Problem p;
+        private final SplittableRandom random;
+        final int[] cellOf;
+        private final int[] trainerUse;
+        private final int[] roomUse;
+        private final int[] classDay;
+        private long hard;
+        private long soft;
+
+        Search(Problem problem, SplittableRandom random) {
+            this.p = problem;
+            this.random = random;
+            this.cellOf = new int[problem.varCount];
+            this.trainerUse = new int[problem.trainerBlocked.length];
+            this.roomUse = new int[problem.cellCount];
+            this.classDay = new int[problem.classes.length * problem.dayCount];
+        }
+
+        Solution run(int iterations, long deadline) {
+            greedy();
+            long bestCost = cost();
+            int[] best = cellOf.clone();
+
+            double startTemp = Math.max(2.0, p.dayCount / 4.0);
+            double endTemp = 0.05;
+            long done = 0;
+            for (int it = 0; it < iterations && bestCost > 0; it++, done++) {
+                if ((it & 1023) == 0 && System.nanoTime() > deadline) break;
+                double temp = startTemp * Math.pow(endTemp / startTemp, (double) it / iterations);
+
+                int v = random.nextInt(p.varCount);
+                int from = cellOf[v];
+                int to = neighbour(v);
+                if (to == from) continue;
+
+                remove(v);
+                long delta = price(v, to) - price(v, from);
+                if (delta <= 0 || random.nextDouble() < Math.exp(-delta / temp)) {
+                    place(v, to);
+                    long cost = cost();
+                    if (cost < bestCost) {
+                        bestCost = cost;
+                        System.arraycopy(cellOf, 0, best, 0, best.length);
+                    }
+                } else {
+                    place(v, from);
+                }
+            }
+            return new Solution(best, bestCost, done);
+        }
+
+        void load(int[] cells) {
+            for (int v = 0; v < cells.length; v++) place(v, cells[v]);
+        }
+
+        // Variables in random order, each to its cheapest candidate cell (random tie-break)
+        private void greedy() {
+            int[] order = new int[p.varCount];
+            for (int i = 0; i < order.length; i++) order[i] = i;
+            for (int i = order.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int tmp = order[i];
+                order[i] = order[j];
+                order[j] = tmp;
+            }
+            for (int v : order) {
+                int bestCell = 0;
+                long bestPrice = Long.MAX_VALUE;
+                int ties = 0;
+                boolean scanAll = p.cellCount <= GREEDY_SCAN;
+                for (int i = 0; i < (scanAll ? p.cellCount : GREEDY_SCAN); i++) {
+                    int c = scanAll ? i : neighbour(v);
+                    long price = price(v, c);
+                    if (price < bestPrice) {
+                        bestPrice = price;
+                        bestCell = c;
+                        ties = 1;
+                    } else if (price == bestPrice && random.nextInt(++ties) == 0) {
+                        bestCell = c;
+                    }
+                }
+                place(v, bestCell);
+            }
+        }
+
+        // Half the moves anywhere, half near the variable's preferred day
+        private int neighbour(int v) {
+            if (random.nextBoolean()) return random.nextInt(p.cellCount);
+            int day = Math.max(0, Math.min(p.dayCount - 1, p.varTarget[v] + random.nextInt(7) - 3));
+            return (day * p.slotCount + random.nextInt(p.slotCount)) * p.roomCount + random.nextInt(p.roomCount);
+        }
+
+        private long cost() {
+            return hard * HARD_WEIGHT + soft;
+        }
+
+        private long price(int v, int cell) {
+            return hardAt(v, cell) * HARD_WEIGHT + softAt(v, cell);
+        }
+
+        int hardAt(int v, int cell) {
+            int k = p.varClass[v];
+            int ds = cell / p.roomCount;
+            int t = p.classes[k].trainerIndex() * p.daySlots + ds;
+            return (p.trainerBlocked[t] ? 1 : 0) + (p.roomBlocked[cell] ? 1 : 0)
+                    + trainerUse[t] + roomUse[cell] + classDay[k * p.dayCount + ds / p.slotCount];
+        }
+
+        private int softAt(int v, int cell) {
+            return Math.abs(p.dayOf(cell) - p.varTarget[v]);
+        }
+
+        void place(int v, int cell) {
+            hard += hardAt(v, cell);
+            soft += softAt(v, cell);
+            int k = p.varClass[v];
+            int ds = cell / p.roomCount;
+            trainerUse[p.classes[k].trainerIndex() * p.daySlots + ds]++;
+            roomUse[cell]++;
+            classDay[k * p.dayCount + ds / p.slotCount]++;
+            cellOf[v] = cell;
+        }
+
+        void remove(int v) {
+            int cell = cellOf[v];
+            int k = p.varClass[v];
+            int ds = cell / p.roomCount;
+            trainerUse[p.classes[k].trainerIndex() * p.daySlots + ds]--;
+            roomUse[cell]--;
+            classDay[k * p.dayCount + ds / p.slotCount]--;
+            hard -= hardAt(v, cell);
+            soft -= softAt(v, cell);
+        }
+    }
+}
@@ -0,0 +1,412 @@
+package com.itms.service;
+
+import com.itms.dto.CheckInResultDto;
+import com.itms.dto.CheckInWindowDto;
+import com.itms.entity.ClassRoom;
+import com.itms.entity.Session;
+import com.itms.entity.User;
+import com.itms.exception.ApiException;
+import com.itms.repository.ClassRoomRepository;
+import com.itms.repository.SessionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Time-windowed self check-in for a session.
+ * A trainer opens a window and shows a rotating code (or a QR payload carrying it); employees submit it from
+ * their own devices. Each check-in is validated against the in-memory window (code, expiry, class membership),
+ * deduplicated per user and queued; no database work happens on the request thread. A scheduled flush writes
+ * the queue as one batched attendance upsert per session, so a burst of check-ins costs a few statements.
+ * Wrong codes are counted per user and session (per user for a typed code without a session); after
+ * max-failed-codes the user is locked out for lockout-minutes, so the 6-digit code cannot be guessed.
+ * Only the class or course trainer, or the trainer of the session itself, can open, read or close a window.
+ */
+@Service
+@Slf4j
+public class SelfCheckInService {
+
+    private static final String QR_PREFIX = "ITMS-CHECKIN";
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final TrainerAttendanceService trainerAttendanceService;
+    private final ClassRoomRepository classRoomRepository;
+    private final SessionRepository sessionRepository;
+    private final AttendanceMatrixCache attendanceMatrixCache;
+
+    @Value("${itms.attendance.check-in.rotation-seconds:30}")
+    private int rotationSeconds;
+
+    @Value("${itms.attendance.check-in.default-minutes:10}")
+    private int defaultMinutes;
+
+    @Value("${itms.attendance.check-in.max-minutes:60}")
+    private int maxMinutes;
+
+    @Value("${itms.attendance.check-in.batch-size:500}")
+    private int batchSize;
+
+    // Flushes a check-in may fail before it is dropped (and the student can check in again)
+    @Value("${itms.attendance.check-in.max-flush-attempts:5}")
+    private int maxFlushAttempts;
+
+    @Value("${itms.attendance.check-in.max-failed-codes:5}")
+    private int maxFailedCodes;
+
+    @Value("${itms.attendance.check-in.lockout-minutes:5}")
+    private int lockoutMinutes;
+
+    // sessionId -> open window
+    private final Map<Long, Window> windows = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Pending> queue = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    // Recent wrong codes per user and session (sessionId null: typed code without a session)
+    private final Map<FailureKey, FailedCodes> failedCodes = new ConcurrentHashMap<>();
+
+    public SelfCheckInService(TrainerAttendanceService trainerAttendanceService,
+                              ClassRoomRepository classRoomRepository,
+                              SessionRepository sessionRepository,
+                              AttendanceMatrixCache attendanceMatrixCache) {
+        this.trainerAttendanceService = trainerAttendanceService;
+        this.classRoomRepository = classRoomRepository;
+        this.sessionRepository = sessionRepository;
+        this.attendanceMatrixCache = attendanceMatrixCache;
+    }
+
+    /**
+     * Trainer: open (or extend) the check-in window for today's session of a class
+     */
+    public CheckInWindowDto openWindow(String classCode, Integer trainerId, Integer minutes) {
+        ClassRoom classRoom = classRoomRepository.findByClassCodeWithCourse(classCode)
+                .orElseThrow(() -> new RuntimeException("Lớp học không tồn tại: " + classCode));
+        int duration = minutes != null ? minutes : defaultMinutes;
+        if (duration < 1 || duration > maxMinutes) {
+            throw new IllegalArgumentException("Thời gian điểm danh phải từ 1 đến " + maxMinutes + " phút");
+        }
+        LocalDate today = LocalDate.now();
+        Set<Integer> trainerIds = new HashSet<>();
+        addId(trainerIds, classRoom.getTrainer());
+        if (classRoom.getCourse() != null) addId(trainerIds, classRoom.getCourse().getTrainer());
+        sessionRepository.findByClassRoomIdAndDate(classRoom.getId(), today)
+                .ifPresent(s -> addId(trainerIds, s.getTrainer()));
+        if (!trainerIds.contains(trainerId)) {
+            throw new AccessDeniedException("Trainer " + trainerId + " does not teach class " + classCode);
+        }
+
+        Session session = trainerAttendanceService.getOrCreateSession(classRoom, today, trainerId);
+        Instant closesAt = Instant.now().plusSeconds(duration * 60L);
+        Window window = windows.compute(session.getId(), (id, existing) -> {
+            if (existing != null && !existing.isClosed()) {
+                existing.trainerIds.addAll(trainerIds);
+                existing.closesAt = closesAt;
+                return existing;
+            }
+            byte[] secret = new byte[32];
+            RANDOM.nextBytes(secret);
+            return new Window(id, classRoom.getId(), classRoom.getClassCode(), classRoom.getClassName(),
+                    session.getDate(), secret, closesAt, trainerIds);
+        });
+        log.info("Check-in window for session {} open until {}", session.getId(), closesAt);
+        return toDto(window);
+    }
+
+    /**
+     * Trainer: current code of an open window (polled to display the rotating code)
+     */
+    public CheckInWindowDto getWindow(Long sessionId, Integer trainerId) {
+        Window window = windows.get(sessionId);
+        if (window == null || window.isClosed()) {
+            throw new IllegalArgumentException("Phiên điểm danh đã đóng");
+        }
+        checkTrainer(window, trainerId);
+        return toDto(window);
+    }
+
+    /**
+     * Trainer: close a window early; check-ins already accepted are still written
+     */
+    public void closeWindow(Long sessionId, Integer trainerId) {
+        Window window = windows.get(sessionId);
+        if (window != null) {
+            checkTrainer(window, trainerId);
+            window.closesAt = Instant.now();
+        }
+    }
+
+    /**
+     * Employee: check in with the displayed code or the scanned QR payload.
+     * sessionId may be omitted when only the typed code is known.
+     */
+    public CheckInResultDto checkIn(Integer userId, Long sessionId, String code) {
+        String submitted = code != null ? code.trim() : "";
+        if (submitted.startsWith(QR_PREFIX + ":")) {
+            String[] parts = submitted.split(":");
+            if (parts.length != 3) throw new IllegalArgumentException("Mã QR không hợp lệ");
+            try {
+                sessionId = Long.valueOf(parts[1]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Mã QR không hợp lệ");
+            }
+            submitted = parts[2];
+        }
+
+        FailureKey failureKey = new FailureKey(userId, sessionId);
+        checkNotLockedOut(failureKey);
+
+        long step = currentStep();
+        Window window = sessionId != null ? windows.get(sessionId) : findWindowByCode(submitted, step, userId);
+        if (window == null && sessionId == null) {
+            // No open window of the user's classes takes this code
+            recordFailedCode(failureKey);
+            throw new IllegalArgumentException("Mã điểm danh không đúng hoặc đã hết hạn");
+        }
+        if (window == null || window.isClosed()) {
+            throw new IllegalArgumentException("Phiên điểm danh không tồn tại hoặc đã đóng");
+        }
+        if (!window.accepts(submitted, step)) {
+            recordFailedCode(failureKey);
+            throw new IllegalArgumentException("Mã điểm danh không đúng hoặc đã hết hạn");
+        }
+        failedCodes.remove(failureKey);
+        if (!attendanceMatrixCache.get(window.classId).isMember(userId)) {
+            throw new IllegalArgumentException("Bạn không thuộc lớp học này");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        boolean accepted = window.checkedIn.add(userId);
+        if (accepted) {
+            queue.add(new Pending(window.classId, window.sessionId, window.date, userId, now, 0));
+        }
+        return CheckInResultDto.builder()
+                .sessionId(window.sessionId)
+                .classCode(window.classCode)
+                .className(window.className)
+                .status(accepted ? "ACCEPTED" : "ALREADY_CHECKED_IN")
+                .checkedInAt(accepted ? now : null)
+                .build();
+    }
+
+    /**
+     * Write queued check-ins, one transaction and one batch per session.
+     * A failed batch is retried on later flushes up to max-flush-attempts, then dropped and logged.
+     */
+    @Scheduled(fixedDelayString = "${itms.attendance.check-in.flush-interval-ms:1000}")
+    public void flush() {
+        if (queue.isEmpty() || !flushLock.tryLock()) return;
+        try {
+            List<Pending> drained = new ArrayList<>();
+            Pending next;
+            while (drained.size() < batchSize && (next = queue.poll()) != null) {
+                drained.add(next);
+            }
+
+            Map<Long, List<Pending>> bySession = new LinkedHashMap<>();
+            for (Pending p : drained) {
+                bySession.computeIfAbsent(p.sessionId, id -> new ArrayList<>()).add(p);
+            }
+            bySession.forEach((sessionId, pending) -> {
+                Pending first = pending.get(0);
+                try {
+                    trainerAttendanceService.applyCheckIns(first.classId, sessionId, first.date, pending.stream()
+                            .map(p -> new TrainerAttendanceService.SelfCheckIn(p.userId, p.checkedInAt))
+                            .toList());
+                } catch (Exception e) {
+                    log.error("Failed to write {} check-ins for session {}: {}", pending.size(), sessionId, e.getMessage());
+                    requeue(sessionId, pending);
+                }
+            });
+        } finally {
+            flushLock.unlock();
+        }
+        evictClosedWindows();
+        evictExpiredFailures();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        int remaining = queue.size();
+        while (remaining > 0) {
+            flush();
+            if (queue.size() >= remaining) break; // no progress (database down): give up
+            remaining = queue.size();
+        }
+    }
+
+    // Keep failed check-ins for the next flush; past the attempt cap they are dropped and the students
+    // released from the window so they can check in again while it is open
+    private void requeue(Long sessionId, List<Pending> pending) {
+        List<Integer> dropped = new ArrayList<>();
+        for (Pending p : pending) {
+            if (p.attempts + 1 < maxFlushAttempts) {
+                queue.add(p.retried());
+            } else {
+                dropped.add(p.userId);
+            }
+        }
+        if (!dropped.isEmpty()) {
+            Window window = windows.get(sessionId);
+            if (window != null) window.checkedIn.removeAll(dropped);
+            log.error("Dropped {} check-ins for session {} after {} failed flushes: users {}",
+                    dropped.size(), sessionId, maxFlushAttempts, dropped);
+        }
+    }
+
+    private void checkNotLockedOut(FailureKey key) {
+        FailedCodes failed = failedCodes.get(key);
+        if (failed != null && failed.count() >= maxFailedCodes && Instant.now().isBefore(failed.expiresAt(lockoutMinutes))) {
+            throw new ApiException(HttpStatus.TOO_MANY_REQUESTS,
+                    "Bạn đã nhập sai mã điểm danh quá nhiều lần, vui lòng thử lại sau " + lockoutMinutes + " phút");
+        }
+    }
+
+    // The count restarts once lockout-minutes pass without a wrong code
+    private void recordFailedCode(FailureKey key) {
+        Instant now = Instant.now();
+        FailedCodes failed = failedCodes.compute(key, (k, previous) ->
+                previous == null || !now.isBefore(previous.expiresAt(lockoutMinutes))
+                        ? new FailedCodes(1, now)
+                        : new FailedCodes(previous.count() + 1, now));
+        if (failed.count() == maxFailedCodes) {
+            log.warn("User {} locked out of check-in (session {}) after {} wrong codes", key.userId(), key.sessionId(), maxFailedCodes);
+        }
+    }
+
+    private void evictExpiredFailures() {
+        Instant now = Instant.now();
+        failedCodes.values().removeIf(f -> !now.isBefore(f.expiresAt(lockoutMinutes)));
+    }
+
+    private void checkTrainer(Window window, Integer trainerId) {
+        if (!window.trainerIds.contains(trainerId)) {
+            throw new AccessDeniedException("Trainer " + trainerId + " does not own session " + window.sessionId);
+        }
+    }
+
+    private static void addId(Set<Integer> ids, User user) {
+        if (user != null) ids.add(user.getId());
+    }
+
+    // Closed windows are kept a little longer so late submits get a clear "closed" answer
+    private void evictClosedWindows() {
+        Instant cutoff = Instant.now().minusSeconds(rotationSeconds * 10L);
+        windows.values().removeIf(w -> w.closesAt.isBefore(cutoff));
+    }
+
+    private Window findWindowByCode(String code, long step, Integer userId) {
+        for (Window window : windows.values()) {
+            if (!window.isClosed() && window.accepts(code, step)
+                    && attendanceMatrixCache.get(window.classId).isMember(userId)) {
+                return window;
+            }
+        }
+        return null;
+    }
+
+    private long currentStep() {
+        return Instant.now().getEpochSecond() / rotationSeconds;
+    }
+
+    private CheckInWindowDto toDto(Window window) {
+        long step = currentStep();
+        String code = window.code(step);
+        return CheckInWindowDto.builder()
+                .sessionId(window.sessionId)
+                .classCode(window.classCode)
+                .className(window.className)
+                .code(code)
+                .qrPayload(QR_PREFIX + ":" + window.sessionId + ":" + code)
+                .codeExpiresAt(LocalDateTime.ofInstant(Instant.ofEpochSecond((step + 1) * rotationSeconds), ZoneId.systemDefault()))
+                .closesAt(LocalDateTime.ofInstant(window.closesAt, ZoneId.systemDefault()))
+                .checkedInCount(window.checkedIn.size())
+                .build();
+    }
+
+    private record FailureKey(Integer userId, Long sessionId) {}
+
+    private record FailedCodes(int count, Instant lastFailure) {
+        Instant expiresAt(int lockoutMinutes) {
+            return lastFailure.plusSeconds(lockoutMinutes * 60L);
+        }
+    }
+
+    private record Pending(Integer classId, Long sessionId, LocalDate date, Integer userId, LocalDateTime checkedInAt,
+                           int attempts) {
+        Pending retried() {
+            return new Pending(classId, sessionId, date, userId, checkedInAt, attempts + 1);
+        }
+    }
+
+    /**
+     * Open check-in window of one session; codes are HMAC-SHA256(secret, time step) truncated to 6 digits
+     */
+    private static final class Window {
+        final Long sessionId;
+        final Integer classId;
+        final String classCode;
+        final String className;
+        final LocalDate date;
+        final byte[] secret;
+        final Set<Integer> checkedIn = ConcurrentHashMap.newKeySet();
+        // Trainers allowed to read or close the window (class, course and session trainer)
+        final Set<Integer> trainerIds = ConcurrentHashMap.newKeySet();
+        volatile Instant closesAt;
+
+        Window(Long sessionId, Integer classId, String classCode, String className,
+               LocalDate date, byte[] secret, Instant closesAt, Set<Integer> trainerIds) {
+            this.sessionId = sessionId;
+            this.classId = classId;
+            this.classCode = classCode;
+            this.className = className;
+            this.date = date;
+            this.secret = secret;
+            this.closesAt = closesAt;
+            this.trainerIds.addAll(trainerIds);
+        }
+
+        boolean isClosed() {
+            return !Instant.now().isBefore(closesAt);
+        }
+
+        // The previous code stays valid for one rotation, covering codes read just before they changed
+        boolean accepts(String submitted, long step) {
+            return submitted.equals(code(step)) || submitted.equals(code(step - 1));
+        }
+
+        String code(long step) {
+            try {
+                Mac mac = Mac.getInstance("HmacSHA256");
+                mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+                byte[] hash = mac.doFinal(ByteBuffer.allocate(8).putLong(step).array());
+                int offset = hash[hash.length - 1] & 0x0f;
+                int binary = ((hash[offset] & 0x7f) << 24) | ((hash[offset + 1] & 0xff) << 16)
+                        | ((hash[offset + 2] & 0xff) << 8) | (hash[offset + 3] & 0xff);
+                return String.format("%06d", binary % 1_000_000);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.itms.service;
+
+import com.itms.common.CourseStatus;
+import com.itms.common.LocationType;
+import com.itms.common.SessionStatus;
+import com.itms.dto.GenerateSessionsRequest;
+import com.itms.dto.HrScheduleDto;
+import com.itms.dto.ScheduleConflictDto;
+import com.itms.dto.SessionGenerationResultDto;
+import com.itms.entity.ClassRoom;
+import com.itms.entity.Course;
+import com.itms.entity.CourseSchedule;
+import com.itms.entity.User;
+import com.itms.exception.ScheduleConflictException;
+import com.itms.repository.ClassRoomRepository;
+import com.itms.repository.CourseScheduleRepository;
+import com.itms.repository.SessionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Types;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Expands a class's weekly CourseSchedule templates into concrete sessions over a date range.
+ * Holidays (itms.schedule.holidays) and per-request skip dates are left out, slots the class already has are
+ * skipped so a range can be regenerated safely, the whole expansion is conflict-checked in one pass and the
+ * sessions are written with one batched insert.
+ */
+@Service
+@Slf4j
+public class SessionGeneratorService {
+
+    private static final int MAX_RANGE_DAYS = 366;
+
+    private static final String INSERT_SQL = """
+        INSERT INTO Session (course_id, class_id, schedule_id, trainer_id, date, time_start, time_end,
+                             location, location_type, meeting_link, max_capacity, current_enrolled,
+                             status, notes, created_at, created_by)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0, ?, ?, GETDATE(), ?)
+    """;
+
+    private final ClassRoomRepository classRoomRepository;
+    private final CourseScheduleRepository courseScheduleRepository;
+    private final SessionRepository sessionRepository;
+    private final ScheduleConflictEngine scheduleConflictEngine;
+    private final CourseCompletionService courseCompletionService;
+    private final AttendanceMatrixCache attendanceMatrixCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final Set<LocalDate> holidays;
+
+    public SessionGeneratorService(ClassRoomRepository classRoomRepository,
+                                   CourseScheduleRepository courseScheduleRepository,
+                                   SessionRepository sessionRepository,
+                                   ScheduleConflictEngine scheduleConflictEngine,
+                                   CourseCompletionService courseCompletionService,
+                                   AttendanceMatrixCache attendanceMatrixCache,
+                                   JdbcTemplate jdbcTemplate,
+                                   @Value("${itms.schedule.holidays:}") String holidays) {
+        this.classRoomRepository = classRoomRepository;
+        this.courseScheduleRepository = courseScheduleRepository;
+        this.sessionRepository = sessionRepository;
+        this.scheduleConflictEngine = scheduleConflictEngine;
+        this.courseCompletionService = courseCompletionService;
+        this.attendanceMatrixCache = attendanceMatrixCache;
+        this.jdbcTemplate = jdbcTemplate;
+        this.holidays = Arrays.stream(holidays.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .map(LocalDate::parse)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * Expand and (unless dryRun) save; a non-dry run with any conflict saves nothing
+     */
+    @Transactional
+    public SessionGenerationResultDto generate(GenerateSessionsRequest request, Integer createdBy) {
+        ClassRoom classRoom = classRoomRepository.findByClassCodeWithCourse(request.getClassCode())
+                .orElseThrow(() -> new IllegalArgumentException("Không tìm thấy lớp học: " + request.getClassCode()));
+        Course course = classRoom.getCourse();
+        if (CourseStatus.INACTIVE.equals(course.getStatus())) {
+            throw new IllegalArgumentException("Khóa học '" + course.getCode() + "' đang INACTIVE, không thể tạo lịch học");
+        }
+
+        LocalDate from = request.getFromDate();
+        LocalDate to = resolveEndDate(request);
+
+        List<CourseSchedule> templates = courseScheduleRepository.findByClassRoomId(classRoom.getId());
+        if (templates.isEmpty()) {
+            throw new IllegalArgumentException("Lớp " + classRoom.getClassCode() + " chưa có lịch học hàng tuần");
+        }
+        Map<DayOfWeek, List<CourseSchedule>> byDay = new EnumMap<>(DayOfWeek.class);
+        for (CourseSchedule template : templates) {
+            trainerOf(template, classRoom); // fail early on templates nobody can teach
+            byDay.computeIfAbsent(dayOf(template), d -> new ArrayList<>()).add(template);
+        }
+        byDay.values().forEach(list -> list.sort(Comparator.comparing(CourseSchedule::getTimeStart)));
+
+        Set<LocalDate> skip = new HashSet<>(holidays);
+        if (request.getSkipDates() != null) skip.addAll(request.getSkipDates());
+
+        Set<String> existing = sessionRepository.findByClassRoomIdOrderByDateAsc(classRoom.getId()).stream()
+                .map(s -> s.getDate() + "|" + s.getTimeStart())
+                .collect(Collectors.toSet());
+
+        int limit = request.getMaxSessions() != null ? request.getMaxSessions() : Integer.MAX_VALUE;
+        List<Occurrence> planned = new ArrayList<>();
+        Set<String> skippedDates = new LinkedHashSet<>();
+        Set<String> existingDates = new LinkedHashSet<>();
+        for (LocalDate date = from; !date.isAfter(to) && planned.size() < limit; date = date.plusDays(1)) {
+            for (CourseSchedule template : byDay.getOrDefault(date.getDayOfWeek(), List.of())) {
+                if (skip.contains(date)) {
+                    skippedDates.add(date.toString());
+                } else if (existing.contains(date + "|" + template.getTimeStart())) {
+                    existingDates.add(date.toString());
+                } else if (planned.size() < limit) {
+                    planned.add(new Occurrence(template, date, trainerOf(template, classRoom)));
+                }
+            }
+        }
+
+        List<ScheduleConflictDto> conflicts = scheduleConflictEngine.findConflicts(planned.stream()
+                .map(o -> new ScheduleConflictEngine.Slot(null, o.trainer().getUsername(), roomOf(o.template()),
+                        o.date(), o.template().getTimeStart(), o.template().getTimeEnd()))
+                .toList());
+        if (!conflicts.isEmpty() && !request.isDryRun()) {
+            throw new ScheduleConflictException(
+                    "Có " + conflicts.size() + " buổi học bị trùng lịch, chưa tạo buổi nào", conflicts);
+        }
+
+        boolean save = !request.isDryRun() && !planned.isEmpty();
+        if (save) {
+            insert(planned, classRoom, createdBy);
+            courseCompletionService.refreshClassAfterCommit(classRoom.getId());
+            attendanceMatrixCache.invalidateAfterCommit(classRoom.getId());
+            log.info("Generated {} sessions for class {} ({} to {})", planned.size(), classRoom.getClassCode(), from, to);
+        }
+
+        return SessionGenerationResultDto.builder()
+                .classCode(classRoom.getClassCode())
+                .saved(save)
+                .generatedCount(planned.size())
+                .sessions(planned.stream().map(o -> toDto(o, classRoom)).toList())
+                .skippedDates(new ArrayList<>(skippedDates))
+                .existingDates(new ArrayList<>(existingDates))
+                .conflicts(conflicts)
+                .build();
+    }
+
+    private void insert(List<Occurrence> planned, ClassRoom classRoom, Integer createdBy) {
+        String notes = "CLASS_CODE=" + classRoom.getClassCode();
+        int capacity = capacityOf(classRoom);
+        jdbcTemplate.batchUpdate(INSERT_SQL, planned, planned.size(), (ps, o) -> {
+            CourseSchedule t = o.template();
+            LocationType type = locationTypeOf(t);
+            ps.setInt(1, classRoom.getCourse().getId());
+            ps.setInt(2, classRoom.getId());
+            ps.setInt(3, t.getId());
+            ps.setInt(4, o.trainer().getId());
+            ps.setDate(5, Date.valueOf(o.date()));
+            ps.setTime(6, Time.valueOf(t.getTimeStart()));
+            ps.setTime(7, Time.valueOf(t.getTimeEnd()));
+            ps.setString(8, type == LocationType.OFFLINE ? t.getLocation() : "ONLINE");
+            ps.setString(9, type.name());
+            ps.setString(10, type != LocationType.OFFLINE ? t.getMeetingLink() : null);
+            ps.setInt(11, capacity);
+            ps.setString(12, SessionStatus.SCHEDULED.name());
+            ps.setString(13, notes);
+            if (createdBy != null) ps.setInt(14, createdBy);
+            else ps.setNull(14, Types.INTEGER);
+        });
+    }
+
+    private LocalDate resolveEndDate(GenerateSessionsRequest request) {
+        LocalDate from = request.getFromDate();
+        if (request.getToDate() == null && request.getMaxSessions() == null) {
+            throw new IllegalArgumentException("Vui lòng chọn ngày kết thúc hoặc số buổi học");
+        }
+        LocalDate to = request.getToDate() != null ? request.getToDate() : from.plusDays(MAX_RANGE_DAYS - 1);
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Ngày kết thúc phải sau ngày bắt đầu");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("Chỉ tạo lịch tối đa " + MAX_RANGE_DAYS + " ngày mỗi lần");
+        }
+        return to;
+    }
+
+    // Template trainer, else the class's, else the course's
+    private User trainerOf(CourseSchedule template, ClassRoom classRoom) {
+        if (template.getTrainer() != null) return template.getTrainer();
+        if (classRoom.getTrainer() != null) return classRoom.getTrainer();
+        if (classRoom.getCourse().getTrainer() != null) return classRoom.getCourse().getTrainer();
+        throw new IllegalArgumentException("Lịch " + template.getDayOfWeek() + " " + template.getTimeStart()
+                + " của lớp " + classRoom.getClassCode() + " chưa có trainer");
+    }
+
+    private DayOfWeek dayOf(CourseSchedule template) {
+        String day = template.getDayOfWeek() == null ? "" : template.getDayOfWeek().trim().toUpperCase();
+        for (DayOfWeek d : DayOfWeek.values()) {
+            if (d.name().startsWith(day) && day.length() >= 3) return d;
+        }
+        throw new IllegalArgumentException("Thứ trong lịch học không hợp lệ: " + template.getDayOfWeek());
+    }
+
+    private LocationType locationTypeOf(CourseSchedule template) {
+        return template.getLocationType() != null ? template.getLocationType() : LocationType.OFFLINE;
+    }
+
+    private String roomOf(CourseSchedule template) {
+        return locationTypeOf(template) == LocationType.OFFLINE ? template.getLocation() : null;
+    }
+
+    private int capacityOf(ClassRoom classRoom) {
+        return classRoom.getMaxStudents() != null && classRoom.getMaxStudents() > 0 ? classRoom.getMaxStudents() : 100;
+    }
+
+    private HrScheduleDto toDto(Occurrence o, ClassRoom classRoom) {
+        CourseSchedule t = o.template();
+        LocationType type = locationTypeOf(t);
+        return HrScheduleDto.builder()
+                .trainerUsername(o.trainer().getUsername())
+                .courseCode(classRoom.getCourse().getCode())
+                .courseName(classRoom.getCourse().getName())
+                .classCode(classRoom.getClassCode())
+                .date(o.date().toString())
+                .startTime(t.getTimeStart().toString())
+                .endTime(t.getTimeEnd().toString())
+                .room(type == LocationType.OFFLINE ? (t.getLocation() == null ? "" : t.getLocation()) : "")
+                .locationType(type.name())
+                .meetingLink(type != LocationType.OFFLINE && t.getMeetingLink() != null ? t.getMeetingLink() : "")
+                .maxCapacity(capacityOf(classRoom))
+                .currentEnrolled(0)
+                .status(SessionStatus.SCHEDULED.name())
+                .build();
+    }
+
+    private record Occurrence(CourseSchedule template, LocalDate date, User trainer) {}
+}
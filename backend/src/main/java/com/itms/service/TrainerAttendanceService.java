@@ -1,21 +1,26 @@
 package com.itms.service;
 
-import com.itms.common.EnrollmentStatus;
 import com.itms.common.LocationType;
 import com.itms.common.SessionStatus;
 import com.itms.controller.TrainerController;
 import com.itms.dto.ClassAttendanceDto;
+import com.itms.dto.ClassAttendanceMatrixDto;
 import com.itms.entity.*;
 import com.itms.repository.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -24,14 +29,52 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class TrainerAttendanceService {
 
+    // Skips students already enrolled in the session (UQ_Enrollment_UserSession)
+    private static final String INSERT_ENROLLMENT_SQL = """
+        INSERT INTO Enrollment (user_id, session_id, status, registered_at, created_at)
+        SELECT ?, ?, 'APPROVED', GETDATE(), GETDATE()
+        WHERE NOT EXISTS (
+            SELECT 1 FROM Enrollment WITH (UPDLOCK, HOLDLOCK) WHERE user_id = ? AND session_id = ?
+        )
+    """;
+
+    // The enrollment is resolved inside the statement; check-in time is kept once set
+    private static final String MERGE_ATTENDANCE_SQL = """
+        MERGE Attendance WITH (HOLDLOCK) AS t
+        USING (SELECT e.id AS enrollment_id FROM Enrollment e WHERE e.user_id = ? AND e.session_id = ?) AS s
+        ON t.enrollment_id = s.enrollment_id
+        WHEN MATCHED THEN
+            UPDATE SET attended = ?,
+                       check_in_time = CASE WHEN ? = 1 AND t.check_in_time IS NULL THEN GETDATE() ELSE t.check_in_time END,
+                       completion_status = ?, notes = ?, marked_by = ?, updated_at = GETDATE()
+        WHEN NOT MATCHED THEN
+            INSERT (enrollment_id, attended, check_in_time, completion_status, notes, marked_by, created_at, updated_at)
+            VALUES (s.enrollment_id, ?, CASE WHEN ? = 1 THEN GETDATE() END, ?, ?, ?, GETDATE(), GETDATE());
+    """;
+
+    private static final String CHECK_IN_ATTENDANCE_SQL = """
+        MERGE Attendance WITH (HOLDLOCK) AS t
+        USING (SELECT e.id AS enrollment_id FROM Enrollment e WHERE e.user_id = ? AND e.session_id = ?) AS s
+        ON t.enrollment_id = s.enrollment_id
+        WHEN MATCHED THEN
+            UPDATE SET attended = 1, check_in_time = ISNULL(t.check_in_time, ?),
+                       completion_status = 'COMPLETED', updated_at = GETDATE()
+        WHEN NOT MATCHED THEN
+            INSERT (enrollment_id, attended, check_in_time, completion_status, created_at, updated_at)
+            VALUES (s.enrollment_id, 1, ?, 'COMPLETED', GETDATE(), GETDATE());
+    """;
+
     private final ClassRoomRepository classRoomRepository;
     private final ClassMemberRepository classMemberRepository;
     private final SessionRepository sessionRepository;
-    private final EnrollmentRepository enrollmentRepository;
     private final AttendanceRepository attendanceRepository;
     private final CourseScheduleRepository courseScheduleRepository;
     private final UserRepository userRepository;
     private final CertificateService certificateService;
+    private final CourseCompletionService courseCompletionService;
+    private final JdbcTemplate jdbcTemplate;
+    private final LearningStreakService learningStreakService;
+    private final AttendanceMatrixCache attendanceMatrixCache;
 
     /**
      * Get classes that have a session TODAY for this trainer.
@@ -65,6 +108,7 @@ public class TrainerAttendanceService {
 
     /**
      * Get list of students with their attendance status for a class on a specific date.
+     * Marks come from the class's cached attendance matrix; notes from one query for the session.
      */
     public ClassAttendanceDto getClassAttendance(String classCode, LocalDate date) {
         ClassRoom classRoom = classRoomRepository.findByClassCodeWithCourse(classCode)
@@ -75,29 +119,22 @@ public class TrainerAttendanceService {
         Optional<Session> sessionOpt = sessionRepository
                 .findByClassRoomIdAndDate(classRoom.getId(), date);
 
-        List<ClassAttendanceDto.StudentAttendanceDto> students = members.stream().map(member -> {
-            Boolean attended = null;
-            String notes = null;
-
-            if (sessionOpt.isPresent()) {
-                Optional<Enrollment> enrollOpt = enrollmentRepository
-                        .findByUserIdAndSessionId(member.getUser().getId(), sessionOpt.get().getId());
-                if (enrollOpt.isPresent()) {
-                    Optional<Attendance> attOpt = attendanceRepository
-                            .findByEnrollmentId(enrollOpt.get().getId());
-                    if (attOpt.isPresent()) {
-                        attended = attOpt.get().getAttended();
-                        notes = attOpt.get().getNotes();
-                    }
-                }
+        AttendanceMatrixCache.AttendanceMatrix matrix = attendanceMatrixCache.get(classRoom.getId());
+        Map<Integer, String> notesByUser = new HashMap<>();
+        sessionOpt.ifPresent(session -> {
+            for (Object[] row : attendanceRepository.findNotesBySessionId(session.getId())) {
+                notesByUser.put(((Number) row[0]).intValue(), (String) row[1]);
             }
+        });
 
+        List<ClassAttendanceDto.StudentAttendanceDto> students = members.stream().map(member -> {
+            Integer userId = member.getUser().getId();
             return ClassAttendanceDto.StudentAttendanceDto.builder()
-                    .userId(member.getUser().getId())
+                    .userId(userId)
                     .fullName(member.getUser().getFullName())
                     .email(member.getUser().getEmail())
-                    .attended(attended)
-                    .notes(notes)
+                    .attended(sessionOpt.map(s -> matrix.attendance(userId, s.getId())).orElse(null))
+                    .notes(notesByUser.get(userId))
                     .build();
         }).collect(Collectors.toList());
 
@@ -109,9 +146,56 @@ public class TrainerAttendanceService {
                 .build();
     }
 
+    /**
+     * Attendance heatmap of a class: per-session presence and per-member rate/eligibility,
+     * computed from the cached attendance matrix.
+     */
+    public ClassAttendanceMatrixDto getClassAttendanceMatrix(String classCode) {
+        ClassRoom classRoom = classRoomRepository.findByClassCodeWithCourse(classCode)
+                .orElseThrow(() -> new RuntimeException("Lớp học không tồn tại: " + classCode));
+        Course course = classRoom.getCourse();
+        double passingRate = course != null && course.getPassingScore() != null ? course.getPassingScore() : 70.0;
+
+        AttendanceMatrixCache.AttendanceMatrix matrix = attendanceMatrixCache.get(classRoom.getId());
+        int[] present = matrix.presentPerSession();
+        List<ClassAttendanceMatrixDto.SessionColumn> sessions = new ArrayList<>(matrix.sessionCount());
+        for (int i = 0; i < matrix.sessionCount(); i++) {
+            sessions.add(ClassAttendanceMatrixDto.SessionColumn.builder()
+                    .sessionId(matrix.sessionIdAt(i))
+                    .date(matrix.sessionDateAt(i))
+                    .presentCount(present[i])
+                    .build());
+        }
+
+        List<ClassAttendanceMatrixDto.MemberRow> rows = classMemberRepository.findByClassRoomClassCode(classCode).stream()
+                .map(member -> {
+                    Integer userId = member.getUser().getId();
+                    double rate = matrix.attendanceRate(userId);
+                    return ClassAttendanceMatrixDto.MemberRow.builder()
+                            .userId(userId)
+                            .fullName(member.getUser().getFullName())
+                            .attendedSessions(matrix.attendedCount(userId))
+                            .attendanceRate(Math.round(rate * 10.0) / 10.0)
+                            .eligible(matrix.sessionCount() > 0 && rate >= passingRate)
+                            .marks(matrix.row(userId))
+                            .build();
+                })
+                .collect(Collectors.toList());
+
+        return ClassAttendanceMatrixDto.builder()
+                .classCode(classRoom.getClassCode())
+                .className(classRoom.getClassName())
+                .passingRate(passingRate)
+                .sessions(sessions)
+                .members(rows)
+                .build();
+    }
+
     /**
      * Save attendance for a class on a specific date.
      * Creates Session, Enrollment, and Attendance records as needed.
+     * Enrollments and attendance marks are written as two JDBC batches (insert-if-missing, then MERGE),
+     * so the statement count does not grow with per-student lookups.
      */
     @Transactional
     public void saveClassAttendance(String classCode, LocalDate date,
@@ -129,69 +213,110 @@ public class TrainerAttendanceService {
         log.info("Found classRoom id={}", classRoom.getId());
 
         User trainer = userRepository.getReferenceById(trainerId);
+        Session session = getOrCreateSession(classRoom, date, trainerId);
+
+        List<TrainerController.StudentAttendanceItem> marks = updates == null ? List.of() : updates.stream()
+                .filter(u -> u.getUserId() != null)
+                .collect(Collectors.toList());
+        if (!marks.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_ENROLLMENT_SQL, marks, marks.size(), (ps, u) -> {
+                ps.setInt(1, u.getUserId());
+                ps.setLong(2, session.getId());
+                ps.setInt(3, u.getUserId());
+                ps.setLong(4, session.getId());
+            });
+            jdbcTemplate.batchUpdate(MERGE_ATTENDANCE_SQL, marks, marks.size(), (ps, u) -> {
+                int present = Boolean.TRUE.equals(u.getAttended()) ? 1 : 0;
+                String status = present == 1 ? "COMPLETED" : "ABSENT";
+                ps.setInt(1, u.getUserId());
+                ps.setLong(2, session.getId());
+                // WHEN MATCHED
+                ps.setInt(3, present);
+                ps.setInt(4, present);
+                ps.setString(5, status);
+                ps.setString(6, u.getNotes());
+                ps.setInt(7, trainerId);
+                // WHEN NOT MATCHED
+                ps.setInt(8, present);
+                ps.setInt(9, present);
+                ps.setString(10, status);
+                ps.setString(11, u.getNotes());
+                ps.setInt(12, trainerId);
+            });
+        }
+        log.info("saveClassAttendance completed successfully ({} marks)", marks.size());
+        courseCompletionService.refreshClassAfterCommit(classRoom.getId());
+        Map<Boolean, List<Integer>> byPresence = marks.stream().collect(Collectors.partitioningBy(
+                u -> Boolean.TRUE.equals(u.getAttended()),
+                Collectors.mapping(TrainerController.StudentAttendanceItem::getUserId, Collectors.toList())));
+        Map<Integer, Boolean> attendedByUser = new HashMap<>();
+        marks.forEach(u -> attendedByUser.put(u.getUserId(), Boolean.TRUE.equals(u.getAttended())));
+        attendanceMatrixCache.markAfterCommit(classRoom.getId(), session.getId(), attendedByUser);
+        learningStreakService.recordActivityAfterCommit(byPresence.get(true), date);
+        learningStreakService.recordWithdrawalAfterCommit(byPresence.get(false), date);
+
+        // ── Auto-issue certificates ──────────────────────────────────────────
+        // After saving all attendance, check if each student has completed
+        // all sessions in this class and meets the passing threshold.
+        boolean isLastSession = sessionRepository.countOpenSessionsExcept(classRoom.getId(), session.getId()) == 0;
+        if (isLastSession && !marks.isEmpty()) {
+            List<Integer> userIds = marks.stream()
+                    .map(TrainerController.StudentAttendanceItem::getUserId)
+                    .collect(Collectors.toList());
+            certificateService.tryIssueCertificatesOnClassCompletion(
+                    classRoom.getCourse(), classRoom.getId(), userIds, trainer);
+        }
+    }
 
+    /**
+     * Session of a class on a date, created on demand (same as a manual attendance save)
+     */
+    @Transactional
+    public Session getOrCreateSession(ClassRoom classRoom, LocalDate date, Integer trainerId) {
         Session session = sessionRepository.findByClassRoomIdAndDate(classRoom.getId(), date)
                 .orElseGet(() -> {
                     log.info("No session found, creating new session for classRoom={} date={}", classRoom.getId(), date);
-                    return createSession(classRoom, date, trainer);
+                    return createSession(classRoom, date, userRepository.getReferenceById(trainerId));
                 });
         log.info("Session id={}", session.getId());
+        return session;
+    }
 
-        for (TrainerController.StudentAttendanceItem update : updates) {
-            log.info("Processing student userId={}", update.getUserId());
-            User student = userRepository.getReferenceById(update.getUserId());
-
-            Enrollment enrollment = enrollmentRepository
-                    .findByUserIdAndSessionId(update.getUserId(), session.getId())
-                    .orElseGet(() -> {
-                        log.info("Creating enrollment for userId={} sessionId={}", update.getUserId(), session.getId());
-                        return createEnrollment(student, session);
-                    });
-            log.info("Enrollment id={}", enrollment.getId());
-
-            Attendance attendance = attendanceRepository.findByEnrollmentId(enrollment.getId())
-                    .orElseGet(() -> {
-                        Attendance a = new Attendance();
-                        a.setEnrollment(enrollment);
-                        a.setCreatedAt(LocalDateTime.now());
-                        return a;
-                    });
-
-            boolean isPresent = Boolean.TRUE.equals(update.getAttended());
-            attendance.setAttended(isPresent);
-            attendance.setNotes(update.getNotes());
-            attendance.setMarkedBy(trainer);
-            attendance.setUpdatedAt(LocalDateTime.now());
-            if (isPresent && attendance.getCheckInTime() == null) {
-                attendance.setCheckInTime(LocalDateTime.now());
-            }
-            attendance.setCompletionStatus(isPresent ? "COMPLETED" : "ABSENT");
-
-            attendanceRepository.save(attendance);
-            log.info("Saved attendance for userId={}", update.getUserId());
-        }
-        log.info("saveClassAttendance completed successfully");
+    /**
+     * Write a buffered batch of self check-ins for one session: enrollments and attendance in two JDBC batches.
+     * A check-in marks the student present but keeps the trainer's notes and an earlier check-in time.
+     */
+    @Transactional
+    public void applyCheckIns(Integer classId, Long sessionId, LocalDate date, List<SelfCheckIn> checkIns) {
+        if (checkIns.isEmpty()) return;
+        jdbcTemplate.batchUpdate(INSERT_ENROLLMENT_SQL, checkIns, checkIns.size(), (ps, c) -> {
+            ps.setInt(1, c.userId());
+            ps.setLong(2, sessionId);
+            ps.setInt(3, c.userId());
+            ps.setLong(4, sessionId);
+        });
+        jdbcTemplate.batchUpdate(CHECK_IN_ATTENDANCE_SQL, checkIns, checkIns.size(), (ps, c) -> {
+            Timestamp at = Timestamp.valueOf(c.checkedInAt());
+            ps.setInt(1, c.userId());
+            ps.setLong(2, sessionId);
+            ps.setTimestamp(3, at);
+            ps.setTimestamp(4, at);
+        });
 
-        // ── Auto-issue certificates ──────────────────────────────────────────
-        // After saving all attendance, check if each student has completed
-        // all sessions in this class and meets the passing threshold.
-        Course course = classRoom.getCourse();
-        User trainerUser = userRepository.getReferenceById(trainerId);
-
-        List<Session> allClassSessions = sessionRepository.findByClassRoomIdOrderByDateAsc(classRoom.getId());
-        boolean isLastSession = allClassSessions.stream()
-                .allMatch(s -> s.getStatus() == SessionStatus.COMPLETED
-                        || s.getId().equals(session.getId()));
-
-        if (isLastSession) {
-            for (TrainerController.StudentAttendanceItem update : updates) {
-                User student = userRepository.getReferenceById(update.getUserId());
-                certificateService.tryIssueCertificateOnCourseCompletion(
-                        student, course, classRoom.getId(), trainerUser);
-            }
-        }
+        List<Integer> userIds = checkIns.stream().map(SelfCheckIn::userId).collect(Collectors.toList());
+        Map<Integer, Boolean> attendedByUser = new HashMap<>();
+        userIds.forEach(id -> attendedByUser.put(id, true));
+        attendanceMatrixCache.markAfterCommit(classId, sessionId, attendedByUser);
+        courseCompletionService.refreshClassAfterCommit(classId);
+        learningStreakService.recordActivityAfterCommit(userIds, date);
+        log.info("Applied {} self check-ins for session {}", checkIns.size(), sessionId);
     }
 
+    /**
+     * One accepted self check-in waiting to be written
+     */
+    public record SelfCheckIn(Integer userId, LocalDateTime checkedInAt) {}
+
     private Session createSession(ClassRoom classRoom, LocalDate date, User trainer) {
         String dayOfWeek = date.getDayOfWeek().name().substring(0, 3).toUpperCase();
         List<CourseSchedule> schedules = courseScheduleRepository.findByClassRoomId(classRoom.getId())
@@ -217,16 +342,9 @@ public class TrainerAttendanceService {
         session.setMaxCapacity(classRoom.getMaxStudents() != null ? classRoom.getMaxStudents() : 30);
         session.setCurrentEnrolled(0);
         session.setCreatedAt(LocalDateTime.now());
-        return sessionRepository.save(session);
-    }
-
-    private Enrollment createEnrollment(User student, Session session) {
-        Enrollment enrollment = new Enrollment();
-        enrollment.setUser(student);
-        enrollment.setSession(session);
-        enrollment.setStatus(EnrollmentStatus.APPROVED);
-        enrollment.setRegisteredAt(LocalDateTime.now());
-        enrollment.setCreatedAt(LocalDateTime.now());
-        return enrollmentRepository.save(enrollment);
+        Session saved = sessionRepository.save(session);
+        // The cached matrix has no column for the new session
+        attendanceMatrixCache.invalidateAfterCommit(classRoom.getId());
+        return saved;
     }
 }
@@ -1,12 +1,12 @@
 package com.itms.service;
 
+import com.itms.common.NotificationAudience;
 import com.itms.common.NotificationPriority;
 import com.itms.dto.TrainerNotificationDto;
 import com.itms.dto.TrainerNotificationRequest;
 import com.itms.entity.Course;
 import com.itms.entity.Notification;
 import com.itms.entity.User;
-import com.itms.repository.ClassMemberRepository;
 import com.itms.repository.ClassRoomRepository;
 import com.itms.repository.CourseRepository;
 import com.itms.repository.NotificationRepository;
@@ -28,8 +28,9 @@ public class TrainerNotificationService {
     private final NotificationRepository notificationRepository;
     private final UserRepository userRepository;
     private final CourseRepository courseRepository;
-    private final ClassMemberRepository classMemberRepository;
     private final ClassRoomRepository classRoomRepository;
+    private final NotificationBroadcastService notificationBroadcastService;
+    private final NotificationUnreadCounterService notificationUnreadCounterService;
 
     // Get notifications by category
     public List<TrainerNotificationDto> getNotificationsByCategory(Integer trainerId, String category) {
@@ -44,9 +45,11 @@ public class TrainerNotificationService {
                 break;
             case "inbox":
             default:
-                // Inbox: only non-draft notifications sent TO the trainer, excluding self-sent
-                notifications = notificationRepository.findNotificationsForUser(trainerId);
-                break;
+                // Inbox: non-draft notifications sent TO the trainer (excluding self-sent) merged with broadcasts
+                return notificationBroadcastService.inbox(trainerId, notificationRepository.findNotificationsForUser(trainerId))
+                        .stream()
+                        .map(e -> convertToDto(e.notification(), category, e.read()))
+                        .collect(Collectors.toList());
         }
 
         return notifications.stream()
@@ -75,13 +78,14 @@ public class TrainerNotificationService {
                 .build();
 
         Notification saved = notificationRepository.save(notification);
+        TrainerNotificationDto result = convertToDto(saved, saved.getIsDraft() ? "draft" : "sent");
 
         // If not draft, send immediately
         if (!saved.getIsDraft()) {
-            sendNotificationToRecipients(saved);
+            result.setFanOutJobId(sendNotificationToRecipients(saved));
         }
 
-        return convertToDto(saved, saved.getIsDraft() ? "draft" : "sent");
+        return result;
     }
 
     // Update draft notification
@@ -111,7 +115,7 @@ public class TrainerNotificationService {
 
     // Send notification (convert draft to sent or send immediately)
     @Transactional
-    public void sendNotification(Integer notificationId, Integer trainerId) {
+    public TrainerNotificationDto sendNotification(Integer notificationId, Integer trainerId) {
         Notification notification = notificationRepository.findById(notificationId)
                 .orElseThrow(() -> new RuntimeException("Notification not found"));
 
@@ -122,10 +126,12 @@ public class TrainerNotificationService {
         // Mark as sent
         notification.setIsDraft(false);
         notification.setSentDate(LocalDateTime.now());
-        notificationRepository.save(notification);
+        Notification sent = notificationRepository.save(notification);
 
         // Send to recipients
-        sendNotificationToRecipients(notification);
+        TrainerNotificationDto result = convertToDto(sent, "sent");
+        result.setFanOutJobId(sendNotificationToRecipients(sent));
+        return result;
     }
 
     // Delete notification
@@ -134,6 +140,11 @@ public class TrainerNotificationService {
         Notification notification = notificationRepository.findById(notificationId)
                 .orElseThrow(() -> new RuntimeException("Notification not found"));
 
+        if (notificationBroadcastService.isBroadcastFor(notification, trainerId)) {
+            notificationBroadcastService.hide(trainerId, notificationId);
+            return;
+        }
+
         // Check if user is sender (for sent/draft) or receiver (for inbox)
         boolean isSender = notification.getSender() != null && notification.getSender().getId().equals(trainerId);
         boolean isReceiver = notification.getUser().getId().equals(trainerId);
@@ -143,75 +154,43 @@ public class TrainerNotificationService {
         }
 
         notificationRepository.delete(notification);
+        notificationUnreadCounterService.deleted(notification);
     }
 
     // Mark inbox notification as read
     @Transactional
-    public void markAsRead(Integer notificationId) {
+    public void markAsRead(Integer notificationId, Integer userId) {
         Notification notification = notificationRepository.findById(notificationId)
                 .orElseThrow(() -> new RuntimeException("Notification not found"));
+        if (notificationBroadcastService.isBroadcastFor(notification, userId)) {
+            notificationBroadcastService.markRead(userId, notificationId);
+            return;
+        }
 
-        notification.setIsRead(true);
-        notification.setReadAt(LocalDateTime.now());
-        notificationRepository.save(notification);
+        notificationUnreadCounterService.markRead(notification);
     }
 
-    // Helper: Send notification to recipients
-    private void sendNotificationToRecipients(Notification sourceNotification) {
+    // Helper: Deliver to recipients (broadcast or background fan-out), returns the fan-out job id
+    private String sendNotificationToRecipients(Notification sourceNotification) {
+        NotificationAudience audience = null;
+        List<String> classCodes = null;
         if ("STUDENTS".equals(sourceNotification.getRecipientType()) && sourceNotification.getClassCodes() != null) {
-            // Send to students in specified classes
-            List<String> classCodes = Arrays.asList(sourceNotification.getClassCodes().split(","));
-            sendToStudents(sourceNotification, classCodes);
+            // Students in specified classes
+            audience = NotificationAudience.CLASS_MEMBERS;
+            classCodes = Arrays.asList(sourceNotification.getClassCodes().split(","));
         } else if ("HR".equals(sourceNotification.getRecipientType())) {
-            // Send to HR users
-            sendToHR(sourceNotification);
+            // HR users
+            audience = NotificationAudience.HR;
         }
-    }
-
-    // Helper: Send to students in specified classes
-    private void sendToStudents(Notification sourceNotification, List<String> classCodes) {
-        for (String classCode : classCodes) {
-            List<com.itms.entity.ClassMember> members =
-                    classMemberRepository.findByClassRoomClassCode(classCode.trim());
-            members.forEach(member -> {
-                if (member.getUser() != null) {
-                    createNotificationForUser(member.getUser(), sourceNotification);
-                }
-            });
-        }
-    }
-
-    // Helper: Send to HR
-    private void sendToHR(Notification sourceNotification) {
-        // Find all HR users using optimized query
-        List<User> hrUsers = userRepository.findByRoleNameOrCode("HR", "HR");
-
-        // Create notification for each HR user
-        for (User hrUser : hrUsers) {
-            createNotificationForUser(hrUser, sourceNotification);
-        }
-    }
-
-    // Helper: Create notification for a specific user
-    private void createNotificationForUser(User recipient, Notification sourceNotification) {
-        Notification notification = Notification.builder()
-                .user(recipient)
-                .sender(sourceNotification.getSender())
-                .type(sourceNotification.getType())
-                .title(sourceNotification.getTitle())
-                .message(sourceNotification.getMessage())
-                .priority(sourceNotification.getPriority())
-                .recipientType(sourceNotification.getRecipientType())
-                .isRead(false)
-                .isDraft(false)
-                .sentDate(LocalDateTime.now())
-                .build();
-
-        notificationRepository.save(notification);
+        return notificationBroadcastService.deliver(sourceNotification, audience, classCodes);
     }
 
     // Convert Notification to DTO
     private TrainerNotificationDto convertToDto(Notification n, String category) {
+        return convertToDto(n, category, n.getIsRead());
+    }
+
+    private TrainerNotificationDto convertToDto(Notification n, String category, Boolean read) {
         List<String> recipients = null;
         String sender = null;
 
@@ -232,7 +211,7 @@ public class TrainerNotificationService {
                 .title(n.getTitle())
                 .message(n.getMessage())
                 .sentDate(n.getSentDate() != null ? n.getSentDate() : n.getCreatedAt())
-                .isRead(n.getIsRead())
+                .isRead(read)
                 .type(n.getType())
                 .priority(n.getPriority())
                 .category(category)
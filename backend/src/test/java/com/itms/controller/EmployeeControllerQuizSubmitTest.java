@@ -0,0 +1,223 @@
+package com.itms.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itms.dto.QuizAttemptDto;
+import com.itms.dto.QuizDto;
+import com.itms.dto.QuizQuestionDto;
+import com.itms.dto.common.ResponseDto;
+import com.itms.dto.employee.EmployeeDtos;
+import com.itms.entity.Course;
+import com.itms.entity.Quiz;
+import com.itms.entity.QuizAttempt;
+import com.itms.entity.QuizQuestion;
+import com.itms.entity.User;
+import com.itms.repository.*;
+import com.itms.service.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Randomized quiz on the employee pages: the page starts an attempt and renders its shuffled view, the submitted
+ * option ids are indices in that view, and they are mapped back to the original options for grading and review.
+ */
+class EmployeeControllerQuizSubmitTest {
+
+    private static final int QUIZ_ID = 7;
+    private static final int USER_ID = 42;
+    private static final String[] LETTERS = {"A", "B", "C", "D"};
+
+    private final QuizRepository quizRepository = mock(QuizRepository.class);
+    private final QuizAttemptRepository quizAttemptRepository = mock(QuizAttemptRepository.class);
+    private final QuizQuestionRepository quizQuestionRepository = mock(QuizQuestionRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final CourseModuleRepository courseModuleRepository = mock(CourseModuleRepository.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    private QuizService quizService;
+    private EmployeeController controller;
+    private List<QuizQuestion> questions;
+    private QuizAttempt savedAttempt;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        quizService = new QuizService(quizRepository, quizAttemptRepository, mock(UserModuleProgressRepository.class),
+                userRepository, mock(EnrollmentRepository.class), courseModuleRepository,
+                mock(ExcelImportService.class), quizQuestionRepository, mock(SessionRepository.class),
+                mock(CertificateRepository.class), new QuizAnswerKeyService(quizQuestionRepository),
+                mock(QuizItemStatsService.class), mock(QuizPayloadCache.class), mock(CertificateRenderService.class),
+                mock(CertificateVerificationIndex.class), mock(CourseCompletionService.class),
+                mock(LearningStreakService.class), mock(QuizSubmissionRepository.class), new ObjectMapper(),
+                mock(QuizAnswerLogService.class), mock(QuizAnswerRepository.class), jdbcTemplate);
+        controller = new EmployeeController(mock(EmployeeService.class), quizService);
+
+        Course course = Course.builder().id(3).name("Java").build();
+        Quiz quiz = Quiz.builder()
+                .id(QUIZ_ID).course(course).title("Randomized quiz")
+                .totalMarks(BigDecimal.TEN).passingScore(BigDecimal.valueOf(70))
+                .randomizeQuestions(true).isFinalExam(false)
+                .createdAt(LocalDateTime.of(2026, 1, 1, 0, 0))
+                .build();
+        questions = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            questions.add(QuizQuestion.builder()
+                    .id(101 + i).quiz(quiz).questionText("Q" + i)
+                    .optionA("A" + i).optionB("B" + i).optionC("C" + i).optionD("D" + i)
+                    .correctAnswer(LETTERS[i % 4]).marks(BigDecimal.ONE).displayOrder(i)
+                    .build());
+        }
+        User user = User.builder().id(USER_ID).fullName("Learner").build();
+
+        when(quizRepository.findById(QUIZ_ID)).thenReturn(Optional.of(quiz));
+        when(userRepository.findById(USER_ID)).thenReturn(Optional.of(user));
+        when(quizQuestionRepository.findByQuizIdOrderByDisplayOrderAsc(QUIZ_ID)).thenReturn(questions);
+        when(jdbcTemplate.query(anyString(), any(PreparedStatementSetter.class), any(ResultSetExtractor.class)))
+                .thenReturn(1);
+        when(quizAttemptRepository.save(any(QuizAttempt.class))).thenAnswer(inv -> {
+            QuizAttempt attempt = inv.getArgument(0);
+            attempt.setId(900);
+            savedAttempt = attempt;
+            return attempt;
+        });
+        when(quizAttemptRepository.findById(900)).thenAnswer(inv -> Optional.ofNullable(savedAttempt));
+        when(quizAttemptRepository.findByQuizIdAndUserId(QUIZ_ID, USER_ID))
+                .thenAnswer(inv -> savedAttempt == null ? List.of() : List.of(savedAttempt));
+        when(quizAttemptRepository.claimForSubmission(anyInt())).thenReturn(1);
+    }
+
+    @Test
+    void employeeStartReturnsTheShuffledAttemptView() {
+        EmployeeDtos.QuizDto view = startView();
+
+        assertNotNull(savedAttempt.getShuffleSeed(), "employee attempts of a randomized quiz must be shuffled");
+        assertEquals(900, view.getAttemptId());
+        assertEquals(questions.size(), view.getQuestions().size());
+        assertEquals(quizService.getAttemptQuestions(900).getQuestions().stream().map(QuizQuestionDto::getId).toList(),
+                view.getQuestions().stream().map(EmployeeDtos.QuizQuestionDto::getId).toList());
+    }
+
+    @Test
+    void reloadedPageResumesTheOpenAttempt() {
+        startView();
+        Long seed = savedAttempt.getShuffleSeed();
+
+        EmployeeDtos.QuizDto again = startView();
+
+        assertEquals(900, again.getAttemptId());
+        assertEquals(seed, savedAttempt.getShuffleSeed());
+        verify(quizAttemptRepository, times(1)).save(any(QuizAttempt.class));
+    }
+
+    @Test
+    void employeeSubmitIsGradedAndReviewedInTheAttemptView() {
+        EmployeeDtos.QuizDto view = startView();
+        Map<Integer, Integer> answers = new HashMap<>();
+        for (EmployeeDtos.QuizQuestionDto q : view.getQuestions()) {
+            answers.put(q.getId(), optionIdOf(q, correctText(q.getId())));
+        }
+
+        EmployeeDtos.QuizResultDto result = resultOf(controller.submitQuiz(3, QUIZ_ID,
+                new EmployeeDtos.QuizSubmitRequest(USER_ID, view.getAttemptId(), answers)));
+
+        assertEquals(100, result.getScore());
+        assertTrue(result.getPassed());
+        assertEquals(view.getQuestions().stream().map(EmployeeDtos.QuizQuestionDto::getId).toList(),
+                result.getAnswers().stream().map(EmployeeDtos.QuizAnswerReviewDto::getQuestionId).toList());
+        for (EmployeeDtos.QuizAnswerReviewDto review : result.getAnswers()) {
+            assertTrue(review.getIsCorrect());
+            assertEquals(review.getSelectedOptionId(), review.getCorrectOptionId());
+            assertEquals(correctText(review.getQuestionId()), review.getOptions().get(review.getCorrectOptionId()).getOptionText());
+        }
+    }
+
+    @Test
+    void employeeSubmitOfWrongAnswersIsNotRescuedByTheShuffle() {
+        EmployeeDtos.QuizDto view = startView();
+        Map<Integer, Integer> answers = new HashMap<>();
+        for (EmployeeDtos.QuizQuestionDto q : view.getQuestions()) {
+            answers.put(q.getId(), (optionIdOf(q, correctText(q.getId())) + 1) % 4);
+        }
+
+        EmployeeDtos.QuizResultDto result = resultOf(controller.submitQuiz(3, QUIZ_ID,
+                new EmployeeDtos.QuizSubmitRequest(USER_ID, view.getAttemptId(), answers)));
+
+        assertEquals(0, result.getScore());
+        assertFalse(result.getPassed());
+        assertTrue(result.getAnswers().stream().noneMatch(a -> a.getSelectedOptionId().equals(a.getCorrectOptionId())));
+    }
+
+    @Test
+    void employeeSubmitWithoutAnAttemptIsRejected() {
+        ResponseEntity<?> response = controller.submitQuiz(3, QUIZ_ID,
+                new EmployeeDtos.QuizSubmitRequest(USER_ID, null, Map.of(101, 0)));
+
+        assertEquals(400, response.getStatusCode().value());
+        verify(quizAttemptRepository, never()).claimForSubmission(anyInt());
+    }
+
+    @Test
+    void shuffledAttemptIsGradedAgainstTheViewItWasShown() {
+        QuizAttemptDto attempt = quizService.startQuizAttempt(QUIZ_ID, USER_ID, null);
+        assertNotNull(savedAttempt.getShuffleSeed());
+
+        // Answer each question by finding the correct option's text in the shuffled view
+        QuizDto view = quizService.getAttemptQuestions(attempt.getId());
+        List<QuizAttemptDto.QuizAnswerDto> answers = new ArrayList<>();
+        for (QuizQuestionDto q : view.getQuestions()) {
+            QuizQuestion original = questions.stream().filter(x -> x.getId().equals(q.getId())).findFirst().orElseThrow();
+            String correctText = LETTERS[(original.getId() - 101) % 4] + (original.getId() - 101);
+            List<String> shown = List.of(q.getOptionA(), q.getOptionB(), q.getOptionC(), q.getOptionD());
+            QuizAttemptDto.QuizAnswerDto answer = new QuizAttemptDto.QuizAnswerDto();
+            answer.setQuestionId(q.getId());
+            answer.setSelectedAnswerIndex(shown.indexOf(correctText));
+            answers.add(answer);
+        }
+
+        QuizAttemptDto result = quizService.submitQuizAttempt(attempt.getId(), answers, 5);
+
+        assertEquals(0, BigDecimal.valueOf(100).compareTo(result.getScore()));
+        assertTrue(result.getPassed());
+    }
+
+    @SuppressWarnings("unchecked")
+    private EmployeeDtos.QuizDto startView() {
+        ResponseEntity<?> response = controller.startQuiz(3, QUIZ_ID, USER_ID);
+        assertEquals(200, response.getStatusCode().value(), () -> String.valueOf(response.getBody()));
+        return ((ResponseDto<EmployeeDtos.QuizDto>) response.getBody()).getData();
+    }
+
+    private static String correctText(int questionId) {
+        int i = questionId - 101;
+        return LETTERS[i % 4] + i;
+    }
+
+    private static int optionIdOf(EmployeeDtos.QuizQuestionDto q, String text) {
+        return q.getOptions().stream().filter(o -> o.getOptionText().equals(text)).findFirst().orElseThrow().getId();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static EmployeeDtos.QuizResultDto resultOf(ResponseEntity<?> response) {
+        assertEquals(200, response.getStatusCode().value(), () -> String.valueOf(response.getBody()));
+        ResponseDto<EmployeeDtos.QuizResultDto> body = (ResponseDto<EmployeeDtos.QuizResultDto>) response.getBody();
+        return body.getData();
+    }
+}
@@ -0,0 +1,186 @@
+package com.itms.service;
+
+import com.itms.entity.NotificationReadCursor;
+import com.itms.service.NotificationBroadcastService.Arrival;
+import com.itms.service.NotificationBroadcastService.ReadState;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Broadcast read cursor: ordered by arrival (sent, or audience joined), not by id, so rows with ids below
+ * the cursor that reach the user later (drafts sent late, audiences joined late) still count as unread.
+ */
+class NotificationBroadcastReadStateTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 3, 2, 9, 0);
+
+    private static Arrival at(int id, int minutes) {
+        return new Arrival(id, T0.plusMinutes(minutes));
+    }
+
+    @Test
+    void newCursorReadsNothing() {
+        ReadState state = ReadState.of(null);
+
+        assertFalse(state.isRead(at(1, 0)));
+        assertFalse(state.isMarked(1));
+        assertFalse(state.isHidden(1));
+    }
+
+    @Test
+    void markAllReadCoversEarlierArrivalsOnly() {
+        ReadState state = ReadState.of(null);
+        List<Arrival> visible = List.of(at(10, 0), at(11, 1), at(12, 2));
+
+        state.readThrough(visible.get(2));
+        state.compact(visible);
+
+        visible.forEach(a -> assertTrue(state.isRead(a)));
+        assertFalse(state.isRead(at(13, 3)));
+    }
+
+    @Test
+    void draftSentAfterCursorIsUnreadDespiteLowerId() {
+        ReadState state = ReadState.of(null);
+        state.readThrough(at(20, 5));
+
+        // Draft created before broadcast 20 (id 7) but sent after the user read through 20
+        Arrival draft = at(7, 10);
+
+        assertFalse(state.isRead(draft));
+        assertTrue(state.isRead(at(7, 4)));
+    }
+
+    @Test
+    void audienceJoinedAfterCursorIsUnread() {
+        ReadState state = ReadState.of(null);
+        state.readThrough(at(30, 60));
+
+        // Class broadcast sent long ago (id 5), visible since the user joined the class after the cursor moved
+        LocalDateTime sent = T0;
+        LocalDateTime joined = T0.plusMinutes(90);
+        Arrival arrival = new Arrival(5, NotificationBroadcastService.arrivedAt(sent, joined));
+
+        assertEquals(joined, arrival.at());
+        assertFalse(state.isRead(arrival));
+    }
+
+    @Test
+    void arrivalIsSendTimeWhenJoinedEarlierOrUnknown() {
+        LocalDateTime sent = T0.plusMinutes(30);
+
+        assertEquals(sent, NotificationBroadcastService.arrivedAt(sent, T0));
+        assertEquals(sent, NotificationBroadcastService.arrivedAt(sent, null));
+        assertEquals(LocalDateTime.MIN, NotificationBroadcastService.arrivedAt(null, null));
+    }
+
+    @Test
+    void compactMovesCursorOverLeadingReadAndDropsTheirBits() {
+        ReadState state = ReadState.of(null);
+        List<Arrival> visible = List.of(at(3, 0), at(1, 1), at(2, 2));
+
+        state.markRead(1);
+        state.compact(visible);
+        assertNull(state.readThrough, "first broadcast still unread, cursor stays");
+        assertTrue(state.isMarked(1));
+
+        state.markRead(3);
+        state.compact(visible);
+        assertEquals(at(1, 1), state.readThrough);
+        assertFalse(state.isMarked(1));
+        assertFalse(state.isMarked(3));
+        assertFalse(state.isRead(at(2, 2)));
+    }
+
+    @Test
+    void explicitReadAfterCursorSurvivesCompact() {
+        ReadState state = ReadState.of(null);
+        List<Arrival> visible = List.of(at(1, 0), at(2, 1), at(3, 2));
+
+        state.markRead(3);
+        state.compact(visible);
+
+        assertTrue(state.isRead(at(3, 2)));
+        assertFalse(state.isRead(at(1, 0)));
+        assertFalse(state.isRead(at(2, 1)));
+    }
+
+    @Test
+    void compactForgetsReadBitsOfBroadcastsNoLongerVisible() {
+        ReadState state = ReadState.of(null);
+        state.markRead(40);
+        state.markRead(42);
+
+        state.compact(List.of(at(41, 0), at(42, 1)));
+
+        assertFalse(state.isMarked(40));
+        assertTrue(state.isMarked(42));
+    }
+
+    @Test
+    void hiddenCountsAsReadAndIsRetainedOnlyWhileVisible() {
+        ReadState state = ReadState.of(null);
+        state.hide(50);
+        state.hide(45);
+
+        assertTrue(state.isHidden(45));
+        assertTrue(state.isRead(at(50, 0)));
+
+        state.retainHidden(Set.of(50));
+        assertFalse(state.isHidden(45));
+        assertTrue(state.isHidden(50));
+    }
+
+    @Test
+    void readOrHiddenIdsListsBothSetsOnce() {
+        ReadState state = ReadState.of(null);
+        state.readThrough(at(10, 0));
+        state.markRead(14);
+        state.markRead(12);
+        state.hide(12);
+        state.hide(3);
+
+        assertEquals(Set.of("3", "12", "14"), Set.of(state.readOrHiddenIds().split(",")));
+        assertEquals(3, state.readOrHiddenIds().split(",").length);
+        assertEquals("", ReadState.of(null).readOrHiddenIds());
+    }
+
+    @Test
+    void roundTripsThroughCursorEntity() {
+        ReadState state = ReadState.of(null);
+        state.readThrough(at(8, 3));
+        state.markRead(12);
+        state.markRead(10);
+        state.hide(9);
+
+        NotificationReadCursor cursor = new NotificationReadCursor();
+        state.writeTo(cursor);
+        ReadState loaded = ReadState.of(cursor);
+
+        assertEquals(8, cursor.getReadThrough());
+        assertEquals(10, cursor.getReadBase());
+        assertEquals(at(8, 3), loaded.readThrough);
+        assertTrue(loaded.isMarked(10));
+        assertTrue(loaded.isMarked(12));
+        assertFalse(loaded.isMarked(11));
+        assertTrue(loaded.isHidden(9));
+        assertTrue(loaded.isRead(at(100, 2)));
+        assertFalse(loaded.isRead(at(100, 4)));
+    }
+
+    @Test
+    void emptyStateWritesNoCursorPosition() {
+        NotificationReadCursor cursor = new NotificationReadCursor();
+        ReadState.of(null).writeTo(cursor);
+
+        assertEquals(0, cursor.getReadThrough());
+        assertNull(cursor.getReadThroughAt());
+        assertNull(cursor.getReadBits());
+        assertNull(cursor.getHiddenBits());
+    }
+}
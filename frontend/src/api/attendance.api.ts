@@ -28,6 +28,14 @@ export interface AttendanceSummary {
   remainingSessions: number;
 }
 
+export interface CheckInResult {
+  sessionId: number;
+  classCode: string;
+  className: string;
+  status: "ACCEPTED" | "ALREADY_CHECKED_IN";
+  checkedInAt: string | null;
+}
+
 export const attendanceApi = {
   // Get all sessions with attendance for a course
   getSessionAttendance: (courseId: number) =>
@@ -36,4 +44,8 @@ export const attendanceApi = {
   // Get attendance summary for a course
   getAttendanceSummary: (courseId: number) =>
     axios.get<ApiResponse<AttendanceSummary>>(`/api/attendance/course/${courseId}/summary`),
+
+  // Self check-in with the code shown by the trainer (or the scanned QR payload)
+  checkIn: (code: string, sessionId?: number) =>
+    axios.post<ApiResponse<CheckInResult>>(`/api/attendance/check-in`, { sessionId, code }),
 };
@@ -0,0 +1,24 @@
+import axios from "../lib/axios";
+
+export interface ApiResponse<T> {
+  data: T;
+  message: string;
+}
+
+export interface CalendarSubscription {
+  path: string; // e.g. /api/calendar/feed/12/<token>.ics
+}
+
+export const calendarApi = {
+  // Personal ICS feed to subscribe to from Google Calendar / Outlook
+  getSubscription: () =>
+    axios.get<ApiResponse<CalendarSubscription>>(`/calendar/subscription`),
+
+  // New feed URL; the previous one stops working
+  resetSubscription: () =>
+    axios.post<ApiResponse<CalendarSubscription>>(`/calendar/subscription/reset`),
+
+  // webcal:// link for calendar apps, built against the API origin
+  toWebcalUrl: (path: string, apiOrigin: string = window.location.origin) =>
+    new URL(path, apiOrigin).toString().replace(/^https?:/, "webcal:"),
+};
@@ -45,6 +45,31 @@ export interface CourseCompletion {
   students: StudentCompletion[];
 }
 
+export interface CertificateIssuanceJob {
+  jobId: string;
+  courseId: number;
+  status: 'QUEUED' | 'RUNNING' | 'COMPLETED' | 'FAILED';
+  totalMembers: number;
+  eligible: number;
+  processed: number;
+  issued: number;
+  skipped: number;
+  errorMessage?: string | null;
+  createdAt: string;
+  finishedAt?: string | null;
+}
+
+export interface CertificateVerification {
+  certificateCode: string;
+  status: 'VALID' | 'REVOKED' | 'EXPIRED' | 'NOT_FOUND';
+  valid: boolean;
+  studentName?: string | null;
+  courseName?: string | null;
+  grade?: string | null;
+  issueDate?: string | null;
+  expiryDate?: string | null;
+}
+
 export interface ApiResponse<T> {
   success: boolean;
   data: T;
@@ -65,7 +90,19 @@ export const certificateApi = {
   getCompletedCourses: () =>
     axios.get<ApiResponse<CourseCompletion[]>>(`/certificates/hr/completed-courses`),
 
-  // HR: issue certificates to all eligible students of a course
+  // HR: start issuing certificates to all eligible students of a course (background job)
   issueCertificates: (courseId: number) =>
-    axios.post<ApiResponse<{ issued: number }>>(`/certificates/hr/issue/${courseId}`),
+    axios.post<ApiResponse<CertificateIssuanceJob>>(`/certificates/hr/issue/${courseId}`),
+
+  // Public: verify a certificate code
+  verify: (certificateCode: string) =>
+    axios.get<ApiResponse<CertificateVerification>>(`/certificates/verify/${encodeURIComponent(certificateCode)}`),
+
+  // HR: revoke a certificate
+  revoke: (certificateId: number, reason?: string) =>
+    axios.post<ApiResponse<Certificate>>(`/certificates/hr/${certificateId}/revoke`, { reason }),
+
+  // HR: progress and result of an issuance job
+  getIssuanceJob: (jobId: string) =>
+    axios.get<ApiResponse<CertificateIssuanceJob>>(`/certificates/hr/issue/jobs/${jobId}`),
 };
\ No newline at end of file
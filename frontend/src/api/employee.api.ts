@@ -149,6 +149,7 @@ export interface QuizDto {
   exhausted: boolean;
   passedRegularCount: number;
   totalRegularCount: number;
+  attemptId?: number; // set on the attempt view returned by startQuiz
 }
 
 export interface QuizOptionResult {
@@ -263,7 +264,11 @@ export const employeeApi = {
   getQuiz: (courseId: number, quizId: number, userId: number) =>
     axios.get<{ success: boolean; data: QuizDto; message: string }>(`${BASE}/courses/${courseId}/quizzes/${quizId}`, { params: { userId } }),
 
-  submitQuiz: (courseId: number, quizId: number, payload: { userId: number; answers: Record<number, number> }) =>
+  // Starts (or resumes) an attempt; questions and options come in the attempt's own (shuffled) order
+  startQuiz: (courseId: number, quizId: number, userId: number) =>
+    axios.post<{ success: boolean; data: QuizDto; message: string }>(`${BASE}/courses/${courseId}/quizzes/${quizId}/attempts`, null, { params: { userId } }),
+
+  submitQuiz: (courseId: number, quizId: number, payload: { userId: number; attemptId?: number; answers: Record<number, number> }) =>
     axios.post<{ success: boolean; data: QuizResultDto; message: string }>(`${BASE}/courses/${courseId}/quizzes/${quizId}/submit`, payload),
 
   getAttemptResult: (attemptId: number, userId: number) =>
@@ -19,6 +19,29 @@ export interface Notification {
   actionUrl?: string;
 }
 
+export interface NotificationFanOutJob {
+  jobId: string;
+  notificationId: number;
+  audience: "ALL" | "EMPLOYEES" | "TRAINERS" | "HR" | "CLASS_MEMBERS";
+  status: "QUEUED" | "RUNNING" | "COMPLETED" | "FAILED";
+  recipients: number;
+  delivered: number;
+  errorMessage: string | null;
+  createdAt: string;
+  finishedAt: string | null;
+}
+
+// "unread" stream event: absolute count, or a delta to apply to the badge
+export interface NotificationUnread {
+  count?: number | null;
+  delta: number;
+}
+
+export interface NotificationStreamHandlers {
+  onNotification: (notification: Notification) => void;
+  onUnread: (unread: NotificationUnread) => void;
+  onResync: () => void;
+}
 
 export interface ApiResponse<T> {
   data: T;
@@ -36,6 +59,14 @@ export const notificationApi = {
     return res.data.data;
   },
 
+  // Unread badge count (maintained server-side, no inbox load)
+  async getUnreadCount(): Promise<number> {
+    const res = await axios.get<ApiResponse<NotificationUnread>>(
+      `${API_URL}/unread-count`
+    );
+    return res.data.data.count ?? 0;
+  },
+
   // Mark notification as read
   async markAsRead(notificationId: number) {
     await axios.put(`${API_URL}/${notificationId}/read`);
@@ -59,6 +90,28 @@ export const notificationApi = {
     return res.data.data;
   },
 
+  // Delivery progress of a sent notification (fanOutJobId returned on send)
+  async getFanOutJob(jobId: string): Promise<NotificationFanOutJob> {
+    const res = await axios.get<ApiResponse<NotificationFanOutJob>>(
+      `${API_URL}/fan-out/${jobId}`
+    );
+    return res.data.data;
+  },
+
+  // Live inbox over Server-Sent Events (session cookie); returns a function closing the stream
+  openStream(handlers: NotificationStreamHandlers): () => void {
+    const baseUrl = import.meta.env.VITE_API_URL || "http://localhost:8080/api";
+    const source = new EventSource(`${baseUrl}${API_URL}/stream`, { withCredentials: true });
+    source.addEventListener("notification", (e) =>
+      handlers.onNotification(JSON.parse((e as MessageEvent).data))
+    );
+    source.addEventListener("unread", (e) =>
+      handlers.onUnread(JSON.parse((e as MessageEvent).data))
+    );
+    source.addEventListener("resync", () => handlers.onResync());
+    return () => source.close();
+  },
+
 }
 
 ;
\ No newline at end of file
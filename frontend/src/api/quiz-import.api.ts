@@ -7,6 +7,7 @@ export interface QuizImportResponse {
   totalQuestions: number;
   courseId: number;
   moduleId?: number;
+  importErrors?: string[];
 }
 
 export interface ParsedQuizResponse {
@@ -30,6 +31,7 @@ export interface ParsedQuizResponse {
     explanation: string;
     displayOrder: number;
   }[];
+  errors?: string[];
 }
 
 export const quizImportApi = {
@@ -45,6 +45,30 @@ export interface QuizAnswerDto {
   selectedAnswerIndex: number;
   isCorrect: boolean | null;
   marksObtained: number | null;
+  timeSpentSeconds?: number | null;
+}
+
+export interface QuizItemStats {
+  questionId: number;
+  displayOrder: number;
+  questionText: string;
+  correctAnswer: string;
+  responses: number;
+  difficulty: number | null;
+  discrimination: number | null;
+  optionARate: number | null;
+  optionBRate: number | null;
+  optionCRate: number | null;
+  optionDRate: number | null;
+  unansweredRate: number | null;
+  averageTimeSeconds: number | null;
+}
+
+export interface QuizItemAnalysisDto {
+  quizId: number;
+  quizTitle: string;
+  gradedAttempts: number;
+  items: QuizItemStats[];
 }
 
 export interface QuizAttemptDto {
@@ -66,6 +90,15 @@ export interface QuizAttemptDto {
   answers: QuizAnswerDto[] | null;
 }
 
+export interface QuizSubmissionStatusDto {
+  attemptId: number;
+  status: "QUEUED" | "PROCESSING" | "GRADED" | "FAILED";
+  queuedAt: string;
+  processedAt: string | null;
+  errorMessage: string | null;
+  result: QuizAttemptDto | null;
+}
+
 export interface ApiResponse<T> {
   data: T;
   message: string;
@@ -88,6 +121,12 @@ export const quizApi = {
   getQuizById: (quizId: number, userId: number) =>
     axios.get<ApiResponse<QuizDto>>(`/quizzes/${quizId}/user/${userId}`),
 
+  /**
+   * Get the cached learner payload of a quiz (no answer key); revalidated by ETag
+   */
+  getQuizPayload: (quizId: number) =>
+    axios.get<ApiResponse<QuizDto>>(`/quizzes/${quizId}/payload`),
+
   /**
    * Start a new quiz attempt
    */
@@ -100,6 +139,42 @@ export const quizApi = {
   submitQuizAttempt: (attemptId: number, answers: QuizAnswerDto[], timeTakenMinutes: number) =>
     axios.post<ApiResponse<QuizAttemptDto>>("/quizzes/submit", { attemptId, answers, timeTakenMinutes }),
 
+  /**
+   * Submit quiz attempt in exam-burst mode (queued, graded in the background)
+   */
+  submitQuizAttemptAsync: (attemptId: number, answers: QuizAnswerDto[], timeTakenMinutes: number) =>
+    axios.post<ApiResponse<QuizSubmissionStatusDto>>("/quizzes/submit-async", { attemptId, answers, timeTakenMinutes }),
+
+  /**
+   * Poll grading status of a queued submission
+   */
+  getSubmissionStatus: (attemptId: number) =>
+    axios.get<ApiResponse<QuizSubmissionStatusDto>>(`/quizzes/submissions/${attemptId}`),
+
+  /**
+   * Autosave one answer while the attempt is in progress
+   */
+  autosaveAnswer: (attemptId: number, questionId: number, selectedAnswerIndex: number | null) =>
+    axios.put<ApiResponse<void>>(`/quizzes/attempts/${attemptId}/answers`, { questionId, selectedAnswerIndex }),
+
+  /**
+   * Get recorded per-question answers of an attempt
+   */
+  getAttemptAnswers: (attemptId: number) =>
+    axios.get<ApiResponse<QuizAnswerDto[]>>(`/quizzes/attempts/${attemptId}/answers`),
+
+  /**
+   * Get the questions of an attempt in its own (shuffled) order, without answers
+   */
+  getAttemptQuestions: (attemptId: number) =>
+    axios.get<ApiResponse<QuizDto>>(`/quizzes/attempts/${attemptId}/questions`),
+
+  /**
+   * Get the question-quality report of a quiz (trainer)
+   */
+  getItemAnalysis: (quizId: number) =>
+    axios.get<ApiResponse<QuizItemAnalysisDto>>(`/quizzes/${quizId}/item-analysis`),
+
   /**
    * Get user quiz attempts for a specific quiz
    */
@@ -15,6 +15,40 @@ export interface ClassAttendanceDto {
   students: StudentAttendanceDto[];
 }
 
+export interface AttendanceSessionColumn {
+  sessionId: number;
+  date: string;
+  presentCount: number;
+}
+
+export interface AttendanceMemberRow {
+  userId: number;
+  fullName: string;
+  attendedSessions: number;
+  attendanceRate: number;
+  eligible: boolean;
+  marks: (boolean | null)[];
+}
+
+export interface ClassAttendanceMatrixDto {
+  classCode: string;
+  className: string;
+  passingRate: number;
+  sessions: AttendanceSessionColumn[];
+  members: AttendanceMemberRow[];
+}
+
+export interface CheckInWindowDto {
+  sessionId: number;
+  classCode: string;
+  className: string;
+  code: string;
+  qrPayload: string;
+  codeExpiresAt: string;
+  closesAt: string;
+  checkedInCount: number;
+}
+
 interface ApiResponse<T> {
   success: boolean;
   message: string;
@@ -40,6 +74,16 @@ export const getClassAttendance = async (
   return response.data.data;
 };
 
+// Attendance heatmap (members x sessions) for a class
+export const getClassAttendanceMatrix = async (
+  classCode: string
+): Promise<ClassAttendanceMatrixDto> => {
+  const response = await api.get<ApiResponse<ClassAttendanceMatrixDto>>(
+    `trainer/attendance/class/${classCode}/matrix`
+  );
+  return response.data.data;
+};
+
 export const saveClassAttendance = async (
   classCode: string,
   date: string,
@@ -49,3 +93,28 @@ export const saveClassAttendance = async (
     params: { date }
   });
 };
+
+// Open (or extend) the self check-in window for today's session
+export const openCheckIn = async (
+  classCode: string,
+  minutes?: number
+): Promise<CheckInWindowDto> => {
+  const response = await api.post<ApiResponse<CheckInWindowDto>>(
+    `trainer/attendance/class/${classCode}/check-in`,
+    null,
+    { params: { minutes } }
+  );
+  return response.data.data;
+};
+
+// Current rotating code; poll until codeExpiresAt
+export const getCheckIn = async (sessionId: number): Promise<CheckInWindowDto> => {
+  const response = await api.get<ApiResponse<CheckInWindowDto>>(
+    `trainer/attendance/check-in/${sessionId}`
+  );
+  return response.data.data;
+};
+
+export const closeCheckIn = async (sessionId: number): Promise<void> => {
+  await api.delete(`trainer/attendance/check-in/${sessionId}`);
+};
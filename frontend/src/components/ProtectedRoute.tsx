@@ -1,6 +1,7 @@
 import React, { useEffect, useState } from 'react';
 import { Navigate, useLocation } from 'react-router-dom';
 import { useAuthStore } from '../stores/auth.store';
+import { useNotificationStore } from '../stores/notification.store';
 
 interface ProtectedRouteProps {
   children: React.ReactNode;
@@ -28,6 +29,14 @@ const ProtectedRoute: React.FC<ProtectedRouteProps> = ({
     initAuth();
   }, [initialized, fetchMe]);
 
+  // Live notifications for every authenticated layout; reconnects when the user changes
+  const connectStream = useNotificationStore(state => state.connectStream);
+  const userId = user?.id;
+  useEffect(() => {
+    if (!userId) return;
+    return connectStream();
+  }, [userId, connectStream]);
+
   // Show loading while checking authentication
   if (isLoading || !initialized) {
     return (
@@ -22,7 +22,7 @@ export default function FinalExamPage() {
 
   useEffect(() => {
     if (!user?.id || !courseId || !quizId) return;
-    employeeApi.getQuiz(Number(courseId), Number(quizId), user.id)
+    employeeApi.startQuiz(Number(courseId), Number(quizId), user.id)
       .then(res => {
         setQuiz(res.data.data);
         setTimeLeft((res.data.data.timeLimitMinutes || 60) * 60);
@@ -36,7 +36,7 @@ export default function FinalExamPage() {
     setSubmitting(true);
     setShowConfirm(false);
     try {
-      const res = await employeeApi.submitQuiz(Number(courseId), quiz.id, { userId: user.id, answers });
+      const res = await employeeApi.submitQuiz(Number(courseId), quiz.id, { userId: user.id, attemptId: quiz.attemptId, answers });
       setResult(res.data.data);
       setIsSubmitted(true);
     } catch {
@@ -21,7 +21,7 @@ export default function QuizPage() {
 
   useEffect(() => {
     if (!user?.id || !courseId || !quizId) return;
-    employeeApi.getQuiz(Number(courseId), Number(quizId), user.id)
+    employeeApi.startQuiz(Number(courseId), Number(quizId), user.id)
       .then(res => {
         const quizData = res.data.data;
         setQuiz(quizData);
@@ -37,6 +37,7 @@ export default function QuizPage() {
     try {
       const res = await employeeApi.submitQuiz(Number(courseId), quiz.id, {
         userId: user.id,
+        attemptId: quiz.attemptId,
         answers,
       });
       const resultData = res.data.data;
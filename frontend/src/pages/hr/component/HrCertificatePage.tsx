@@ -32,7 +32,16 @@ export const HrCertificatePage: React.FC = () => {
     setIssuing(courseId);
     try {
       const res = await certificateApi.issueCertificates(courseId);
-      const issued = res.data?.data?.issued ?? 0;
+      let job = res.data?.data;
+      while (job && (job.status === 'QUEUED' || job.status === 'RUNNING')) {
+        await new Promise((resolve) => setTimeout(resolve, 1500));
+        job = (await certificateApi.getIssuanceJob(job.jobId)).data?.data;
+      }
+      if (!job || job.status === 'FAILED') {
+        showToast(job?.errorMessage ?? 'Cấp chứng chỉ thất bại', false);
+        return;
+      }
+      const issued = job.issued;
       showToast(issued > 0 ? `Đã cấp ${issued} chứng chỉ thành công` : 'Không có học viên mới đủ điều kiện', issued >= 0);
       load();
     } catch {
@@ -5,6 +5,11 @@ import type {
   HRDashboardStats,
   HrNotification,
   HRSchedule,
+  ScheduleConflict,
+  GenerateSessionsRequest,
+  SessionGenerationResult,
+  AutoPlanRequest,
+  AutoPlanResult,
 } from '../../types/hr.types';
 
 type ApiResponse<T> = {
@@ -31,6 +36,18 @@ export const hrScheduleService = {
     axios.put<ApiResponse<HRSchedule>>(`/hr/schedules/${id}`, payload),
   remove: (id: string | number) =>
     axios.delete<ApiResponse<void>>(`/hr/schedules/${id}`),
+  // Dry run of a bulk import: every invalid row and trainer/room conflict
+  validateBatch: (rows: Omit<HRSchedule, 'id'>[]) =>
+    axios.post<ApiResponse<ScheduleConflict[]>>('/hr/schedules/validate', rows),
+  // All-or-nothing bulk create; 409 with { conflicts } when any row fails
+  importBatch: (rows: Omit<HRSchedule, 'id'>[]) =>
+    axios.post<ApiResponse<HRSchedule[]>>('/hr/schedules/import', rows),
+  // Expand a class's weekly schedule into sessions (dryRun = preview)
+  generate: (payload: GenerateSessionsRequest) =>
+    axios.post<ApiResponse<SessionGenerationResult>>('/hr/schedules/generate', payload),
+  // Proposed conflict-free schedule for several classes; commit it with importBatch
+  plan: (payload: AutoPlanRequest) =>
+    axios.post<ApiResponse<AutoPlanResult>>('/hr/schedules/plan', payload),
 };
 
 export const hrNotificationService = {
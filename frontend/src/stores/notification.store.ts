@@ -57,6 +57,7 @@ interface NotificationState {
   markAsRead: (id: number) => Promise<void>;
   markAllAsRead: () => Promise<void>;
   deleteNotification: (id: number) => Promise<void>;
+  connectStream: () => () => void;
 }
 
 export const useNotificationStore = create<NotificationState>((set, get) => ({
@@ -164,6 +165,28 @@ export const useNotificationStore = create<NotificationState>((set, get) => ({
     } catch (error) {
       console.error("Failed to delete notification", error);
     }
+  },
+
+  // Live updates; call once after login and keep the returned function to disconnect
+  connectStream: () => {
+    return notificationApi.openStream({
+      onNotification: (notification) => {
+        set(state => ({
+          notifications: [
+            transformNotification(notification),
+            ...state.notifications.filter(n => n.id !== notification.id)
+          ]
+        }));
+      },
+      onUnread: ({ count, delta }) => {
+        set(state => ({
+          unreadCount: count != null ? count : Math.max(0, state.unreadCount + delta)
+        }));
+      },
+      onResync: () => {
+        get().fetchNotifications();
+      }
+    });
   }
 
 }));
\ No newline at end of file
@@ -47,6 +47,58 @@ export type HRSchedule = {
   notes?: string;
 };
 
+export type ScheduleConflict = {
+  index: number; // row of the submitted batch
+  type: 'TRAINER' | 'ROOM' | 'INVALID';
+  date?: string;
+  startTime?: string;
+  endTime?: string;
+  conflictingSessionId?: number | null;
+  conflictingIndex?: number | null;
+  message: string;
+};
+
+export type GenerateSessionsRequest = {
+  classCode: string;
+  fromDate: string;
+  toDate?: string;
+  maxSessions?: number;
+  skipDates?: string[];
+  dryRun?: boolean;
+};
+
+export type SessionGenerationResult = {
+  classCode: string;
+  saved: boolean;
+  generatedCount: number;
+  sessions: Omit<HRSchedule, 'id'>[];
+  skippedDates: string[];
+  existingDates: string[];
+  conflicts: ScheduleConflict[];
+};
+
+export type AutoPlanRequest = {
+  fromDate: string;
+  toDate: string;
+  classes: { classCode: string; sessions: number; trainerUsername?: string }[];
+  rooms: string[];
+  slotStarts: string[]; // "08:00", "13:30"
+  durationMinutes?: number;
+  days?: string[]; // MON..SUN, default MON-FRI
+  skipDates?: string[];
+  trainerAvailability?: { trainerUsername: string; days?: string[]; unavailableDates?: string[] }[];
+};
+
+export type AutoPlanResult = {
+  sessions: Omit<HRSchedule, 'id'>[];
+  requestedCount: number;
+  plannedCount: number;
+  unplaced: string[];
+  restarts: number;
+  iterations: number;
+  elapsedMs: number;
+};
+
 export type NotificationChannel = 'In-app' | 'Email';
 export type NotificationStatus = 'Draft' | 'Scheduled' | 'Sent' | 'Cancelled';
 